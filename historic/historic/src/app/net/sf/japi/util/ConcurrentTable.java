@@ -0,0 +1,109 @@
+/* JAPI - (Yet another (hopefully) useful) Java API
+ *
+ * Copyright (C) 2004-2006 Christian Hujer
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ * 02111-1307, USA.
+ */
+
+package net.sf.japi.util;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** A thread-safe {@link Table}.
+ * Modifications are serialized, so both indexes are always updated together.
+ * Lookups and the views returned by them don't lock.
+ * They read the concurrent indexes directly, and iterators of views are weakly consistent, like those of {@link ConcurrentHashMap}.
+ * @author <a href="mailto:chris@riedquat.de">Christian Hujer</a>
+ */
+public class ConcurrentTable<T1,T2> extends Table<T1,T2> {
+
+    /** Create a concurrent table. */
+    public ConcurrentTable() {
+        super(new ConcurrentHashMap<T1,Set<T2>>(), new ConcurrentHashMap<T2,Set<T1>>());
+    }
+
+    /** {@inheritDoc} */
+    @Override protected <T> Set<T> createSet() {
+        return new ConcurrentHashSet<T>();
+    }
+
+    /** {@inheritDoc} */
+    @Override public synchronized void clear() {
+        super.clear();
+    }
+
+    /** {@inheritDoc} */
+    @Override public synchronized boolean putPair(final T1 t1, final T2 t2) {
+        return super.putPair(t1, t2);
+    }
+
+    /** {@inheritDoc} */
+    @Override public synchronized boolean removeAllFirst(final T1 first) {
+        return super.removeAllFirst(first);
+    }
+
+    /** {@inheritDoc} */
+    @Override public synchronized boolean removeAllSecond(final T2 second) {
+        return super.removeAllSecond(second);
+    }
+
+    /** {@inheritDoc} */
+    @Override public synchronized boolean removePair(final T1 t1, final T2 t2) {
+        return super.removePair(t1, t2);
+    }
+
+    /** {@inheritDoc} */
+    @Override public synchronized int size() {
+        return super.size();
+    }
+
+    /** A Set backed by the keys of a {@link ConcurrentHashMap}. */
+    private static final class ConcurrentHashSet<E> extends AbstractSet<E> {
+
+        /** The map whose keys are the elements of this set. */
+        private final ConcurrentHashMap<E,Boolean> map = new ConcurrentHashMap<E,Boolean>();
+
+        /** {@inheritDoc} */
+        @Override public Iterator<E> iterator() {
+            return map.keySet().iterator();
+        }
+
+        /** {@inheritDoc} */
+        @Override public int size() {
+            return map.size();
+        }
+
+        /** {@inheritDoc} */
+        @Override public boolean contains(final Object o) {
+            return map.containsKey(o);
+        }
+
+        /** {@inheritDoc} */
+        @Override public boolean add(final E e) {
+            return map.put(e, Boolean.TRUE) == null;
+        }
+
+        /** {@inheritDoc} */
+        @Override public boolean remove(final Object o) {
+            return map.remove(o) != null;
+        }
+
+    } // class ConcurrentHashSet
+
+} // class ConcurrentTable
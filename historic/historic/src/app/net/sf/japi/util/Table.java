@@ -20,90 +20,127 @@
 
 package net.sf.japi.util;
 
+import java.util.AbstractSet;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
 
 /** A special Collection class that is like a Map but which allows duplicate keys.
  * Only duplicate key/value pairs aren't allowed.
  * The key therefor is named first, the value second.
  * Uniqueness is gained with Key/Value pairs.
+ * <p>
+ * A Table is a many-to-many relation.
+ * It keeps two indexes, one from firsts to seconds and one from seconds to firsts, which are both updated on every insert and remove.
+ * Lookups therefore cost O(result) instead of O(table).
+ * The collections returned by lookups are live read-only views of the table, not copies.
+ * They reflect later changes of the table.
+ * <p>
+ * A Table is not thread-safe, and iterating a view while the table is modified results in undefined behaviour.
+ * Use {@link ConcurrentTable} for concurrent access.
+ * <code>null</code> firsts or seconds are not supported.
  * @author <a href="mailto:chris@riedquat.de">Christian Hujer</a>
  */
 @SuppressWarnings({"BooleanMethodNameMustStartWithQuestion"})
 public class Table<T1,T2> {
 
-    /** The pairs of the table. */
-    private final Set<Pair<T1,T2>> pairs = new HashSet<Pair<T1,T2>>();
+    /** The index from firsts to their seconds. */
+    private final Map<T1,Set<T2>> secondsByFirst;
+
+    /** The index from seconds to their firsts. */
+    private final Map<T2,Set<T1>> firstsBySecond;
+
+    /** The number of pairs in this table. */
+    private int size;
 
     /** Create a table. */
     public Table() {
+        this(new HashMap<T1,Set<T2>>(), new HashMap<T2,Set<T1>>());
+    }
+
+    /** Create a table with the specified index maps.
+     * Subclasses use this to choose the map implementation of the indexes, see also {@link #createSet()}.
+     * @param secondsByFirst empty map to use as index from firsts to seconds
+     * @param firstsBySecond empty map to use as index from seconds to firsts
+     */
+    protected Table(final Map<T1,Set<T2>> secondsByFirst, final Map<T2,Set<T1>> firstsBySecond) {
+        this.secondsByFirst = secondsByFirst;
+        this.firstsBySecond = firstsBySecond;
+    }
+
+    /** Create a set for the values of an index entry.
+     * Subclasses override this to choose the set implementation of the indexes.
+     * @return new empty set
+     */
+    protected <T> Set<T> createSet() {
+        return new HashSet<T>();
     }
 
     /** Completely Clear the table. */
     public void clear() {
-        pairs.clear();
+        secondsByFirst.clear();
+        firstsBySecond.clear();
+        size = 0;
+    }
+
+    /** Check whether the table contains a pair.
+     * @param t1 first of pair
+     * @param t2 second of pair
+     * @return <code>true</code> if the table contains the pair, otherwise <code>false</code>
+     */
+    public boolean containsPair(final T1 t1, final T2 t2) {
+        final Set<T2> seconds = secondsByFirst.get(t1);
+        return seconds != null && seconds.contains(t2);
+    }
+
+    /** Get all firsts of the table.
+     * @return live read-only view of all firsts
+     */
+    public Set<T1> getFirsts() {
+        return Collections.unmodifiableSet(secondsByFirst.keySet());
+    }
+
+    /** Get all seconds of the table.
+     * @return live read-only view of all seconds
+     */
+    public Set<T2> getSeconds() {
+        return Collections.unmodifiableSet(firstsBySecond.keySet());
     }
 
     /** Get all firsts that match the second.
      * @param second second to match
-     * @return all firsts that match second
+     * @return live read-only view of all firsts that match second
      */
     public Collection<T1> getFirstsBySecond(final T2 second) {
-        final Set<T1> firsts = new HashSet<T1>();
-        for (final Pair<T1, T2> pair : pairs) {
-            final T2 pairSecond = pair.getSecond();
-            if (pairSecond.equals(second)) {
-                firsts.add(pair.getFirst());
-            }
-        }
-        return firsts;
+        return new IndexView<T2,T1>(firstsBySecond, second);
     }
 
     /** Get all pairs that match the first.
      * @param first first to match
-     * @return all pairs that match first
+     * @return live read-only view of all pairs that match first
      */
     public Collection<Pair<T1,T2>> getPairsByFirst(final T1 first) {
-        final Set<Pair<T1,T2>> pairsByFirst = new HashSet<Pair<T1,T2>>();
-        for (final Pair<T1, T2> pair : pairs) {
-            final T1 pairFirst = pair.getFirst();
-            if (pairFirst.equals(first)) {
-                pairsByFirst.add(pair);
-            }
-        }
-        return pairsByFirst;
+        return new PairsByFirstView(first);
     }
 
     /** Get all pairs that match the second.
      * @param second second to match
-     * @return all pairs that match second
+     * @return live read-only view of all pairs that match second
      */
     public Collection<Pair<T1,T2>> getPairsBySecond(final T2 second) {
-        final Set<Pair<T1,T2>> pairsBySecond = new HashSet<Pair<T1,T2>>();
-        for (final Pair<T1, T2> pair : pairs) {
-            final T2 pairSecond = pair.getSecond();
-            if (pairSecond.equals(second)) {
-                pairsBySecond.add(pair);
-            }
-        }
-        return pairsBySecond;
+        return new PairsBySecondView(second);
     }
 
     /** Get all seconds that match the first.
      * @param first first to match
-     * @return all seconds that match first
+     * @return live read-only view of all seconds that match first
      */
     public Collection<T2> getSecondsByFirst(final T1 first) {
-        final Set<T2> seconds = new HashSet<T2>();
-        for (final Pair<T1, T2> pair : pairs) {
-            final T1 pairFirst = pair.getFirst();
-            if (pairFirst.equals(first)) {
-                seconds.add(pair.getSecond());
-            }
-        }
-        return seconds;
+        return new IndexView<T1,T2>(secondsByFirst, first);
     }
 
     /** Put a pair into the table.
@@ -111,7 +148,7 @@ public class Table<T1,T2> {
      * @return <code>true</code> if the table did not already contain that <var>pair</var>, otherwise <code>false</code>
      */
     public boolean putPair(final Pair<T1,T2> pair) {
-        return pairs.add(pair);
+        return putPair(pair.getFirst(), pair.getSecond());
     }
 
     /** Put a pair into the table.
@@ -120,7 +157,12 @@ public class Table<T1,T2> {
      * @return <code>true</code> if the table did not already contain that <var>pair</var>, otherwise <code>false</code>
      */
     public boolean putPair(final T1 t1, final T2 t2) {
-        return pairs.add(new Pair<T1,T2>(t1, t2));
+        if (!addToIndex(secondsByFirst, t1, t2)) {
+            return false;
+        }
+        addToIndex(firstsBySecond, t2, t1);
+        size++;
+        return true;
     }
 
     /** Remove all pairs that match a first.
@@ -130,17 +172,15 @@ public class Table<T1,T2> {
      * @retval <code>false</code> if no matching pairs were found
      */
     public boolean removeAllFirst(final T1 first) {
-        boolean ret = false;
-        //noinspection ForLoopWithMissingComponent
-        for (final Iterator<Pair<T1,T2>> it = pairs.iterator(); it.hasNext();) {
-            final Pair<T1,T2> pair = it.next();
-            final T1 pairFirst = pair.getFirst();
-            if (pairFirst.equals(first)) {
-                it.remove();
-                ret = true;
-            }
+        final Set<T2> seconds = secondsByFirst.remove(first);
+        if (seconds == null) {
+            return false;
+        }
+        for (final T2 second : seconds) {
+            removeFromIndex(firstsBySecond, second, first);
         }
-        return ret;
+        size -= seconds.size();
+        return true;
     }
 
     /** Remove all pairs that match a second.
@@ -150,17 +190,15 @@ public class Table<T1,T2> {
      * @retval <code>false</code> if no matching pairs were found
      */
     public boolean removeAllSecond(final T2 second) {
-        boolean ret = false;
-        //noinspection ForLoopWithMissingComponent
-        for (final Iterator<Pair<T1,T2>> it = pairs.iterator(); it.hasNext();) {
-            final Pair<T1,T2> pair = it.next();
-            final T2 pairSecond = pair.getSecond();
-            if (pairSecond.equals(second)) {
-                it.remove();
-                ret = true;
-            }
+        final Set<T1> firsts = firstsBySecond.remove(second);
+        if (firsts == null) {
+            return false;
         }
-        return ret;
+        for (final T1 first : firsts) {
+            removeFromIndex(secondsByFirst, first, second);
+        }
+        size -= firsts.size();
+        return true;
     }
 
     /** Remove a pair from the table.
@@ -168,7 +206,7 @@ public class Table<T1,T2> {
      * @return <code>true</code> if the table contained the <var>pair</var>, thus the <var>pair</var> was successfully removed, otherwise <code>false</code>
      */
     public boolean removePair(final Pair<T1,T2> pair) {
-        return pairs.remove(pair);
+        return removePair(pair.getFirst(), pair.getSecond());
     }
 
     /** Remove a pair into the table.
@@ -177,14 +215,208 @@ public class Table<T1,T2> {
      * @return <code>true</code> if the table did not already contain that <var>pair</var>, otherwise <code>false</code>
      */
     public boolean removePair(final T1 t1, final T2 t2) {
-        return pairs.remove(new Pair<T1,T2>(t1, t2));
+        if (!removeFromIndex(secondsByFirst, t1, t2)) {
+            return false;
+        }
+        removeFromIndex(firstsBySecond, t2, t1);
+        size--;
+        return true;
     }
 
     /** Get the size of the table.
      * @return size of the table
      */
     public int size() {
-        return pairs.size();
+        return size;
     }
 
+    /** Add a value to the set of a key in an index.
+     * @param index index to add to
+     * @param key key of the set
+     * @param value value to add
+     * @return <code>true</code> if the value was added, <code>false</code> if the index already contained it
+     */
+    private <K,V> boolean addToIndex(final Map<K,Set<V>> index, final K key, final V value) {
+        Set<V> values = index.get(key);
+        if (values == null) {
+            values = createSet();
+            index.put(key, values);
+        }
+        return values.add(value);
+    }
+
+    /** Remove a value from the set of a key in an index.
+     * The set is removed from the index when it becomes empty.
+     * @param index index to remove from
+     * @param key key of the set
+     * @param value value to remove
+     * @return <code>true</code> if the value was removed, <code>false</code> if the index did not contain it
+     */
+    private static <K,V> boolean removeFromIndex(final Map<K,Set<V>> index, final K key, final V value) {
+        final Set<V> values = index.get(key);
+        if (values == null || !values.remove(value)) {
+            return false;
+        }
+        if (values.isEmpty()) {
+            index.remove(key);
+        }
+        return true;
+    }
+
+    /** Get an iterator over the values of a key in an index.
+     * @param index index to iterate
+     * @param key key of the values
+     * @return read-only iterator over the values of the key
+     */
+    private static <K,V> Iterator<V> indexIterator(final Map<K,Set<V>> index, final K key) {
+        final Set<V> values = index.get(key);
+        return values == null ? Collections.<V>emptySet().iterator() : Collections.unmodifiableSet(values).iterator();
+    }
+
+    /** Get the number of values of a key in an index.
+     * @param index index to query
+     * @param key key of the values
+     * @return number of values of the key
+     */
+    private static <K,V> int indexSize(final Map<K,Set<V>> index, final K key) {
+        final Set<V> values = index.get(key);
+        return values == null ? 0 : values.size();
+    }
+
+    /** Live read-only view of the values of a key in an index.
+     * The set of the key is looked up on every access because it is replaced when the key is removed and added again.
+     */
+    private static final class IndexView<K,V> extends AbstractSet<V> {
+
+        /** The index. */
+        private final Map<K,Set<V>> index;
+
+        /** The key of the viewed values. */
+        private final K key;
+
+        /** Create an IndexView.
+         * @param index index to view
+         * @param key key of the values to view
+         */
+        IndexView(final Map<K,Set<V>> index, final K key) {
+            this.index = index;
+            this.key = key;
+        }
+
+        /** {@inheritDoc} */
+        @Override public Iterator<V> iterator() {
+            return indexIterator(index, key);
+        }
+
+        /** {@inheritDoc} */
+        @Override public int size() {
+            return indexSize(index, key);
+        }
+
+        /** {@inheritDoc} */
+        @Override public boolean contains(final Object o) {
+            final Set<V> values = index.get(key);
+            return values != null && values.contains(o);
+        }
+
+    } // class IndexView
+
+    /** Live read-only view of the pairs that match a first. */
+    private final class PairsByFirstView extends AbstractSet<Pair<T1,T2>> {
+
+        /** The first to match. */
+        private final T1 first;
+
+        /** Create a PairsByFirstView.
+         * @param first first to match
+         */
+        PairsByFirstView(final T1 first) {
+            this.first = first;
+        }
+
+        /** {@inheritDoc} */
+        @Override public Iterator<Pair<T1,T2>> iterator() {
+            final Iterator<T2> seconds = indexIterator(secondsByFirst, first);
+            return new Iterator<Pair<T1,T2>>() {
+                /** {@inheritDoc} */
+                public boolean hasNext() {
+                    return seconds.hasNext();
+                }
+                /** {@inheritDoc} */
+                public Pair<T1,T2> next() {
+                    return new Pair<T1,T2>(first, seconds.next());
+                }
+                /** {@inheritDoc} */
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        /** {@inheritDoc} */
+        @Override public int size() {
+            return indexSize(secondsByFirst, first);
+        }
+
+        /** {@inheritDoc} */
+        @Override public boolean contains(final Object o) {
+            if (!(o instanceof Pair)) {
+                return false;
+            }
+            final Pair<?,?> pair = (Pair<?,?>) o;
+            final Set<T2> seconds = secondsByFirst.get(first);
+            return first.equals(pair.getFirst()) && seconds != null && seconds.contains(pair.getSecond());
+        }
+
+    } // class PairsByFirstView
+
+    /** Live read-only view of the pairs that match a second. */
+    private final class PairsBySecondView extends AbstractSet<Pair<T1,T2>> {
+
+        /** The second to match. */
+        private final T2 second;
+
+        /** Create a PairsBySecondView.
+         * @param second second to match
+         */
+        PairsBySecondView(final T2 second) {
+            this.second = second;
+        }
+
+        /** {@inheritDoc} */
+        @Override public Iterator<Pair<T1,T2>> iterator() {
+            final Iterator<T1> firsts = indexIterator(firstsBySecond, second);
+            return new Iterator<Pair<T1,T2>>() {
+                /** {@inheritDoc} */
+                public boolean hasNext() {
+                    return firsts.hasNext();
+                }
+                /** {@inheritDoc} */
+                public Pair<T1,T2> next() {
+                    return new Pair<T1,T2>(firsts.next(), second);
+                }
+                /** {@inheritDoc} */
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        /** {@inheritDoc} */
+        @Override public int size() {
+            return indexSize(firstsBySecond, second);
+        }
+
+        /** {@inheritDoc} */
+        @Override public boolean contains(final Object o) {
+            if (!(o instanceof Pair)) {
+                return false;
+            }
+            final Pair<?,?> pair = (Pair<?,?>) o;
+            final Set<T1> firsts = firstsBySecond.get(second);
+            return second.equals(pair.getSecond()) && firsts != null && firsts.contains(pair.getFirst());
+        }
+
+    } // class PairsBySecondView
+
 } // class Table
@@ -0,0 +1,67 @@
+/* JAPI - (Yet another (hopefully) useful) Java API
+ *
+ * Copyright (C) 2004-2006 Christian Hujer
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+ * 02111-1307, USA.
+ */
+
+package test.net.sf.japi.util;
+
+import net.sf.japi.util.ConcurrentTable;
+import net.sf.japi.util.Table;
+
+/** Test class for {@link ConcurrentTable}.
+ * @author <a href="mailto:chris@riedquat.de">Christian Hujer</a>
+ */
+public class ConcurrentTableTest extends TableTest {
+
+    /** {@inheritDoc} */
+    @Override protected Table<Object,Object> createTable() {
+        return new ConcurrentTable<Object,Object>();
+    }
+
+    /** Test case for concurrently putting and removing pairs.
+     * @throws Exception (unexpected).
+     */
+    public void testConcurrentModification() throws Exception {
+        final int threadCount = 4;
+        final int pairCount = 1000;
+        final Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            final Integer first = i;
+            threads[i] = new Thread() {
+                /** {@inheritDoc} */
+                @Override public void run() {
+                    for (int j = 0; j < pairCount; j++) {
+                        oUT.putPair(first, j);
+                        oUT.getFirstsBySecond(j).size();
+                    }
+                    for (int j = 0; j < pairCount; j += 2) {
+                        oUT.removePair(first, j);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        assertSize("Concurrently added and removed", threadCount * pairCount / 2);
+        assertEquals("Each odd second must have all firsts.", threadCount, oUT.getFirstsBySecond(1).size());
+        assertTrue("Even seconds must be removed.", oUT.getFirstsBySecond(0).isEmpty());
+    }
+
+} // class ConcurrentTableTest
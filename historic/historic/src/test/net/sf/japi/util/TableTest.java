@@ -21,6 +21,9 @@
 
 package test.net.sf.japi.util;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import junit.framework.TestCase;
 import net.sf.japi.util.Pair;
 import net.sf.japi.util.Table;
@@ -31,12 +34,20 @@ import net.sf.japi.util.Table;
 public class TableTest extends TestCase {
 
     /** Object Under Test: A Table. */
-    private Table<Object,Object> oUT;
+    protected Table<Object,Object> oUT;
 
     /** {@inheritDoc} */
     @Override public void setUp() throws Exception {
         super.setUp();
-        oUT = new Table<Object,Object>();
+        oUT = createTable();
+    }
+
+    /** Create the Object Under Test.
+     * Subclasses override this to test subclasses of Table.
+     * @return new empty table
+     */
+    protected Table<Object,Object> createTable() {
+        return new Table<Object,Object>();
     }
 
     /** {@inheritDoc} */
@@ -79,14 +90,84 @@ public class TableTest extends TestCase {
         final Object value2 = "value2";
         oUT.putPair(new Pair<Object,Object>(key2, value2));
         assertSize("Added 2 Elements", 2);
-        // TODO: Get pairs and compare...
+        assertFalse("Adding a duplicate pair must return false.", oUT.putPair(key1, value1));
+        assertSize("Added duplicate", 2);
+        assertTrue("Table must contain added pair.", oUT.containsPair(key1, value1));
+        assertTrue("Table must contain added pair.", oUT.containsPair(key2, value2));
+        assertFalse("Table must not contain pair that was not added.", oUT.containsPair(key1, value2));
+    }
+
+    /** Test case for the lookup methods. */
+    public void testLookups() {
+        fill();
+        assertEquals("Seconds by first", set("a", "b"), new HashSet<Object>(oUT.getSecondsByFirst(1)));
+        assertEquals("Firsts by second", set(1, 2), new HashSet<Object>(oUT.getFirstsBySecond("b")));
+        assertEquals("Pairs by first", set(new Pair<Object,Object>(2, "b"), new Pair<Object,Object>(2, "c")), new HashSet<Object>(oUT.getPairsByFirst(2)));
+        assertEquals("Pairs by second", set(new Pair<Object,Object>(1, "a")), new HashSet<Object>(oUT.getPairsBySecond("a")));
+        assertTrue("Pairs by second must contain matching pair.", oUT.getPairsBySecond("c").contains(new Pair<Object,Object>(2, "c")));
+        assertFalse("Pairs by second must not contain pair of other second.", oUT.getPairsBySecond("c").contains(new Pair<Object,Object>(2, "b")));
+        assertTrue("Unknown first must have no seconds.", oUT.getSecondsByFirst(3).isEmpty());
+        assertEquals("Firsts", set(1, 2), oUT.getFirsts());
+        assertEquals("Seconds", set("a", "b", "c"), oUT.getSeconds());
+    }
+
+    /** Test case for lookup results being live read-only views. */
+    public void testLiveViews() {
+        final Collection<Object> seconds = oUT.getSecondsByFirst(1);
+        assertTrue("View must be empty.", seconds.isEmpty());
+        fill();
+        assertEquals("View must reflect added pairs.", 2, seconds.size());
+        oUT.removeAllFirst(1);
+        assertTrue("View must reflect removed pairs.", seconds.isEmpty());
+        oUT.putPair(1, "d");
+        assertEquals("View must reflect pairs added after removal.", set("d"), new HashSet<Object>(seconds));
+        try {
+            seconds.add("e");
+            fail("View must be read-only.");
+        } catch (final UnsupportedOperationException ignore) {
+            // expected
+        }
+    }
+
+    /** Test case for the remove methods. */
+    public void testRemove() {
+        fill();
+        assertTrue("Removing existing pair must return true.", oUT.removePair(2, "c"));
+        assertFalse("Removing missing pair must return false.", oUT.removePair(2, "c"));
+        assertSize("Removed 1 pair", 3);
+        assertFalse("Seconds must not contain second without pairs.", oUT.getSeconds().contains("c"));
+        assertTrue("Removing existing second must return true.", oUT.removeAllSecond("b"));
+        assertSize("Removed second b", 1);
+        assertTrue("Second b must be removed from first 1.", oUT.getSecondsByFirst(1).equals(set("a")));
+        assertFalse("First 2 must be removed.", oUT.getFirsts().contains(2));
+        assertTrue("Removing existing first must return true.", oUT.removeAllFirst(1));
+        assertFalse("Removing missing first must return false.", oUT.removeAllFirst(1));
+        assertSize("Removed all", 0);
+        assertTrue("Second a must be removed.", oUT.getSeconds().isEmpty());
+    }
+
+    /** Fill the table (oUT) with the pairs 1-a, 1-b, 2-b, 2-c. */
+    private void fill() {
+        oUT.putPair(1, "a");
+        oUT.putPair(1, "b");
+        oUT.putPair(2, "b");
+        oUT.putPair(2, "c");
+        assertSize("Filled", 4);
+    }
+
+    /** Create a set of objects.
+     * @param objects objects of the set
+     * @return set of <var>objects</var>
+     */
+    private static HashSet<Object> set(final Object... objects) {
+        return new HashSet<Object>(Arrays.asList(objects));
     }
 
     /** Assert that the table (oUT) has a certain size.
      * @param reason Reason why the size is expected
      * @param size Expected size
      */
-    private void assertSize(final String reason, final int size) {
+    protected void assertSize(final String reason, final int size) {
         assertEquals("Expected size " + size + " (Reason: " + reason + ')', size, oUT.size());
     }
 
@@ -21,12 +21,15 @@ package net.sf.japi.io;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 /** An Iterator to get lines from a Reader.
+ * An IOException of the Reader is thrown as {@link UncheckedIOException}.
+ * For scanning large files, {@link LineScanner} is much faster.
  * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
  * @since 0.1
  */
@@ -36,9 +39,12 @@ public class BRLineIterator implements Iterator<String> {
     private final BufferedReader in;
 
     /** The next line.
-     * It is pre-fetched to return a meaningful value in {@link #hasNext()}.
+     * It is fetched by {@link #hasNext()}, so an exception is thrown for the line that could not be read and not for its predecessor.
      */
-    private String nextLine;
+    @Nullable private String nextLine;
+
+    /** Whether {@link #nextLine} was fetched. */
+    private boolean fetched;
 
     /** Create a BRLineIterator.
      * @param in BufferedReader from which to return lines.
@@ -46,35 +52,36 @@ public class BRLineIterator implements Iterator<String> {
     public BRLineIterator(@NotNull final Reader in) {
         //noinspection IOResourceOpenedButNotSafelyClosed
         this.in = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
-        nextLine = readLine();
     }
 
     @Override
     public boolean hasNext() {
+        if (!fetched) {
+            nextLine = readLine();
+            fetched = true;
+        }
         return nextLine != null;
     }
 
     @Override
     public String next() {
-        if (nextLine == null) {
+        if (!hasNext()) {
             throw new NoSuchElementException();
         }
-        try {
-            return nextLine;
-        } finally {
-            nextLine = readLine();
-        }
+        fetched = false;
+        return nextLine;
     }
 
-    /** Read the next line from {@link #in} without throwing an exception.
-     * @return Next line or {@code null} if there are no more lines or {@code null} as well in case of exceptions.
+    /** Read the next line from {@link #in}.
+     * @return Next line or {@code null} if there are no more lines.
+     * @throws UncheckedIOException in case of I/O problems.
      */
     @Nullable
     private String readLine() {
         try {
             return in.readLine();
-        } catch (final IOException ignore) {
-            return null;
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
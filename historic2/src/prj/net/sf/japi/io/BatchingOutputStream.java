@@ -0,0 +1,325 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.sf.japi.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/** An OutputStream which collects bytes in buffers and writes them to another stream on a separate thread.
+ * A buffer is handed to the writer thread when it is full, when the stream is flushed, or when no buffer was written for the maximum delay.
+ * Writing to this stream therefore only copies bytes, it only waits for the other stream if all buffers are waiting to be written.
+ * <p>
+ * {@link #flush()} does not wait until the bytes are written.
+ * {@link #close()} waits until all bytes are written, then closes the other stream.
+ * If writing to the other stream fails, the IOException is thrown by the next invocation of a method of this stream.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @since 0.1
+ */
+public class BatchingOutputStream extends OutputStream {
+
+    /** The default buffer size. */
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    /** The default number of buffers. */
+    private static final int DEFAULT_BUFFER_COUNT = 4;
+
+    /** The default maximum delay in milliseconds. */
+    private static final long DEFAULT_MAX_DELAY = 100L;
+
+    /** The OutputStream to write to. */
+    @NotNull private final OutputStream out;
+
+    /** The maximum delay in nanoseconds. */
+    private final long maxDelay;
+
+    /** The buffers which are waiting to be written, an empty buffer marks the end. */
+    @NotNull private final BlockingQueue<Buffer> filled;
+
+    /** The buffers which are free for filling. */
+    @NotNull private final BlockingQueue<Buffer> free;
+
+    /** The buffer which is currently filled or <code>null</code> if none is taken yet, guarded by {@link #currentLock}. */
+    @Nullable private Buffer current;
+
+    /** The lock for {@link #current}, which the writer thread also takes to write partially filled buffers.
+     * It is never held while waiting for a free buffer, otherwise the writer thread could not return buffers.
+     */
+    @NotNull private final Object currentLock = new Object();
+
+    /** The writer thread. */
+    @NotNull private final Thread thread;
+
+    /** Whether this stream is closed. */
+    private boolean closed;
+
+    /** The exception thrown while writing to {@link #out}. */
+    @Nullable private volatile IOException exception;
+
+    /** Create a BatchingOutputStream with default buffers and a default maximum delay of 100 ms.
+     * @param out OutputStream to write to
+     */
+    public BatchingOutputStream(@NotNull final OutputStream out) {
+        this(out, DEFAULT_BUFFER_SIZE, DEFAULT_BUFFER_COUNT, DEFAULT_MAX_DELAY, TimeUnit.MILLISECONDS);
+    }
+
+    /** Create a BatchingOutputStream.
+     * @param out OutputStream to write to
+     * @param bufferSize size of a buffer in bytes
+     * @param bufferCount number of buffers, at least 2
+     * @param maxDelay maximum delay after which a partially filled buffer is written
+     * @param unit unit of <var>maxDelay</var>
+     */
+    public BatchingOutputStream(@NotNull final OutputStream out, final int bufferSize, final int bufferCount, final long maxDelay, @NotNull final TimeUnit unit) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Illegal buffer size " + bufferSize);
+        }
+        if (bufferCount < 2) {
+            throw new IllegalArgumentException("Illegal buffer count " + bufferCount);
+        }
+        this.out = out;
+        this.maxDelay = unit.toNanos(maxDelay);
+        filled = new ArrayBlockingQueue<Buffer>(bufferCount + 1);
+        free = new ArrayBlockingQueue<Buffer>(bufferCount);
+        for (int i = 0; i < bufferCount; i++) {
+            free.add(new Buffer(bufferSize));
+        }
+        thread = new Thread(new Runnable() {
+            /** {@inheritDoc} */
+            public void run() {
+                writeBuffers();
+            }
+        }, "BatchingOutputStream writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** {@inheritDoc} */
+    @Override public synchronized void write(final int b) throws IOException {
+        checkOpen();
+        while (true) {
+            synchronized (currentLock) {
+                final Buffer buffer = current;
+                if (buffer != null) {
+                    buffer.data[buffer.count++] = (byte) b;
+                    if (buffer.count == buffer.data.length) {
+                        handOver();
+                    }
+                    return;
+                }
+            }
+            takeFreeBuffer();
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override public synchronized void write(@NotNull final byte[] b, final int off, final int len) throws IOException {
+        if (off < 0 || len < 0 || off + len > b.length || off + len < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+        checkOpen();
+        int written = 0;
+        while (written < len) {
+            synchronized (currentLock) {
+                final Buffer buffer = current;
+                if (buffer != null) {
+                    final int n = Math.min(len - written, buffer.data.length - buffer.count);
+                    System.arraycopy(b, off + written, buffer.data, buffer.count, n);
+                    buffer.count += n;
+                    written += n;
+                    if (buffer.count == buffer.data.length) {
+                        handOver();
+                    }
+                    continue;
+                }
+            }
+            takeFreeBuffer();
+        }
+    }
+
+    /** Hands the bytes written so far to the writer thread without waiting until they are written.
+     * @throws IOException in case of I/O problems
+     */
+    @Override public synchronized void flush() throws IOException {
+        checkOpen();
+        synchronized (currentLock) {
+            if (current != null && current.count > 0) {
+                handOver();
+            }
+        }
+    }
+
+    /** Writes all bytes and closes the other stream.
+     * @throws IOException in case of I/O problems
+     */
+    @Override public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            synchronized (currentLock) {
+                if (current != null && current.count > 0) {
+                    handOver();
+                }
+            }
+            try {
+                filled.put(new Buffer(0));
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+        try {
+            thread.join();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        try {
+            checkException();
+        } finally {
+            out.close();
+        }
+    }
+
+    /** Throws the exception of the writer thread, if any.
+     * @throws IOException exception of the writer thread
+     */
+    private void checkException() throws IOException {
+        final IOException e = exception;
+        if (e != null) {
+            throw e;
+        }
+    }
+
+    /** Checks that this stream is open and the writer thread did not fail.
+     * @throws IOException if the stream is closed or the writer thread failed
+     */
+    private void checkOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        checkException();
+    }
+
+    /** Waits for a free buffer and makes it the current buffer.
+     * Must only be invoked while there is no current buffer and {@link #currentLock} is not held.
+     * @throws IOException if the writer thread failed or the current thread was interrupted
+     */
+    private void takeFreeBuffer() throws IOException {
+        final Buffer buffer;
+        try {
+            buffer = free.take();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        synchronized (currentLock) {
+            current = buffer;
+        }
+        checkException();
+    }
+
+    /** Hands the current buffer to the writer thread.
+     * Must only be invoked while holding {@link #currentLock}.
+     * This never waits, {@link #filled} has room for all buffers and the end marker.
+     */
+    private void handOver() {
+        assert current != null;
+        filled.add(current);
+        current = null;
+    }
+
+    /** Takes the current buffer if it contains bytes and no filled buffers are waiting to be written.
+     * Buffers are handed over while holding {@link #currentLock}, so if {@link #filled} is empty, the current buffer holds the oldest bytes which are not written yet.
+     * @return The current buffer or <code>null</code> if there is no current buffer, it is empty, or filled buffers have to be written first.
+     */
+    @Nullable private Buffer takeCurrent() {
+        synchronized (currentLock) {
+            final Buffer buffer = current;
+            if (buffer == null || buffer.count == 0 || !filled.isEmpty()) {
+                return null;
+            }
+            current = null;
+            return buffer;
+        }
+    }
+
+    /** Writes the filled buffers until the end marker is reached. */
+    private void writeBuffers() {
+        try {
+            while (true) {
+                Buffer buffer = filled.poll(maxDelay, TimeUnit.NANOSECONDS);
+                if (buffer == null) {
+                    buffer = takeCurrent();
+                    if (buffer == null) {
+                        continue;
+                    }
+                }
+                if (buffer.data.length == 0) {
+                    break;
+                }
+                if (exception == null) {
+                    try {
+                        out.write(buffer.data, 0, buffer.count);
+                        if (filled.isEmpty()) {
+                            out.flush();
+                        }
+                    } catch (final IOException e) {
+                        exception = e;
+                    }
+                }
+                buffer.count = 0;
+                free.add(buffer);
+            }
+            out.flush();
+        } catch (final InterruptedException ignore) {
+            // terminate
+        } catch (final IOException e) {
+            if (exception == null) {
+                exception = e;
+            }
+        }
+    }
+
+    /** A buffer with its fill level. */
+    private static final class Buffer {
+
+        /** The bytes. */
+        @NotNull private final byte[] data;
+
+        /** The number of bytes in {@link #data}. */
+        private int count;
+
+        /** Create a Buffer.
+         * @param size size of the buffer in bytes
+         */
+        Buffer(final int size) {
+            data = new byte[size];
+        }
+
+    } // class Buffer
+
+} // class BatchingOutputStream
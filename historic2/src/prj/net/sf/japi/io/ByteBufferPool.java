@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.sf.japi.io;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jetbrains.annotations.NotNull;
+
+/** A pool of ByteBuffers of equal size.
+ * Allocating direct buffers is expensive and their memory is only released by garbage collection, so buffers for I/O should be reused.
+ * A ByteBufferPool keeps up to a maximum number of released buffers for reuse, further released buffers are left to garbage collection.
+ * A ByteBufferPool is thread-safe.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @since 0.1
+ */
+public class ByteBufferPool {
+
+    /** The size of the buffers in bytes. */
+    private final int bufferSize;
+
+    /** The maximum number of pooled buffers. */
+    private final int maxPooled;
+
+    /** Whether the buffers are direct. */
+    private final boolean direct;
+
+    /** The pooled buffers. */
+    @NotNull private final Queue<ByteBuffer> pool = new ConcurrentLinkedQueue<ByteBuffer>();
+
+    /** The number of pooled buffers. */
+    @NotNull private final AtomicInteger pooled = new AtomicInteger();
+
+    /** Create a ByteBufferPool.
+     * @param bufferSize size of the buffers in bytes
+     * @param maxPooled maximum number of buffers kept for reuse
+     * @param direct <code>true</code> for direct buffers, <code>false</code> for heap buffers
+     */
+    public ByteBufferPool(final int bufferSize, final int maxPooled, final boolean direct) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Illegal buffer size " + bufferSize);
+        }
+        if (maxPooled < 0) {
+            throw new IllegalArgumentException("Illegal maximum number of pooled buffers " + maxPooled);
+        }
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+        this.direct = direct;
+    }
+
+    /** Returns a cleared buffer, either a pooled one or a newly allocated one.
+     * @return Cleared buffer.
+     */
+    @NotNull public ByteBuffer acquire() {
+        final ByteBuffer buffer = pool.poll();
+        if (buffer != null) {
+            pooled.decrementAndGet();
+            return buffer;
+        }
+        return direct ? ByteBuffer.allocateDirect(bufferSize) : ByteBuffer.allocate(bufferSize);
+    }
+
+    /** Returns a buffer to this pool.
+     * The buffer must not be used after it was released.
+     * @param buffer Buffer to release, must have been acquired from this pool.
+     */
+    public void release(@NotNull final ByteBuffer buffer) {
+        if (buffer.capacity() != bufferSize || buffer.isDirect() != direct) {
+            throw new IllegalArgumentException("Buffer not from this pool");
+        }
+        buffer.clear();
+        if (pooled.incrementAndGet() <= maxPooled) {
+            pool.offer(buffer);
+        } else {
+            pooled.decrementAndGet();
+        }
+    }
+
+    /** Returns the size of the buffers of this pool.
+     * @return The size of the buffers in bytes.
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /** Returns the number of buffers currently kept for reuse.
+     * @return The number of pooled buffers.
+     */
+    public int getPooledCount() {
+        return pooled.get();
+    }
+
+} // class ByteBufferPool
@@ -21,7 +21,15 @@ package net.sf.japi.io;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /** A Runnable that copies from an InputStream to an OutputStream.
  *
@@ -32,15 +40,22 @@ import org.jetbrains.annotations.NotNull;
  *
  *      // Copies data from one file to another.
  *      new Copier(new FileInputStream(inputFilename), new FileOutputStream(outputFilename)).start();
+ *
+ *      // Copies data on a shared pool of threads and waits for the result.
+ *      final long bytesCopied = new Copier(in, out).copyAsync().get();
  * </pre>
  *
- * @note Copying is done in a separate thread.
+ * @note With {@link #start()}, copying is done in a separate thread.
  *       The starting thread is not notified of any exceptions that occur.
+ *       With {@link #copyAsync()}, the returned future is completed with the number of bytes copied or the exception that occurred.
+ *       An {@link Error} also completes the future, and is rethrown in the thread of the executor.
+ *
+ * Copiers with the default buffer size share a pool of buffers, so many concurrent copiers do not allocate a buffer each.
+ * Automatic flush only flushes when the input has no more bytes available, i.e. before reading would block.
  *
  * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
  * @since 0.1
  */
-// TODO:2009-06-14:christianhujer:Implement reasonable exception handling.
 public class Copier implements Runnable {
 
     /** Default buffer size when copying. */
@@ -52,6 +67,9 @@ public class Copier implements Runnable {
     /** Default automatic close. */
     public static final boolean DEFAULT_AUTO_CLOSE = true;
 
+    /** The pool of buffers of the default size. */
+    private static final ByteBufferPool BUFFER_POOL = new ByteBufferPool(DEFAULT_BUF_SIZE, 256, false);
+
     /** The InputStream to read from. */
     @NotNull private final InputStream in;
 
@@ -108,29 +126,99 @@ public class Copier implements Runnable {
         return thread;
     }
 
-    /** {@inheritDoc} */
-    public void run() {
-        final byte[] buf = new byte[bufSize];
+    /** Start the copier on the default executor, a shared pool of daemon threads.
+     * @return Future which is completed with the number of bytes copied or the exception that occurred.
+     */
+    @NotNull public CompletableFuture<Long> copyAsync() {
+        return copyAsync(DefaultExecutor.EXECUTOR);
+    }
+
+    /** Start the copier on an executor.
+     * @param executor Executor on which to copy.
+     * @return Future which is completed with the number of bytes copied or the exception that occurred.
+     */
+    @NotNull public CompletableFuture<Long> copyAsync(@NotNull final Executor executor) {
+        final CompletableFuture<Long> future = new CompletableFuture<Long>();
+        try {
+            executor.execute(new Runnable() {
+                /** {@inheritDoc} */
+                public void run() {
+                    try {
+                        future.complete(copy());
+                    } catch (final Throwable t) {
+                        // Errors are passed on as well, otherwise the future would never complete.
+                        future.completeExceptionally(t);
+                        if (t instanceof Error) {
+                            throw (Error) t;
+                        }
+                    }
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /** Copies in the current thread.
+     * @return the number of bytes copied
+     * @throws IOException in case of I/O problems
+     */
+    public long copy() throws IOException {
+        @Nullable final ByteBuffer pooled = bufSize == DEFAULT_BUF_SIZE ? BUFFER_POOL.acquire() : null;
+        final byte[] buf = pooled != null ? pooled.array() : new byte[bufSize];
+        long bytesCopied = 0L;
         try {
             try {
                 for (int bytesRead; (bytesRead = in.read(buf)) != -1;) {
                     out.write(buf, 0, bytesRead);
-                    if (autoFlush) {
+                    bytesCopied += bytesRead;
+                    if (autoFlush && in.available() == 0) {
                         out.flush();
                     }
                 }
-            } finally {
                 if (autoFlush) {
                     out.flush();
                 }
+            } finally {
                 if (autoClose) {
-                    out.close();
-                    in.close();
+                    try {
+                        out.close();
+                    } finally {
+                        in.close();
+                    }
                 }
             }
+        } finally {
+            if (pooled != null) {
+                BUFFER_POOL.release(pooled);
+            }
+        }
+        return bytesCopied;
+    }
+
+    /** {@inheritDoc} */
+    public void run() {
+        try {
+            copy();
         } catch (final IOException e) {
             System.err.println(e);
         }
     }
 
+    /** Holder for the default executor, which is only created when used. */
+    private static final class DefaultExecutor {
+
+        /** The default executor, a pool of daemon threads. */
+        static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+            /** {@inheritDoc} */
+            public Thread newThread(@NotNull final Runnable r) {
+                final Thread thread = new Thread(r, "Copier");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+    } // class DefaultExecutor
+
 } // class Copier
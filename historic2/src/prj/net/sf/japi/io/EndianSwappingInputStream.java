@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.sf.japi.io;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import net.sf.japi.util.EndianConverter;
+import org.jetbrains.annotations.NotNull;
+
+/** An InputStream which reverses the byte order of the fixed-size elements read from another stream.
+ * For example, with an element size of 4, a stream of big endian ints is read as a stream of little endian ints and vice versa.
+ * The stream reads in blocks and converts each block with {@link EndianConverter#swapEndianess(byte[], int, int, int)}.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @since 0.1
+ */
+public class EndianSwappingInputStream extends FilterInputStream {
+
+    /** The default buffer size. */
+    private static final int DEFAULT_BUFFER_SIZE = 65536;
+
+    /** The size of an element in bytes. */
+    private final int elementSize;
+
+    /** The buffer. */
+    private final byte[] buf;
+
+    /** The position of the next byte to return from {@link #buf}. */
+    private int pos;
+
+    /** The number of converted bytes in {@link #buf}. */
+    private int converted;
+
+    /** The number of bytes in {@link #buf}, including the bytes of an incomplete element after {@link #converted}. */
+    private int count;
+
+    /** Create an EndianSwappingInputStream.
+     * @param in InputStream to read from
+     * @param elementSize size of an element in bytes, e.g. 4 for int
+     */
+    public EndianSwappingInputStream(@NotNull final InputStream in, final int elementSize) {
+        this(in, elementSize, DEFAULT_BUFFER_SIZE);
+    }
+
+    /** Create an EndianSwappingInputStream.
+     * @param in InputStream to read from
+     * @param elementSize size of an element in bytes, e.g. 4 for int
+     * @param bufferSize size of the buffer in bytes, rounded up to a multiple of <var>elementSize</var>
+     */
+    public EndianSwappingInputStream(@NotNull final InputStream in, final int elementSize, final int bufferSize) {
+        super(in);
+        if (elementSize <= 0) {
+            throw new IllegalArgumentException("Illegal element size " + elementSize);
+        }
+        this.elementSize = elementSize;
+        buf = new byte[Math.max(1, (bufferSize + elementSize - 1) / elementSize) * elementSize];
+    }
+
+    /** Fills the buffer with at least one complete element.
+     * @return <code>false</code> if the end of the stream was reached, otherwise <code>true</code>
+     * @throws IOException in case of I/O problems, or an {@link EOFException} in case the stream ends with an incomplete element
+     */
+    private boolean fill() throws IOException {
+        final int incomplete = count - converted;
+        System.arraycopy(buf, converted, buf, 0, incomplete);
+        pos = 0;
+        count = incomplete;
+        while (count < elementSize) {
+            final int n = in.read(buf, count, buf.length - count);
+            if (n == -1) {
+                converted = 0;
+                if (count > 0) {
+                    throw new EOFException("Stream ends with an incomplete element of " + count + " bytes");
+                }
+                return false;
+            }
+            count += n;
+        }
+        converted = count - count % elementSize;
+        EndianConverter.swapEndianess(buf, 0, converted, elementSize);
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int read() throws IOException {
+        if (pos >= converted && !fill()) {
+            return -1;
+        }
+        return buf[pos++] & 0xFF;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int read(@NotNull final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (pos >= converted && !fill()) {
+            return -1;
+        }
+        final int n = Math.min(len, converted - pos);
+        System.arraycopy(buf, pos, b, off, n);
+        pos += n;
+        return n;
+    }
+
+    /** {@inheritDoc} */
+    @Override public long skip(final long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && (pos < converted || fill())) {
+            final int step = (int) Math.min(n - skipped, converted - pos);
+            pos += step;
+            skipped += step;
+        }
+        return skipped;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int available() throws IOException {
+        return converted - pos;
+    }
+
+    /** {@inheritDoc} */
+    @Override public boolean markSupported() {
+        return false;
+    }
+
+    /** {@inheritDoc} */
+    @Override public void mark(final int readlimit) {
+    }
+
+    /** {@inheritDoc} */
+    @Override public void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+} // class EndianSwappingInputStream
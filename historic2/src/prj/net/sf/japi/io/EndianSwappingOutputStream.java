@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.sf.japi.io;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import net.sf.japi.util.EndianConverter;
+import org.jetbrains.annotations.NotNull;
+
+/** An OutputStream which reverses the byte order of the fixed-size elements written to another stream.
+ * For example, with an element size of 4, little endian ints written to this stream are written as big endian ints and vice versa.
+ * The stream collects the bytes in a buffer and converts and writes them in blocks.
+ * An incomplete element stays in the buffer until it is completed, even when the stream is flushed.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @since 0.1
+ */
+public class EndianSwappingOutputStream extends FilterOutputStream {
+
+    /** The default buffer size. */
+    private static final int DEFAULT_BUFFER_SIZE = 65536;
+
+    /** The size of an element in bytes. */
+    private final int elementSize;
+
+    /** The buffer. */
+    private final byte[] buf;
+
+    /** The number of bytes in {@link #buf}. */
+    private int count;
+
+    /** Create an EndianSwappingOutputStream.
+     * @param out OutputStream to write to
+     * @param elementSize size of an element in bytes, e.g. 4 for int
+     */
+    public EndianSwappingOutputStream(@NotNull final OutputStream out, final int elementSize) {
+        this(out, elementSize, DEFAULT_BUFFER_SIZE);
+    }
+
+    /** Create an EndianSwappingOutputStream.
+     * @param out OutputStream to write to
+     * @param elementSize size of an element in bytes, e.g. 4 for int
+     * @param bufferSize size of the buffer in bytes, rounded up to a multiple of <var>elementSize</var>
+     */
+    public EndianSwappingOutputStream(@NotNull final OutputStream out, final int elementSize, final int bufferSize) {
+        super(out);
+        if (elementSize <= 0) {
+            throw new IllegalArgumentException("Illegal element size " + elementSize);
+        }
+        this.elementSize = elementSize;
+        buf = new byte[Math.max(1, (bufferSize + elementSize - 1) / elementSize) * elementSize];
+    }
+
+    /** Converts and writes all complete elements in the buffer.
+     * @throws IOException in case of I/O problems
+     */
+    private void drain() throws IOException {
+        final int complete = count - count % elementSize;
+        EndianConverter.swapEndianess(buf, 0, complete, elementSize);
+        out.write(buf, 0, complete);
+        System.arraycopy(buf, complete, buf, 0, count - complete);
+        count -= complete;
+    }
+
+    /** {@inheritDoc} */
+    @Override public void write(final int b) throws IOException {
+        if (count == buf.length) {
+            drain();
+        }
+        buf[count++] = (byte) b;
+    }
+
+    /** {@inheritDoc} */
+    @Override public void write(@NotNull final byte[] b, final int off, final int len) throws IOException {
+        if (off < 0 || len < 0 || off + len > b.length || off + len < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+        int written = 0;
+        while (written < len) {
+            if (count == buf.length) {
+                drain();
+            }
+            final int n = Math.min(len - written, buf.length - count);
+            System.arraycopy(b, off + written, buf, count, n);
+            count += n;
+            written += n;
+        }
+    }
+
+    /** Flushes all complete elements.
+     * An incomplete element remains in the buffer.
+     * @throws IOException in case of I/O problems
+     */
+    @Override public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    /** Closes this stream.
+     * @throws IOException in case of I/O problems or if an incomplete element remains
+     */
+    @Override public void close() throws IOException {
+        try {
+            flush();
+            if (count > 0) {
+                throw new IOException("Stream closed with an incomplete element of " + count + " bytes");
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+} // class EndianSwappingOutputStream
@@ -25,7 +25,18 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongConsumer;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /** Utility class for I/O.
  * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
@@ -34,7 +45,10 @@ import org.jetbrains.annotations.NotNull;
 public final class IOUtils {
 
     /** Default size of buffers for copying and similar operations. */
-    private static final int DEFAULT_BUF_SIZE = 4096;
+    private static final int DEFAULT_BUF_SIZE = 65536;
+
+    /** Maximum number of bytes per invocation of {@link FileChannel#transferTo(long, long, WritableByteChannel)} or {@link FileChannel#transferFrom(ReadableByteChannel, long, long)}, which determines how often progress is reported. */
+    private static final long TRANSFER_CHUNK_SIZE = 8L * 1024L * 1024L;
 
     /** Utility class - do not instantiate. */
     private IOUtils() {
@@ -52,14 +66,161 @@ public final class IOUtils {
      * @throws IOException in case of I/O problems.
      */
     public static void copy(@NotNull final InputStream in, @NotNull final OutputStream out) throws IOException {
+        copy(in, out, null);
+    }
+
+    /** Copies all remaining data from one stream to another, reporting progress.
+     *
+     * If <var>in</var> is a {@link FileInputStream} and <var>out</var> is a {@link FileOutputStream}, the data is transferred between their channels, which allows the operating system to copy without passing the data through the Java heap.
+     * Otherwise, the data is copied through a buffer.
+     * Files which report a size of 0, like pipes, devices or the files in <code>/proc</code>, are copied through a buffer, too, because their size does not tell how much data they provide.
+     * The output stream is not flushed after copying.
+     *
+     * @param in InputStream from which to copy.
+     * @param out OutputStream to which the data is copied.
+     * @param progress Callback which receives the number of bytes copied so far after each chunk, or <code>null</code>.
+     * @return The number of bytes copied.
+     *
+     * @throws IOException in case of I/O problems.
+     */
+    public static long copy(@NotNull final InputStream in, @NotNull final OutputStream out, @Nullable final LongConsumer progress) throws IOException {
+        // Subclasses may override read or write, so only the exact classes are transferred through their channels.
+        if (in.getClass() == FileInputStream.class && out.getClass() == FileOutputStream.class) {
+            final FileChannel inChannel = ((FileInputStream) in).getChannel();
+            if (hasSize(inChannel)) {
+                return transferTo(inChannel, ((FileOutputStream) out).getChannel(), progress);
+            }
+        }
         final byte[] buf = new byte[DEFAULT_BUF_SIZE];
+        long bytesCopied = 0L;
         //noinspection NestedAssignment
         for (int bytesRead; (bytesRead = in.read(buf)) != -1;) {
             out.write(buf, 0, bytesRead);
+            bytesCopied += bytesRead;
+            if (progress != null) {
+                progress.accept(bytesCopied);
+            }
+        }
+        return bytesCopied;
+    }
+
+    /** Copies all remaining data from one channel to another, reporting progress.
+     *
+     * If <var>in</var> is a {@link FileChannel} of a file with a size, the data is copied with {@link FileChannel#transferTo(long, long, WritableByteChannel)}, which for example allows the operating system to send a file to a socket without passing the data through the Java heap.
+     * Otherwise, if <var>in</var> is no {@link FileChannel} and <var>out</var> is a {@link FileChannel}, the data is copied with {@link FileChannel#transferFrom(ReadableByteChannel, long, long)}.
+     * Otherwise, the data is copied through a direct buffer.
+     * The positions of file channels are advanced by the number of bytes copied.
+     *
+     * @param in Channel from which to copy, must be in blocking mode.
+     * @param out Channel to which the data is copied, must be in blocking mode.
+     * @param progress Callback which receives the number of bytes copied so far after each chunk, or <code>null</code>.
+     * @return The number of bytes copied.
+     *
+     * @throws IOException in case of I/O problems.
+     * @throws IllegalBlockingModeException in case one of the channels is in non-blocking mode.
+     */
+    public static long copy(@NotNull final ReadableByteChannel in, @NotNull final WritableByteChannel out, @Nullable final LongConsumer progress) throws IOException {
+        checkBlocking(in);
+        checkBlocking(out);
+        if (in instanceof FileChannel) {
+            // transferFrom() also relies on the size of a file channel, so files without size are copied through the buffer.
+            if (hasSize((FileChannel) in)) {
+                return transferTo((FileChannel) in, out, progress);
+            }
+        } else if (out instanceof FileChannel) {
+            return transferFrom(in, (FileChannel) out, progress);
+        }
+        final ByteBuffer buf = ByteBuffer.allocateDirect(DEFAULT_BUF_SIZE);
+        long bytesCopied = 0L;
+        while (in.read(buf) != -1) {
+            buf.flip();
+            while (buf.hasRemaining()) {
+                bytesCopied += out.write(buf);
+            }
+            buf.clear();
+            if (progress != null) {
+                progress.accept(bytesCopied);
+            }
+        }
+        return bytesCopied;
+    }
+
+    /** Throws an exception if a channel is in non-blocking mode.
+     * @param channel Channel to check.
+     * @throws IllegalBlockingModeException in case the channel is in non-blocking mode.
+     */
+    private static void checkBlocking(@NotNull final Object channel) {
+        if (channel instanceof SelectableChannel && !((SelectableChannel) channel).isBlocking()) {
+            throw new IllegalBlockingModeException();
         }
     }
 
+    /** Returns whether a file channel reports a size, which is required for copying it with {@link #transferTo(FileChannel, WritableByteChannel, LongConsumer)}.
+     * Pipes, devices and the files in <code>/proc</code> report a size of 0 although they provide data.
+     * Empty regular files also report a size of 0, copying them through a buffer is just as cheap.
+     * @param channel FileChannel to check.
+     * @return <code>true</code> if <var>channel</var> reports a size, otherwise <code>false</code>.
+     * @throws IOException in case of I/O problems.
+     */
+    private static boolean hasSize(@NotNull final FileChannel channel) throws IOException {
+        return channel.size() > 0L;
+    }
+
+    /** Copies all remaining data from a file channel to another channel.
+     * The remaining data is determined repeatedly, so data appended while copying is copied, too.
+     * @param in FileChannel from which to copy.
+     * @param out Channel to which the data is copied.
+     * @param progress Callback which receives the number of bytes copied so far after each chunk, or <code>null</code>.
+     * @return The number of bytes copied.
+     * @throws IOException in case of I/O problems.
+     */
+    private static long transferTo(@NotNull final FileChannel in, @NotNull final WritableByteChannel out, @Nullable final LongConsumer progress) throws IOException {
+        long position = in.position();
+        long bytesCopied = 0L;
+        for (long size; position < (size = in.size());) {
+            final long bytesTransferred = in.transferTo(position, Math.min(TRANSFER_CHUNK_SIZE, size - position), out);
+            if (bytesTransferred <= 0L) {
+                break;
+            }
+            position += bytesTransferred;
+            in.position(position);
+            bytesCopied += bytesTransferred;
+            if (progress != null) {
+                progress.accept(bytesCopied);
+            }
+        }
+        return bytesCopied;
+    }
+
+    /** Copies all remaining data from a channel to a file channel.
+     * @param in Channel in blocking mode from which to copy.
+     * @param out FileChannel to which the data is copied.
+     * @param progress Callback which receives the number of bytes copied so far after each chunk, or <code>null</code>.
+     * @return The number of bytes copied.
+     * @throws IOException in case of I/O problems.
+     */
+    private static long transferFrom(@NotNull final ReadableByteChannel in, @NotNull final FileChannel out, @Nullable final LongConsumer progress) throws IOException {
+        long position = out.position();
+        long bytesCopied = 0L;
+        try {
+            // A blocking channel only transfers no bytes at its end.
+            for (long bytesTransferred; (bytesTransferred = out.transferFrom(in, position, TRANSFER_CHUNK_SIZE)) > 0L;) {
+                position += bytesTransferred;
+                bytesCopied += bytesTransferred;
+                if (progress != null) {
+                    progress.accept(bytesCopied);
+                }
+            }
+        } finally {
+            out.position(position);
+        }
+        return bytesCopied;
+    }
+
     /** Copies a file.
+     *
+     * The copy is done with {@link Files#copy(java.nio.file.Path, java.nio.file.Path, java.nio.file.CopyOption...)}, so the platform can use its fastest way to copy a file.
+     * An existing file <var>toFile</var> is replaced.
      *
      * @param fromFile File to copy.
      * @param toFile File to be the copy.
@@ -67,13 +228,31 @@ public final class IOUtils {
      * @throws IOException in case of I/O problems.
      */
     public static void copy(@NotNull final File fromFile, @NotNull final File toFile) throws IOException {
-        try (final InputStream in = new FileInputStream(fromFile);
-             final OutputStream out = new FileOutputStream(toFile)) {
-            copy(in, out);
+        Files.copy(fromFile.toPath(), toFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /** Copies a file, reporting progress.
+     *
+     * The data is copied between the channels of the files like {@link #copy(ReadableByteChannel, WritableByteChannel, LongConsumer)} does, so a file with a size is transferred without passing it through the Java heap.
+     * An existing file <var>toFile</var> is overwritten.
+     *
+     * @param fromFile File to copy.
+     * @param toFile File to be the copy.
+     * @param progress Callback which receives the number of bytes copied so far after each chunk.
+     * @return The number of bytes copied.
+     *
+     * @throws IOException in case of I/O problems.
+     */
+    public static long copy(@NotNull final File fromFile, @NotNull final File toFile, @NotNull final LongConsumer progress) throws IOException {
+        try (final FileChannel in = FileChannel.open(fromFile.toPath(), StandardOpenOption.READ);
+             final FileChannel out = FileChannel.open(toFile.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return copy(in, out, progress);
         }
     }
 
     /** Returns an iterable for lines from the specified reader.
+     * An IOException of the reader is thrown as {@link java.io.UncheckedIOException} by the iterator.
+     * For scanning large files, {@link LineScanner} is much faster.
      * @param in Reader for which to return lines.
      * @return An iterable for the lines of the specified reader.
      */
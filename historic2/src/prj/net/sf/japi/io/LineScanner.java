@@ -0,0 +1,628 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.sf.japi.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/** A LineScanner returns the lines of a file or channel without decoding or copying them.
+ * Files are memory-mapped in windows, other channels are read into a large direct buffer.
+ * Line breaks are searched in the bytes, eight bytes at a time.
+ * Like {@link java.io.BufferedReader#readLine()}, a line is terminated by <code>'\n'</code>, <code>'\r'</code> or <code>"\r\n"</code>, and the terminator is not part of the line.
+ * The line breaks must be encoded as single bytes like in ASCII, which is the case for UTF-8 and the ISO-8859 charsets, but not for UTF-16.
+ * <p>
+ * {@link #next()} always returns the same {@link Line}, which is a view of the bytes of the current line.
+ * It is only decoded when used as CharSequence, so lines which are only inspected as bytes or skipped are never decoded.
+ * For ISO-8859-1, the line is a CharSequence without decoding.
+ * <p>
+ * Unlike {@link BRLineIterator}, a LineScanner throws IOExceptions.
+ * For scanning a file on all processors, use {@link #split(FileChannel, Charset, int)} or {@link #parallelScan(Path, Charset, RangeTask)}.
+ * <p>
+ * Mapped windows are released by garbage collection only, which is why windows are not too large.
+ * A line which is longer than a window is handled by mapping a larger window, but a line must not be longer than 2 GiB.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @since 0.1
+ */
+public class LineScanner implements Closeable {
+
+    /** The default size of mapped windows. */
+    public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    /** The default size of the buffer for reading channels. */
+    public static final int DEFAULT_BUF_SIZE = 1024 * 1024;
+
+    /** A word with <code>'\n'</code> in every byte. */
+    private static final long LF_WORD = 0x0A0A0A0A0A0A0A0AL;
+
+    /** A word with <code>'\r'</code> in every byte. */
+    private static final long CR_WORD = 0x0D0D0D0D0D0D0D0DL;
+
+    /** A word with 1 in every byte. */
+    private static final long ONES = 0x0101010101010101L;
+
+    /** A word with the highest bit set in every byte. */
+    private static final long HIGHS = 0x8080808080808080L;
+
+    /** The FileChannel which is mapped, or <code>null</code> if {@link #channel} is read. */
+    @Nullable private final FileChannel fileChannel;
+
+    /** The channel which is read, or <code>null</code> if {@link #fileChannel} is mapped. */
+    @Nullable private final ReadableByteChannel channel;
+
+    /** The offset in {@link #fileChannel} at which scanning ends. */
+    private final long end;
+
+    /** The size of mapped windows. */
+    private final int windowSize;
+
+    /** Whether {@link #close()} closes the channel. */
+    private final boolean ownsChannel;
+
+    /** The buffer with the bytes between 0 and its limit. */
+    @NotNull private ByteBuffer buf;
+
+    /** The offset of the first byte of {@link #buf} in the input. */
+    private long bufOffset;
+
+    /** Whether {@link #buf} contains the end of the input. */
+    private boolean eof;
+
+    /** The index in {@link #buf} at which the next line starts. */
+    private int pos;
+
+    /** The index in {@link #buf} at which the search for the next line break continues. */
+    private int searchFrom;
+
+    /** The current line. */
+    @NotNull private final Line line;
+
+    /** Create a LineScanner which maps a range of a file.
+     * The range should start at the start of a line and end at the end of a line.
+     * @param fileChannel FileChannel to map, which is not closed by the LineScanner.
+     * @param start Offset at which to start.
+     * @param end Offset at which to end.
+     * @param charset Charset of the file.
+     * @param windowSize Size of mapped windows, a line longer than that results in a larger window.
+     * @throws IOException in case of I/O problems.
+     */
+    public LineScanner(@NotNull final FileChannel fileChannel, final long start, final long end, @NotNull final Charset charset, final int windowSize) throws IOException {
+        this(fileChannel, null, start, end, charset, windowSize, false);
+    }
+
+    /** Create a LineScanner which reads a channel.
+     * @param channel Channel to read, which is closed by {@link #close()}.
+     * @param charset Charset of the channel.
+     * @param bufferSize Initial size of the buffer, a line longer than that results in a larger buffer.
+     * @throws IOException in case of I/O problems.
+     */
+    public LineScanner(@NotNull final ReadableByteChannel channel, @NotNull final Charset charset, final int bufferSize) throws IOException {
+        this(null, channel, 0L, Long.MAX_VALUE, charset, bufferSize, true);
+    }
+
+    /** Create a LineScanner.
+     * @param fileChannel FileChannel to map or <code>null</code> to read <var>channel</var>.
+     * @param channel Channel to read or <code>null</code> to map <var>fileChannel</var>.
+     * @param start Offset at which to start.
+     * @param end Offset at which to end.
+     * @param charset Charset of the input.
+     * @param windowSize Size of mapped windows or the initial buffer.
+     * @param ownsChannel Whether {@link #close()} closes the channel.
+     * @throws IOException in case of I/O problems.
+     */
+    private LineScanner(@Nullable final FileChannel fileChannel, @Nullable final ReadableByteChannel channel, final long start, final long end, @NotNull final Charset charset, final int windowSize, final boolean ownsChannel) throws IOException {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Illegal window size " + windowSize);
+        }
+        if (start < 0L || start > end) {
+            throw new IllegalArgumentException("Illegal range " + start + " - " + end);
+        }
+        this.fileChannel = fileChannel;
+        this.channel = channel;
+        this.end = end;
+        this.windowSize = windowSize;
+        this.ownsChannel = ownsChannel;
+        line = new Line(charset);
+        if (fileChannel != null) {
+            map(start, (int) Math.min(windowSize, end - start));
+        } else {
+            buf = ByteBuffer.allocateDirect(windowSize).order(ByteOrder.LITTLE_ENDIAN);
+            buf.limit(0);
+            line.setBuffer(buf);
+        }
+    }
+
+    /** Opens a LineScanner which maps a file.
+     * @param file File to scan.
+     * @param charset Charset of the file.
+     * @return LineScanner for the lines of <var>file</var>, which must be closed.
+     * @throws IOException in case of I/O problems.
+     */
+    @NotNull public static LineScanner open(@NotNull final Path file, @NotNull final Charset charset) throws IOException {
+        final FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ);
+        boolean opened = false;
+        try {
+            final LineScanner scanner = new LineScanner(fileChannel, null, 0L, fileChannel.size(), charset, DEFAULT_WINDOW_SIZE, true);
+            opened = true;
+            return scanner;
+        } finally {
+            if (!opened) {
+                fileChannel.close();
+            }
+        }
+    }
+
+    /** Returns the next line.
+     * @return The next line, which is only valid until the next invocation, or <code>null</code> if there are no more lines.
+     * @throws IOException in case of I/O problems.
+     */
+    @Nullable public Line next() throws IOException {
+        while (true) {
+            final int limit = buf.limit();
+            final int i = findLineBreak(searchFrom, limit);
+            if (i < limit && (buf.get(i) == '\n' || i + 1 < limit || eof)) {
+                return emit(i, buf.get(i) == '\r' && i + 1 < limit && buf.get(i + 1) == '\n' ? 2 : 1);
+            }
+            if (eof) {
+                return pos == limit ? null : emit(limit, 0);
+            }
+            // No line break or a '\r' at the end of the buffer which may be followed by '\n'.
+            searchFrom = i;
+            refill();
+        }
+    }
+
+    /** Returns the offset in the input at which the next line starts.
+     * @return The offset at which the next line starts.
+     */
+    public long getPosition() {
+        return bufOffset + pos;
+    }
+
+    /** Sets the current line and advances to the next line.
+     * @param lineEnd Index in {@link #buf} at which the current line ends.
+     * @param terminatorLength Length of the line terminator.
+     * @return The current line.
+     */
+    @NotNull private Line emit(final int lineEnd, final int terminatorLength) {
+        line.set(pos, lineEnd - pos, bufOffset + pos);
+        pos = lineEnd + terminatorLength;
+        searchFrom = pos;
+        return line;
+    }
+
+    /** Finds the next line break.
+     * @param from Index at which to start searching.
+     * @param limit Index at which to stop searching.
+     * @return Index of the next <code>'\n'</code> or <code>'\r'</code>, or <var>limit</var> if there is none.
+     */
+    private int findLineBreak(final int from, final int limit) {
+        int i = from;
+        for (; i + 8 <= limit; i += 8) {
+            final long word = buf.getLong(i);
+            final long found = zeroBytes(word ^ LF_WORD) | zeroBytes(word ^ CR_WORD);
+            if (found != 0L) {
+                return i + (Long.numberOfTrailingZeros(found) >>> 3);
+            }
+        }
+        for (; i < limit; i++) {
+            final byte b = buf.get(i);
+            if (b == '\n' || b == '\r') {
+                return i;
+            }
+        }
+        return limit;
+    }
+
+    /** Returns a word which has the highest bit set in the lowest zero byte of a word.
+     * Higher bytes may be marked wrongly, but the lowest marked byte is always a zero byte.
+     * @param x Word to search for zero bytes.
+     * @return Word with the highest bit set in zero bytes, <code>0</code> if <var>x</var> has no zero byte.
+     */
+    private static long zeroBytes(final long x) {
+        return x - ONES & ~x & HIGHS;
+    }
+
+    /** Provides more bytes, keeping the bytes from {@link #pos}.
+     * @throws IOException in case of I/O problems or if a line is too long.
+     */
+    private void refill() throws IOException {
+        final boolean grow = pos == 0 && buf.limit() == buf.capacity();
+        if (grow && buf.capacity() > Integer.MAX_VALUE / 2) {
+            throw new IOException("Line too long at offset " + bufOffset);
+        }
+        final int keepFrom = pos;
+        if (fileChannel != null) {
+            final long offset = bufOffset + keepFrom;
+            map(offset, (int) Math.min(grow ? buf.capacity() * 2 : windowSize, end - offset));
+        } else {
+            assert channel != null;
+            buf.position(keepFrom);
+            final ByteBuffer target;
+            if (grow) {
+                target = ByteBuffer.allocateDirect(buf.capacity() * 2).order(ByteOrder.LITTLE_ENDIAN);
+                target.put(buf);
+            } else {
+                buf.compact();
+                target = buf;
+            }
+            if (channel.read(target) == -1) {
+                eof = true;
+            }
+            target.flip();
+            buf = target;
+            bufOffset += keepFrom;
+            line.setBuffer(buf);
+        }
+        pos = 0;
+        searchFrom -= keepFrom;
+    }
+
+    /** Maps a window of {@link #fileChannel}.
+     * @param offset Offset of the window.
+     * @param size Size of the window.
+     * @throws IOException in case of I/O problems.
+     */
+    private void map(final long offset, final int size) throws IOException {
+        assert fileChannel != null;
+        buf = fileChannel.map(FileChannel.MapMode.READ_ONLY, offset, size).order(ByteOrder.LITTLE_ENDIAN);
+        bufOffset = offset;
+        eof = offset + size == end;
+        line.setBuffer(buf);
+    }
+
+    /** Closes the channel if it is owned by this LineScanner.
+     * @throws IOException in case of I/O problems.
+     */
+    public void close() throws IOException {
+        if (ownsChannel) {
+            if (fileChannel != null) {
+                fileChannel.close();
+            }
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+
+    /** Splits a file into ranges of about equal size at line boundaries and returns a LineScanner for each range.
+     * The LineScanners can be used concurrently, they do not close <var>fileChannel</var>.
+     * @param fileChannel FileChannel to split.
+     * @param charset Charset of the file.
+     * @param parts Number of ranges, fewer are returned if the file has fewer lines.
+     * @return LineScanners for the ranges, in file order.
+     * @throws IOException in case of I/O problems.
+     */
+    @NotNull public static List<LineScanner> split(@NotNull final FileChannel fileChannel, @NotNull final Charset charset, final int parts) throws IOException {
+        if (parts <= 0) {
+            throw new IllegalArgumentException("Illegal number of parts " + parts);
+        }
+        final long size = fileChannel.size();
+        final long[] bounds = new long[parts + 1];
+        bounds[parts] = size;
+        for (int i = 1; i < parts; i++) {
+            bounds[i] = Math.max(bounds[i - 1], findLineStart(fileChannel, size / parts * i + size % parts * i / parts, size));
+        }
+        final List<LineScanner> scanners = new ArrayList<LineScanner>(parts);
+        for (int i = 0; i < parts; i++) {
+            if (bounds[i] < bounds[i + 1] || scanners.isEmpty() && i == parts - 1) {
+                scanners.add(new LineScanner(fileChannel, bounds[i], bounds[i + 1], charset, DEFAULT_WINDOW_SIZE));
+            }
+        }
+        return scanners;
+    }
+
+    /** Finds the start of the first line which starts at or after an offset.
+     * @param fileChannel FileChannel to search.
+     * @param offset Offset at which to search.
+     * @param size Size of the file.
+     * @return Offset of the first line which starts at or after <var>offset</var>, or <var>size</var> if there is none.
+     * @throws IOException in case of I/O problems.
+     */
+    private static long findLineStart(@NotNull final FileChannel fileChannel, final long offset, final long size) throws IOException {
+        if (offset == 0L) {
+            return 0L;
+        }
+        final ByteBuffer chunk = ByteBuffer.allocate(8192);
+        // A line starts at offset if the preceding byte terminates a line.
+        long chunkOffset = offset - 1;
+        chunks:
+        while (chunkOffset < size) {
+            chunk.clear();
+            final int n = fileChannel.read(chunk, chunkOffset);
+            if (n <= 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                final byte b = chunk.get(i);
+                if (b == '\n') {
+                    return chunkOffset + i + 1;
+                }
+                if (b == '\r') {
+                    if (i + 1 < n) {
+                        return chunkOffset + i + (chunk.get(i + 1) == '\n' ? 2 : 1);
+                    }
+                    if (chunkOffset + i + 1 >= size) {
+                        return size;
+                    }
+                    // Read again from the '\r' to see whether '\n' follows.
+                    chunkOffset += i;
+                    continue chunks;
+                }
+            }
+            chunkOffset += n;
+        }
+        return size;
+    }
+
+    /** Scans a file on all processors.
+     * The file is split with {@link #split(FileChannel, Charset, int)}, and each range is scanned by a task in the common {@link ForkJoinPool}.
+     * @param file File to scan.
+     * @param charset Charset of the file.
+     * @param task Task which scans a range, invoked concurrently.
+     * @param <R> Type of the results of <var>task</var>.
+     * @return The results of <var>task</var> for the ranges, in file order.
+     * @throws IOException in case of I/O problems or if a task threw an IOException.
+     */
+    @NotNull public static <R> List<R> parallelScan(@NotNull final Path file, @NotNull final Charset charset, @NotNull final RangeTask<R> task) throws IOException {
+        try (final FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final List<Future<R>> futures = new ArrayList<Future<R>>();
+            for (final LineScanner scanner : split(fileChannel, charset, Runtime.getRuntime().availableProcessors())) {
+                futures.add(ForkJoinPool.commonPool().submit(new Callable<R>() {
+                    /** {@inheritDoc} */
+                    public R call() throws IOException {
+                        return task.scan(scanner);
+                    }
+                }));
+            }
+            final List<R> results = new ArrayList<R>(futures.size());
+            Throwable failure = null;
+            boolean interrupted = false;
+            // Wait for all tasks, so none uses the channel after it was closed.
+            for (final Future<R> future : futures) {
+                while (true) {
+                    try {
+                        results.add(future.get());
+                        break;
+                    } catch (final InterruptedException e) {
+                        interrupted = true;
+                    } catch (final ExecutionException e) {
+                        if (failure == null) {
+                            failure = e.getCause();
+                        }
+                        break;
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+                if (failure == null) {
+                    throw new InterruptedIOException();
+                }
+            }
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            }
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            return results;
+        }
+    }
+
+    /** A task which scans a range of a file.
+     * @param <R> Type of the result.
+     */
+    public interface RangeTask<R> {
+
+        /** Scans a range.
+         * @param scanner LineScanner for the range.
+         * @return Result of scanning the range.
+         * @throws IOException in case of I/O problems.
+         */
+        R scan(@NotNull LineScanner scanner) throws IOException;
+
+    } // interface RangeTask
+
+    /** A view of the bytes of a line, which is decoded on demand when used as CharSequence. */
+    public static final class Line implements CharSequence {
+
+        /** The charset of the line. */
+        @NotNull private final Charset charset;
+
+        /** Whether every byte is one char, so no decoding is needed. */
+        private final boolean singleByte;
+
+        /** The decoder for the charset. */
+        @NotNull private final CharsetDecoder decoder;
+
+        /** The buffer with the line. */
+        private ByteBuffer view;
+
+        /** The index of the line in {@link #view}. */
+        private int start;
+
+        /** The length of the line in bytes. */
+        private int byteLength;
+
+        /** The offset of the line in the input. */
+        private long offset;
+
+        /** The decoded line, reused for all lines. */
+        @Nullable private CharBuffer chars;
+
+        /** Whether {@link #chars} contains the current line. */
+        private boolean decoded;
+
+        /** Create a Line.
+         * @param charset Charset of the line.
+         */
+        Line(@NotNull final Charset charset) {
+            this.charset = charset;
+            singleByte = StandardCharsets.ISO_8859_1.equals(charset);
+            decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+
+        /** Sets the buffer which contains the lines.
+         * @param buf Buffer which contains the lines.
+         */
+        void setBuffer(@NotNull final ByteBuffer buf) {
+            view = buf.duplicate();
+        }
+
+        /** Sets the current line.
+         * @param start Index of the line in the buffer.
+         * @param byteLength Length of the line in bytes.
+         * @param offset Offset of the line in the input.
+         */
+        void set(final int start, final int byteLength, final long offset) {
+            this.start = start;
+            this.byteLength = byteLength;
+            this.offset = offset;
+            decoded = false;
+        }
+
+        /** Returns the offset of this line in the input.
+         * @return The offset of this line in the input.
+         */
+        public long getOffset() {
+            return offset;
+        }
+
+        /** Returns the length of this line in bytes.
+         * @return The length of this line in bytes.
+         */
+        public int getByteLength() {
+            return byteLength;
+        }
+
+        /** Returns a byte of this line.
+         * @param index Index of the byte.
+         * @return The byte at <var>index</var>.
+         */
+        public byte byteAt(final int index) {
+            if (index < 0 || index >= byteLength) {
+                throw new IndexOutOfBoundsException(Integer.toString(index));
+            }
+            return view.get(start + index);
+        }
+
+        /** Copies the bytes of this line.
+         * @param dst Array to copy to, must have room for {@link #getByteLength()} bytes after <var>dstOffset</var>.
+         * @param dstOffset Offset in <var>dst</var> at which to copy.
+         */
+        public void getBytes(@NotNull final byte[] dst, final int dstOffset) {
+            view.position(start);
+            view.get(dst, dstOffset, byteLength);
+        }
+
+        /** Returns whether this line starts with some bytes.
+         * @param prefix Bytes to compare.
+         * @return <code>true</code> if this line starts with <var>prefix</var>, otherwise <code>false</code>.
+         */
+        public boolean startsWith(@NotNull final byte[] prefix) {
+            if (prefix.length > byteLength) {
+                return false;
+            }
+            for (int i = 0; i < prefix.length; i++) {
+                if (view.get(start + i) != prefix[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /** {@inheritDoc} */
+        public int length() {
+            return singleByte ? byteLength : decode().length();
+        }
+
+        /** {@inheritDoc} */
+        public char charAt(final int index) {
+            if (singleByte) {
+                return (char) (byteAt(index) & 0xFF);
+            }
+            return decode().charAt(index);
+        }
+
+        /** {@inheritDoc} */
+        @NotNull public CharSequence subSequence(final int start, final int end) {
+            return toString().substring(start, end);
+        }
+
+        /** {@inheritDoc} */
+        @NotNull @Override public String toString() {
+            if (decoded) {
+                assert chars != null;
+                return chars.toString();
+            }
+            final byte[] bytes = new byte[byteLength];
+            getBytes(bytes, 0);
+            return new String(bytes, charset);
+        }
+
+        /** Decodes this line if it is not decoded yet.
+         * @return The decoded line.
+         */
+        @NotNull private CharBuffer decode() {
+            CharBuffer decodedChars = chars;
+            if (!decoded) {
+                final int maxLength = (int) Math.ceil(byteLength * (double) decoder.maxCharsPerByte());
+                if (decodedChars == null || decodedChars.capacity() < maxLength) {
+                    decodedChars = CharBuffer.allocate(Math.max(maxLength, 128));
+                    chars = decodedChars;
+                } else {
+                    decodedChars.clear();
+                }
+                view.limit(start + byteLength).position(start);
+                decoder.reset();
+                decoder.decode(view, decodedChars, true);
+                decoder.flush(decodedChars);
+                decodedChars.flip();
+                view.clear();
+                decoded = true;
+            }
+            return decodedChars;
+        }
+
+    } // class Line
+
+} // class LineScanner
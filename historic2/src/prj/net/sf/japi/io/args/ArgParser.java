@@ -25,8 +25,10 @@ import org.jetbrains.annotations.Nullable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.charset.Charset;
 import java.util.*;
 
 /**
@@ -68,11 +70,19 @@ public final class ArgParser {
     /** The command class. */
     @NotNull private final Class<? extends Command> commandClass;
 
-    /** The argument methods. */
-    @NotNull private final Map<String, Method> argumentMethods = new HashMap<String, Method>();
+    /** The OptionDispatchers of the command classes. */
+    private static final ClassValue<OptionDispatcher> OPTION_DISPATCHERS = new ClassValue<OptionDispatcher>() {
+        /** {@inheritDoc} */
+        @Override protected OptionDispatcher computeValue(final Class<?> type) {
+            return createOptionDispatcher(type.asSubclass(Command.class));
+        }
+    };
+
+    /** The OptionDispatcher for the command class. */
+    @NotNull private final OptionDispatcher dispatcher;
 
-    /** The required methods. */
-    @NotNull private final Set<Method> requiredMethods = new HashSet<Method>();
+    /** The indices of the required options that were not yet given. */
+    @NotNull private final BitSet requiredOptions = new BitSet();
 
     /** The iterator for the arguments. */
     @NotNull private final ListIterator<String> argIterator;
@@ -80,10 +90,14 @@ public final class ArgParser {
     /** The currently used option. */
     @Nullable private String currentOption;
 
+    /** The return code of the command. */
+    private int returnCode;
+
     /**
      * Create a new ArgParser.
      * This ArgParser uses {@link System#in}, {@link System#out} and {@link System#err}.
      * @param command Command to initialize and run
+     * @param exitAllowed Whether {@link System#exit(int)} may be invoked if the command {@link Command#isExiting() is exiting}.
      * @param args Arguments to parse
      * @throws RequiredOptionsMissingException in case an option is missing
      * @throws TerminalException in case argument parsing was stopped
@@ -91,15 +105,15 @@ public final class ArgParser {
      * @throws UnknownOptionException In case an option was specified that's not supported.
      * @throws ArgumentFileNotFoundException in case an argument file was not found.
      */
-    private ArgParser(@NotNull final Command command, @NotNull final String... args) throws TerminalException, RequiredOptionsMissingException, UnknownOptionException, MissingArgumentException, ArgumentFileNotFoundException {
+    private ArgParser(@NotNull final Command command, final boolean exitAllowed, @NotNull final String... args) throws TerminalException, RequiredOptionsMissingException, UnknownOptionException, MissingArgumentException, ArgumentFileNotFoundException {
         this.command = command;
         commandClass = command.getClass();
-        initMethods();
+        dispatcher = getOptionDispatcher(commandClass);
+        initRequiredOptions();
         final List<String> argList = getAllArguments(new File("."), Arrays.asList(args));
         argIterator = argList.listIterator();
         parse();
         checkRequiredMethods();
-        int returnCode;
         try {
             returnCode = command.run(argList);
         } catch (final Exception e) {
@@ -107,39 +121,77 @@ public final class ArgParser {
             e.printStackTrace();
             returnCode = 1;
         }
-        if (command.isExiting()) {
+        if (exitAllowed && command.isExiting()) {
             System.exit(returnCode);
         }
     }
 
     /**
      * Returns a list of all arguments after parsing arguments files.
+     * Argument files are streamed into the returned list, so their arguments are held in memory only once.
+     * An argument file which includes itself, directly or indirectly, is reported as not found.
      * @param context File relative to which @-inclusions have to be resolved.
      * @param args arguments before parsing argument files.
      * @return all arguments after parsing argument files.
      * @throws ArgumentFileNotFoundException in case an argument file was not found.
      */
     public List<String> getAllArguments(@NotNull final File context, @NotNull final List<String> args) throws ArgumentFileNotFoundException {
-        final List<String> argList = new ArrayList<String>(args);
-        for (final ListIterator<String> iterator = argList.listIterator(); iterator.hasNext();) {
-            final String arg = iterator.next();
-            if ("--".equals(arg)) {
-                break;
-            }
-            if (arg.startsWith("@")) {
-                iterator.remove();
+        final List<String> argList = new ArrayList<String>(args.size());
+        addAllArguments(context, args.iterator(), argList, new HashSet<File>());
+        return argList;
+    }
+
+    /**
+     * Adds arguments to a list of arguments, replacing argument file inclusions with the arguments from the argument files.
+     * @param context File relative to which @-inclusions have to be resolved.
+     * @param args arguments before parsing argument files.
+     * @param argList List to add the arguments to.
+     * @param includingFiles The canonical argument files which are currently being included.
+     * @throws ArgumentFileNotFoundException in case an argument file was not found or includes itself.
+     */
+    private static void addAllArguments(@NotNull final File context, @NotNull final Iterator<String> args, @NotNull final List<String> argList, @NotNull final Set<File> includingFiles) throws ArgumentFileNotFoundException {
+        boolean expanding = true;
+        while (args.hasNext()) {
+            final String arg = args.next();
+            if (expanding && arg.startsWith("@")) {
                 if (arg.startsWith("@@")) {
-                    iterator.add(arg.substring(1));
+                    argList.add(arg.substring(1));
                 } else {
-                    final String filename = arg.substring(1);
-                    final File file = new File(context.getParentFile(), filename);
-                    for (final String insertArg : getAllArguments(file, readFromFile(file))) {
-                        iterator.add(insertArg);
-                    }
+                    addArgumentsFromFile(new File(context.getParentFile(), arg.substring(1)), argList, includingFiles);
                 }
+            } else {
+                if ("--".equals(arg)) {
+                    expanding = false;
+                }
+                argList.add(arg);
             }
         }
-        return argList;
+    }
+
+    /**
+     * Adds the arguments from an argument file to a list of arguments.
+     * @param file Argument file to read.
+     * @param argList List to add the arguments to.
+     * @param includingFiles The canonical argument files which are currently being included.
+     * @throws ArgumentFileNotFoundException in case an argument file was not found or includes itself.
+     */
+    private static void addArgumentsFromFile(@NotNull final File file, @NotNull final List<String> argList, @NotNull final Set<File> includingFiles) throws ArgumentFileNotFoundException {
+        final File canonicalFile;
+        try {
+            canonicalFile = file.getCanonicalFile();
+        } catch (final IOException e) {
+            throw new ArgumentFileNotFoundException(new FileNotFoundException(file + " (" + e.getMessage() + ")"));
+        }
+        if (!includingFiles.add(canonicalFile)) {
+            throw new ArgumentFileNotFoundException(new FileNotFoundException(file + " (Cyclic argument file inclusion)"));
+        }
+        final TokenReader in = openArgumentFile(file);
+        try {
+            addAllArguments(file, in, argList, includingFiles);
+        } finally {
+            closeArgumentFile(in);
+            includingFiles.remove(canonicalFile);
+        }
     }
 
     /**
@@ -149,18 +201,43 @@ public final class ArgParser {
      * @throws ArgumentFileNotFoundException in case an argument file was not found.
      */
     @NotNull public static List<String> readFromFile(@NotNull final File file) throws ArgumentFileNotFoundException {
-        final TokenReader in;
+        final TokenReader in = openArgumentFile(file);
+        try {
+            final List<String> args = new ArrayList<String>();
+            for (final String token : in) {
+                args.add(token);
+            }
+            return args;
+        } finally {
+            closeArgumentFile(in);
+        }
+    }
+
+    /**
+     * Opens an argument file.
+     * @param file Argument file to open.
+     * @return TokenReader for the argument file.
+     * @throws ArgumentFileNotFoundException in case the argument file was not found.
+     */
+    @NotNull private static TokenReader openArgumentFile(@NotNull final File file) throws ArgumentFileNotFoundException {
         try {
             //noinspection IOResourceOpenedButNotSafelyClosed
-            in = new TokenReader(new FileInputStream(file));
+            return new TokenReader(new FileInputStream(file), Charset.defaultCharset());
         } catch (final FileNotFoundException e) {
             throw new ArgumentFileNotFoundException(e);
         }
-        final List<String> args = new ArrayList<String>();
-        for (final String token : in) {
-            args.add(token);
+    }
+
+    /**
+     * Closes an argument file.
+     * @param in TokenReader of the argument file.
+     */
+    private static void closeArgumentFile(@NotNull final TokenReader in) {
+        try {
+            in.close();
+        } catch (final IOException ignore) {
+            // Closing a file that was read does not fail in a way that matters.
         }
-        return args;
     }
 
     /**
@@ -168,62 +245,63 @@ public final class ArgParser {
      * @throws RequiredOptionsMissingException in case a required command line argument was missing
      */
     private void checkRequiredMethods() throws RequiredOptionsMissingException {
-        if (command.isCheckRequiredOptions() && requiredMethods.size() > 0) {
+        if (command.isCheckRequiredOptions() && !requiredOptions.isEmpty()) {
             final List<String> missingOptions = new ArrayList<String>();
-            for (final Method requiredMethod : requiredMethods) {
-                final Option option = requiredMethod.getAnnotation(Option.class);
-                assert option != null;
-                missingOptions.add(option.value()[0]);
+            for (int index = requiredOptions.nextSetBit(0); index >= 0; index = requiredOptions.nextSetBit(index + 1)) {
+                missingOptions.add(dispatcher.getName(index));
             }
             throw new RequiredOptionsMissingException(missingOptions.toArray(new String[missingOptions.size()]));
         }
     }
 
     /**
-     * Determines which methods are argument methods.
-     * All argument methods are stored in {@link #argumentMethods}.
-     * All required methods are additionally stored in {@link #requiredMethods}.
+     * Determines which options are required.
+     * All required options are stored in {@link #requiredOptions}.
      */
-    private void initMethods() {
-        for (final Method method : getOptionMethods(commandClass)) {
-            final Option option = method.getAnnotation(Option.class);
-            assert option != null;
-            final String[] optionNames = option.value();
-            if (optionNames.length == 0) {
-                throw new IllegalArgumentException(commandClass.getName() + " declared " + method.getName() + " as option but specified no option names");
-            }
-            final Class<?>[] parameterTypes = method.getParameterTypes();
-            final int parameterCount = parameterTypes.length;
-            if (parameterCount > 1) {
-                throw new IllegalArgumentException("Currently only options with 0 or 1 parameters are supported.");
-            }
-            for (final String optionName : optionNames) {
-                if (optionName == null) {
-                    // It's probably impossible to specify a null option name.
-                    // But it's safer to check this.
-                    throw new NullPointerException("null is not allowed for an option name.");
-                }
-                if ("".equals(optionName)) {
-                    throw new IllegalArgumentException("The empty String is not allowed as option name.");
-                }
-                if (optionName.startsWith("-")) {
-                    throw new IllegalArgumentException("option names must not start with a dash ('-'). The dash is handled automatically by the ArgParser.");
-                }
-                if ("W".equals(optionName)) {
-                    throw new IllegalArgumentException("W is not an allowed option name.");
-                }
-                if (argumentMethods.containsKey(optionName)) {
-                    throw new IllegalArgumentException(commandClass.getName() + " declared option " + optionName + " twice.");
-                }
-                argumentMethods.put(optionName, method);
-            }
-            final OptionType type = option.type();
-            if (type == OptionType.REQUIRED) {
-                requiredMethods.add(method);
+    private void initRequiredOptions() {
+        final int optionCount = dispatcher.getOptionCount();
+        for (int index = 0; index < optionCount; index++) {
+            if (dispatcher.getType(index) == OptionType.REQUIRED) {
+                requiredOptions.set(index);
             }
         }
     }
 
+    /**
+     * Returns the OptionDispatcher for a command class.
+     * If the annotation processor {@link net.sf.japi.io.args.processor.OptionProcessor} generated an OptionDispatcher for the command class, that one is used.
+     * Otherwise the option methods of the command class are determined by reflection.
+     * The OptionDispatchers are cached per command class.
+     * @param commandClass Class of the Command to get the OptionDispatcher for
+     * @return OptionDispatcher for the command class.
+     * @throws IllegalArgumentException in case an option method of the command class is declared wrongly.
+     */
+    @NotNull public static OptionDispatcher getOptionDispatcher(@NotNull final Class<? extends Command> commandClass) {
+        return OPTION_DISPATCHERS.get(commandClass);
+    }
+
+    /**
+     * Creates the OptionDispatcher for a command class.
+     * @param commandClass Class of the Command to create the OptionDispatcher for
+     * @return OptionDispatcher for the command class.
+     * @throws IllegalArgumentException in case an option method of the command class is declared wrongly.
+     */
+    @NotNull private static OptionDispatcher createOptionDispatcher(@NotNull final Class<? extends Command> commandClass) {
+        final Class<?> dispatcherClass;
+        try {
+            dispatcherClass = Class.forName(commandClass.getName() + OptionDispatcher.CLASS_NAME_SUFFIX, true, commandClass.getClassLoader());
+        } catch (final ClassNotFoundException ignore) {
+            return new ReflectiveOptionDispatcher(commandClass);
+        }
+        try {
+            return dispatcherClass.asSubclass(OptionDispatcher.class).getDeclaredConstructor().newInstance();
+        } catch (final InvocationTargetException e) {
+            throw new IllegalStateException("Cannot instantiate " + dispatcherClass.getName(), e.getCause());
+        } catch (final ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot instantiate " + dispatcherClass.getName(), e);
+        }
+    }
+
     /**
      * Get all option methods from a command.
      * @param command Command to get option methods for
@@ -280,7 +358,7 @@ public final class ArgParser {
                 if (doubleDash) { // '--foo' option
                     invokeMethod();
                 } else { // '-xyz'
-                    if (argumentMethods.get(currentOption) != null) { // '-foo' option
+                    if (dispatcher.getIndex(currentOption) != -1) { // '-foo' option
                         invokeMethod();
                     } else { // '-abc' options
                         for (final String co : arg.substring(1).split("")) {
@@ -303,40 +381,42 @@ public final class ArgParser {
      * @throws MissingArgumentException In case the required argument for an option was missing.
      */
     private void invokeMethod() throws TerminalException, UnknownOptionException, MissingArgumentException {
-        final Method method = argumentMethods.get(currentOption);
-        if (method == null) {
+        final int index = dispatcher.getIndex(currentOption);
+        if (index == -1) {
             throw new UnknownOptionException(currentOption);
         }
-        if (method.isAnnotationPresent(Obsolete.class)) {
+        if (dispatcher.isObsolete(index)) {
             System.err.println("Warning: option " + currentOption + " is obsolete and thus no longer supported.");
         }
-        requiredMethods.remove(method);
-        try {
-            final Class<?>[] parameterTypes = method.getParameterTypes();
-            final int parameterCount = parameterTypes.length;
-            if (parameterCount == 1) {
-                final String arg = argIterator.next();
-                argIterator.remove();
-                method.invoke(command, ConverterRegistry.convert(parameterTypes[0], arg));
-            } else if (parameterCount == 0) {
-                method.invoke(command);
-            } else {
-                assert false : "Should already be checked in initMethods().";
+        requiredOptions.clear(index);
+        final Class<?> argumentType = dispatcher.getArgumentType(index);
+        Object argument = null;
+        boolean convertible = true;
+        if (argumentType != null) {
+            final String arg;
+            try {
+                arg = argIterator.next();
+            } catch (final NoSuchElementException ignore) {
+                throw new MissingArgumentException(currentOption);
             }
-        } catch (final IllegalAccessException e) {
-            System.err.println(e);
-        } catch (final InvocationTargetException e) {
-            final Throwable cause = e.getCause();
-            if (cause instanceof TerminalException) {
-                throw (TerminalException) cause;
+            argIterator.remove();
+            try {
+                argument = ConverterRegistry.convert(argumentType, arg);
+            } catch (final Exception e) {
+                e.printStackTrace();
+                convertible = false;
+            }
+        }
+        if (convertible) {
+            try {
+                dispatcher.invoke(command, index, argument);
+            } catch (final TerminalException e) {
+                throw e;
+            } catch (final Exception e) {
+                System.err.println(e);
             }
-            System.err.println(e.getCause());
-        } catch (final NoSuchElementException ignore) {
-            throw new MissingArgumentException(currentOption);
-        } catch (final Exception e) {
-            e.printStackTrace();
         }
-        if (method.getAnnotation(Option.class).type() == OptionType.TERMINAL) {
+        if (dispatcher.getType(index) == OptionType.TERMINAL) {
             throw new TerminalException();
         }
     }
@@ -373,7 +453,23 @@ public final class ArgParser {
      * @throws ArgumentFileNotFoundException in case an argument file was not found.
      */
     public static void parseAndRun(@NotNull final Command command, @NotNull final String... args) throws RequiredOptionsMissingException, TerminalException, UnknownOptionException, MissingArgumentException, ArgumentFileNotFoundException {
-        new ArgParser(command, args);
+        new ArgParser(command, true, args);
+    }
+
+    /**
+     * Parses arguments of a command and runs that command without ever invoking {@link System#exit(int)}.
+     * This is meant for running commands in a VM which must keep running, like a daemon.
+     * @param command Command to run
+     * @param args Arguments to parse
+     * @return The return code of the command.
+     * @throws RequiredOptionsMissingException in case one or more required options were missing.
+     * @throws TerminalException in case a terminal option was encountered.
+     * @throws UnknownOptionException in case an option given was not known.
+     * @throws MissingArgumentException in case an option was missing its argument
+     * @throws ArgumentFileNotFoundException in case an argument file was not found.
+     */
+    public static int parseAndRunWithoutExit(@NotNull final Command command, @NotNull final String... args) throws RequiredOptionsMissingException, TerminalException, UnknownOptionException, MissingArgumentException, ArgumentFileNotFoundException {
+        return new ArgParser(command, false, args).returnCode;
     }
 
 } // class ArgParser
@@ -29,6 +29,7 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /** CommandWithHelp is a Command which implements a help option.
  * If you're looking for the best gui command base class, this probably is suited for you.
@@ -38,8 +39,10 @@ import org.jetbrains.annotations.NotNull;
  */
 public abstract class CommandWithHelp implements Command {
 
-    /** The ResourceBundle for locale-specific output of this class. */
-    @NotNull private final ResourceBundle ownBundle = ResourceBundle.getBundle("net.sf.japi.io.args.messages");
+    /** The ResourceBundle for locale-specific output of this class.
+     * It is loaded on first use, so commands don't pay for it unless they produce locale-specific output.
+     */
+    @Nullable private ResourceBundle ownBundle;
 
     /** Help Option. */
     // TODO:2009-02-15:christianhujer:Determine terminal width and perform automatic line wrapping.
@@ -121,6 +124,17 @@ public abstract class CommandWithHelp implements Command {
      * @return ResourceBundle for default locale.
      */
     @NotNull public ResourceBundle getBundle() {
+        return getOwnBundle();
+    }
+
+    /**
+     * Get the ResourceBundle for locale-specific output of this class, loading it if necessary.
+     * @return ResourceBundle for locale-specific output of this class.
+     */
+    @NotNull private ResourceBundle getOwnBundle() {
+        if (ownBundle == null) {
+            ownBundle = ResourceBundle.getBundle("net.sf.japi.io.args.messages");
+        }
         return ownBundle;
     }
 
@@ -158,7 +172,7 @@ public abstract class CommandWithHelp implements Command {
      */
     @NotNull public String getString(@NotNull final String key) throws MissingResourceException {
         final ResourceBundle bundle = getBundle();
-        if (bundle != ownBundle) {
+        if (bundle != getOwnBundle()) {
             try {
                 return getBundle().getString(key);
             } catch (final MissingResourceException ignore) {
@@ -168,7 +182,7 @@ public abstract class CommandWithHelp implements Command {
         try {
             return ResourceBundle.getBundle(getClass().getName()).getString(key);
         } catch (final MissingResourceException ignore) {
-            return ownBundle.getString(key);
+            return getOwnBundle().getString(key);
         }
     }
 
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.sf.japi.io.args;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Dispatches options to the option methods of a {@link Command} class.
+ * <p>
+ * The option methods are addressed by an index from 0 to {@link #getOptionCount()} - 1.
+ * The {@link ArgParser} looks up the index for an option name, converts the argument if the option method takes one, and invokes the option method.
+ * <p>
+ * The annotation processor {@link net.sf.japi.io.args.processor.OptionProcessor} generates an OptionDispatcher for each concrete Command class with {@link Option} methods at compile time.
+ * The generated class is named like the Command class with the suffix {@link #CLASS_NAME_SUFFIX} and invokes the option methods directly.
+ * That way, the {@link ArgParser} neither needs to scan the Command class for option methods nor to invoke them reflectively.
+ * For Command classes without a generated OptionDispatcher, the {@link ArgParser} uses a reflective OptionDispatcher.
+ *
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @since 0.2
+ */
+public interface OptionDispatcher {
+
+    /** The suffix of the names of generated OptionDispatcher classes. */
+    String CLASS_NAME_SUFFIX = "_OptionDispatcher";
+
+    /**
+     * Returns the number of option methods.
+     * @return The number of option methods.
+     */
+    int getOptionCount();
+
+    /**
+     * Returns the index of the option method for an option name.
+     * @param optionName Option name without dashes.
+     * @return The index of the option method or <code>-1</code> if there is no option with that name.
+     */
+    int getIndex(@NotNull String optionName);
+
+    /**
+     * Returns the primary option name of an option method, which is the first of its names.
+     * @param index Index of the option method.
+     * @return The primary option name.
+     */
+    @NotNull String getName(int index);
+
+    /**
+     * Returns the type of an option method.
+     * @param index Index of the option method.
+     * @return The type of the option.
+     */
+    @NotNull OptionType getType(int index);
+
+    /**
+     * Returns whether an option method is {@link Obsolete}.
+     * @param index Index of the option method.
+     * @return <code>true</code> if the option is obsolete, otherwise <code>false</code>.
+     */
+    boolean isObsolete(int index);
+
+    /**
+     * Returns the type of the argument of an option method.
+     * @param index Index of the option method.
+     * @return The type of the argument or <code>null</code> if the option method takes no argument.
+     */
+    @Nullable Class<?> getArgumentType(int index);
+
+    /**
+     * Invokes an option method.
+     * @param command Command on which to invoke the option method.
+     * @param index Index of the option method.
+     * @param argument Converted argument or <code>null</code> if the option method takes no argument.
+     * @throws Exception Exception thrown by the option method.
+     */
+    void invoke(@NotNull Command command, int index, @Nullable Object argument) throws Exception;
+
+} // interface OptionDispatcher
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.sf.japi.io.args;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * OptionDispatcher which finds and invokes the option methods of a {@link Command} class by reflection.
+ * It is used for Command classes without a generated OptionDispatcher.
+ *
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @since 0.2
+ */
+final class ReflectiveOptionDispatcher implements OptionDispatcher {
+
+    /** The option methods. */
+    @NotNull private final List<Method> methods = new ArrayList<Method>();
+
+    /** The indices of the option methods by option name. */
+    @NotNull private final Map<String, Integer> indices = new HashMap<String, Integer>();
+
+    /**
+     * Create a ReflectiveOptionDispatcher.
+     * @param commandClass Command class of which to dispatch the option methods.
+     * @throws IllegalArgumentException in case an option method is declared wrongly.
+     */
+    ReflectiveOptionDispatcher(@NotNull final Class<? extends Command> commandClass) {
+        for (final Method method : ArgParser.getOptionMethods(commandClass)) {
+            final Option option = method.getAnnotation(Option.class);
+            assert option != null;
+            final String[] optionNames = option.value();
+            if (optionNames.length == 0) {
+                throw new IllegalArgumentException(commandClass.getName() + " declared " + method.getName() + " as option but specified no option names");
+            }
+            final int parameterCount = method.getParameterTypes().length;
+            if (parameterCount > 1) {
+                throw new IllegalArgumentException("Currently only options with 0 or 1 parameters are supported.");
+            }
+            final Integer index = methods.size();
+            for (final String optionName : optionNames) {
+                if (optionName == null) {
+                    // It's probably impossible to specify a null option name.
+                    // But it's safer to check this.
+                    throw new NullPointerException("null is not allowed for an option name.");
+                }
+                if ("".equals(optionName)) {
+                    throw new IllegalArgumentException("The empty String is not allowed as option name.");
+                }
+                if (optionName.startsWith("-")) {
+                    throw new IllegalArgumentException("option names must not start with a dash ('-'). The dash is handled automatically by the ArgParser.");
+                }
+                if ("W".equals(optionName)) {
+                    throw new IllegalArgumentException("W is not an allowed option name.");
+                }
+                if (indices.containsKey(optionName)) {
+                    throw new IllegalArgumentException(commandClass.getName() + " declared option " + optionName + " twice.");
+                }
+                indices.put(optionName, index);
+            }
+            methods.add(method);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public int getOptionCount() {
+        return methods.size();
+    }
+
+    /** {@inheritDoc} */
+    public int getIndex(@NotNull final String optionName) {
+        final Integer index = indices.get(optionName);
+        return index != null ? index : -1;
+    }
+
+    /** {@inheritDoc} */
+    @NotNull public String getName(final int index) {
+        return methods.get(index).getAnnotation(Option.class).value()[0];
+    }
+
+    /** {@inheritDoc} */
+    @NotNull public OptionType getType(final int index) {
+        return methods.get(index).getAnnotation(Option.class).type();
+    }
+
+    /** {@inheritDoc} */
+    public boolean isObsolete(final int index) {
+        return methods.get(index).isAnnotationPresent(Obsolete.class);
+    }
+
+    /** {@inheritDoc} */
+    @Nullable public Class<?> getArgumentType(final int index) {
+        final Class<?>[] parameterTypes = methods.get(index).getParameterTypes();
+        return parameterTypes.length == 1 ? parameterTypes[0] : null;
+    }
+
+    /** {@inheritDoc} */
+    public void invoke(@NotNull final Command command, final int index, @Nullable final Object argument) throws Exception {
+        final Method method = methods.get(index);
+        try {
+            if (method.getParameterTypes().length == 1) {
+                method.invoke(command, argument);
+            } else {
+                method.invoke(command);
+            }
+        } catch (final InvocationTargetException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+} // class ReflectiveOptionDispatcher
@@ -23,6 +23,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.charset.Charset;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import org.jetbrains.annotations.NotNull;
@@ -37,23 +38,54 @@ import org.jetbrains.annotations.Nullable;
  *  <li>" introduces a string. A string is ended with ". Inside a string, \ only escapes ".</li>
  *  <li>' introduces a literal string. A literal string is ended with '. Inside a literal string, only ' has special meaning.</li>
  * </ul>
+ * The TokenReader reads its input in blocks, so the underlying stream or reader does not need to be buffered.
  * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
  * @since 0.2
  */
 public class TokenReader implements Closeable, Iterable<String>, Iterator<String> {
 
+    /** The size of the read buffer. */
+    private static final int BUFFER_SIZE = 8192;
+
     /** Reader to read from. */
     @NotNull private final Reader in;
 
+    /** The read buffer. */
+    @NotNull private final char[] buf = new char[BUFFER_SIZE];
+
+    /** The position of the next character in {@link #buf}. */
+    private int pos;
+
+    /** The number of characters in {@link #buf}. */
+    private int limit;
+
+    /** The buffer for the token being read, reused for all tokens. */
+    @NotNull private final StringBuilder nextToken = new StringBuilder();
+
     /** The next token. */
     @Nullable private String next;
 
-    /** Creates a TokenReader.
+    /** Creates a TokenReader which uses the default charset.
      * @param in InputStream to read from.
      */
     public TokenReader(@NotNull final InputStream in) {
+        this(in, Charset.defaultCharset());
+    }
+
+    /** Creates a TokenReader.
+     * @param in InputStream to read from.
+     * @param charset Charset of the InputStream.
+     */
+    public TokenReader(@NotNull final InputStream in, @NotNull final Charset charset) {
         //noinspection IOResourceOpenedButNotSafelyClosed
-        this.in = new InputStreamReader(in);
+        this(new InputStreamReader(in, charset));
+    }
+
+    /** Creates a TokenReader.
+     * @param in Reader to read from.
+     */
+    public TokenReader(@NotNull final Reader in) {
+        this.in = in;
         next = readNextToken();
     }
 
@@ -93,12 +125,12 @@ public class TokenReader implements Closeable, Iterable<String>, Iterator<String
      * @return Next token read from the underlying reader or <code>null</code> if no more tokens are available.
      */
     @Nullable public String readNextToken() {
-        final StringBuilder nextToken = new StringBuilder();
+        nextToken.setLength(0);
         boolean tokenValid = false;
         Mode mode = Mode.WHITESPACE;
         try {
-            for (int rc; (rc = in.read()) != -1;) {
-                final char c = (char) rc;
+            while (pos < limit || fill()) {
+                final char c = buf[pos++];
                 switch (mode) {
                 case WHITESPACE:
                     if (c == '"') {
@@ -168,6 +200,23 @@ public class TokenReader implements Closeable, Iterable<String>, Iterator<String
         return tokenValid ? nextToken.toString() : null;
     }
 
+    /** Fills the read buffer from the underlying reader.
+     * @return <code>true</code> if characters were read, <code>false</code> at the end of the input.
+     * @throws IOException in case of I/O problems.
+     */
+    private boolean fill() throws IOException {
+        pos = 0;
+        limit = 0;
+        while (limit == 0) {
+            final int n = in.read(buf);
+            if (n == -1) {
+                return false;
+            }
+            limit = n;
+        }
+        return true;
+    }
+
     /** The mode of the tokenizer. */
     private enum Mode {
 
@@ -18,33 +18,61 @@
 
 package net.sf.japi.io.args.converter;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.util.Locale;
 import org.jetbrains.annotations.NotNull;
 
 /**
- * Converter that performs a conversion by
+ * Converter that performs a conversion by invoking a public constructor of the target type which takes a single String argument.
+ * The constructor is invoked through a {@link MethodHandle}, which avoids the reflective access checks and argument array of {@link Constructor#newInstance(Object[])} for each conversion.
  * @param <T> target type to convert to.
  * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
  * @since 0.2
  */
 public class ConstructorConverter<T> extends AbstractConverter<T> {
 
+    /** The type of {@link #handle}. */
+    private static final MethodType HANDLE_TYPE = MethodType.methodType(Object.class, String.class);
+
     /** The Constructor to invoke. */
     @NotNull private final Constructor<T> constructor;
 
+    /** The MethodHandle of {@link #constructor}, adapted to {@link #HANDLE_TYPE}. */
+    @NotNull private final MethodHandle handle;
+
     /**
      * Create an AbstractConverter.
      * @param targetClass TargetClass
-     * @throws NoSuchMethodException in case the target class does not supply a matching constructor.
+     * @throws NoSuchMethodException in case the target class does not supply a matching accessible constructor.
      */
     public ConstructorConverter(@NotNull final Class<T> targetClass) throws NoSuchMethodException {
         super(targetClass);
         constructor = getConstructor(targetClass);
+        try {
+            handle = MethodHandles.publicLookup().unreflectConstructor(constructor).asType(HANDLE_TYPE);
+        } catch (final IllegalAccessException e) {
+            final NoSuchMethodException noSuchMethodException = new NoSuchMethodException("No accessible constructor " + constructor);
+            noSuchMethodException.initCause(e);
+            throw noSuchMethodException;
+        }
     }
 
+    /** {@inheritDoc}
+     * Exceptions thrown by the constructor are thrown as they are, without wrapping them in an {@link java.lang.reflect.InvocationTargetException}.
+     */
     @NotNull public T convert(@NotNull final Locale locale, @NotNull final String arg) throws Exception {
-        return constructor.newInstance(arg);
+        try {
+            return getTargetClass().cast((Object) handle.invokeExact(arg));
+        } catch (final Exception e) {
+            throw e;
+        } catch (final Error e) {
+            throw e;
+        } catch (final Throwable t) {
+            throw new Exception(t);
+        }
     }
 
     /** Returns a constructor that takes a single String argument for the target type.
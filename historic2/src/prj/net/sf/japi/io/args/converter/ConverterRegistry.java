@@ -18,6 +18,7 @@
 
 package net.sf.japi.io.args.converter;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Locale;
@@ -38,16 +39,21 @@ import org.jetbrains.annotations.Nullable;
  *  <li>All Enums.</li>
  * </ul>
  * The ConverterRegistry uses the {@link ServiceLoader ServiceLoader} to find additional {@link Converter}s.
+ * The shared instance and thus the {@link ServiceLoader ServiceLoader} lookup is created on first use only, so commands which convert no arguments do not pay for it at startup.
+ * <p>
+ * A ConverterRegistry is thread-safe.
+ * Lookups read an immutable map without locking.
+ * Registering a Converter, which also happens when a Converter is created for a type on its first lookup, copies that map.
+ * Since all types in use have a Converter after warm-up, lookups then never copy or lock.
  * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
  * @since 0.2
  */
 public class ConverterRegistry {
 
-    /** Singleton INSTANCE. */
-    private static final ConverterRegistry INSTANCE = createSingletonInstance();
-
-    /** Map for converters. */
-    private final Map<Class<?>, Converter<?>> converters = new HashMap<Class<?>, Converter<?>>();
+    /** Map for converters.
+     * The map is never modified but replaced by {@link #register(Converter)}.
+     */
+    private volatile Map<Class<?>, Converter<?>> converters = Collections.emptyMap();
 
     /**
      * Creates a ConverterRegistry.
@@ -98,9 +104,17 @@ public class ConverterRegistry {
      * @return The global shared instance of ConverterRegistry.
      */
     public static ConverterRegistry getInstance() {
-        return INSTANCE;
+        return InstanceHolder.INSTANCE;
     }
 
+    /** Holder for the lazily created global shared instance of ConverterRegistry. */
+    private static final class InstanceHolder {
+
+        /** Singleton INSTANCE. */
+        private static final ConverterRegistry INSTANCE = createSingletonInstance();
+
+    } // class InstanceHolder
+
     /**
      * Get the Converter for a specific class.
      * @param <T> target type of the class to get a converter for.
@@ -110,15 +124,33 @@ public class ConverterRegistry {
     @Nullable public <T> Converter<T> getConverter(@NotNull final Class<T> clazz) {
         //noinspection unchecked
         @Nullable Converter<T> converter = (Converter<T>) converters.get(clazz);
-        if (converter == null) {
-            converter = getConstructorConverter(clazz);
+        if (converter != null) {
+            return converter;
         }
+        converter = getConstructorConverter(clazz);
         if (converter == null && Enum.class.isAssignableFrom(clazz)) {
             converter = (Converter<T>) getEnumConverter((Class<? extends Enum>) clazz);
         }
         if (converter != null) {
-            register(converter);
+            converter = registerIfAbsent(clazz, converter);
+        }
+        return converter;
+    }
+
+    /**
+     * Registers a Converter created on demand unless another thread registered a Converter for the same class meanwhile.
+     * @param <T> target type of the class to register a converter for.
+     * @param clazz Class the Converter was created for.
+     * @param converter Converter to register.
+     * @return The Converter which is registered for <var>clazz</var>.
+     */
+    @NotNull private synchronized <T> Converter<T> registerIfAbsent(@NotNull final Class<T> clazz, @NotNull final Converter<T> converter) {
+        //noinspection unchecked
+        final Converter<T> registered = (Converter<T>) converters.get(clazz);
+        if (registered != null) {
+            return registered;
         }
+        register(converter);
         return converter;
     }
 
@@ -127,7 +159,8 @@ public class ConverterRegistry {
      * @param <T> target type of the class to register a converter for.
      * @param converter Converter to register
      */
-    public <T> void register(@NotNull final Converter<T> converter) {
+    public synchronized <T> void register(@NotNull final Converter<T> converter) {
+        final Map<Class<?>, Converter<?>> converters = new HashMap<Class<?>, Converter<?>>(this.converters);
         converters.put(converter.getTargetClass(), converter);
         //noinspection NestedAssignment
         for (Class<?> superClass = converter.getTargetClass(); (superClass = superClass.getSuperclass()) != null;) {
@@ -140,6 +173,7 @@ public class ConverterRegistry {
                 converters.put(interf, converter);
             }
         }
+        this.converters = converters;
     }
 
     /**
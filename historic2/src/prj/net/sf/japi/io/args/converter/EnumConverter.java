@@ -19,25 +19,44 @@
 package net.sf.japi.io.args.converter;
 
 import org.jetbrains.annotations.NotNull;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 
 /** Generic converter for Enum classes.
+ * The enum constants are looked up by name in a map which is created once per EnumConverter.
  * @param <T> target type to convert to.
  * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
  * @since 0.2
  */
 public class EnumConverter<T extends Enum> extends AbstractConverter<T> {
 
+    /** The enum constants by name. */
+    @NotNull private final Map<String, T> constants = new HashMap<String, T>();
+
     /** Create an AbstractConverter.
      * @param targetClass Enum class to convert to.
      */
     public EnumConverter(@NotNull final Class<T> targetClass) {
         super(targetClass);
+        final T[] enumConstants = targetClass.getEnumConstants();
+        // enumConstants is null for the classes of enum constants with a body.
+        if (enumConstants != null) {
+            for (final T constant : enumConstants) {
+                constants.put(constant.name(), constant);
+            }
+        }
     }
 
-    /** {@inheritDoc} */
+    /** {@inheritDoc}
+     * @throws IllegalArgumentException in case the enum has no constant with the specified name.
+     */
     @NotNull
     public T convert(@NotNull final Locale locale, @NotNull final String arg) throws Exception {
-        return (T) Enum.valueOf(getTargetClass(), arg);
+        final T constant = constants.get(arg);
+        if (constant == null) {
+            throw new IllegalArgumentException("No enum constant " + getTargetClass().getName() + "." + arg);
+        }
+        return constant;
     }
 }
@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.sf.japi.io.args.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Properties;
+import net.sf.japi.io.args.Command;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * CommandClient is a thin launcher which runs a Command in a {@link CommandDaemon}.
+ * It forwards the arguments and the working directory to the daemon, sends its standard input and receives the standard output, standard error and return code.
+ * If no daemon is running or the daemon rejects the invocation, the Command is run in this VM instead.
+ * <p>
+ * Usage: <code>java net.sf.japi.io.args.daemon.CommandClient <var>commandClass</var> [<var>args</var>...]</code>
+ * The port file of the daemon is taken from the system property <code>net.sf.japi.io.args.daemon.portFile</code>, default <code>.japi-daemon</code> in the user's home directory.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @since 0.2
+ */
+public final class CommandClient {
+
+    /** The port file of the daemon. */
+    @NotNull private final File portFile;
+
+    /** The standard input to forward. */
+    @NotNull private final InputStream in;
+
+    /** The stream for standard output. */
+    @NotNull private final OutputStream out;
+
+    /** The stream for standard error. */
+    @NotNull private final OutputStream err;
+
+    /**
+     * Creates a CommandClient.
+     * @param portFile Port file of the daemon.
+     * @param in Standard input to forward.
+     * @param out Stream for standard output.
+     * @param err Stream for standard error.
+     */
+    public CommandClient(@NotNull final File portFile, @NotNull final InputStream in, @NotNull final OutputStream out, @NotNull final OutputStream err) {
+        this.portFile = portFile;
+        this.in = in;
+        this.out = out;
+        this.err = err;
+    }
+
+    /**
+     * Main program.
+     * @param args Command class followed by the arguments for the Command.
+     */
+    public static void main(@NotNull final String... args) {
+        if (args.length == 0) {
+            System.err.println("Usage: CommandClient commandClass [args...]");
+            System.exit(1);
+        }
+        final String commandClassName = args[0];
+        final String[] commandArgs = Arrays.copyOfRange(args, 1, args.length);
+        Integer returnCode;
+        try {
+            returnCode = new CommandClient(DaemonProtocol.getDefaultPortFile(), System.in, System.out, System.err).runInDaemon(commandClassName, commandArgs);
+        } catch (final IOException e) {
+            System.err.println(e);
+            returnCode = 1;
+        }
+        if (returnCode == null) {
+            returnCode = runLocally(commandClassName, commandArgs);
+        }
+        System.exit(returnCode);
+    }
+
+    /**
+     * Runs a Command in this VM.
+     * @param commandClassName Name of the Command class.
+     * @param args Arguments for the Command.
+     * @return The return code of the Command.
+     */
+    private static int runLocally(@NotNull final String commandClassName, @NotNull final String... args) {
+        final Command command;
+        try {
+            command = Class.forName(commandClassName).asSubclass(Command.class).getDeclaredConstructor().newInstance();
+        } catch (final InvocationTargetException e) {
+            System.err.println("Cannot create " + commandClassName + ": " + e.getCause());
+            return 1;
+        } catch (final ReflectiveOperationException e) {
+            System.err.println("Cannot create " + commandClassName + ": " + e);
+            return 1;
+        } catch (final ClassCastException e) {
+            System.err.println("Cannot create " + commandClassName + ": " + e);
+            return 1;
+        }
+        return CommandDaemon.runCommand(command, args);
+    }
+
+    /**
+     * Runs a Command in the daemon.
+     * @param commandClassName Name of the Command class.
+     * @param args Arguments for the Command.
+     * @return The return code of the Command or <code>null</code> if no daemon is running or the daemon rejected the invocation.
+     * @throws IOException in case the connection to the daemon failed during the invocation.
+     */
+    @Nullable public Integer runInDaemon(@NotNull final String commandClassName, @NotNull final String... args) throws IOException {
+        final Properties properties = DaemonProtocol.readPortFile(portFile);
+        if (properties == null) {
+            return null;
+        }
+        final Socket socket;
+        try {
+            socket = new Socket(InetAddress.getLoopbackAddress(), DaemonProtocol.getPort(properties));
+        } catch (final ConnectException ignore) {
+            // Stale port file, the daemon is no longer running.
+            return null;
+        }
+        try {
+            socket.setTcpNoDelay(true);
+            final DataOutputStream socketOut = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            final DataInputStream socketIn = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            socketOut.writeInt(DaemonProtocol.MAGIC);
+            socketOut.writeUTF(DaemonProtocol.getToken(properties));
+            socketOut.writeUTF(new File(".").getCanonicalPath());
+            socketOut.writeUTF(commandClassName);
+            socketOut.writeInt(args.length);
+            for (final String arg : args) {
+                socketOut.writeUTF(arg);
+            }
+            socketOut.flush();
+            if (socketIn.readByte() != DaemonProtocol.ACCEPTED) {
+                socketIn.readUTF();
+                return null;
+            }
+            startForwardingInput(socketOut);
+            final byte[] buf = new byte[8192];
+            while (true) {
+                final byte type = socketIn.readByte();
+                if (type == DaemonProtocol.EXIT) {
+                    out.flush();
+                    err.flush();
+                    return socketIn.readInt();
+                }
+                final OutputStream target;
+                if (type == DaemonProtocol.STDOUT) {
+                    target = out;
+                } else if (type == DaemonProtocol.STDERR) {
+                    target = err;
+                } else {
+                    throw new IOException("Protocol error: unknown frame type " + type);
+                }
+                for (int remaining = socketIn.readInt(); remaining > 0;) {
+                    final int n = Math.min(remaining, buf.length);
+                    socketIn.readFully(buf, 0, n);
+                    target.write(buf, 0, n);
+                    remaining -= n;
+                }
+                target.flush();
+            }
+        } finally {
+            socket.close();
+        }
+    }
+
+    /**
+     * Starts a daemon thread which forwards the standard input to the daemon.
+     * @param socketOut Stream to the daemon.
+     */
+    private void startForwardingInput(@NotNull final DataOutputStream socketOut) {
+        final Thread thread = new Thread(new Runnable() {
+            /** {@inheritDoc} */
+            public void run() {
+                final byte[] buf = new byte[8192];
+                try {
+                    for (int n; (n = in.read(buf)) != -1;) {
+                        if (n > 0) {
+                            socketOut.writeInt(n);
+                            socketOut.write(buf, 0, n);
+                            socketOut.flush();
+                        }
+                    }
+                    socketOut.writeInt(0);
+                    socketOut.flush();
+                } catch (final IOException ignore) {
+                    // The invocation finished before all input was forwarded.
+                }
+            }
+        }, "CommandClient input");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+} // class CommandClient
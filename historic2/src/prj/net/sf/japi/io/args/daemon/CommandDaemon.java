@@ -0,0 +1,564 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.sf.japi.io.args.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.security.SecureRandom;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import net.sf.japi.io.args.ArgParser;
+import net.sf.japi.io.args.ArgumentFileNotFoundException;
+import net.sf.japi.io.args.BasicCommand;
+import net.sf.japi.io.args.Command;
+import net.sf.japi.io.args.MissingArgumentException;
+import net.sf.japi.io.args.Option;
+import net.sf.japi.io.args.RequiredOptionsMissingException;
+import net.sf.japi.io.args.TerminalException;
+import net.sf.japi.io.args.UnknownOptionException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * CommandDaemon is a resident VM which runs Commands for {@link CommandClient}s.
+ * Repeated invocations of a Command reuse the loaded classes and JIT-compiled code of the daemon instead of starting a new VM each time.
+ * <p>
+ * The daemon listens on a loopback port, which it writes together with a random token into a port file readable only by its owner.
+ * Clients must send that token.
+ * Each invocation runs on its own thread with a new instance of the Command, via {@link ArgParser#parseAndRunWithoutExit(Command, String[])}.
+ * {@link System#in}, {@link System#out} and {@link System#err} are routed per thread, so concurrent invocations and the threads they start use the streams of their client.
+ * When an invocation ends, threads it started which are still running use the streams of the daemon again.
+ * <p>
+ * Limitations:
+ * <ul>
+ *  <li>A VM cannot change its working directory, so the daemon rejects invocations from clients with a different working directory, and those clients run the Command themselves.</li>
+ *  <li>A VM cannot change its environment, so Commands see the environment of the daemon.</li>
+ *  <li>Static state of Commands is shared between invocations.</li>
+ * </ul>
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @since 0.2
+ */
+public class CommandDaemon extends BasicCommand implements Closeable {
+
+    /** The invocation of the current thread or <code>null</code> if the thread runs no invocation.
+     * Threads started by an invocation inherit it, so it is ended instead of only removed after the invocation.
+     */
+    private static final InheritableThreadLocal<Invocation> INVOCATION = new InheritableThreadLocal<Invocation>();
+
+    /** Whether the standard streams are already routed. */
+    private static boolean routed;
+
+    /** The port file. */
+    @NotNull private File portFile = DaemonProtocol.getDefaultPortFile();
+
+    /** The names of the Command classes which may be run, empty to allow all. */
+    @NotNull private final Set<String> allowedCommands = new HashSet<String>();
+
+    /** The token which clients have to send. */
+    @NotNull private final String token = new BigInteger(130, new SecureRandom()).toString(32);
+
+    /** The executor which runs the invocations. */
+    @NotNull private final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+        /** {@inheritDoc} */
+        public Thread newThread(@NotNull final Runnable r) {
+            final Thread thread = new Thread(r, "CommandDaemon invocation");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    /** The working directory of this daemon. */
+    @Nullable private String workingDirectory;
+
+    /** The server socket or <code>null</code> if this daemon is not started. */
+    @Nullable private ServerSocket serverSocket;
+
+    /** Main program.
+     * @param args Command line arguments (try --help).
+     */
+    public static void main(@NotNull final String... args) {
+        ArgParser.simpleParseAndRun(new CommandDaemon(), args);
+    }
+
+    /** Sets the port file.
+     * @param portFile Port file to write the port and token to.
+     */
+    @Option({"p", "portFile"})
+    public void setPortFile(@NotNull final File portFile) {
+        this.portFile = portFile;
+    }
+
+    /** {@inheritDoc} */
+    @SuppressWarnings({"InstanceMethodNamingConvention"})
+    public int run(@NotNull final List<String> args) throws Exception {
+        allowedCommands.addAll(args);
+        start();
+        try {
+            serve();
+        } finally {
+            close();
+        }
+        return 0;
+    }
+
+    /**
+     * Starts this daemon: binds the server socket and writes the port file.
+     * @throws IOException in case of I/O problems.
+     */
+    public void start() throws IOException {
+        routeStandardStreams();
+        workingDirectory = new File(".").getCanonicalPath();
+        final ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        this.serverSocket = serverSocket;
+        DaemonProtocol.writePortFile(portFile, serverSocket.getLocalPort(), token);
+    }
+
+    /**
+     * Accepts and runs invocations until this daemon is closed.
+     * @throws IOException in case of I/O problems.
+     */
+    public void serve() throws IOException {
+        final ServerSocket serverSocket = this.serverSocket;
+        if (serverSocket == null) {
+            throw new IllegalStateException("CommandDaemon not started.");
+        }
+        while (true) {
+            final Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (final SocketException e) {
+                if (serverSocket.isClosed()) {
+                    return;
+                }
+                throw e;
+            }
+            executor.execute(new Runnable() {
+                /** {@inheritDoc} */
+                public void run() {
+                    handle(socket);
+                }
+            });
+        }
+    }
+
+    /**
+     * Stops this daemon: closes the server socket and deletes the port file.
+     * Running invocations are not interrupted.
+     * @throws IOException in case of I/O problems.
+     */
+    public void close() throws IOException {
+        executor.shutdown();
+        final ServerSocket serverSocket = this.serverSocket;
+        if (serverSocket != null) {
+            //noinspection ResultOfMethodCallIgnored
+            portFile.delete();
+            serverSocket.close();
+        }
+    }
+
+    /**
+     * Handles a connection from a client.
+     * @param socket Socket of the connection.
+     */
+    private void handle(@NotNull final Socket socket) {
+        try {
+            try {
+                socket.setTcpNoDelay(true);
+                final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                if (in.readInt() != DaemonProtocol.MAGIC || !token.equals(in.readUTF())) {
+                    reject(out, "Invalid request.");
+                    return;
+                }
+                final String clientDirectory = in.readUTF();
+                final String commandClassName = in.readUTF();
+                final String[] args = new String[in.readInt()];
+                for (int i = 0; i < args.length; i++) {
+                    args[i] = in.readUTF();
+                }
+                if (!clientDirectory.equals(workingDirectory)) {
+                    reject(out, "Working directory " + clientDirectory + " differs from daemon working directory " + workingDirectory + ".");
+                    return;
+                }
+                if (!allowedCommands.isEmpty() && !allowedCommands.contains(commandClassName)) {
+                    reject(out, commandClassName + " is not allowed.");
+                    return;
+                }
+                final Command command;
+                try {
+                    command = Class.forName(commandClassName).asSubclass(Command.class).getDeclaredConstructor().newInstance();
+                } catch (final InvocationTargetException e) {
+                    reject(out, "Cannot create " + commandClassName + ": " + e.getCause());
+                    return;
+                } catch (final ReflectiveOperationException e) {
+                    reject(out, "Cannot create " + commandClassName + ": " + e);
+                    return;
+                } catch (final ClassCastException e) {
+                    reject(out, "Cannot create " + commandClassName + ": " + e);
+                    return;
+                }
+                out.writeByte(DaemonProtocol.ACCEPTED);
+                out.flush();
+                final int returnCode = invoke(command, args, new FrameInputStream(in), new FrameOutputStream(out, DaemonProtocol.STDOUT), new FrameOutputStream(out, DaemonProtocol.STDERR));
+                synchronized (out) {
+                    out.writeByte(DaemonProtocol.EXIT);
+                    out.writeInt(returnCode);
+                    out.flush();
+                }
+            } finally {
+                socket.close();
+            }
+        } catch (final IOException ignore) {
+            // The client went away, nothing to report to.
+        }
+    }
+
+    /**
+     * Rejects a request.
+     * @param out Stream to the client.
+     * @param message Message describing why the request was rejected.
+     * @throws IOException in case of I/O problems.
+     */
+    private static void reject(@NotNull final DataOutputStream out, @NotNull final String message) throws IOException {
+        out.writeByte(DaemonProtocol.REJECTED);
+        out.writeUTF(message);
+        out.flush();
+    }
+
+    /**
+     * Invokes a Command with the standard streams of the current thread routed to the specified streams.
+     * @param command Command to invoke.
+     * @param args Arguments for the Command.
+     * @param in Standard input for the Command.
+     * @param out Standard output for the Command.
+     * @param err Standard error for the Command.
+     * @return The return code of the Command.
+     * @throws IOException in case flushing the streams failed.
+     */
+    private static int invoke(@NotNull final Command command, @NotNull final String[] args, @NotNull final InputStream in, @NotNull final OutputStream out, @NotNull final OutputStream err) throws IOException {
+        final OutputStream bufferedOut = new BufferedOutputStream(out);
+        final OutputStream bufferedErr = new BufferedOutputStream(err);
+        final Invocation invocation = new Invocation(in, bufferedOut, bufferedErr);
+        INVOCATION.set(invocation);
+        try {
+            return runCommand(command, args);
+        } finally {
+            System.out.flush();
+            System.err.flush();
+            invocation.end();
+            INVOCATION.remove();
+            bufferedOut.flush();
+            bufferedErr.flush();
+        }
+    }
+
+    /**
+     * Runs a Command, reporting problems with the arguments like {@link ArgParser#simpleParseAndRun(Command, String[])} does.
+     * @param command Command to run.
+     * @param args Arguments for the Command.
+     * @return The return code of the Command, 1 in case of problems with the arguments.
+     */
+    static int runCommand(@NotNull final Command command, @NotNull final String... args) {
+        try {
+            return ArgParser.parseAndRunWithoutExit(command, args);
+        } catch (final TerminalException e) {
+            return e.getReturnCode();
+        } catch (final RequiredOptionsMissingException e) {
+            System.err.println(e);
+        } catch (final UnknownOptionException e) {
+            System.err.println(e);
+        } catch (final MissingArgumentException e) {
+            System.err.println(e);
+        } catch (final ArgumentFileNotFoundException e) {
+            System.err.println(e);
+        } catch (final RuntimeException e) {
+            e.printStackTrace();
+        }
+        return 1;
+    }
+
+    /** Replaces {@link System#in}, {@link System#out} and {@link System#err} with streams which are routed per thread. */
+    private static synchronized void routeStandardStreams() {
+        if (!routed) {
+            System.setIn(new RoutingInputStream(System.in));
+            System.setOut(new PrintStream(new RoutingOutputStream(System.out, false), true));
+            System.setErr(new PrintStream(new RoutingOutputStream(System.err, true), true));
+            routed = true;
+        }
+    }
+
+    /** The standard streams of an invocation. */
+    private static final class Invocation {
+
+        /** The standard input or <code>null</code> if the invocation ended. */
+        @Nullable private volatile InputStream in;
+
+        /** The standard output or <code>null</code> if the invocation ended. */
+        @Nullable private volatile OutputStream out;
+
+        /** The standard error or <code>null</code> if the invocation ended. */
+        @Nullable private volatile OutputStream err;
+
+        /**
+         * Creates an Invocation.
+         * @param in Standard input.
+         * @param out Standard output.
+         * @param err Standard error.
+         */
+        Invocation(@NotNull final InputStream in, @NotNull final OutputStream out, @NotNull final OutputStream err) {
+            this.in = in;
+            this.out = out;
+            this.err = err;
+        }
+
+        /** Ends this invocation, so threads which inherited it no longer use its streams. */
+        void end() {
+            in = null;
+            out = null;
+            err = null;
+        }
+
+    } // class Invocation
+
+    /** OutputStream which writes to the stream of the current thread's invocation or to a default stream. */
+    private static final class RoutingOutputStream extends OutputStream {
+
+        /** The stream for threads without invocation. */
+        @NotNull private final OutputStream defaultOut;
+
+        /** Whether to write to the standard error instead of the standard output of the invocations. */
+        private final boolean err;
+
+        /**
+         * Creates a RoutingOutputStream.
+         * @param defaultOut Stream for threads without invocation.
+         * @param err Whether to write to the standard error instead of the standard output of the invocations.
+         */
+        RoutingOutputStream(@NotNull final OutputStream defaultOut, final boolean err) {
+            this.defaultOut = defaultOut;
+            this.err = err;
+        }
+
+        /**
+         * Returns the stream for the current thread.
+         * @return The stream for the current thread.
+         */
+        @NotNull private OutputStream getOut() {
+            final Invocation invocation = INVOCATION.get();
+            final OutputStream out = invocation == null ? null : err ? invocation.err : invocation.out;
+            return out != null ? out : defaultOut;
+        }
+
+        /** {@inheritDoc} */
+        @Override public void write(final int b) throws IOException {
+            getOut().write(b);
+        }
+
+        /** {@inheritDoc} */
+        @Override public void write(@NotNull final byte[] b, final int off, final int len) throws IOException {
+            getOut().write(b, off, len);
+        }
+
+        /** {@inheritDoc} */
+        @Override public void flush() throws IOException {
+            getOut().flush();
+        }
+
+        /** Flushes only, the standard streams must stay open. */
+        @Override public void close() throws IOException {
+            flush();
+        }
+
+    } // class RoutingOutputStream
+
+    /** InputStream which reads from the stream of the current thread's invocation or from a default stream. */
+    private static final class RoutingInputStream extends InputStream {
+
+        /** The stream for threads without invocation. */
+        @NotNull private final InputStream defaultIn;
+
+        /**
+         * Creates a RoutingInputStream.
+         * @param defaultIn Stream for threads without invocation.
+         */
+        RoutingInputStream(@NotNull final InputStream defaultIn) {
+            this.defaultIn = defaultIn;
+        }
+
+        /**
+         * Returns the stream for the current thread.
+         * @return The stream for the current thread.
+         */
+        @NotNull private InputStream getIn() {
+            final Invocation invocation = INVOCATION.get();
+            final InputStream in = invocation == null ? null : invocation.in;
+            return in != null ? in : defaultIn;
+        }
+
+        /** {@inheritDoc} */
+        @Override public int read() throws IOException {
+            return getIn().read();
+        }
+
+        /** {@inheritDoc} */
+        @Override public int read(@NotNull final byte[] b, final int off, final int len) throws IOException {
+            return getIn().read(b, off, len);
+        }
+
+        /** {@inheritDoc} */
+        @Override public int available() throws IOException {
+            return getIn().available();
+        }
+
+        /** Does nothing, the standard streams must stay open. */
+        @Override public void close() {
+        }
+
+    } // class RoutingInputStream
+
+    /** OutputStream which sends frames of one type to the client. */
+    private static final class FrameOutputStream extends OutputStream {
+
+        /** The stream to the client, also used as lock for writing frames. */
+        @NotNull private final DataOutputStream out;
+
+        /** The type of the frames. */
+        private final byte type;
+
+        /**
+         * Creates a FrameOutputStream.
+         * @param out Stream to the client.
+         * @param type Type of the frames.
+         */
+        FrameOutputStream(@NotNull final DataOutputStream out, final byte type) {
+            this.out = out;
+            this.type = type;
+        }
+
+        /** {@inheritDoc} */
+        @Override public void write(final int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        /** {@inheritDoc} */
+        @Override public void write(@NotNull final byte[] b, final int off, final int len) throws IOException {
+            if (len > 0) {
+                synchronized (out) {
+                    out.writeByte(type);
+                    out.writeInt(len);
+                    out.write(b, off, len);
+                }
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override public void flush() throws IOException {
+            synchronized (out) {
+                out.flush();
+            }
+        }
+
+    } // class FrameOutputStream
+
+    /** InputStream which receives frames of standard input from the client. */
+    private static final class FrameInputStream extends InputStream {
+
+        /** The stream from the client. */
+        @NotNull private final DataInputStream in;
+
+        /** The number of bytes remaining in the current frame. */
+        private int remaining;
+
+        /** Whether the client sent end of file. */
+        private boolean eof;
+
+        /**
+         * Creates a FrameInputStream.
+         * @param in Stream from the client.
+         */
+        FrameInputStream(@NotNull final DataInputStream in) {
+            this.in = in;
+        }
+
+        /**
+         * Reads the next frame header if the current frame is exhausted.
+         * @return <code>true</code> if bytes are available, <code>false</code> at end of file.
+         * @throws IOException in case of I/O problems.
+         */
+        private boolean fill() throws IOException {
+            while (remaining == 0 && !eof) {
+                remaining = in.readInt();
+                if (remaining == 0) {
+                    eof = true;
+                }
+            }
+            return remaining > 0;
+        }
+
+        /** {@inheritDoc} */
+        @Override public synchronized int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            remaining--;
+            return in.readUnsignedByte();
+        }
+
+        /** {@inheritDoc} */
+        @Override public synchronized int read(@NotNull final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            final int n = in.read(b, off, Math.min(len, remaining));
+            if (n == -1) {
+                throw new IOException("Client closed standard input unexpectedly.");
+            }
+            remaining -= n;
+            return n;
+        }
+
+        /** {@inheritDoc} */
+        @Override public synchronized int available() {
+            return remaining;
+        }
+
+    } // class FrameInputStream
+
+} // class CommandDaemon
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.sf.japi.io.args.daemon;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.AclEntry;
+import java.nio.file.attribute.AclEntryPermission;
+import java.nio.file.attribute.AclEntryType;
+import java.nio.file.attribute.AclFileAttributeView;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Properties;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Constants and helpers of the protocol between {@link CommandClient} and {@link CommandDaemon}.
+ * <p>
+ * The client starts with {@link #MAGIC}, the token, its working directory, the command class name and the arguments.
+ * The daemon replies {@link #ACCEPTED} or {@link #REJECTED} with a message.
+ * After that, the client sends frames of standard input, each consisting of a length and the bytes, with length 0 for end of file.
+ * The daemon sends frames of {@link #STDOUT} and {@link #STDERR}, each consisting of a length and the bytes, and finally {@link #EXIT} with the return code.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @since 0.2
+ */
+final class DaemonProtocol {
+
+    /** The magic number which starts a request. */
+    static final int MAGIC = 0x4a415044;
+
+    /** Reply for an accepted request. */
+    static final byte ACCEPTED = 0;
+
+    /** Reply for a rejected request. */
+    static final byte REJECTED = 1;
+
+    /** Frame type for standard output. */
+    static final byte STDOUT = 1;
+
+    /** Frame type for standard error. */
+    static final byte STDERR = 2;
+
+    /** Frame type for the return code. */
+    static final byte EXIT = 3;
+
+    /** The name of the system property with the port file. */
+    static final String PORT_FILE_PROPERTY = "net.sf.japi.io.args.daemon.portFile";
+
+    /** The key of the port in the port file. */
+    private static final String PORT_KEY = "port";
+
+    /** The key of the token in the port file. */
+    private static final String TOKEN_KEY = "token";
+
+    /** Utility class - do not instantiate. */
+    private DaemonProtocol() {
+    }
+
+    /**
+     * Returns the port file from the system property {@link #PORT_FILE_PROPERTY}, which defaults to <code>.japi-daemon</code> in the user's home directory.
+     * @return The port file.
+     */
+    @NotNull static File getDefaultPortFile() {
+        final String portFile = System.getProperty(PORT_FILE_PROPERTY);
+        return portFile != null ? new File(portFile) : new File(System.getProperty("user.home"), ".japi-daemon");
+    }
+
+    /**
+     * Writes a port file which is accessible by the owner only.
+     * The port file is written to a temporary file which is created with owner-only permissions and then atomically moved to <var>portFile</var>.
+     * That way, the token is never readable by others, and an existing file or symbolic link at <var>portFile</var> is replaced instead of written through.
+     * @param portFile Port file to write.
+     * @param port Port of the daemon.
+     * @param token Token which clients have to send.
+     * @throws IOException in case of I/O problems or if the permissions of the port file cannot be restricted.
+     */
+    static void writePortFile(@NotNull final File portFile, final int port, @NotNull final String token) throws IOException {
+        final Path target = portFile.getAbsoluteFile().toPath();
+        final Path dir = target.getParent();
+        final Path temp = Files.createTempFile(dir, portFile.getName(), ".tmp", createOwnerOnlyAttribute(dir));
+        try {
+            final OutputStream out = Files.newOutputStream(temp);
+            try {
+                final Properties properties = new Properties();
+                properties.setProperty(PORT_KEY, Integer.toString(port));
+                properties.setProperty(TOKEN_KEY, token);
+                properties.store(out, "japi command daemon");
+            } finally {
+                out.close();
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Returns the attribute for creating a file which is accessible by the owner only.
+     * @param dir Directory in which the file will be created.
+     * @return The attribute for creating a file which is accessible by the owner only.
+     * @throws IOException if the file system of <var>dir</var> supports neither POSIX permissions nor ACLs.
+     */
+    @NotNull private static FileAttribute<?> createOwnerOnlyAttribute(@NotNull final Path dir) throws IOException {
+        if (Files.getFileStore(dir).supportsFileAttributeView(PosixFileAttributeView.class)) {
+            return PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------"));
+        }
+        if (Files.getFileStore(dir).supportsFileAttributeView(AclFileAttributeView.class)) {
+            final UserPrincipal owner = dir.getFileSystem().getUserPrincipalLookupService().lookupPrincipalByName(System.getProperty("user.name"));
+            final List<AclEntry> acl = Collections.singletonList(AclEntry.newBuilder().setType(AclEntryType.ALLOW).setPrincipal(owner).setPermissions(EnumSet.allOf(AclEntryPermission.class)).build());
+            return new FileAttribute<List<AclEntry>>() {
+                /** {@inheritDoc} */
+                public String name() {
+                    return "acl:acl";
+                }
+
+                /** {@inheritDoc} */
+                public List<AclEntry> value() {
+                    return acl;
+                }
+            };
+        }
+        throw new IOException("Cannot restrict the permissions of port files in " + dir);
+    }
+
+    /**
+     * Reads a port file.
+     * @param portFile Port file to read.
+     * @return The properties of the port file or <code>null</code> if the port file does not exist.
+     * @throws IOException in case of I/O problems.
+     */
+    @Nullable static Properties readPortFile(@NotNull final File portFile) throws IOException {
+        if (!portFile.isFile()) {
+            return null;
+        }
+        final Properties properties = new Properties();
+        final InputStream in = new FileInputStream(portFile);
+        try {
+            properties.load(in);
+        } finally {
+            in.close();
+        }
+        return properties.getProperty(PORT_KEY) != null && properties.getProperty(TOKEN_KEY) != null ? properties : null;
+    }
+
+    /**
+     * Returns the port from the properties of a port file.
+     * @param properties Properties of a port file.
+     * @return The port.
+     */
+    static int getPort(@NotNull final Properties properties) {
+        return Integer.parseInt(properties.getProperty(PORT_KEY));
+    }
+
+    /**
+     * Returns the token from the properties of a port file.
+     * @param properties Properties of a port file.
+     * @return The token.
+     */
+    @NotNull static String getToken(@NotNull final Properties properties) {
+        return properties.getProperty(TOKEN_KEY);
+    }
+
+} // class DaemonProtocol
@@ -0,0 +1,318 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.sf.japi.io.args.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import net.sf.japi.io.args.Command;
+import net.sf.japi.io.args.Obsolete;
+import net.sf.japi.io.args.Option;
+import net.sf.japi.io.args.OptionDispatcher;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Annotation processor which generates an {@link OptionDispatcher} for each concrete {@link Command} class.
+ * The generated OptionDispatcher knows the option methods of the Command class at compile time and invokes them directly.
+ * The {@link net.sf.japi.io.args.ArgParser} uses it instead of finding and invoking the option methods by reflection.
+ * <p>
+ * The processor is registered as service, so it runs automatically when compiling against this library.
+ * Command classes with wrongly declared option methods are reported as warning and left to the reflective OptionDispatcher, which rejects them at runtime.
+ *
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @since 0.2
+ */
+public class OptionProcessor extends AbstractProcessor {
+
+    /** The binary names of the Command classes for which an OptionDispatcher was already generated. */
+    @NotNull private final Set<String> processed = new HashSet<String>();
+
+    /** {@inheritDoc} */
+    @Override public Set<String> getSupportedAnnotationTypes() {
+        // Commands may inherit all of their options, so they must be processed even if they contain no annotations.
+        return Collections.singleton("*");
+    }
+
+    /** {@inheritDoc} */
+    @Override public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    /** {@inheritDoc} */
+    @Override public boolean process(@NotNull final Set<? extends TypeElement> annotations, @NotNull final RoundEnvironment roundEnv) {
+        final TypeElement commandType = processingEnv.getElementUtils().getTypeElement(Command.class.getName());
+        if (commandType != null) {
+            for (final TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+                processType(type, commandType.asType());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Generates the OptionDispatchers for a type and its member types.
+     * @param type Type to process.
+     * @param commandType The type {@link Command}.
+     */
+    private void processType(@NotNull final TypeElement type, @NotNull final TypeMirror commandType) {
+        if (type.getKind() == ElementKind.CLASS && !type.getModifiers().contains(Modifier.ABSTRACT) && processingEnv.getTypeUtils().isAssignable(type.asType(), processingEnv.getTypeUtils().erasure(commandType)) && isAccessible(type, null)) {
+            final String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+            if (processed.add(binaryName)) {
+                generateDispatcher(type, binaryName);
+            }
+        }
+        for (final TypeElement memberType : ElementFilter.typesIn(type.getEnclosedElements())) {
+            processType(memberType, commandType);
+        }
+    }
+
+    /**
+     * Returns whether a type is accessible from generated code.
+     * @param type Type to check.
+     * @param from Package of the generated code or <code>null</code> for the package of <var>type</var>.
+     * @return <code>true</code> if <var>type</var> is accessible, otherwise <code>false</code>.
+     */
+    private boolean isAccessible(@NotNull final TypeElement type, @Nullable final PackageElement from) {
+        final boolean samePackage = from == null || from.equals(processingEnv.getElementUtils().getPackageOf(type));
+        for (Element element = type; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            final Set<Modifier> modifiers = element.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE) || !samePackage && !modifiers.contains(Modifier.PUBLIC)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Generates the OptionDispatcher for a Command class.
+     * @param type Command class.
+     * @param binaryName Binary name of the Command class.
+     */
+    private void generateDispatcher(@NotNull final TypeElement type, @NotNull final String binaryName) {
+        final Elements elements = processingEnv.getElementUtils();
+        final PackageElement packageElement = elements.getPackageOf(type);
+        final List<ExecutableElement> methods = new ArrayList<ExecutableElement>();
+        final Map<String, Integer> indices = new HashMap<String, Integer>();
+        for (final ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(type))) {
+            final Option option = method.getAnnotation(Option.class);
+            if (option == null || !method.getModifiers().contains(Modifier.PUBLIC)) {
+                continue;
+            }
+            final String problem = validate(method, option, indices, packageElement);
+            if (problem != null) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "No " + OptionDispatcher.class.getSimpleName() + " generated for " + type.getQualifiedName() + ": " + problem, type);
+                return;
+            }
+            for (final String optionName : option.value()) {
+                indices.put(optionName, methods.size());
+            }
+            methods.add(method);
+        }
+        final String qualifiedName = binaryName + OptionDispatcher.CLASS_NAME_SUFFIX;
+        final String packageName = packageElement.getQualifiedName().toString();
+        final String simpleName = packageName.length() == 0 ? qualifiedName : qualifiedName.substring(packageName.length() + 1);
+        final String typeName = type.getQualifiedName().toString();
+        try {
+            final PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter());
+            try {
+                if (packageName.length() > 0) {
+                    out.println("package " + packageName + ";");
+                    out.println();
+                }
+                out.println("/** OptionDispatcher for {@link " + typeName + "}, generated by " + getClass().getName() + ". */");
+                out.println("public final class " + simpleName + " implements net.sf.japi.io.args.OptionDispatcher {");
+                out.println();
+                out.println("    private static final String[] NAMES = {");
+                for (final ExecutableElement method : methods) {
+                    out.println("        " + elements.getConstantExpression(method.getAnnotation(Option.class).value()[0]) + ",");
+                }
+                out.println("    };");
+                out.println();
+                out.println("    private static final net.sf.japi.io.args.OptionType[] TYPES = {");
+                for (final ExecutableElement method : methods) {
+                    out.println("        net.sf.japi.io.args.OptionType." + method.getAnnotation(Option.class).type().name() + ",");
+                }
+                out.println("    };");
+                out.println();
+                out.println("    private static final boolean[] OBSOLETE = {");
+                for (final ExecutableElement method : methods) {
+                    out.println("        " + (method.getAnnotation(Obsolete.class) != null) + ",");
+                }
+                out.println("    };");
+                out.println();
+                out.println("    private static final Class<?>[] ARGUMENT_TYPES = {");
+                for (final ExecutableElement method : methods) {
+                    out.println("        " + (method.getParameters().isEmpty() ? "null" : getTypeName(method.getParameters().get(0).asType()) + ".class") + ",");
+                }
+                out.println("    };");
+                out.println();
+                out.println("    public int getOptionCount() {");
+                out.println("        return NAMES.length;");
+                out.println("    }");
+                out.println();
+                out.println("    public int getIndex(final String optionName) {");
+                out.println("        switch (optionName) {");
+                for (int index = 0; index < methods.size(); index++) {
+                    for (final String optionName : methods.get(index).getAnnotation(Option.class).value()) {
+                        out.println("        case " + elements.getConstantExpression(optionName) + ":");
+                    }
+                    out.println("            return " + index + ";");
+                }
+                out.println("        default:");
+                out.println("            return -1;");
+                out.println("        }");
+                out.println("    }");
+                out.println();
+                out.println("    public String getName(final int index) {");
+                out.println("        return NAMES[index];");
+                out.println("    }");
+                out.println();
+                out.println("    public net.sf.japi.io.args.OptionType getType(final int index) {");
+                out.println("        return TYPES[index];");
+                out.println("    }");
+                out.println();
+                out.println("    public boolean isObsolete(final int index) {");
+                out.println("        return OBSOLETE[index];");
+                out.println("    }");
+                out.println();
+                out.println("    public Class<?> getArgumentType(final int index) {");
+                out.println("        return ARGUMENT_TYPES[index];");
+                out.println("    }");
+                out.println();
+                out.println("    public void invoke(final net.sf.japi.io.args.Command command, final int index, final Object argument) throws Exception {");
+                out.println("        switch (index) {");
+                for (int index = 0; index < methods.size(); index++) {
+                    final ExecutableElement method = methods.get(index);
+                    final String target = method.getModifiers().contains(Modifier.STATIC) ? typeName : "((" + typeName + ") command)";
+                    final String argument = method.getParameters().isEmpty() ? "" : "(" + getBoxedName(method.getParameters().get(0).asType()) + ") argument";
+                    out.println("        case " + index + ":");
+                    out.println("            " + target + "." + method.getSimpleName() + "(" + argument + ");");
+                    out.println("            break;");
+                }
+                out.println("        default:");
+                out.println("            throw new IndexOutOfBoundsException(String.valueOf(index));");
+                out.println("        }");
+                out.println("    }");
+                out.println();
+                out.println("}");
+            } finally {
+                out.close();
+            }
+        } catch (final IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Cannot write " + qualifiedName + ": " + e, type);
+        }
+    }
+
+    /**
+     * Validates an option method the same way as the reflective OptionDispatcher does.
+     * @param method Option method to validate.
+     * @param option Option annotation of the option method.
+     * @param indices Option names declared so far.
+     * @param from Package of the generated code.
+     * @return Description of the problem or <code>null</code> if the option method is valid.
+     */
+    @Nullable private String validate(@NotNull final ExecutableElement method, @NotNull final Option option, @NotNull final Map<String, Integer> indices, @NotNull final PackageElement from) {
+        final String[] optionNames = option.value();
+        if (optionNames.length == 0) {
+            return method.getSimpleName() + " declared as option but specified no option names";
+        }
+        if (method.getParameters().size() > 1) {
+            return method.getSimpleName() + " has more than 1 parameter";
+        }
+        if (method.getParameters().size() == 1) {
+            final TypeMirror parameterType = processingEnv.getTypeUtils().erasure(method.getParameters().get(0).asType());
+            if (parameterType.getKind() == TypeKind.DECLARED && !isAccessible((TypeElement) ((DeclaredType) parameterType).asElement(), from)) {
+                return method.getSimpleName() + " has an inaccessible parameter type";
+            }
+        }
+        final Set<String> names = new HashSet<String>(indices.keySet());
+        for (final String optionName : optionNames) {
+            if ("".equals(optionName)) {
+                return "The empty String is not allowed as option name.";
+            }
+            if (optionName.startsWith("-")) {
+                return "option names must not start with a dash ('-').";
+            }
+            if ("W".equals(optionName)) {
+                return "W is not an allowed option name.";
+            }
+            if (!names.add(optionName)) {
+                return "option " + optionName + " declared twice.";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the name of the type to cast an argument to, which is the wrapper type for primitive types.
+     * @param type Parameter type.
+     * @return Name of the type to cast to.
+     */
+    @NotNull private String getBoxedName(@NotNull final TypeMirror type) {
+        final Types types = processingEnv.getTypeUtils();
+        if (type.getKind().isPrimitive()) {
+            return types.boxedClass(types.getPrimitiveType(type.getKind())).getQualifiedName().toString();
+        }
+        return getTypeName(type);
+    }
+
+    /**
+     * Returns the source name of the erasure of a type.
+     * Unlike {@link TypeMirror#toString()}, this omits type annotations, which are not allowed in class literals and casts of generated code.
+     * @param type Type.
+     * @return Source name of the erasure of the type.
+     */
+    @NotNull private String getTypeName(@NotNull final TypeMirror type) {
+        final TypeMirror erasure = processingEnv.getTypeUtils().erasure(type);
+        switch (erasure.getKind()) {
+        case ARRAY:
+            return getTypeName(((ArrayType) erasure).getComponentType()) + "[]";
+        case DECLARED:
+            return ((TypeElement) ((DeclaredType) erasure).asElement()).getQualifiedName().toString();
+        default:
+            return erasure.getKind().name().toLowerCase(Locale.ENGLISH);
+        }
+    }
+
+} // class OptionProcessor
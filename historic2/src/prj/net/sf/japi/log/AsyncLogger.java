@@ -0,0 +1,423 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.sf.japi.log;
+
+import java.io.PrintStream;
+import java.util.Formatter;
+import java.util.ResourceBundle;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * AsyncLogger is a logger which formats and prints log messages on a background thread.
+ * Logging only stores level, key, parameters and throwable in a preallocated slot of a ring buffer.
+ * Looking up the message in the resource bundle, formatting it and printing it happens on the background thread, which flushes the output whenever it has caught up.
+ * If the ring buffer is full, logging waits for the background thread.
+ * <p>
+ * The location of the caller is only captured if requested, because that needs the stack.
+ * Even then, only a {@link Throwable} is created when logging, and its stack trace is resolved on the background thread.
+ * <p>
+ * Because the parameters are formatted later, they must not be modified after logging.
+ * {@link #flush()} waits until all messages logged so far are printed; {@link #close()} additionally stops the background thread.
+ * Loggers are closed automatically when the VM shuts down.
+ * @param <Level> the enumeration type of log levels to use for this Logger.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @since 0.1
+ */
+public final class AsyncLogger<Level extends Enum<Level>> implements Logger<Level> {
+
+    /** The name of the system property with the capacity of the ring buffer. */
+    public static final String CAPACITY_PROPERTY = "net.sf.japi.log.AsyncLogger.capacity";
+
+    /** The name of the system property which enables capturing the caller location. */
+    public static final String CAPTURE_CALLER_PROPERTY = "net.sf.japi.log.AsyncLogger.captureCaller";
+
+    /** The default capacity of the ring buffer. */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    /** The maximum time in nanoseconds the background thread waits before checking for messages again. */
+    private static final long MAX_PARK_NANOS = 100000000L;
+
+    /** The time in nanoseconds a waiting caller waits before checking for space again. */
+    private static final long WAIT_PARK_NANOS = 10000L;
+
+    /** The bit in {@link #next} which marks sequence numbers claimed after closing. */
+    private static final long CLOSED_BIT = 1L << 62;
+
+    /** The name of this logger. */
+    @NotNull private final String name;
+
+    /** The ResourceBundle to get messages from. */
+    @NotNull private final ResourceBundle bundle;
+
+    /** The stream to print to. */
+    @NotNull private final PrintStream out;
+
+    /** Whether to capture the location of the caller. */
+    private final boolean captureCaller;
+
+    /** The ring buffer. */
+    @NotNull private final Slot[] slots;
+
+    /** The mask for computing the index of a sequence number in {@link #slots}. */
+    private final int mask;
+
+    /** The sequence number of the next message to log, with {@link #CLOSED_BIT} set once this logger is closed. */
+    @NotNull private final AtomicLong next = new AtomicLong();
+
+    /** The sequence number of the next message to print. */
+    private volatile long printed;
+
+    /** Whether the background thread is waiting for messages. */
+    private volatile boolean waiting;
+
+    /** The sequence number up to which the background thread prints messages before it stops, {@link Long#MAX_VALUE} while this logger is open. */
+    private volatile long closeSequence = Long.MAX_VALUE;
+
+    /** The minimum enabled level or <code>null</code> if all levels are enabled. */
+    @Nullable private volatile Level enabledLevel;
+
+    /** The buffer for formatting a line, only used by the background thread. */
+    @NotNull private final StringBuilder line = new StringBuilder();
+
+    /** The Formatter for {@link #line}. */
+    @NotNull private final Formatter formatter = new Formatter(line);
+
+    /** The background thread. */
+    @NotNull private final Thread thread;
+
+    /** The shutdown hook which closes this logger. */
+    @NotNull private final Thread shutdownHook;
+
+    /**
+     * Create an AsyncLogger which prints to {@link System#err}.
+     * The capacity and whether to capture the caller location are taken from the system properties {@link #CAPACITY_PROPERTY} and {@link #CAPTURE_CALLER_PROPERTY}.
+     * @param name Name of the logger, used for retrieving the resource bundle
+     */
+    public AsyncLogger(@NotNull final String name) {
+        this(name, ResourceBundle.getBundle(name), System.err, Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY), Boolean.getBoolean(CAPTURE_CALLER_PROPERTY));
+    }
+
+    /**
+     * Create an AsyncLogger.
+     * @param name Name of the logger, printed if the caller location is not captured
+     * @param bundle ResourceBundle to get messages from
+     * @param out Stream to print to
+     * @param capacity Capacity of the ring buffer, rounded up to a power of two
+     * @param captureCaller Whether to capture the location of the caller
+     */
+    public AsyncLogger(@NotNull final String name, @NotNull final ResourceBundle bundle, @NotNull final PrintStream out, final int capacity, final boolean captureCaller) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Illegal capacity " + capacity);
+        }
+        this.name = name;
+        this.bundle = bundle;
+        this.out = out;
+        this.captureCaller = captureCaller;
+        slots = new Slot[capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new Slot();
+        }
+        mask = slots.length - 1;
+        thread = new Thread(new Runnable() {
+            /** {@inheritDoc} */
+            public void run() {
+                printMessages();
+            }
+        }, "AsyncLogger " + name);
+        thread.setDaemon(true);
+        thread.start();
+        shutdownHook = new Thread(new Runnable() {
+            /** {@inheritDoc} */
+            public void run() {
+                close();
+            }
+        }, "AsyncLogger " + name + " shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /** {@inheritDoc} */
+    public void log(final Level level, final String key) {
+        if (isEnabled(level)) {
+            logImpl(level, null, key, null);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void log(final Level level, final String key, final Object... params) {
+        if (isEnabled(level)) {
+            logImpl(level, null, key, params);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void log(final Level level, final Throwable t, final String key) {
+        if (isEnabled(level)) {
+            logImpl(level, t, key, null);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void log(final Level level, final Throwable t, final String key, final Object... params) {
+        if (isEnabled(level)) {
+            logImpl(level, t, key, params);
+        }
+    }
+
+    /** {@inheritDoc} */
+    public void setLevel(final Level level) {
+        enabledLevel = level;
+    }
+
+    /** {@inheritDoc} */
+    public boolean isEnabled(final Level level) {
+        final Level enabledLevel = this.enabledLevel;
+        return enabledLevel == null || level.ordinal() >= enabledLevel.ordinal();
+    }
+
+    /**
+     * Waits until all messages logged so far are printed.
+     */
+    public void flush() {
+        final long target = next.get() & ~CLOSED_BIT;
+        while (printed < target && thread.isAlive()) {
+            LockSupport.unpark(thread);
+            LockSupport.parkNanos(this, WAIT_PARK_NANOS);
+        }
+    }
+
+    /**
+     * Prints all pending messages and stops the background thread.
+     * Messages logged after closing are printed on the caller's thread once the background thread has stopped.
+     */
+    public void close() {
+        long sequence = next.get();
+        while ((sequence & CLOSED_BIT) == 0) {
+            if (next.compareAndSet(sequence, sequence | CLOSED_BIT)) {
+                closeSequence = sequence;
+                break;
+            }
+            sequence = next.get();
+        }
+        LockSupport.unpark(thread);
+        awaitThread();
+        if (Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (final IllegalStateException ignore) {
+                // The VM is already shutting down.
+            }
+        }
+    }
+
+    /**
+     * Stores a message in the ring buffer.
+     * @param level   Log Level
+     * @param t       Throwable to log (maybe null)
+     * @param key     Key for retrieving the message from the bundle
+     * @param params  Values to use during message formatting or <code>null</code> if the message is not to be formatted
+     */
+    private void logImpl(@NotNull final Level level, @Nullable final Throwable t, @NotNull final String key, @Nullable final Object[] params) {
+        final Throwable caller = captureCaller ? new Throwable() : null;
+        final long sequence = next.getAndIncrement();
+        if ((sequence & CLOSED_BIT) != 0) {
+            printInline(level, t, key, params, caller);
+            return;
+        }
+        while (sequence - printed >= slots.length) {
+            if (!thread.isAlive()) {
+                printInline(level, t, key, params, caller);
+                return;
+            }
+            LockSupport.unpark(thread);
+            LockSupport.parkNanos(this, WAIT_PARK_NANOS);
+        }
+        final Slot slot = slots[(int) sequence & mask];
+        slot.set(level, t, key, params, caller);
+        slot.sequence = sequence;
+        if (waiting) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Prints a message logged after closing on the caller's thread.
+     * Waits for the background thread to stop first, so the message is printed after all messages logged before closing.
+     * @param level   Log Level
+     * @param t       Throwable to log (maybe null)
+     * @param key     Key for retrieving the message from the bundle
+     * @param params  Values to use during message formatting or <code>null</code> if the message is not to be formatted
+     * @param caller  Throwable with the location of the caller or <code>null</code> if the location is not to be printed
+     */
+    private void printInline(@NotNull final Level level, @Nullable final Throwable t, @NotNull final String key, @Nullable final Object[] params, @Nullable final Throwable caller) {
+        if (Thread.currentThread() != thread) {
+            awaitThread();
+        }
+        final Slot slot = new Slot();
+        slot.set(level, t, key, params, caller);
+        synchronized (this) {
+            print(slot);
+            out.flush();
+        }
+    }
+
+    /** Waits uninterruptibly until the background thread has stopped, preserving the interrupt status of the current thread. */
+    private void awaitThread() {
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (final InterruptedException ignore) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Prints the messages from the ring buffer until this logger is closed.
+     * Before stopping, all messages claimed before closing are printed, including those whose callers are still storing them.
+     */
+    private void printMessages() {
+        long sequence = printed;
+        while (true) {
+            final Slot slot = slots[(int) sequence & mask];
+            if (slot.sequence == sequence) {
+                synchronized (this) {
+                    print(slot);
+                }
+                slot.clear();
+                printed = ++sequence;
+            } else {
+                synchronized (this) {
+                    out.flush();
+                }
+                if (sequence >= closeSequence) {
+                    return;
+                }
+                waiting = true;
+                if (slot.sequence != sequence) {
+                    LockSupport.parkNanos(this, MAX_PARK_NANOS);
+                }
+                waiting = false;
+            }
+        }
+    }
+
+    /**
+     * Formats and prints a message.
+     * @param slot Slot with the message.
+     */
+    private void print(@NotNull final Slot slot) {
+        line.setLength(0);
+        final StackTraceElement location = getLocation(slot.caller);
+        if (location != null) {
+            line.append(location.getFileName()).append(':').append(location.getLineNumber());
+        } else {
+            line.append(name);
+        }
+        line.append(": ").append(slot.level).append(": ");
+        try {
+            final String message = bundle.getString(slot.key);
+            if (slot.params != null) {
+                formatter.format(message, slot.params);
+            } else {
+                line.append(message);
+            }
+        } catch (final RuntimeException e) {
+            line.append(slot.key).append(" (").append(e).append(')');
+        }
+        out.println(line);
+        if (slot.thrown != null) {
+            slot.thrown.printStackTrace(out);
+        }
+    }
+
+    /**
+     * Finds the location of the caller of the logger in a stack trace.
+     * @param caller Throwable created by the logger or <code>null</code> if the caller location was not captured.
+     * @return Location of the caller or <code>null</code> if unavailable.
+     */
+    @Nullable private static StackTraceElement getLocation(@Nullable final Throwable caller) {
+        if (caller != null) {
+            final StackTraceElement[] stackTrace = caller.getStackTrace();
+            int i = 0;
+            while (i < stackTrace.length && stackTrace[i].getClassName().startsWith("net.sf.japi.log.")) {
+                i++;
+            }
+            if (i < stackTrace.length) {
+                return stackTrace[i];
+            }
+        }
+        return null;
+    }
+
+    /** A slot of the ring buffer. */
+    private static final class Slot {
+
+        /** The sequence number of the message in this slot, written last when logging. */
+        private volatile long sequence = -1;
+
+        /** The level. */
+        @Nullable private Enum<?> level;
+
+        /** The throwable to log. */
+        @Nullable private Throwable thrown;
+
+        /** The key for retrieving the message from the bundle. */
+        @Nullable private String key;
+
+        /** The values to use during message formatting. */
+        @Nullable private Object[] params;
+
+        /** The throwable for finding the location of the caller. */
+        @Nullable private Throwable caller;
+
+        /**
+         * Sets the message of this slot.
+         * @param level   Log Level
+         * @param thrown  Throwable to log (maybe null)
+         * @param key     Key for retrieving the message from the bundle
+         * @param params  Values to use during message formatting (maybe null)
+         * @param caller  Throwable for finding the location of the caller (maybe null)
+         */
+        void set(@NotNull final Enum<?> level, @Nullable final Throwable thrown, @NotNull final String key, @Nullable final Object[] params, @Nullable final Throwable caller) {
+            this.level = level;
+            this.thrown = thrown;
+            this.key = key;
+            this.params = params;
+            this.caller = caller;
+        }
+
+        /** Clears the references of this slot, so the objects can be garbage collected. */
+        void clear() {
+            level = null;
+            thrown = null;
+            key = null;
+            params = null;
+            caller = null;
+        }
+
+    } // class Slot
+
+} // class AsyncLogger
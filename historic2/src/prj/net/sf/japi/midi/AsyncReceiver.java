@@ -0,0 +1,291 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.sf.japi.midi;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import javax.sound.midi.MidiMessage;
+import javax.sound.midi.Receiver;
+import org.jetbrains.annotations.NotNull;
+
+/** A Midi Receiver which delivers its received messages to another receiver on a separate thread.
+ * Messages are passed through a bounded ring buffer, so {@link #send(MidiMessage, long)} never waits for the other receiver, unless the overflow policy is {@link OverflowPolicy#BLOCK}.
+ * That way, a slow receiver, like a {@link MonitorReceiver}, does not delay the thread which sends the messages.
+ * <p>
+ * The ring buffer has a single producer and a single consumer, the delivery thread.
+ * Threads which call {@link #send(MidiMessage, long)} concurrently are serialized by a lock, which is uncontended in the usual case of one transmitter.
+ * The messages are not copied, so they must not be modified after they were sent.
+ * <p>
+ * For monitoring, an AsyncReceiver counts delivered, dropped and failed messages and measures the latency between sending and delivery.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @since 0.1
+ */
+public class AsyncReceiver implements Receiver {
+
+    /** What to do with a message sent while the ring buffer is full. */
+    public enum OverflowPolicy {
+
+        /** Drop the message which was sent. */
+        DROP_NEWEST,
+
+        /** Drop the oldest message in the ring buffer to make room for the message which was sent. */
+        DROP_OLDEST,
+
+        /** Wait until the delivery thread made room. */
+        BLOCK
+
+    } // enum OverflowPolicy
+
+    /** How long a blocked sender waits before checking for room again in nanoseconds. */
+    private static final long BLOCK_WAIT_NANOS = 50000L;
+
+    /** The Receiver to which to deliver. */
+    @NotNull private final Receiver receiver;
+
+    /** The overflow policy. */
+    @NotNull private final OverflowPolicy policy;
+
+    /** The capacity of the ring buffer, a power of two. */
+    private final int capacity;
+
+    /** The messages of the ring buffer. */
+    @NotNull private final MidiMessage[] messages;
+
+    /** The time stamps of the messages. */
+    @NotNull private final long[] timeStamps;
+
+    /** The times at which the messages were sent in {@link System#nanoTime()}. */
+    @NotNull private final long[] sendTimes;
+
+    /** The sequence number of the next message to deliver.
+     * Besides the delivery thread, senders increment it to drop the oldest message with {@link OverflowPolicy#DROP_OLDEST}.
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /** The sequence number of the next message to send, only written by senders. */
+    private final AtomicLong tail = new AtomicLong();
+
+    /** Lock which serializes senders. */
+    private final Object sendLock = new Object();
+
+    /** The delivery thread. */
+    @NotNull private final Thread thread;
+
+    /** Whether the delivery thread is parked waiting for messages. */
+    private volatile boolean parked;
+
+    /** Whether this receiver is closed. */
+    private volatile boolean closed;
+
+    /** The number of delivered messages, only written by the delivery thread. */
+    private volatile long deliveredCount;
+
+    /** The number of messages for which the receiver threw an exception, only written by the delivery thread. */
+    private volatile long failedCount;
+
+    /** The sum of the latencies of all delivered messages in nanoseconds, only written by the delivery thread. */
+    private volatile long totalLatency;
+
+    /** The maximum latency of all delivered messages in nanoseconds, only written by the delivery thread. */
+    private volatile long maxLatency;
+
+    /** The number of dropped messages. */
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    /** Create an AsyncReceiver and start its delivery thread.
+     * @param receiver Receiver to which messages shall be delivered.
+     * @param capacity Minimum number of messages which can wait for delivery, rounded up to a power of two.
+     * @param policy What to do with messages sent while <var>capacity</var> messages are waiting for delivery.
+     */
+    public AsyncReceiver(@NotNull final Receiver receiver, final int capacity, @NotNull final OverflowPolicy policy) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Illegal capacity " + capacity);
+        }
+        this.receiver = receiver;
+        this.policy = policy;
+        this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        messages = new MidiMessage[this.capacity];
+        timeStamps = new long[this.capacity];
+        sendTimes = new long[this.capacity];
+        thread = new Thread(new Runnable() {
+            /** {@inheritDoc} */
+            public void run() {
+                deliver();
+            }
+        }, "AsyncReceiver for " + receiver);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** {@inheritDoc} */
+    public void send(final MidiMessage message, final long timeStamp) {
+        synchronized (sendLock) {
+            // Checked under the lock, so the delivery thread, which holds the lock for its final check, cannot miss a message.
+            if (closed) {
+                throw new IllegalStateException("AsyncReceiver is closed.");
+            }
+            final long t = tail.get();
+            while (t - head.get() >= capacity) {
+                switch (policy) {
+                case DROP_NEWEST:
+                    droppedCount.incrementAndGet();
+                    return;
+                case DROP_OLDEST:
+                    final long h = head.get();
+                    if (t - h >= capacity && head.compareAndSet(h, h + 1)) {
+                        droppedCount.incrementAndGet();
+                    }
+                    break;
+                case BLOCK:
+                default:
+                    if (closed) {
+                        droppedCount.incrementAndGet();
+                        return;
+                    }
+                    LockSupport.parkNanos(BLOCK_WAIT_NANOS);
+                }
+            }
+            final int index = (int) t & capacity - 1;
+            messages[index] = message;
+            timeStamps[index] = timeStamp;
+            sendTimes[index] = System.nanoTime();
+            // The volatile store publishes the slot to the delivery thread.
+            // It must not be an ordered store, because it must not be reordered with the read of parked below.
+            tail.set(t + 1);
+        }
+        if (parked) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /** Delivers messages until this receiver is closed and all messages are delivered, then closes the receiver. */
+    private void deliver() {
+        while (true) {
+            final long h = head.get();
+            if (h == tail.get()) {
+                if (closed) {
+                    synchronized (sendLock) {
+                        if (h == tail.get()) {
+                            break;
+                        }
+                    }
+                    continue;
+                }
+                parked = true;
+                if (h == tail.get() && !closed) {
+                    LockSupport.park(this);
+                }
+                parked = false;
+                continue;
+            }
+            final int index = (int) h & capacity - 1;
+            final MidiMessage message = messages[index];
+            final long timeStamp = timeStamps[index];
+            final long sendTime = sendTimes[index];
+            // A sender may have dropped the message in the meantime, then the slot contents are stale.
+            // The slot is not cleared after taking it, because a sender may already reuse it.
+            if (!head.compareAndSet(h, h + 1)) {
+                continue;
+            }
+            final long latency = System.nanoTime() - sendTime;
+            totalLatency += latency;
+            if (latency > maxLatency) {
+                maxLatency = latency;
+            }
+            try {
+                receiver.send(message, timeStamp);
+                deliveredCount++;
+            } catch (final RuntimeException ignore) {
+                failedCount++;
+            }
+        }
+        receiver.close();
+    }
+
+    /** Closes this receiver.
+     * Messages which are already waiting are still delivered, then the receiver to which this AsyncReceiver delivers is closed.
+     */
+    public void close() {
+        closed = true;
+        LockSupport.unpark(thread);
+    }
+
+    /** Waits until this receiver is closed and all waiting messages are delivered.
+     * @param timeout Maximum time to wait.
+     * @param unit Unit of <var>timeout</var>.
+     * @return <code>true</code> if the delivery thread terminated, <code>false</code> if the timeout elapsed.
+     * @throws InterruptedException if the current thread was interrupted while waiting.
+     */
+    public boolean awaitTermination(final long timeout, @NotNull final TimeUnit unit) throws InterruptedException {
+        unit.timedJoin(thread, timeout);
+        return !thread.isAlive();
+    }
+
+    /** Returns the Receiver to which this AsyncReceiver delivers.
+     * @return The Receiver to which this AsyncReceiver delivers.
+     */
+    @NotNull public Receiver getReceiver() {
+        return receiver;
+    }
+
+    /** Returns the number of messages waiting for delivery.
+     * @return The number of messages waiting for delivery.
+     */
+    public int getQueueSize() {
+        return (int) Math.max(0L, tail.get() - head.get());
+    }
+
+    /** Returns the number of delivered messages.
+     * @return The number of delivered messages.
+     */
+    public long getDeliveredCount() {
+        return deliveredCount;
+    }
+
+    /** Returns the number of messages which were dropped because the ring buffer was full.
+     * @return The number of dropped messages.
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /** Returns the number of messages for which the receiver threw an exception.
+     * @return The number of failed messages.
+     */
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    /** Returns the maximum latency between sending and delivering a message.
+     * @return The maximum latency in nanoseconds.
+     */
+    public long getMaxLatencyNanos() {
+        return maxLatency;
+    }
+
+    /** Returns the average latency between sending and delivering a message.
+     * @return The average latency in nanoseconds or 0 if no message was delivered.
+     */
+    public long getAverageLatencyNanos() {
+        final long count = deliveredCount + failedCount;
+        return count == 0L ? 0L : totalLatency / count;
+    }
+
+}
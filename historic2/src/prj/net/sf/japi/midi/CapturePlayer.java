@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.sf.japi.midi;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MidiMessage;
+import javax.sound.midi.Receiver;
+import javax.sound.midi.ShortMessage;
+import javax.sound.midi.SysexMessage;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/** A CapturePlayer reads messages recorded by a {@link CaptureReceiver} and replays them to a Receiver.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @since 0.1
+ */
+public class CapturePlayer implements Closeable {
+
+    /** The InputStream from which messages are read. */
+    @NotNull private final InputStream in;
+
+    /** The time stamp of the message read last. */
+    private long timeStamp;
+
+    /** The microseconds elapsed between the message read last and its predecessor. */
+    private long elapsedMicros;
+
+    /** Create a CapturePlayer.
+     * @param in InputStream from which messages are read, should be buffered.
+     * @throws IOException in case of I/O problems or if <var>in</var> is not a capture.
+     */
+    public CapturePlayer(@NotNull final InputStream in) throws IOException {
+        this.in = in;
+        for (final byte b : CaptureReceiver.MAGIC) {
+            if (in.read() != b) {
+                throw new IOException("Not a MIDI capture or unsupported version.");
+            }
+        }
+    }
+
+    /** Reads the next message.
+     * @return The next message or <code>null</code> if the end of the capture was reached.
+     * @throws IOException in case of I/O problems or if the capture is corrupt.
+     */
+    @Nullable public MidiMessage read() throws IOException {
+        final int first = in.read();
+        if (first == -1) {
+            return null;
+        }
+        elapsedMicros = readVarLong(first);
+        final long delta = readVarLong(readByte());
+        timeStamp += delta >>> 1 ^ -(delta & 1L);
+        final long length = readVarLong(readByte());
+        if (length < 1L || length > Integer.MAX_VALUE) {
+            throw new IOException("Corrupt MIDI capture: illegal message length " + length);
+        }
+        final byte[] data = new byte[(int) length];
+        for (int off = 0; off < data.length; ) {
+            final int n = in.read(data, off, data.length - off);
+            if (n == -1) {
+                throw new EOFException();
+            }
+            off += n;
+        }
+        final int status = data[0] & 0xFF;
+        try {
+            if (status == SysexMessage.SYSTEM_EXCLUSIVE || status == SysexMessage.SPECIAL_SYSTEM_EXCLUSIVE) {
+                return new SysexMessage(data, data.length);
+            }
+            if (data.length > 3) {
+                throw new IOException("Corrupt MIDI capture: short message of length " + data.length);
+            }
+            final ShortMessage message = new ShortMessage();
+            message.setMessage(status, data.length > 1 ? data[1] & 0xFF : 0, data.length > 2 ? data[2] & 0xFF : 0);
+            return message;
+        } catch (final InvalidMidiDataException e) {
+            throw new IOException("Corrupt MIDI capture: " + e.getMessage(), e);
+        }
+    }
+
+    /** Returns the time stamp of the message read last.
+     * @return The time stamp of the message read last.
+     */
+    public long getTimeStamp() {
+        return timeStamp;
+    }
+
+    /** Returns the microseconds that elapsed between recording the message read last and its predecessor.
+     * @return The elapsed microseconds.
+     */
+    public long getElapsedMicros() {
+        return elapsedMicros;
+    }
+
+    /** Replays all remaining messages to a Receiver.
+     * @param receiver Receiver to send the messages to.
+     * @param realTime <code>true</code> to send the messages with the timing in which they were recorded, <code>false</code> to send them as fast as possible.
+     * @return The number of replayed messages.
+     * @throws IOException in case of I/O problems or if the capture is corrupt.
+     * @throws InterruptedException if the current thread was interrupted while waiting for the time of a message.
+     */
+    public int replay(@NotNull final Receiver receiver, final boolean realTime) throws IOException, InterruptedException {
+        int count = 0;
+        long due = System.nanoTime();
+        for (MidiMessage message; (message = read()) != null; count++) {
+            if (realTime) {
+                due += elapsedMicros * 1000L;
+                TimeUnit.NANOSECONDS.sleep(due - System.nanoTime());
+            }
+            receiver.send(message, timeStamp);
+        }
+        return count;
+    }
+
+    /** Reads an unsigned variable length number.
+     * @param first First byte of the number.
+     * @return The number.
+     * @throws IOException in case of I/O problems or if the number is too long.
+     */
+    private long readVarLong(final int first) throws IOException {
+        long value = first & 0x7F;
+        int b = first;
+        for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+            if (shift > 63) {
+                throw new IOException("Corrupt MIDI capture: number too long");
+            }
+            b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+        }
+        return value;
+    }
+
+    /** Reads a byte which must exist.
+     * @return The byte.
+     * @throws IOException in case of I/O problems.
+     * @throws EOFException if the end of the stream was reached.
+     */
+    private int readByte() throws IOException {
+        final int b = in.read();
+        if (b == -1) {
+            throw new EOFException();
+        }
+        return b;
+    }
+
+    /** {@inheritDoc} */
+    public void close() throws IOException {
+        in.close();
+    }
+
+}
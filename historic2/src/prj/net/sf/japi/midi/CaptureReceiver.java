@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.sf.japi.midi;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import javax.sound.midi.MidiMessage;
+import javax.sound.midi.Receiver;
+import javax.sound.midi.ShortMessage;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/** A CaptureReceiver is a Receiver that records messages in a compact binary format which can be replayed with a {@link CapturePlayer}.
+ * It optionally can delegate to another receiver.
+ * <p>
+ * The format starts with the magic bytes <code>JMIC</code> and a version byte, which is 1.
+ * Each message is a record of four fields:
+ * the microseconds elapsed since the previous record or the start of the capture as unsigned variable length number,
+ * the difference between the time stamp and the previous time stamp as zigzag encoded variable length number,
+ * the length of the message as unsigned variable length number,
+ * and the message bytes.
+ * Variable length numbers are written 7 bits at a time, least significant bits first, with the highest bit set in all but the last byte.
+ * <p>
+ * A record is written with a single write to the OutputStream, and recording a {@link ShortMessage} does not allocate.
+ * The OutputStream should be buffered, for example with a {@link net.sf.japi.io.BatchingOutputStream}.
+ * Like a {@link java.io.PrintStream}, a CaptureReceiver does not throw IOExceptions, use {@link #checkError()} instead.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @since 0.1
+ */
+public class CaptureReceiver implements Receiver {
+
+    /** The magic bytes and version at the start of a capture. */
+    static final byte[] MAGIC = {'J', 'M', 'I', 'C', 1};
+
+    /** The maximum length of a record header. */
+    private static final int MAX_HEADER_LENGTH = 10 + 10 + 5;
+
+    /** The OutputStream to which messages are recorded. */
+    @NotNull private final OutputStream out;
+
+    /** The Receiver to which to delegate. */
+    @Nullable private final Receiver receiver;
+
+    /** The buffer into which a record is encoded. */
+    @NotNull private final byte[] record = new byte[MAX_HEADER_LENGTH + 3];
+
+    /** The time of the previous record in {@link System#nanoTime()}. */
+    private long previousTime;
+
+    /** The time stamp of the previous record. */
+    private long previousTimeStamp;
+
+    /** Whether an IOException occurred. */
+    private volatile boolean error;
+
+    /** Create a CaptureReceiver.
+     * @param out OutputStream to which messages are recorded.
+     * @throws IOException in case of I/O problems writing the magic bytes.
+     */
+    public CaptureReceiver(@NotNull final OutputStream out) throws IOException {
+        this(out, null);
+    }
+
+    /** Create a CaptureReceiver.
+     * @param out OutputStream to which messages are recorded.
+     * @param receiver Receiver to which messages shall be delegated.
+     * @throws IOException in case of I/O problems writing the magic bytes.
+     */
+    public CaptureReceiver(@NotNull final OutputStream out, @Nullable final Receiver receiver) throws IOException {
+        this.out = out;
+        this.receiver = receiver;
+        out.write(MAGIC);
+        previousTime = System.nanoTime();
+    }
+
+    /** {@inheritDoc} */
+    public void send(final MidiMessage message, final long timeStamp) {
+        record(message, timeStamp);
+        if (receiver != null) {
+            receiver.send(message, timeStamp);
+        }
+    }
+
+    /** Records a message.
+     * @param message Message to record.
+     * @param timeStamp Time stamp of the message.
+     */
+    private synchronized void record(@NotNull final MidiMessage message, final long timeStamp) {
+        final long now = System.nanoTime();
+        final long elapsed = (now - previousTime) / 1000L;
+        // Only advance by whole microseconds, so rounding errors do not accumulate.
+        previousTime += elapsed * 1000L;
+        final long delta = timeStamp - previousTimeStamp;
+        previousTimeStamp = timeStamp;
+        final int length = message.getLength();
+        int pos = putVarLong(0, elapsed);
+        pos = putVarLong(pos, delta << 1 ^ delta >> 63);
+        pos = putVarLong(pos, length);
+        try {
+            if (message instanceof ShortMessage) {
+                final ShortMessage shortMessage = (ShortMessage) message;
+                record[pos++] = (byte) shortMessage.getStatus();
+                if (length > 1) {
+                    record[pos++] = (byte) shortMessage.getData1();
+                }
+                if (length > 2) {
+                    record[pos++] = (byte) shortMessage.getData2();
+                }
+                out.write(record, 0, pos);
+            } else {
+                final byte[] data = message.getMessage();
+                final byte[] buf = new byte[pos + length];
+                System.arraycopy(record, 0, buf, 0, pos);
+                System.arraycopy(data, 0, buf, pos, length);
+                out.write(buf);
+            }
+        } catch (final IOException ignore) {
+            error = true;
+        }
+    }
+
+    /** Encodes an unsigned variable length number into {@link #record}.
+     * @param pos Position at which to encode.
+     * @param value Value to encode.
+     * @return Position after the encoded value.
+     */
+    private int putVarLong(final int pos, final long value) {
+        int p = pos;
+        long v = value;
+        while ((v & ~0x7FL) != 0L) {
+            record[p++] = (byte) (v & 0x7F | 0x80);
+            v >>>= 7;
+        }
+        record[p++] = (byte) v;
+        return p;
+    }
+
+    /** Flushes the OutputStream and returns whether an IOException occurred.
+     * @return <code>true</code> if an IOException occurred, otherwise <code>false</code>.
+     */
+    public boolean checkError() {
+        try {
+            out.flush();
+        } catch (final IOException ignore) {
+            error = true;
+        }
+        return error;
+    }
+
+    /** {@inheritDoc} */
+    public void close() {
+        if (receiver != null) {
+            receiver.close();
+        }
+        try {
+            out.close();
+        } catch (final IOException ignore) {
+            error = true;
+        }
+    }
+
+}
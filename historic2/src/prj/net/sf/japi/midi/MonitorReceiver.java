@@ -18,32 +18,48 @@
 
 package net.sf.japi.midi;
 
-import java.io.Closeable;
 import java.io.IOException;
-import java.util.Formatter;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
 import javax.sound.midi.MidiMessage;
 import javax.sound.midi.Receiver;
+import javax.sound.midi.ShortMessage;
+import net.sf.japi.io.BatchingOutputStream;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 /** A MonitorReceiver is a Receiver that prints messages to System.out.
  * It optionally can delegate to another receiver.
+ * <p>
+ * Each message is printed as one line consisting of the prefix in brackets, the time stamp and the message bytes in hexadecimal.
+ * The line is encoded into a reused buffer, so monitoring a {@link ShortMessage} does not allocate.
+ * For high message rates, use {@link #createBatched(String, Receiver, OutputStream)}, which writes through a {@link BatchingOutputStream} instead of flushing every line.
+ * To record messages for later replay, delegate to a {@link CaptureReceiver}.
  * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
  * @since 0.1
  */
 public class MonitorReceiver implements Receiver {
 
+    /** The hexadecimal digits. */
+    private static final byte[] HEX_DIGITS = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+    /** The line separator. */
+    private static final byte[] LINE_SEPARATOR = System.getProperty("line.separator").getBytes(Charset.defaultCharset());
+
     /** The Receiver to which to delegate. */
     @Nullable private final Receiver receiver;
 
-    /** The prefix for messages printed by this MonitorReceiver. */
-    private final String prefix;
+    /** The encoded prefix for messages printed by this MonitorReceiver, including brackets and trailing space. */
+    @NotNull private final byte[] prefix;
 
-    /** The Appendable to which messages are printed. */
-    private final Appendable out;
+    /** The OutputStream to which messages are printed. */
+    @NotNull private final OutputStream out;
 
-    /** The Formatter that is used to format messages to {@link #out}. */
-    private final Formatter format;
+    /** Whether to flush {@link #out} after each message. */
+    private final boolean autoFlush;
+
+    /** The buffer into which a line is encoded. */
+    @NotNull private byte[] line;
 
     /** Create a MonitorReceiver.
      * @param prefix Prefix for messages printed by this MonitorReceiver.
@@ -57,38 +73,107 @@ public class MonitorReceiver implements Receiver {
      * @param receiver Receiver to which messages shall be delegated.
      */
     public MonitorReceiver(@NotNull final String prefix, @Nullable final Receiver receiver) {
-        this.prefix = prefix;
-        out = System.out;
-        format = new Formatter(out);
+        this(prefix, receiver, System.out, true);
+    }
+
+    /** Create a MonitorReceiver.
+     * @param prefix Prefix for messages printed by this MonitorReceiver.
+     * @param receiver Receiver to which messages shall be delegated.
+     * @param out OutputStream to which messages are printed.
+     * @param autoFlush Whether to flush <var>out</var> after each message.
+     */
+    public MonitorReceiver(@NotNull final String prefix, @Nullable final Receiver receiver, @NotNull final OutputStream out, final boolean autoFlush) {
+        this.prefix = ("[" + prefix + "] ").getBytes(Charset.defaultCharset());
         this.receiver = receiver;
+        this.out = out;
+        this.autoFlush = autoFlush;
+        line = new byte[this.prefix.length + 16 + 1 + 2 * 3 + LINE_SEPARATOR.length];
+    }
+
+    /** Create a MonitorReceiver for high message rates.
+     * The lines are written by a {@link BatchingOutputStream}, so printing does not wait for <var>out</var>.
+     * @param prefix Prefix for messages printed by this MonitorReceiver.
+     * @param receiver Receiver to which messages shall be delegated.
+     * @param out OutputStream to which messages are printed, e.g. System.out.
+     * @return MonitorReceiver for high message rates.
+     */
+    @NotNull public static MonitorReceiver createBatched(@NotNull final String prefix, @Nullable final Receiver receiver, @NotNull final OutputStream out) {
+        return new MonitorReceiver(prefix, receiver, new BatchingOutputStream(out), false);
     }
 
     /** {@inheritDoc} */
     public void send(final MidiMessage message, final long timeStamp) {
-        format.format("[%s] %08x ", prefix, timeStamp);
-        final byte[] msg = message.getMessage();
-        for (final byte b : msg) {
-            format.format("%02x", b);
-        }
-        format.format("%n");
-        format.flush();
+        print(message, timeStamp);
         if (receiver != null) {
             receiver.send(message, timeStamp);
         }
     }
 
+    /** Prints a message.
+     * @param message Message to print.
+     * @param timeStamp Time stamp of the message.
+     */
+    private synchronized void print(@NotNull final MidiMessage message, final long timeStamp) {
+        final int length = message.getLength();
+        final int maxLength = prefix.length + 16 + 1 + 2 * length + LINE_SEPARATOR.length;
+        if (line.length < maxLength) {
+            line = new byte[maxLength];
+        }
+        System.arraycopy(prefix, 0, line, 0, prefix.length);
+        int pos = prefix.length;
+        // Like %08x: at least 8 digits.
+        final int digits = Math.max(8, (64 - Long.numberOfLeadingZeros(timeStamp) + 3) / 4);
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            line[pos++] = HEX_DIGITS[(int) (timeStamp >>> shift) & 0xF];
+        }
+        line[pos++] = ' ';
+        if (message instanceof ShortMessage) {
+            final ShortMessage shortMessage = (ShortMessage) message;
+            pos = appendHex(pos, shortMessage.getStatus());
+            if (length > 1) {
+                pos = appendHex(pos, shortMessage.getData1());
+            }
+            if (length > 2) {
+                pos = appendHex(pos, shortMessage.getData2());
+            }
+        } else {
+            for (final byte b : message.getMessage()) {
+                pos = appendHex(pos, b);
+            }
+        }
+        System.arraycopy(LINE_SEPARATOR, 0, line, pos, LINE_SEPARATOR.length);
+        pos += LINE_SEPARATOR.length;
+        try {
+            out.write(line, 0, pos);
+            if (autoFlush) {
+                out.flush();
+            }
+        } catch (final IOException ignore) {
+            // Like a PrintStream, monitoring does not fail because of output problems.
+        }
+    }
+
+    /** Appends a byte in hexadecimal to {@link #line}.
+     * @param pos Position at which to append.
+     * @param b Byte to append.
+     * @return Position after the appended digits.
+     */
+    private int appendHex(final int pos, final int b) {
+        line[pos] = HEX_DIGITS[b >> 4 & 0xF];
+        line[pos + 1] = HEX_DIGITS[b & 0xF];
+        return pos + 2;
+    }
+
     /** {@inheritDoc} */
     public void close() {
         if (receiver != null) {
             receiver.close();
         }
-        format.flush();
-        if (out instanceof Closeable) {
-            try {
-                ((Closeable) out).close();
-            } catch (final IOException ignore) {
-                // ignore
-            }
+        try {
+            out.flush();
+            out.close();
+        } catch (final IOException ignore) {
+            // ignore
         }
     }
 
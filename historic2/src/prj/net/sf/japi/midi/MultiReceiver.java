@@ -18,20 +18,22 @@
 
 package net.sf.japi.midi;
 
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.concurrent.CopyOnWriteArrayList;
 import javax.sound.midi.MidiMessage;
 import javax.sound.midi.Receiver;
 import org.jetbrains.annotations.NotNull;
 
 /** A Midi Receiver which sends its received message to an arbitrary number of other receivers.
+ * The receivers are kept in a copy-on-write list, so sending does not lock and receivers may be added and removed while messages are sent.
+ * Receivers which are slow or may block should be added with {@link #addAsyncReceiver(Receiver, int, AsyncReceiver.OverflowPolicy)}, so they do not delay the other receivers.
  * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
  * @since 0.1
  */
 public class MultiReceiver implements Receiver {
 
     /** The Receivers. */
-    private final Collection<Receiver> receivers = new ArrayList<Receiver>();
+    private final Collection<Receiver> receivers = new CopyOnWriteArrayList<Receiver>();
 
     /** Adds a Receiver.
      * @param receiver Receiver to add.
@@ -40,6 +42,18 @@ public class MultiReceiver implements Receiver {
         receivers.add(receiver);
     }
 
+    /** Adds a Receiver to which messages are delivered on a separate thread.
+     * @param receiver Receiver to add.
+     * @param capacity Minimum number of messages which can wait for delivery to <var>receiver</var>.
+     * @param policy What to do with messages sent while <var>capacity</var> messages are waiting for delivery.
+     * @return The AsyncReceiver which delivers to <var>receiver</var>, to be used for {@link #removeReceiver(Receiver)} and for monitoring.
+     */
+    @NotNull public AsyncReceiver addAsyncReceiver(@NotNull final Receiver receiver, final int capacity, @NotNull final AsyncReceiver.OverflowPolicy policy) {
+        final AsyncReceiver asyncReceiver = new AsyncReceiver(receiver, capacity, policy);
+        receivers.add(asyncReceiver);
+        return asyncReceiver;
+    }
+
     /** Removes a Receiver.
      * @param receiver Receiver to remove.
      */
@@ -19,38 +19,27 @@
 package net.sf.japi.net;
 
 import java.io.IOException;
-import java.net.ServerSocket;
+import java.net.InetSocketAddress;
 import java.net.Socket;
 import net.sf.japi.io.Copier;
 import org.jetbrains.annotations.NotNull;
 
 /** This class forwards incoming TCP connections to another host and port.
+ * A Forwarder uses three threads per connection, for many connections use a {@link SelectorForwarder} instead.
  * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
  * @since 0.1
  */
 public class Forwarder implements Runnable {
 
     /** Main program.
-     * @param args command line arguments (currently ignored)
+     * Forwards connections accepted on a local port to a host and port, using a {@link SelectorForwarder}.
+     * The target host is looked up for every connection, so changes of its DNS entry apply to new connections, and a failing lookup only fails that connection.
+     * @param args command line arguments: local port, target host, target port
      * @throws IOException In case of I/O problems.
      * @todo Extract main() into a tool that uses argparser.
      */
     public static void main(final String... args) throws IOException {
-        final ServerSocket serverSocket = new ServerSocket(Integer.parseInt(args[0]));
-        //noinspection InfiniteLoopStatement
-        while (true) {
-            final Socket server = serverSocket.accept();
-            try {
-                final Socket client = new Socket(args[1], Integer.parseInt(args[2]));
-                new Forwarder(client, server).start();
-            } catch (final IOException ignore) {
-                try {
-                    server.close();
-                } catch (final IOException ignored) {
-                    /* ignore */
-                }
-            }
-        }
+        new SelectorForwarder(new InetSocketAddress(Integer.parseInt(args[0])), InetSocketAddress.createUnresolved(args[1], Integer.parseInt(args[2]))).run();
     }
 
     /** First socket. */
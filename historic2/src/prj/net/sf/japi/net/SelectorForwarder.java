@@ -0,0 +1,554 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.sf.japi.net;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import net.sf.japi.io.ByteBufferPool;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/** This class forwards incoming TCP connections to another host and port using a single thread.
+ * Unlike {@link Forwarder}, which uses three threads per connection, a SelectorForwarder multiplexes all connections with a {@link Selector}.
+ * <p>
+ * Data is relayed through direct buffers from a {@link ByteBufferPool}.
+ * A connection only holds a buffer while data is waiting to be written, so idle connections need no buffer memory.
+ * When the receiving side does not accept data as fast as the sending side delivers it, reading from the sending side stops until the buffer has room again.
+ * When one side shuts down its output, the output to the other side is shut down as soon as all data is written, so half-closed connections work.
+ * The connection is closed when both directions are shut down or an I/O error occurs.
+ * <p>
+ * The host name of the target is resolved for every connection on a small pool of resolver threads, so a slow lookup does not stall the forwarding thread.
+ * <p>
+ * The connections and their byte counters can be queried with {@link #getConnections()}.
+ * Subclasses can override {@link #connectionClosed(Connection)} to report the final counters.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @since 0.1
+ */
+public class SelectorForwarder implements Runnable, Closeable {
+
+    /** Default buffer size. */
+    public static final int DEFAULT_BUF_SIZE = 16384;
+
+    /** Default maximum number of pooled buffers. */
+    public static final int DEFAULT_MAX_POOLED = 1024;
+
+    /** Maximum number of threads which resolve the target concurrently. */
+    private static final int RESOLVER_THREADS = 4;
+
+    /** The address to which connections are forwarded. */
+    @NotNull private final SocketAddress target;
+
+    /** The pool of buffers. */
+    @NotNull private final ByteBufferPool pool;
+
+    /** The Selector. */
+    @NotNull private final Selector selector;
+
+    /** The channel which accepts incoming connections. */
+    @NotNull private final ServerSocketChannel serverChannel;
+
+    /** The open connections. */
+    @NotNull private final Set<Connection> connections = Collections.newSetFromMap(new ConcurrentHashMap<Connection, Boolean>());
+
+    /** The executor which resolves the target for new connections. */
+    @NotNull private final ThreadPoolExecutor resolver = new ThreadPoolExecutor(RESOLVER_THREADS, RESOLVER_THREADS, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+        /** {@inheritDoc} */
+        public Thread newThread(@NotNull final Runnable r) {
+            final Thread thread = new Thread(r, "SelectorForwarder resolver");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    /** The connections for which the target was resolved, to be connected by the forwarding thread. */
+    @NotNull private final Queue<Connection> resolved = new ConcurrentLinkedQueue<Connection>();
+
+    /** Whether {@link #run()} was invoked. */
+    private boolean running;
+
+    /** Whether this SelectorForwarder is closed. */
+    private volatile boolean closed;
+
+    /** Create a SelectorForwarder with default buffers.
+     * @param local local address on which to accept connections, e.g. <code>new InetSocketAddress(port)</code>
+     * @param target address to which connections are forwarded, its host name is resolved for every connection, so it may be unresolved
+     * @throws IOException In case of I/O problems, e.g. if <var>local</var> cannot be bound.
+     */
+    public SelectorForwarder(@NotNull final SocketAddress local, @NotNull final SocketAddress target) throws IOException {
+        this(local, target, new ByteBufferPool(DEFAULT_BUF_SIZE, DEFAULT_MAX_POOLED, true));
+    }
+
+    /** Create a SelectorForwarder.
+     * @param local local address on which to accept connections, e.g. <code>new InetSocketAddress(port)</code>
+     * @param target address to which connections are forwarded, its host name is resolved for every connection, so it may be unresolved
+     * @param pool pool of buffers for relaying data
+     * @throws IOException In case of I/O problems, e.g. if <var>local</var> cannot be bound.
+     */
+    public SelectorForwarder(@NotNull final SocketAddress local, @NotNull final SocketAddress target, @NotNull final ByteBufferPool pool) throws IOException {
+        this.target = target;
+        this.pool = pool;
+        resolver.allowCoreThreadTimeOut(true);
+        selector = Selector.open();
+        try {
+            serverChannel = ServerSocketChannel.open();
+            try {
+                serverChannel.bind(local);
+                serverChannel.configureBlocking(false);
+                serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+            } catch (final IOException e) {
+                serverChannel.close();
+                throw e;
+            }
+        } catch (final IOException e) {
+            selector.close();
+            throw e;
+        }
+    }
+
+    /** Returns the local address on which connections are accepted.
+     * @return The local address, useful if the port was chosen automatically.
+     * @throws IOException In case of I/O problems.
+     */
+    @NotNull public SocketAddress getLocalAddress() throws IOException {
+        return serverChannel.getLocalAddress();
+    }
+
+    /** Start the forwarder in a new thread.
+     * @return the newly created thread
+     */
+    @NotNull public Thread start() {
+        final Thread thread = new Thread(this, "SelectorForwarder " + target);
+        thread.start();
+        return thread;
+    }
+
+    /** Forwards connections until this SelectorForwarder is closed.
+     * @throws UncheckedIOException In case of I/O problems of the selector or the server channel.
+     */
+    public void run() {
+        synchronized (this) {
+            if (running || closed) {
+                throw new IllegalStateException("SelectorForwarder already running or closed.");
+            }
+            running = true;
+        }
+        try {
+            while (!closed) {
+                selector.select();
+                connectResolved();
+                for (final Iterator<SelectionKey> it = selector.selectedKeys().iterator(); it.hasNext();) {
+                    final SelectionKey key = it.next();
+                    it.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.channel() == serverChannel) {
+                        accept();
+                    } else {
+                        ((Connection) key.attachment()).handle(key);
+                    }
+                }
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            closeAll();
+        }
+    }
+
+    /** Stops forwarding and closes all connections.
+     * If {@link #run()} is running, it returns after closing everything.
+     */
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            if (!running) {
+                closeAll();
+                return;
+            }
+        }
+        selector.wakeup();
+    }
+
+    /** Closes all connections, the server channel and the selector. */
+    private void closeAll() {
+        resolver.shutdownNow();
+        for (final Connection connection : new ArrayList<Connection>(connections)) {
+            connection.close();
+        }
+        closeQuietly(serverChannel);
+        closeQuietly(selector);
+    }
+
+    /** Returns the currently open connections.
+     * @return The currently open connections.
+     */
+    @NotNull public Collection<Connection> getConnections() {
+        return new ArrayList<Connection>(connections);
+    }
+
+    /** Invoked after a connection was closed, usually in the forwarding thread.
+     * The default implementation does nothing.
+     * @param connection Connection which was closed.
+     */
+    protected void connectionClosed(@NotNull final Connection connection) {
+    }
+
+    /** Accepts an incoming connection and starts resolving the target.
+     * @throws IOException In case of I/O problems of the server channel.
+     */
+    private void accept() throws IOException {
+        final SocketChannel client = serverChannel.accept();
+        if (client == null) {
+            return;
+        }
+        SocketChannel server = null;
+        Connection connection = null;
+        try {
+            client.configureBlocking(false);
+            server = SocketChannel.open();
+            server.configureBlocking(false);
+            connection = new Connection(client, server);
+            connections.add(connection);
+            connection.clientKey = client.register(selector, 0, connection);
+            connection.serverKey = server.register(selector, 0, connection);
+            final Connection newConnection = connection;
+            resolver.execute(new Runnable() {
+                /** {@inheritDoc} */
+                public void run() {
+                    try {
+                        newConnection.targetAddress = resolve(target);
+                    } catch (final UnknownHostException ignore) {
+                        // Without target address, the connection is closed by the forwarding thread.
+                    } finally {
+                        resolved.add(newConnection);
+                        selector.wakeup();
+                    }
+                }
+            });
+        } catch (final RejectedExecutionException ignore) {
+            // The resolver only rejects tasks after closing, closeAll() closes the connection.
+        } catch (final IOException ignore) {
+            // Like in Forwarder, a connection which cannot be forwarded is closed.
+            if (connection != null) {
+                connection.close();
+            } else {
+                closeQuietly(client);
+                if (server != null) {
+                    closeQuietly(server);
+                }
+            }
+        }
+    }
+
+    /** Connects the connections for which the target was resolved. */
+    private void connectResolved() {
+        for (Connection connection; (connection = resolved.poll()) != null;) {
+            connection.connect();
+        }
+    }
+
+    /** Resolves the host name of an address again, so changes of the DNS entry apply to new connections.
+     * This may block, so it is only invoked by the resolver threads.
+     * @param address Address to resolve.
+     * @return Resolved address.
+     * @throws UnknownHostException if the host name cannot be resolved.
+     */
+    @NotNull private static SocketAddress resolve(@NotNull final SocketAddress address) throws UnknownHostException {
+        if (!(address instanceof InetSocketAddress)) {
+            return address;
+        }
+        final InetSocketAddress inetAddress = (InetSocketAddress) address;
+        final InetSocketAddress resolved = new InetSocketAddress(inetAddress.getHostString(), inetAddress.getPort());
+        if (resolved.isUnresolved()) {
+            throw new UnknownHostException(inetAddress.getHostString());
+        }
+        return resolved;
+    }
+
+    /** Closes a Closeable, ignoring IOExceptions.
+     * @param closeable Closeable to close.
+     */
+    private static void closeQuietly(@NotNull final Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (final IOException ignore) {
+            /* ignore */
+        }
+    }
+
+    /** A forwarded connection. */
+    public final class Connection {
+
+        /** The channel of the incoming connection. */
+        @NotNull private final SocketChannel client;
+
+        /** The channel of the outgoing connection. */
+        @NotNull private final SocketChannel server;
+
+        /** The remote address of the incoming connection. */
+        @Nullable private final SocketAddress clientAddress;
+
+        /** The key of {@link #client}. */
+        @Nullable private SelectionKey clientKey;
+
+        /** The key of {@link #server}. */
+        @Nullable private SelectionKey serverKey;
+
+        /** The direction from the client to the server. */
+        @NotNull private final Direction upstream;
+
+        /** The direction from the server to the client. */
+        @NotNull private final Direction downstream;
+
+        /** Whether this connection is closed. */
+        private volatile boolean closed;
+
+        /** The resolved address of the target or <code>null</code> if it is not resolved yet or cannot be resolved.
+         * It is set by a resolver thread before the connection is added to {@link #resolved}.
+         */
+        @Nullable private SocketAddress targetAddress;
+
+        /** Create a Connection.
+         * @param client channel of the incoming connection
+         * @param server channel of the outgoing connection
+         * @throws IOException In case of I/O problems.
+         */
+        private Connection(@NotNull final SocketChannel client, @NotNull final SocketChannel server) throws IOException {
+            this.client = client;
+            this.server = server;
+            clientAddress = client.getRemoteAddress();
+            upstream = new Direction(client, server);
+            downstream = new Direction(server, client);
+        }
+
+        /** Returns the remote address of the incoming connection.
+         * @return The remote address of the incoming connection or <code>null</code> if unknown.
+         */
+        @Nullable public SocketAddress getClientAddress() {
+            return clientAddress;
+        }
+
+        /** Returns the number of bytes forwarded from the client to the target.
+         * @return The number of bytes forwarded from the client to the target.
+         */
+        public long getBytesToTarget() {
+            return upstream.bytes;
+        }
+
+        /** Returns the number of bytes forwarded from the target to the client.
+         * @return The number of bytes forwarded from the target to the client.
+         */
+        public long getBytesToClient() {
+            return downstream.bytes;
+        }
+
+        /** Returns whether this connection is closed.
+         * @return <code>true</code> if this connection is closed, otherwise <code>false</code>.
+         */
+        public boolean isClosed() {
+            return closed;
+        }
+
+        /** Starts connecting to the resolved target, or closes this connection if the target could not be resolved. */
+        private void connect() {
+            if (closed) {
+                return;
+            }
+            final SocketAddress address = targetAddress;
+            if (address == null) {
+                close();
+                return;
+            }
+            try {
+                if (server.connect(address)) {
+                    updateInterest();
+                } else {
+                    assert serverKey != null;
+                    serverKey.interestOps(SelectionKey.OP_CONNECT);
+                }
+            } catch (final IOException ignore) {
+                close();
+            }
+        }
+
+        /** Handles a selected key of this connection.
+         * @param key Selected key.
+         */
+        private void handle(@NotNull final SelectionKey key) {
+            try {
+                if (key.isConnectable()) {
+                    if (!server.finishConnect()) {
+                        return;
+                    }
+                } else {
+                    final boolean fromClient = key == clientKey;
+                    if (key.isReadable()) {
+                        (fromClient ? upstream : downstream).read();
+                    }
+                    if (key.isWritable()) {
+                        (fromClient ? downstream : upstream).write();
+                    }
+                }
+                if (upstream.done && downstream.done) {
+                    close();
+                } else {
+                    updateInterest();
+                }
+            } catch (final IOException ignore) {
+                close();
+            }
+        }
+
+        /** Updates the interest of both keys from the state of both directions. */
+        private void updateInterest() {
+            assert clientKey != null && serverKey != null;
+            clientKey.interestOps((upstream.wantsRead() ? SelectionKey.OP_READ : 0) | (downstream.wantsWrite() ? SelectionKey.OP_WRITE : 0));
+            serverKey.interestOps((downstream.wantsRead() ? SelectionKey.OP_READ : 0) | (upstream.wantsWrite() ? SelectionKey.OP_WRITE : 0));
+        }
+
+        /** Closes this connection. */
+        private void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            closeQuietly(client);
+            closeQuietly(server);
+            upstream.releaseBuffer();
+            downstream.releaseBuffer();
+            connections.remove(this);
+            connectionClosed(this);
+        }
+
+        /** {@inheritDoc} */
+        @Override public String toString() {
+            return "Connection from " + clientAddress + " (" + upstream.bytes + " bytes to target, " + downstream.bytes + " bytes to client)";
+        }
+
+    } // class Connection
+
+    /** One direction of a forwarded connection. */
+    private final class Direction {
+
+        /** The channel to read from. */
+        @NotNull private final SocketChannel source;
+
+        /** The channel to write to. */
+        @NotNull private final SocketChannel sink;
+
+        /** The buffer in filling mode holding data not written yet, <code>null</code> if all data was written. */
+        @Nullable private ByteBuffer buffer;
+
+        /** Whether the end of {@link #source} was reached. */
+        private boolean eof;
+
+        /** Whether all data was written and the output of {@link #sink} was shut down. */
+        private boolean done;
+
+        /** The number of bytes written to {@link #sink}, only written by the forwarding thread. */
+        private volatile long bytes;
+
+        /** Create a Direction.
+         * @param source channel to read from
+         * @param sink channel to write to
+         */
+        Direction(@NotNull final SocketChannel source, @NotNull final SocketChannel sink) {
+            this.source = source;
+            this.sink = sink;
+        }
+
+        /** Reads from the source and writes as much as possible to the sink.
+         * @throws IOException In case of I/O problems.
+         */
+        void read() throws IOException {
+            if (buffer == null) {
+                buffer = pool.acquire();
+            }
+            if (source.read(buffer) == -1) {
+                eof = true;
+            }
+            write();
+        }
+
+        /** Writes as much as possible to the sink, and shuts down the output of the sink after the end of the source.
+         * @throws IOException In case of I/O problems.
+         */
+        void write() throws IOException {
+            if (buffer != null) {
+                buffer.flip();
+                bytes += sink.write(buffer);
+                buffer.compact();
+                if (buffer.position() == 0) {
+                    releaseBuffer();
+                }
+            }
+            if (eof && buffer == null && !done) {
+                sink.shutdownOutput();
+                done = true;
+            }
+        }
+
+        /** Returns whether the source should be read, which is the case unless its end was reached or the buffer is full.
+         * @return <code>true</code> if the source should be read, otherwise <code>false</code>.
+         */
+        boolean wantsRead() {
+            return !eof && (buffer == null || buffer.hasRemaining());
+        }
+
+        /** Returns whether data is waiting to be written to the sink.
+         * @return <code>true</code> if data is waiting to be written, otherwise <code>false</code>.
+         */
+        boolean wantsWrite() {
+            return buffer != null;
+        }
+
+        /** Returns the buffer to the pool. */
+        void releaseBuffer() {
+            if (buffer != null) {
+                pool.release(buffer);
+                buffer = null;
+            }
+        }
+
+    } // class Direction
+
+} // class SelectorForwarder
@@ -17,6 +17,7 @@
 
 package net.sf.japi.tools.jgrep;
 
+import net.sf.japi.io.args.ArgParser;
 import net.sf.japi.io.args.BasicCommand;
 import net.sf.japi.io.args.Option;
 import net.sf.japi.io.args.CharsetDisplaynameComparator;
@@ -127,6 +128,13 @@ public class JGrep extends BasicCommand {
     /** Whether or not to print only the matching part of a line. */
     private boolean onlyMatching;
 
+    /** Main program.
+     * @param args Command line arguments (try --help).
+     */
+    public static void main(@NotNull final String... args) {
+        ArgParser.simpleParseAndRun(new JGrep(), args);
+    }
+
     /** Creates an unmodifiable map with the flags.
      * @return Unmodifiable map with the flags.
      */
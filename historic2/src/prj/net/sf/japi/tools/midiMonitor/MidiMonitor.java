@@ -17,6 +17,12 @@
 
 package net.sf.japi.tools.midiMonitor;
 
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -33,8 +39,10 @@ import net.sf.japi.io.args.CommandWithHelp;
 import net.sf.japi.io.args.Option;
 import net.sf.japi.io.args.OptionType;
 import net.sf.japi.io.args.RequiredOptionsMissingException;
+import net.sf.japi.midi.CaptureReceiver;
 import net.sf.japi.midi.MonitorReceiver;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /** MidiMonitor is a command line program for monitoring MIDI transmitters.
  * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
@@ -50,6 +58,16 @@ public class MidiMonitor extends CommandWithHelp {
      */
     private boolean time = true;
 
+    /** Whether or not to batch output for high message rates.
+     * @see #setBatch()
+     */
+    private boolean batch;
+
+    /** The file to which messages are captured, or <code>null</code> for no capture.
+     * @see #setCapture(File)
+     */
+    @Nullable private File capture;
+
     /** Main program.
      * @param args Command line arguments (try --help).
      */
@@ -63,6 +81,20 @@ public class MidiMonitor extends CommandWithHelp {
         time = false;
     }
 
+    /** Sets that output shall be batched for high message rates. */
+    @Option("batch")
+    public void setBatch() {
+        batch = true;
+    }
+
+    /** Sets the file to which messages shall be captured for replay.
+     * @param capture File to which messages shall be captured.
+     */
+    @Option("capture")
+    public void setCapture(@NotNull final File capture) {
+        this.capture = capture;
+    }
+
     /** Adds all available transmitters to the list of transmitters to monitor.
      * @throws MidiUnavailableException if MIDI is unavaialble.
      */
@@ -114,15 +146,43 @@ public class MidiMonitor extends CommandWithHelp {
         if (entries.size() == 0) {
             throw new RequiredOptionsMissingException("-a or at least once -t");
         }
+        final Receiver captureReceiver = capture != null ? new CaptureReceiver(new BufferedOutputStream(new FileOutputStream(capture))) : null;
+        final List<Receiver> batchedReceivers = new ArrayList<Receiver>();
+        // Closing a batched receiver closes its stream, which must not close System.out.
+        final OutputStream batchOut = new FilterOutputStream(System.out) {
+            /** {@inheritDoc} */
+            @Override public void write(@NotNull final byte[] b, final int off, final int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            /** {@inheritDoc} */
+            @Override public void close() throws IOException {
+                flush();
+            }
+        };
         for (final Map.Entry<String, List<Transmitter>> entry : entries) {
             for (final Transmitter transmitter : entry.getValue()) {
+                final Receiver monitorReceiver;
+                if (batch) {
+                    monitorReceiver = MonitorReceiver.createBatched(entry.getKey(), captureReceiver, batchOut);
+                    batchedReceivers.add(monitorReceiver);
+                } else {
+                    monitorReceiver = new MonitorReceiver(entry.getKey(), captureReceiver);
+                }
                 if (time) {
-                    transmitter.setReceiver(new MonitorReceiver(entry.getKey()));
+                    transmitter.setReceiver(monitorReceiver);
                 } else {
-                    transmitter.setReceiver(new TimeFilter(new MonitorReceiver(entry.getKey())));
+                    transmitter.setReceiver(new TimeFilter(monitorReceiver));
                 }
             }
         }
+        // The monitor runs until it is terminated, usually with Ctrl-C, so buffered output is written by a shutdown hook.
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            /** {@inheritDoc} */
+            public void run() {
+                stop(captureReceiver, batchedReceivers);
+            }
+        }, "MidiMonitor shutdown"));
         try {
             synchronized (this) {
                 wait();
@@ -132,6 +192,24 @@ public class MidiMonitor extends CommandWithHelp {
         }
         return 0;
     }
+
+    /** Stops monitoring and writes all buffered output.
+     * @param captureReceiver Receiver which captures messages or <code>null</code> if messages are not captured.
+     * @param batchedReceivers Receivers which batch their output.
+     */
+    private void stop(@Nullable final Receiver captureReceiver, @NotNull final List<Receiver> batchedReceivers) {
+        for (final List<Transmitter> deviceTransmitters : transmitters.values()) {
+            for (final Transmitter transmitter : deviceTransmitters) {
+                transmitter.close();
+            }
+        }
+        for (final Receiver batchedReceiver : batchedReceivers) {
+            batchedReceiver.close();
+        }
+        if (captureReceiver != null) {
+            captureReceiver.close();
+        }
+    }
 }
 
 /** Filter that filters away MIDI time events.
@@ -0,0 +1,291 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.sf.japi.tools.startupBenchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import net.sf.japi.io.args.ArgParser;
+import net.sf.japi.io.args.BasicCommand;
+import net.sf.japi.io.args.Option;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/** StartupBenchmark measures the startup time of command line tools.
+ * Each tool is started with <code>--help</code> in a new JVM, and the time until its first output as well as the time until it exits is measured.
+ * <p>
+ * With <code>--archiveDir</code>, the tools are started with an AppCDS archive from that directory if one exists.
+ * With <code>--createArchives</code>, the archives are created first: a run of each tool dumps the list of loaded classes, and the class list is dumped into an AppCDS archive.
+ * This is meant as build step, the archives can then be used for starting the tools with <code>-XX:SharedArchiveFile</code>.
+ * Note that AppCDS only archives classes loaded from jar files, so the class path should consist of jar files.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @since 0.1
+ */
+public class StartupBenchmark extends BasicCommand {
+
+    /** The tools which are measured if no tools are specified. */
+    private static final List<String> DEFAULT_TOOLS = Collections.unmodifiableList(Arrays.asList(
+            "net.sf.japi.tools.jgrep.JGrep",
+            "net.sf.japi.tools.replacer.Replacer",
+            "net.sf.japi.archstat.ArchStat",
+            "net.sf.japi.tools.todoScanner.TodoScanner",
+            "net.sf.japi.dircount.DirCount",
+            "net.sf.japi.findLongestPath.FindLongestPath"
+    ));
+
+    /** The number of runs per tool. */
+    private int runs = 10;
+
+    /** The directory with the AppCDS archives or <code>null</code> to run without AppCDS archives. */
+    @Nullable private File archiveDir;
+
+    /** Whether to create the AppCDS archives before measuring. */
+    private boolean createArchives;
+
+    /** Main program.
+     * @param args Command line arguments (try --help).
+     */
+    public static void main(@NotNull final String... args) {
+        ArgParser.simpleParseAndRun(new StartupBenchmark(), args);
+    }
+
+    /** Sets the number of runs per tool.
+     * @param runs Number of runs per tool.
+     */
+    @Option({"n", "runs"})
+    public void setRuns(final int runs) {
+        if (runs < 1) {
+            throw new IllegalArgumentException("At least one run is required.");
+        }
+        this.runs = runs;
+    }
+
+    /** Sets the directory with the AppCDS archives.
+     * @param archiveDir Directory with the AppCDS archives.
+     */
+    @Option({"a", "archiveDir"})
+    public void setArchiveDir(@NotNull final File archiveDir) {
+        this.archiveDir = archiveDir;
+    }
+
+    /** Sets to create the AppCDS archives before measuring. */
+    @Option({"createArchives"})
+    public void setCreateArchives() {
+        createArchives = true;
+    }
+
+    /** {@inheritDoc} */
+    @SuppressWarnings({"InstanceMethodNamingConvention"})
+    public int run(@NotNull final List<String> args) throws Exception {
+        final List<String> tools = args.isEmpty() ? DEFAULT_TOOLS : args;
+        int returnCode = 0;
+        if (createArchives) {
+            if (archiveDir == null) {
+                System.err.println("--createArchives requires --archiveDir.");
+                return 1;
+            }
+            if (!archiveDir.isDirectory() && !archiveDir.mkdirs()) {
+                System.err.println("Cannot create " + archiveDir);
+                return 1;
+            }
+            for (final String tool : tools) {
+                if (!createArchive(tool)) {
+                    System.err.println("Cannot create AppCDS archive for " + tool);
+                    returnCode = 1;
+                }
+            }
+        }
+        for (final String tool : tools) {
+            final Measurement measurement;
+            try {
+                measurement = measure(tool);
+            } catch (final IOException e) {
+                System.err.println(e.getMessage());
+                returnCode = 1;
+                continue;
+            }
+            System.out.format("%-45s first output %8.1f ms, exit %8.1f ms%n", tool, measurement.getTimeToFirstOutput() / 1e6, measurement.getTotalTime() / 1e6);
+        }
+        return returnCode;
+    }
+
+    /** Measures the startup time of a tool.
+     * @param tool Fully qualified name of the main class of the tool.
+     * @return Median times of {@link #runs} runs.
+     * @throws IOException in case the tool cannot be started or exits with an error, a crashing tool would otherwise be measured as fast.
+     * @throws InterruptedException in case the thread was interrupted while waiting for the tool.
+     */
+    @NotNull public Measurement measure(@NotNull final String tool) throws IOException, InterruptedException {
+        final List<String> command = createJavaCommand();
+        final File archive = getArchive(tool);
+        if (archive != null && archive.isFile()) {
+            command.add("-Xshare:auto");
+            command.add("-XX:SharedArchiveFile=" + archive);
+        }
+        command.add(tool);
+        command.add("--help");
+        final long[] timesToFirstOutput = new long[runs];
+        final long[] totalTimes = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            final long start = System.nanoTime();
+            final Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            final InputStream in = process.getInputStream();
+            try {
+                in.read();
+                timesToFirstOutput[i] = System.nanoTime() - start;
+                final byte[] buf = new byte[8192];
+                //noinspection StatementWithEmptyBody
+                while (in.read(buf) != -1) {
+                    // discard output
+                }
+            } finally {
+                in.close();
+            }
+            final int exitValue = process.waitFor();
+            totalTimes[i] = System.nanoTime() - start;
+            if (exitValue != 0) {
+                throw new IOException(tool + " exited with " + exitValue);
+            }
+        }
+        return new Measurement(median(timesToFirstOutput), median(totalTimes));
+    }
+
+    /** Creates the AppCDS archive for a tool.
+     * @param tool Fully qualified name of the main class of the tool.
+     * @return <code>true</code> if the archive was created, otherwise <code>false</code>.
+     * @throws IOException in case the JVM cannot be started.
+     * @throws InterruptedException in case the thread was interrupted while waiting for the JVM.
+     */
+    public boolean createArchive(@NotNull final String tool) throws IOException, InterruptedException {
+        final File archive = getArchive(tool);
+        assert archive != null;
+        final File classList = new File(archiveDir, getSimpleName(tool) + ".classlist");
+        final List<String> dumpClassList = createJavaCommand();
+        dumpClassList.add("-Xshare:off");
+        dumpClassList.add("-XX:DumpLoadedClassList=" + classList);
+        dumpClassList.add(tool);
+        dumpClassList.add("--help");
+        final List<String> dumpArchive = createJavaCommand();
+        dumpArchive.add("-Xshare:dump");
+        dumpArchive.add("-XX:SharedClassListFile=" + classList);
+        dumpArchive.add("-XX:SharedArchiveFile=" + archive);
+        return execute(dumpClassList) && classList.isFile() && execute(dumpArchive) && archive.isFile();
+    }
+
+    /** Returns the AppCDS archive for a tool.
+     * @param tool Fully qualified name of the main class of the tool.
+     * @return The AppCDS archive or <code>null</code> if no archive directory was set.
+     */
+    @Nullable private File getArchive(@NotNull final String tool) {
+        return archiveDir != null ? new File(archiveDir, getSimpleName(tool) + ".jsa") : null;
+    }
+
+    /** Returns the simple name of a class.
+     * @param className Fully qualified name of the class.
+     * @return The simple name of the class.
+     */
+    @NotNull private static String getSimpleName(@NotNull final String className) {
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+
+    /** Creates the command for starting a JVM with the class path of this JVM.
+     * @return Command for starting a JVM.
+     */
+    @NotNull private static List<String> createJavaCommand() {
+        final List<String> command = new ArrayList<String>();
+        command.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getPath());
+        if (System.getProperty("java.specification.version").startsWith("1.")) {
+            // Java 8 only supports AppCDS as commercial feature.
+            command.add("-XX:+UnlockCommercialFeatures");
+            command.add("-XX:+UseAppCDS");
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        return command;
+    }
+
+    /** Executes a command, discarding its output.
+     * @param command Command to execute.
+     * @return <code>true</code> if the command exited with 0, otherwise <code>false</code>.
+     * @throws IOException in case the command cannot be started.
+     * @throws InterruptedException in case the thread was interrupted while waiting for the command.
+     */
+    private static boolean execute(@NotNull final List<String> command) throws IOException, InterruptedException {
+        final Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        final InputStream in = process.getInputStream();
+        try {
+            final byte[] buf = new byte[8192];
+            //noinspection StatementWithEmptyBody
+            while (in.read(buf) != -1) {
+                // discard output
+            }
+        } finally {
+            in.close();
+        }
+        return process.waitFor() == 0;
+    }
+
+    /** Returns the median of some values.
+     * @param values Values of which to return the median, sorted by this method.
+     * @return The median of the values.
+     */
+    private static long median(@NotNull final long[] values) {
+        Arrays.sort(values);
+        return values[values.length / 2];
+    }
+
+    /** The startup times of a tool. */
+    public static final class Measurement {
+
+        /** The time until the first output in nanoseconds. */
+        private final long timeToFirstOutput;
+
+        /** The time until exit in nanoseconds. */
+        private final long totalTime;
+
+        /** Creates a Measurement.
+         * @param timeToFirstOutput Time until the first output in nanoseconds.
+         * @param totalTime Time until exit in nanoseconds.
+         */
+        Measurement(final long timeToFirstOutput, final long totalTime) {
+            this.timeToFirstOutput = timeToFirstOutput;
+            this.totalTime = totalTime;
+        }
+
+        /** Returns the time until the first output.
+         * @return Time until the first output in nanoseconds.
+         */
+        public long getTimeToFirstOutput() {
+            return timeToFirstOutput;
+        }
+
+        /** Returns the time until exit.
+         * @return Time until exit in nanoseconds.
+         */
+        public long getTotalTime() {
+            return totalTime;
+        }
+
+    } // class Measurement
+
+} // class StartupBenchmark
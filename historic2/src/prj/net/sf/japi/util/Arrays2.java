@@ -19,12 +19,12 @@
 package net.sf.japi.util;
 
 import java.lang.reflect.Array;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
-import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Random;
+import java.util.SplittableRandom;
 import net.sf.japi.util.filter.Filter;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -246,21 +246,14 @@ public final class Arrays2 {
      * @see Collections2#filter(Collection,Filter)
      */
     @NotNull public static <T> T[] filter(@NotNull final Filter<? super T> filter, @NotNull final T... a) {
-        //Class<?> ct = a.getClass().getComponentType();
-        //T[] t = (T[]) Array.newInstance(ct, 0);
-        //List<T> tl = Arrays.asList(a);
-        //List<T> tf = Collections2.filter(tl, filter);
-        //T[] nt = tf.toArray(t);
-        //return nt;
-        //return Collections2.filter(Arrays.asList(a), filter).toArray((T[]) java.lang.reflect.Array.newInstance(a.getClass().getComponentType(), 0));
-        final List<T> tl = new ArrayList<T>();
+        final T[] tmp = a.clone();
+        int n = 0;
         for (final T t : a) {
             if (filter.accept(t)) {
-                tl.add(t);
+                tmp[n++] = t;
             }
         }
-        //noinspection unchecked
-        return tl.toArray((T[]) Array.newInstance(a.getClass().getComponentType(), 0));
+        return Arrays.copyOf(tmp, n);
     } // eventually add filters for primitive types and provide correspondig methods
 
     /** Count elements in an array that are accepted by the given filter.
@@ -278,6 +271,103 @@ public final class Arrays2 {
         return n;
     } // eventually add filters for primitive types and provide corresponding methods
 
+    /** Returns the total length of arrays.
+     * @param a Arrays of which to return the total length
+     * @return sum of the lengths of all arrays
+     * @throws OutOfMemoryError in case the total length exceeds the maximum array size
+     */
+    private static int totalLength(@NotNull final Object[] a) {
+        long ns = 0L;
+        for (final Object anA : a) {
+            ns += Array.getLength(anA);
+        }
+        if (ns > Integer.MAX_VALUE) {
+            throw new OutOfMemoryError("Total length " + ns + " exceeds maximum array size.");
+        }
+        return (int) ns;
+    }
+
+    /** Concatenate Arrays together, copying in parallel for large results.
+     * The resulting array is split into segments, and each segment is copied with {@link System#arraycopy(Object, int, Object, int, int)} by a fork/join task.
+     * @param a Arrays to concatenate
+     * @return new Array containing all elements of all arrays
+     * @see #concat(Object[][])
+     */
+    @NotNull public static <T> T[] parallelConcat(@NotNull final T[]... a) {
+        //noinspection unchecked
+        final T[] na = (T[]) Array.newInstance(a[0].getClass().getComponentType(), totalLength(a));
+        ParallelArrays.concat(a, na);
+        return na;
+    }
+
+    /** Concatenate Arrays together, copying in parallel for large results.
+     * @param a Arrays to concatenate
+     * @return new Array containing all elements of all arrays
+     * @see #concat(int[][])
+     */
+    @NotNull public static int[] parallelConcat(@NotNull final int[]... a) {
+        final int[] na = new int[totalLength(a)];
+        ParallelArrays.concat(a, na);
+        return na;
+    }
+
+    /** Concatenate Arrays together, copying in parallel for large results.
+     * @param a Arrays to concatenate
+     * @return new Array containing all elements of all arrays
+     * @see #concat(long[][])
+     */
+    @NotNull public static long[] parallelConcat(@NotNull final long[]... a) {
+        final long[] na = new long[totalLength(a)];
+        ParallelArrays.concat(a, na);
+        return na;
+    }
+
+    /** Concatenate Arrays together, copying in parallel for large results.
+     * @param a Arrays to concatenate
+     * @return new Array containing all elements of all arrays
+     * @see #concat(double[][])
+     */
+    @NotNull public static double[] parallelConcat(@NotNull final double[]... a) {
+        final double[] na = new double[totalLength(a)];
+        ParallelArrays.concat(a, na);
+        return na;
+    }
+
+    /** Concatenate Arrays together, copying in parallel for large results.
+     * @param a Arrays to concatenate
+     * @return new Array containing all elements of all arrays
+     * @see #concat(byte[][])
+     */
+    @NotNull public static byte[] parallelConcat(@NotNull final byte[]... a) {
+        final byte[] na = new byte[totalLength(a)];
+        ParallelArrays.concat(a, na);
+        return na;
+    }
+
+    /** Returns an array only containing those elements accepted by the given filter, filtering in parallel for large arrays.
+     * The first pass evaluates the filter and counts the accepted elements per block, the second pass copies them to their positions in the result.
+     * Arrays with less than 65536 elements are filtered sequentially.
+     * The original array remains unmodified.
+     * @param filter Filter to use for <var>a</var>, must be thread-safe
+     * @param a      Elements to filter
+     * @return array containing only those elements from <var>a</var> accepted by <var>filter</var>
+     * @see #filter(Filter, Object[])
+     */
+    @NotNull public static <T> T[] parallelFilter(@NotNull final Filter<? super T> filter, @NotNull final T... a) {
+        return a.length < ParallelArrays.PARALLEL_THRESHOLD ? filter(filter, a) : ParallelArrays.filter(filter, a);
+    }
+
+    /** Count elements in an array that are accepted by the given filter, counting in parallel for large arrays.
+     * Arrays with less than 65536 elements are counted sequentially.
+     * @param filter Filter to use for <var>a</var>, must be thread-safe
+     * @param a      Elements to count in
+     * @return number of elements in <var>a</var> accepted by <var>filter</var>
+     * @see #count(Filter, Object[])
+     */
+    public static <T> int parallelCount(@NotNull final Filter<? super T> filter, @NotNull final T... a) {
+        return a.length < ParallelArrays.PARALLEL_THRESHOLD ? count(filter, a) : ParallelArrays.count(filter, a);
+    }
+
     /** Searches the specified array region of ints for the specified value using the binary search algorithm.
      * The array region <strong>must</strong> be sorted (as by the <tt>sort</tt> method, above) prior to making this call.
      * If it is not sorted, the results are undefined (even a runtime exception might occur).
@@ -955,6 +1045,82 @@ public final class Arrays2 {
         }
     }
 
+    /** Shuffle an array of ints in parallel.
+     * @param array Array to shuffle
+     * @see #parallelShuffle(int[], SplittableRandom)
+     */
+    public static void parallelShuffle(@NotNull final int[] array) {
+        parallelShuffle(array, new SplittableRandom());
+    }
+
+    /** Shuffle an array of ints in parallel.
+     * Every element is assigned to a random bucket in a parallel pass, the buckets are then shuffled independently with Fisher-Yates.
+     * The result is a uniformly random permutation, each task uses its own generator split off <var>rnd</var>.
+     * Arrays with less than 65536 elements are shuffled sequentially.
+     * @param array Array to shuffle
+     * @param rnd Random number generator
+     */
+    public static void parallelShuffle(@NotNull final int[] array, @NotNull final SplittableRandom rnd) {
+        ParallelArrays.shuffle(array, rnd);
+    }
+
+    /** Shuffle an array of longs in parallel.
+     * @param array Array to shuffle
+     * @see #parallelShuffle(long[], SplittableRandom)
+     */
+    public static void parallelShuffle(@NotNull final long[] array) {
+        parallelShuffle(array, new SplittableRandom());
+    }
+
+    /** Shuffle an array of longs in parallel.
+     * Every element is assigned to a random bucket in a parallel pass, the buckets are then shuffled independently with Fisher-Yates.
+     * The result is a uniformly random permutation, each task uses its own generator split off <var>rnd</var>.
+     * Arrays with less than 65536 elements are shuffled sequentially.
+     * @param array Array to shuffle
+     * @param rnd Random number generator
+     */
+    public static void parallelShuffle(@NotNull final long[] array, @NotNull final SplittableRandom rnd) {
+        ParallelArrays.shuffle(array, rnd);
+    }
+
+    /** Shuffle an array of doubles in parallel.
+     * @param array Array to shuffle
+     * @see #parallelShuffle(double[], SplittableRandom)
+     */
+    public static void parallelShuffle(@NotNull final double[] array) {
+        parallelShuffle(array, new SplittableRandom());
+    }
+
+    /** Shuffle an array of doubles in parallel.
+     * Every element is assigned to a random bucket in a parallel pass, the buckets are then shuffled independently with Fisher-Yates.
+     * The result is a uniformly random permutation, each task uses its own generator split off <var>rnd</var>.
+     * Arrays with less than 65536 elements are shuffled sequentially.
+     * @param array Array to shuffle
+     * @param rnd Random number generator
+     */
+    public static void parallelShuffle(@NotNull final double[] array, @NotNull final SplittableRandom rnd) {
+        ParallelArrays.shuffle(array, rnd);
+    }
+
+    /** Shuffle an array of Objects in parallel.
+     * @param array Array to shuffle
+     * @see #parallelShuffle(Object[], SplittableRandom)
+     */
+    public static void parallelShuffle(@NotNull final Object[] array) {
+        parallelShuffle(array, new SplittableRandom());
+    }
+
+    /** Shuffle an array of Objects in parallel.
+     * Every element is assigned to a random bucket in a parallel pass, the buckets are then shuffled independently with Fisher-Yates.
+     * The result is a uniformly random permutation, each task uses its own generator split off <var>rnd</var>.
+     * Arrays with less than 65536 elements are shuffled sequentially.
+     * @param array Array to shuffle
+     * @param rnd Random number generator
+     */
+    public static void parallelShuffle(@NotNull final Object[] array, @NotNull final SplittableRandom rnd) {
+        ParallelArrays.shuffle(array, rnd);
+    }
+
     /** Count the frequency of a specific boolean in an unsorted array of booleans.
      * @param array Array of booleans to count in
      * @param val boolean value to count frequency of
@@ -1276,16 +1442,396 @@ public final class Arrays2 {
         return count;
     }
 
+    /** Returns the minimum of an array of bytes.
+     * @param array Array of bytes to find the minimum in
+     * @return minimum of <var>array</var>
+     * @throws NoSuchElementException in case <var>array</var> is empty
+     */
+    public static byte min(@NotNull final byte[] array) {
+        return min(array, 0, array.length);
+    }
+
+    /** Returns the minimum of an array of bytes.
+     * @param array Array of bytes to find the minimum in
+     * @param fromIndex Start index (inclusive)
+     * @param toIndex End index (exclusive)
+     * @return minimum of <var>array</var> between <var>fromIndex</var> and <var>toIndex</var>
+     * @throws NoSuchElementException in case the range is empty
+     */
+    public static byte min(@NotNull final byte[] array, final int fromIndex, final int toIndex) {
+        if (fromIndex >= toIndex) {
+            throw new NoSuchElementException();
+        }
+        byte min = array[fromIndex];
+        for (int i = fromIndex + 1; i < toIndex; i++) {
+            min = (byte) Math.min(min, array[i]);
+        }
+        return min;
+    }
+
+    /** Returns the minimum of an array of ints.
+     * @param array Array of ints to find the minimum in
+     * @return minimum of <var>array</var>
+     * @throws NoSuchElementException in case <var>array</var> is empty
+     */
+    public static int min(@NotNull final int[] array) {
+        return min(array, 0, array.length);
+    }
+
+    /** Returns the minimum of an array of ints.
+     * @param array Array of ints to find the minimum in
+     * @param fromIndex Start index (inclusive)
+     * @param toIndex End index (exclusive)
+     * @return minimum of <var>array</var> between <var>fromIndex</var> and <var>toIndex</var>
+     * @throws NoSuchElementException in case the range is empty
+     */
+    public static int min(@NotNull final int[] array, final int fromIndex, final int toIndex) {
+        if (fromIndex >= toIndex) {
+            throw new NoSuchElementException();
+        }
+        int min = array[fromIndex];
+        for (int i = fromIndex + 1; i < toIndex; i++) {
+            min = Math.min(min, array[i]);
+        }
+        return min;
+    }
+
+    /** Returns the minimum of an array of longs.
+     * @param array Array of longs to find the minimum in
+     * @return minimum of <var>array</var>
+     * @throws NoSuchElementException in case <var>array</var> is empty
+     */
+    public static long min(@NotNull final long[] array) {
+        return min(array, 0, array.length);
+    }
+
+    /** Returns the minimum of an array of longs.
+     * @param array Array of longs to find the minimum in
+     * @param fromIndex Start index (inclusive)
+     * @param toIndex End index (exclusive)
+     * @return minimum of <var>array</var> between <var>fromIndex</var> and <var>toIndex</var>
+     * @throws NoSuchElementException in case the range is empty
+     */
+    public static long min(@NotNull final long[] array, final int fromIndex, final int toIndex) {
+        if (fromIndex >= toIndex) {
+            throw new NoSuchElementException();
+        }
+        long min = array[fromIndex];
+        for (int i = fromIndex + 1; i < toIndex; i++) {
+            min = Math.min(min, array[i]);
+        }
+        return min;
+    }
+
+    /** Returns the minimum of an array of floats.
+     * @param array Array of floats to find the minimum in
+     * @return minimum of <var>array</var>
+     * @throws NoSuchElementException in case <var>array</var> is empty
+     */
+    public static float min(@NotNull final float[] array) {
+        return min(array, 0, array.length);
+    }
+
+    /** Returns the minimum of an array of floats.
+     * @param array Array of floats to find the minimum in
+     * @param fromIndex Start index (inclusive)
+     * @param toIndex End index (exclusive)
+     * @return minimum of <var>array</var> between <var>fromIndex</var> and <var>toIndex</var>
+     * @throws NoSuchElementException in case the range is empty
+     */
+    public static float min(@NotNull final float[] array, final int fromIndex, final int toIndex) {
+        if (fromIndex >= toIndex) {
+            throw new NoSuchElementException();
+        }
+        float min = array[fromIndex];
+        for (int i = fromIndex + 1; i < toIndex; i++) {
+            min = Math.min(min, array[i]);
+        }
+        return min;
+    }
+
+    /** Returns the minimum of an array of doubles.
+     * @param array Array of doubles to find the minimum in
+     * @return minimum of <var>array</var>
+     * @throws NoSuchElementException in case <var>array</var> is empty
+     */
+    public static double min(@NotNull final double[] array) {
+        return min(array, 0, array.length);
+    }
+
+    /** Returns the minimum of an array of doubles.
+     * @param array Array of doubles to find the minimum in
+     * @param fromIndex Start index (inclusive)
+     * @param toIndex End index (exclusive)
+     * @return minimum of <var>array</var> between <var>fromIndex</var> and <var>toIndex</var>
+     * @throws NoSuchElementException in case the range is empty
+     */
+    public static double min(@NotNull final double[] array, final int fromIndex, final int toIndex) {
+        if (fromIndex >= toIndex) {
+            throw new NoSuchElementException();
+        }
+        double min = array[fromIndex];
+        for (int i = fromIndex + 1; i < toIndex; i++) {
+            min = Math.min(min, array[i]);
+        }
+        return min;
+    }
+
+    /** Returns the maximum of an array of bytes.
+     * @param array Array of bytes to find the maximum in
+     * @return maximum of <var>array</var>
+     * @throws NoSuchElementException in case <var>array</var> is empty
+     */
+    public static byte max(@NotNull final byte[] array) {
+        return max(array, 0, array.length);
+    }
+
+    /** Returns the maximum of an array of bytes.
+     * @param array Array of bytes to find the maximum in
+     * @param fromIndex Start index (inclusive)
+     * @param toIndex End index (exclusive)
+     * @return maximum of <var>array</var> between <var>fromIndex</var> and <var>toIndex</var>
+     * @throws NoSuchElementException in case the range is empty
+     */
+    public static byte max(@NotNull final byte[] array, final int fromIndex, final int toIndex) {
+        if (fromIndex >= toIndex) {
+            throw new NoSuchElementException();
+        }
+        byte max = array[fromIndex];
+        for (int i = fromIndex + 1; i < toIndex; i++) {
+            max = (byte) Math.max(max, array[i]);
+        }
+        return max;
+    }
+
+    /** Returns the maximum of an array of ints.
+     * @param array Array of ints to find the maximum in
+     * @return maximum of <var>array</var>
+     * @throws NoSuchElementException in case <var>array</var> is empty
+     */
+    public static int max(@NotNull final int[] array) {
+        return max(array, 0, array.length);
+    }
+
+    /** Returns the maximum of an array of ints.
+     * @param array Array of ints to find the maximum in
+     * @param fromIndex Start index (inclusive)
+     * @param toIndex End index (exclusive)
+     * @return maximum of <var>array</var> between <var>fromIndex</var> and <var>toIndex</var>
+     * @throws NoSuchElementException in case the range is empty
+     */
+    public static int max(@NotNull final int[] array, final int fromIndex, final int toIndex) {
+        if (fromIndex >= toIndex) {
+            throw new NoSuchElementException();
+        }
+        int max = array[fromIndex];
+        for (int i = fromIndex + 1; i < toIndex; i++) {
+            max = Math.max(max, array[i]);
+        }
+        return max;
+    }
+
+    /** Returns the maximum of an array of longs.
+     * @param array Array of longs to find the maximum in
+     * @return maximum of <var>array</var>
+     * @throws NoSuchElementException in case <var>array</var> is empty
+     */
+    public static long max(@NotNull final long[] array) {
+        return max(array, 0, array.length);
+    }
+
+    /** Returns the maximum of an array of longs.
+     * @param array Array of longs to find the maximum in
+     * @param fromIndex Start index (inclusive)
+     * @param toIndex End index (exclusive)
+     * @return maximum of <var>array</var> between <var>fromIndex</var> and <var>toIndex</var>
+     * @throws NoSuchElementException in case the range is empty
+     */
+    public static long max(@NotNull final long[] array, final int fromIndex, final int toIndex) {
+        if (fromIndex >= toIndex) {
+            throw new NoSuchElementException();
+        }
+        long max = array[fromIndex];
+        for (int i = fromIndex + 1; i < toIndex; i++) {
+            max = Math.max(max, array[i]);
+        }
+        return max;
+    }
+
+    /** Returns the maximum of an array of floats.
+     * @param array Array of floats to find the maximum in
+     * @return maximum of <var>array</var>
+     * @throws NoSuchElementException in case <var>array</var> is empty
+     */
+    public static float max(@NotNull final float[] array) {
+        return max(array, 0, array.length);
+    }
+
+    /** Returns the maximum of an array of floats.
+     * @param array Array of floats to find the maximum in
+     * @param fromIndex Start index (inclusive)
+     * @param toIndex End index (exclusive)
+     * @return maximum of <var>array</var> between <var>fromIndex</var> and <var>toIndex</var>
+     * @throws NoSuchElementException in case the range is empty
+     */
+    public static float max(@NotNull final float[] array, final int fromIndex, final int toIndex) {
+        if (fromIndex >= toIndex) {
+            throw new NoSuchElementException();
+        }
+        float max = array[fromIndex];
+        for (int i = fromIndex + 1; i < toIndex; i++) {
+            max = Math.max(max, array[i]);
+        }
+        return max;
+    }
+
+    /** Returns the maximum of an array of doubles.
+     * @param array Array of doubles to find the maximum in
+     * @return maximum of <var>array</var>
+     * @throws NoSuchElementException in case <var>array</var> is empty
+     */
+    public static double max(@NotNull final double[] array) {
+        return max(array, 0, array.length);
+    }
+
+    /** Returns the maximum of an array of doubles.
+     * @param array Array of doubles to find the maximum in
+     * @param fromIndex Start index (inclusive)
+     * @param toIndex End index (exclusive)
+     * @return maximum of <var>array</var> between <var>fromIndex</var> and <var>toIndex</var>
+     * @throws NoSuchElementException in case the range is empty
+     */
+    public static double max(@NotNull final double[] array, final int fromIndex, final int toIndex) {
+        if (fromIndex >= toIndex) {
+            throw new NoSuchElementException();
+        }
+        double max = array[fromIndex];
+        for (int i = fromIndex + 1; i < toIndex; i++) {
+            max = Math.max(max, array[i]);
+        }
+        return max;
+    }
+
+    /** Returns the sum of an array of bytes.
+     * @param array Array of bytes to sum up
+     * @return sum of <var>array</var>
+     */
+    public static long sum(@NotNull final byte[] array) {
+        return sum(array, 0, array.length);
+    }
+
+    /** Returns the sum of an array of bytes.
+     * @param array Array of bytes to sum up
+     * @param fromIndex Start index (inclusive)
+     * @param toIndex End index (exclusive)
+     * @return sum of <var>array</var> between <var>fromIndex</var> and <var>toIndex</var>
+     */
+    public static long sum(@NotNull final byte[] array, final int fromIndex, final int toIndex) {
+        long sum = 0;
+        for (int i = fromIndex; i < toIndex; i++) {
+            sum += array[i];
+        }
+        return sum;
+    }
+
+    /** Returns the sum of an array of ints.
+     * @param array Array of ints to sum up
+     * @return sum of <var>array</var>
+     */
+    public static long sum(@NotNull final int[] array) {
+        return sum(array, 0, array.length);
+    }
+
+    /** Returns the sum of an array of ints.
+     * @param array Array of ints to sum up
+     * @param fromIndex Start index (inclusive)
+     * @param toIndex End index (exclusive)
+     * @return sum of <var>array</var> between <var>fromIndex</var> and <var>toIndex</var>
+     */
+    public static long sum(@NotNull final int[] array, final int fromIndex, final int toIndex) {
+        long sum = 0;
+        for (int i = fromIndex; i < toIndex; i++) {
+            sum += array[i];
+        }
+        return sum;
+    }
+
+    /** Returns the sum of an array of longs.
+     * @param array Array of longs to sum up
+     * @return sum of <var>array</var>
+     */
+    public static long sum(@NotNull final long[] array) {
+        return sum(array, 0, array.length);
+    }
+
+    /** Returns the sum of an array of longs.
+     * @param array Array of longs to sum up
+     * @param fromIndex Start index (inclusive)
+     * @param toIndex End index (exclusive)
+     * @return sum of <var>array</var> between <var>fromIndex</var> and <var>toIndex</var>
+     */
+    public static long sum(@NotNull final long[] array, final int fromIndex, final int toIndex) {
+        long sum = 0;
+        for (int i = fromIndex; i < toIndex; i++) {
+            sum += array[i];
+        }
+        return sum;
+    }
+
+    /** Returns the sum of an array of floats.
+     * @param array Array of floats to sum up
+     * @return sum of <var>array</var>
+     */
+    public static double sum(@NotNull final float[] array) {
+        return sum(array, 0, array.length);
+    }
+
+    /** Returns the sum of an array of floats.
+     * @param array Array of floats to sum up
+     * @param fromIndex Start index (inclusive)
+     * @param toIndex End index (exclusive)
+     * @return sum of <var>array</var> between <var>fromIndex</var> and <var>toIndex</var>
+     */
+    public static double sum(@NotNull final float[] array, final int fromIndex, final int toIndex) {
+        double sum = 0;
+        for (int i = fromIndex; i < toIndex; i++) {
+            sum += array[i];
+        }
+        return sum;
+    }
+
+    /** Returns the sum of an array of doubles.
+     * @param array Array of doubles to sum up
+     * @return sum of <var>array</var>
+     */
+    public static double sum(@NotNull final double[] array) {
+        return sum(array, 0, array.length);
+    }
+
+    /** Returns the sum of an array of doubles.
+     * @param array Array of doubles to sum up
+     * @param fromIndex Start index (inclusive)
+     * @param toIndex End index (exclusive)
+     * @return sum of <var>array</var> between <var>fromIndex</var> and <var>toIndex</var>
+     */
+    public static double sum(@NotNull final double[] array, final int fromIndex, final int toIndex) {
+        double sum = 0;
+        for (int i = fromIndex; i < toIndex; i++) {
+            sum += array[i];
+        }
+        return sum;
+    }
+
     /* TODO: Planned methods for future versions:
     * - frequency for sorted arrays
-    * - min for all types of arrays (unsorted; for sorted use a[0])
-    * - min for all types of arrays (unsorted; for sorted use a[0]) with ranges
+    * - min for all other types of arrays (unsorted; for sorted use a[0])
+    * - min for all other types of arrays (unsorted; for sorted use a[0]) with ranges
     * - avg for numeric types of arrays (unsorted; primitives, Number, Character, Color, Date, Calendar)
     * - avg for numeric types of arrays (unsorted; primitives, Number, Character, Color, Date, Calendar) with ranges
-    * - max for all types of arrays (unsorted; for sorted use a[a.length - 1])
-    * - max for all types of arrays (unsorted; for sorted use a[a.length - 1]) with ranges
-    * - sum for numeric types of arrays (unsorted; primitives, Number, Character, Color, Date, Calendar)
-    * - sum for numeric types of arrays (unsorted; primitives, Number, Character, Color, Date, Calendar) with ranges
+    * - max for all other types of arrays (unsorted; for sorted use a[a.length - 1])
+    * - max for all other types of arrays (unsorted; for sorted use a[a.length - 1]) with ranges
+    * - sum for other numeric types of arrays (unsorted; short, char, Number, Character, Color, Date, Calendar)
+    * - sum for other numeric types of arrays (unsorted; short, char, Number, Character, Color, Date, Calendar) with ranges
     * - med (median) for numeric types of arrays (unsorted; primitives, Number, Character, Color, Date, Calendar)
     * - med (median) for numeric types of arrays (unsorted; primitives, Number, Character, Color, Date, Calendar) with ranges
     * - product for numeric types of arrays (unsorted; primitives, Number, Character, Color, Date, Calendar)
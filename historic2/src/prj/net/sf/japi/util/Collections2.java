@@ -19,12 +19,17 @@
 package net.sf.japi.util;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.RandomAccess;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
 import net.sf.japi.util.filter.Filter;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -37,74 +42,161 @@ import org.jetbrains.annotations.Nullable;
  */
 public final class Collections2 {
 
-    /** Class of java.util.Arrays.ArrayList */
-    private static final Class<? extends List<?>> AL;
-    static {
-        Class<? extends List<?>> c = null;
-        try {
-            c = (Class<? extends List<?>>) Class.forName("java.util.Arrays.ArrayList");
-        } catch (ClassNotFoundException ignore) { /* ignore, null is okay then. */ }
-        AL = c;
-    }
-
     /** Utility class - do not instanciate. */
     private Collections2() {
     }
 
     /** Returns a collection only containing those elements accepted by the given filter.
      * The original collection remains unmodified.
-     * This method tries its best to create a new, empty variant of the Collection passed in <var>c</var>:
+     * This method tries to create a new, empty variant of the Collection passed in <var>c</var>:
      * <ol>
      *  <li>it's tried to create a new instance from the class of <var>c</var> using Reflection</li>
-     *  <li>it's tried to {@link Object#clone()} <var>c</var> using Reflection and {@link Collection#clear()} the clone</li>
      *  <li>it's tried if c is a {@link RandomAccess} {@link List}, in which case an {@link ArrayList} is returned as an alternative</li>
      * </ol>
      * @param c Collection to filter
      * @param filter Filter to use for <var>c</var>
      * @return collection containing only those elements accepted by the filter or <code>null</code> if the Collection could not be created.
+     * @deprecated The type of the result depends on reflection and is not predictable, use {@link #filterToList(Collection, Filter)}, {@link #filterToSet(Collection, Filter)} or {@link #filterInto(Iterable, Filter, Collection)} instead.
      */
+    @Deprecated
     @Nullable public static <T, C extends Collection<T>> C filter(@NotNull final C c, @NotNull final Filter<? super T> filter) {
         @Nullable C filtered = null;
         try {
+            //noinspection unchecked
             filtered = (C) c.getClass().newInstance();
         } catch (final Exception ignore) { /* ignore, check is done on null. */ }
-        if (filtered == null && c instanceof Cloneable) {
-            try {
-                filtered = (C) c.getClass().getMethod("clone").invoke(c);
-                c.clear();
-            } catch (final Exception ignore) {
-                filtered = null;
-            }
-        }
-        if (filtered == null && (AL != null && AL.isInstance(c) || c instanceof List && c instanceof RandomAccess)) {
-            filtered = (C) new ArrayList<T>();
+        if (filtered == null && c instanceof List && c instanceof RandomAccess) {
+            //noinspection unchecked
+            filtered = (C) new ArrayList<T>(c.size());
         }
-        if (filtered != null) { // only fill if filtered collection could be created.
-            for (final T o : c) {
-                if (filter.accept(o)) {
-                    filtered.add(o);
-                }
+        return filtered != null ? filterInto(c, filter, filtered) : null;
+    }
+
+    /** Returns a list only containing those elements accepted by the given filter.
+     * The original collection remains unmodified.
+     * The result is presized to the size of <var>c</var>, so it never needs to grow.
+     * @param c Collection to filter
+     * @param filter Filter to use for <var>c</var>
+     * @return list containing only those elements of <var>c</var> accepted by the filter, in iteration order of <var>c</var>
+     */
+    @NotNull public static <T> ArrayList<T> filterToList(@NotNull final Collection<? extends T> c, @NotNull final Filter<? super T> filter) {
+        return filterInto(c, filter, new ArrayList<T>(c.size()));
+    }
+
+    /** Returns a set only containing those elements accepted by the given filter.
+     * The original collection remains unmodified.
+     * The result is presized to the size of <var>c</var>, so it never needs to rehash.
+     * @param c Collection to filter
+     * @param filter Filter to use for <var>c</var>
+     * @return set containing only those elements of <var>c</var> accepted by the filter, in iteration order of <var>c</var>
+     */
+    @NotNull public static <T> LinkedHashSet<T> filterToSet(@NotNull final Collection<? extends T> c, @NotNull final Filter<? super T> filter) {
+        return filterInto(c, filter, new LinkedHashSet<T>(Math.max(c.size() * 4 / 3 + 1, 16)));
+    }
+
+    /** Adds those elements accepted by the given filter to a collection.
+     * @param source Elements to filter
+     * @param filter Filter to use for <var>source</var>
+     * @param dest Collection to which the accepted elements are added
+     * @return <var>dest</var> after the accepted elements have been added to it
+     */
+    @NotNull public static <T, C extends Collection<? super T>> C filterInto(@NotNull final Iterable<? extends T> source, @NotNull final Filter<? super T> filter, @NotNull final C dest) {
+        for (final T o : source) {
+            if (filter.accept(o)) {
+                dest.add(o);
             }
         }
-        return filtered;
+        return dest;
+    }
+
+    /** Returns a list only containing those elements accepted by the given filter, filtering in parallel for large collections.
+     * Collections with less than 65536 elements are filtered sequentially.
+     * The original collection remains unmodified.
+     * @param c Collection to filter
+     * @param filter Filter to use for <var>c</var>, must be thread-safe
+     * @return list containing only those elements of <var>c</var> accepted by the filter, in iteration order of <var>c</var>
+     * @see Arrays2#parallelFilter(Filter, Object[])
+     */
+    @NotNull public static <T> ArrayList<T> parallelFilterToList(@NotNull final Collection<? extends T> c, @NotNull final Filter<? super T> filter) {
+        if (c.size() < ParallelArrays.PARALLEL_THRESHOLD) {
+            return filterToList(c, filter);
+        }
+        //noinspection unchecked
+        final T[] elements = (T[]) c.toArray();
+        return new ArrayList<T>(Arrays.asList(ParallelArrays.filter(filter, elements)));
     }
 
     /** Removes all elements from a collection not accepted by the given filter.
      * The original collection is modified.
      * It is required that the collection is modifiable.
+     * {@link RandomAccess} lists are compacted in place after testing all elements, other collections are filtered with {@link Collection#removeIf(Predicate)}, which removes through their iterator unless they provide something better.
+     * Either way, filtering takes linear time for the usual collections.
+     * If the filter throws an exception, the elements tested before remain filtered and all other elements remain unmodified.
+     * If the collection cannot remove elements, like the lists of {@link Arrays#asList(Object[])}, it remains unmodified and {@link UnsupportedOperationException} is thrown.
      * @param collection Collection to filter
      * @param filter Filter to use for <var>c</var>
      * @return number of elements removed
      */
-    public static <T, C extends Collection<T>> int removeFilter(@NotNull final C collection, @NotNull final Filter<? super T> filter) {
-        int removed = 0;
-        for (final T o : collection) {
-            if (!filter.accept(o)) {
-                collection.remove(o);
-                removed++;
+    public static <T> int removeFilter(@NotNull final Collection<T> collection, @NotNull final Filter<? super T> filter) {
+        // CopyOnWriteArrayList copies its array on every set, so compacting it would take quadratic time.
+        if (collection instanceof List && collection instanceof RandomAccess && !(collection instanceof CopyOnWriteArrayList)) {
+            return compact((List<T>) collection, filter);
+        }
+        final int size = collection.size();
+        collection.removeIf(new Predicate<T>() {
+            /** {@inheritDoc} */
+            public boolean test(final T o) {
+                return !filter.accept(o);
+            }
+        });
+        return size - collection.size();
+    }
+
+    /** Removes all elements from a random access list not accepted by the given filter by moving the accepted elements to the front and removing the tail.
+     * All elements are tested before the list is modified, and the first modification removes an element, so lists which cannot remove elements remain unmodified.
+     * @param list List to filter
+     * @param filter Filter to use for <var>list</var>
+     * @return number of elements removed
+     */
+    private static <T> int compact(@NotNull final List<T> list, @NotNull final Filter<? super T> filter) {
+        final int size = list.size();
+        final BitSet rejected = new BitSet(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                if (!filter.accept(list.get(i))) {
+                    rejected.set(i);
+                }
+            }
+        } finally {
+            // If the filter threw, only the elements tested so far are removed.
+            removeRejected(list, rejected);
+        }
+        return rejected.cardinality();
+    }
+
+    /** Removes the elements at the given indices from a random access list.
+     * The last rejected element is removed first, which throws {@link UnsupportedOperationException} before anything is modified if the list cannot remove elements.
+     * @param list List to remove elements from
+     * @param rejected Indices of the elements to remove
+     */
+    private static <T> void removeRejected(@NotNull final List<T> list, @NotNull final BitSet rejected) {
+        final int last = rejected.length() - 1;
+        if (last < 0) {
+            return;
+        }
+        list.remove(last);
+        final int size = list.size();
+        int kept = rejected.nextSetBit(0);
+        for (int i = kept; i < size; i++) {
+            // Elements behind the removed one have moved down by one, so their original index is one more.
+            if (i >= last || !rejected.get(i)) {
+                if (kept != i) {
+                    list.set(kept, list.get(i));
+                }
+                kept++;
             }
         }
-        return removed;
+        list.subList(kept, size).clear();
     }
 
     /** Checks whether a list is sorted.
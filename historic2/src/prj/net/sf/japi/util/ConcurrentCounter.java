@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.sf.japi.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Thread-safe counter for the frequencies of keys, the counting specialization of {@link ConcurrentMapWithDefault}.
+ * Each key has a {@link LongAdder}, so threads which count the same key concurrently don't contend on one memory location.
+ * Unmapped keys have the count 0.
+ * <p>
+ * Counting a key while it is removed concurrently may lose that count.
+ * @param <K> Type for the counted keys.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @since 0.1
+ */
+public class ConcurrentCounter<K> {
+
+    /** The counters. */
+    private final ConcurrentHashMap<K, LongAdder> counters = new ConcurrentHashMap<K, LongAdder>();
+
+    /** The function which creates counters for {@link ConcurrentHashMap#computeIfAbsent(Object, Function)}. */
+    private final Function<K, LongAdder> newCounter = new Function<K, LongAdder>() {
+        /** {@inheritDoc} */
+        public LongAdder apply(final K key) {
+            return new LongAdder();
+        }
+    };
+
+    /** Increments the count of a key by 1.
+     * @param key Key to count.
+     */
+    public void increment(@NotNull final K key) {
+        getCounter(key).increment();
+    }
+
+    /** Adds to the count of a key.
+     * @param key Key to count.
+     * @param delta Value to add to the count of <var>key</var>.
+     */
+    public void add(@NotNull final K key, final long delta) {
+        getCounter(key).add(delta);
+    }
+
+    /** Returns the count of a key.
+     * @param key Key for which to return the count.
+     * @return Count of <var>key</var>, 0 if <var>key</var> was never counted.
+     */
+    public long get(@NotNull final K key) {
+        final LongAdder counter = counters.get(key);
+        return counter == null ? 0L : counter.sum();
+    }
+
+    /** Removes the count of a key.
+     * @param key Key to remove.
+     * @return Count of <var>key</var> before it was removed.
+     */
+    public long remove(@NotNull final K key) {
+        final LongAdder counter = counters.remove(key);
+        return counter == null ? 0L : counter.sum();
+    }
+
+    /** Returns the counted keys.
+     * The returned set is backed by this counter.
+     * @return The counted keys.
+     */
+    @NotNull public Set<K> keySet() {
+        return counters.keySet();
+    }
+
+    /** Returns the number of counted keys.
+     * @return Number of counted keys.
+     */
+    public int size() {
+        return counters.size();
+    }
+
+    /** Returns the sum of the counts of all keys.
+     * @return Sum of the counts of all keys.
+     */
+    public long sum() {
+        long sum = 0L;
+        for (final LongAdder counter : counters.values()) {
+            sum += counter.sum();
+        }
+        return sum;
+    }
+
+    /** Removes all counts. */
+    public void clear() {
+        counters.clear();
+    }
+
+    /** Returns a snapshot of the counts.
+     * Counts which change while the snapshot is taken may or may not be reflected.
+     * @return Map with the counts of all keys.
+     */
+    @NotNull public Map<K, Long> snapshot() {
+        final Map<K, Long> snapshot = new HashMap<K, Long>();
+        for (final Map.Entry<K, LongAdder> entry : counters.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().sum());
+        }
+        return snapshot;
+    }
+
+    /** Returns the counter of a key, creating it if necessary.
+     * @param key Key for which to return the counter.
+     * @return Counter of <var>key</var>.
+     */
+    @NotNull private LongAdder getCounter(@NotNull final K key) {
+        final LongAdder counter = counters.get(key);
+        return counter != null ? counter : counters.computeIfAbsent(key, newCounter);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.sf.japi.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Thread-safe map which provides default values for unmapped keys, the concurrent variant of {@link HashMapWithDefault}.
+ * The mappings are stored in a {@link ConcurrentHashMap}, so reads don't lock and a read of a mapped key needs only one lookup.
+ * The default value is either a constant or created by a supplier.
+ * With insert-on-miss, the created default value is atomically inserted for the key, like with {@link ConcurrentHashMap#computeIfAbsent(Object, Function)}, so all threads get the same value for a key.
+ * That is useful for values which are mutable containers, like lists or counters.
+ * <p>
+ * Unlike HashMapWithDefault, this class does not implement {@link java.util.Map}, because overriding <code>get</code> of a ConcurrentHashMap would change the behaviour of other methods which use it internally.
+ * Use {@link #asMap()} for the full map interface.
+ * Like with ConcurrentHashMap, <code>null</code> keys and values are not supported.
+ * @param <K> Type for the map keys.
+ * @param <V> Type for the map values.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @since 0.1
+ */
+public class ConcurrentMapWithDefault<K, V> {
+
+    /** The mappings. */
+    private final ConcurrentHashMap<K, V> map = new ConcurrentHashMap<K, V>();
+
+    /** The supplier for default values. */
+    private final Supplier<? extends V> defaultSupplier;
+
+    /** Whether default values are inserted for unmapped keys. */
+    private final boolean insertOnMiss;
+
+    /** The function which creates default values for {@link ConcurrentHashMap#computeIfAbsent(Object, Function)}. */
+    private final Function<K, V> defaultFunction = new Function<K, V>() {
+        /** {@inheritDoc} */
+        public V apply(final K key) {
+            return defaultSupplier.get();
+        }
+    };
+
+    /** Creates a ConcurrentMapWithDefault with a constant default value.
+     * The default value is not inserted for unmapped keys.
+     * @param defaultValue Value to be returned by {@link #get(Object)} for unmapped keys.
+     */
+    public ConcurrentMapWithDefault(@NotNull final V defaultValue) {
+        this(new Supplier<V>() {
+            /** {@inheritDoc} */
+            public V get() {
+                return defaultValue;
+            }
+        }, false);
+    }
+
+    /** Creates a ConcurrentMapWithDefault with a supplier for default values.
+     * @param defaultSupplier Supplier for the values to be returned by {@link #get(Object)} for unmapped keys, must not return <code>null</code>.
+     * @param insertOnMiss <code>true</code> to insert the default value for an unmapped key on {@link #get(Object)}, <code>false</code> to only return it.
+     */
+    public ConcurrentMapWithDefault(@NotNull final Supplier<? extends V> defaultSupplier, final boolean insertOnMiss) {
+        this.defaultSupplier = defaultSupplier;
+        this.insertOnMiss = insertOnMiss;
+    }
+
+    /** Returns the value of a key or the default value if the key is unmapped.
+     * @param key Key for which to return the value.
+     * @return Value of <var>key</var> or default value if <var>key</var> is unmapped.
+     */
+    @NotNull public V get(@NotNull final K key) {
+        final V value = map.get(key);
+        if (value != null) {
+            return value;
+        }
+        return insertOnMiss ? map.computeIfAbsent(key, defaultFunction) : defaultSupplier.get();
+    }
+
+    /** Returns the value of a key without using the default value.
+     * @param key Key for which to return the value.
+     * @return Value of <var>key</var> or <code>null</code> if <var>key</var> is unmapped.
+     */
+    @Nullable public V getIfPresent(@NotNull final K key) {
+        return map.get(key);
+    }
+
+    /** Maps a key to a value.
+     * @param key Key to map.
+     * @param value Value to map <var>key</var> to.
+     * @return Previous value of <var>key</var> or <code>null</code> if <var>key</var> was unmapped.
+     */
+    @Nullable public V put(@NotNull final K key, @NotNull final V value) {
+        return map.put(key, value);
+    }
+
+    /** Removes the mapping of a key.
+     * @param key Key to unmap.
+     * @return Previous value of <var>key</var> or <code>null</code> if <var>key</var> was unmapped.
+     */
+    @Nullable public V remove(@NotNull final K key) {
+        return map.remove(key);
+    }
+
+    /** Returns whether a key is mapped.
+     * @param key Key to check.
+     * @return <code>true</code> if <var>key</var> is mapped, otherwise <code>false</code>.
+     */
+    public boolean containsKey(@NotNull final K key) {
+        return map.containsKey(key);
+    }
+
+    /** Returns the number of mapped keys.
+     * @return Number of mapped keys.
+     */
+    public int size() {
+        return map.size();
+    }
+
+    /** Removes all mappings. */
+    public void clear() {
+        map.clear();
+    }
+
+    /** Returns the mappings as map.
+     * The returned map is backed by this ConcurrentMapWithDefault and does not use default values.
+     * @return The mappings as map.
+     */
+    @NotNull public ConcurrentMap<K, V> asMap() {
+        return map;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return map.toString();
+    }
+}
@@ -18,9 +18,16 @@
 
 package net.sf.japi.util;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.jetbrains.annotations.NotNull;
+
 /** Class to convert data from little endian to big endian and vice versa.
  * Since the conversion is symmetric, there are no special conversion methods, just generic ones, e.g. the same method is used to convert a little
  * endian integer to a big endian integer and vice versa.
+ * Besides single values, whole arrays, byte arrays and {@link ByteBuffer}s of elements can be converted in place.
+ * The <code>put</code> and <code>get</code> methods transfer arrays to and from ByteBuffers in a specified byte order, which is the fastest way for direct buffers.
+ * For converting streams, see {@link net.sf.japi.io.EndianSwappingInputStream} and {@link net.sf.japi.io.EndianSwappingOutputStream}.
  * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
  * @since 0.1
  */
@@ -54,16 +61,8 @@ public final class EndianConverter {
      * @param l long to convert
      * @return converted long
      */
-    @SuppressWarnings("OverlyComplexBooleanExpression")
     public static long swapEndianess(final long l) {
-        return    (l & 0x00000000000000FFL) <<  56
-                | (l & 0x000000000000FF00L) <<  40
-                | (l & 0x0000000000FF0000L) <<  24
-                | (l & 0x00000000FF000000L) <<   8
-                | (l & 0x000000FF00000000L) >>>  8
-                | (l & 0x0000FF0000000000L) >>> 24
-                | (l & 0x00FF000000000000L) >>> 40
-                | (l & 0xFF00000000000000L) >>> 56;
+        return Long.reverseBytes(l);
     }
 
     /** Convert an int.
@@ -71,12 +70,8 @@ public final class EndianConverter {
      * @param i int to convert
      * @return converted int
      */
-    @SuppressWarnings("OverlyComplexBooleanExpression")
     public static int swapEndianess(final int i) {
-        return    (i & 0x000000FF) <<  24
-                | (i & 0x0000FF00) <<   8
-                | (i & 0x00FF0000) >>>  8
-                | (i & 0xFF000000) >>> 24;
+        return Integer.reverseBytes(i);
     }
 
     /** Convert a char.
@@ -85,7 +80,7 @@ public final class EndianConverter {
      * @return converted char
      */
     public static char swapEndianess(final char c) {
-        return (char) ((c & 0x00FF) <<  8 | (c & 0xFF00) >>> 8);
+        return Character.reverseBytes(c);
     }
 
     /** Convert a short.
@@ -94,7 +89,7 @@ public final class EndianConverter {
      * @return converted short
      */
     public static short swapEndianess(final short s) {
-        return (short) ((s & 0x00FF) <<  8 | (s & 0xFF00) >>> 8);
+        return Short.reverseBytes(s);
     }
 
     /** Convert a byte.
@@ -116,4 +111,392 @@ public final class EndianConverter {
         return b;
     }
 
+    /** Convert all shorts of an array in place.
+     * @param a shorts to convert
+     */
+    public static void swapEndianess(@NotNull final short[] a) {
+        swapEndianess(a, 0, a.length);
+    }
+
+    /** Convert a range of shorts of an array in place.
+     * @param a shorts to convert
+     * @param fromIndex index of the first short to convert (inclusive)
+     * @param toIndex index of the last short to convert (exclusive)
+     * @throws ArrayIndexOutOfBoundsException in case <code><var>fromIndex</var> &lt; 0</code> or <code><var>toIndex</var> &gt; a.length</code>
+     */
+    public static void swapEndianess(@NotNull final short[] a, final int fromIndex, final int toIndex) {
+        for (int i = fromIndex; i < toIndex; i++) {
+            a[i] = Short.reverseBytes(a[i]);
+        }
+    }
+
+    /** Convert all chars of an array in place.
+     * @param a chars to convert
+     */
+    public static void swapEndianess(@NotNull final char[] a) {
+        swapEndianess(a, 0, a.length);
+    }
+
+    /** Convert a range of chars of an array in place.
+     * @param a chars to convert
+     * @param fromIndex index of the first char to convert (inclusive)
+     * @param toIndex index of the last char to convert (exclusive)
+     * @throws ArrayIndexOutOfBoundsException in case <code><var>fromIndex</var> &lt; 0</code> or <code><var>toIndex</var> &gt; a.length</code>
+     */
+    public static void swapEndianess(@NotNull final char[] a, final int fromIndex, final int toIndex) {
+        for (int i = fromIndex; i < toIndex; i++) {
+            a[i] = Character.reverseBytes(a[i]);
+        }
+    }
+
+    /** Convert all ints of an array in place.
+     * @param a ints to convert
+     */
+    public static void swapEndianess(@NotNull final int[] a) {
+        swapEndianess(a, 0, a.length);
+    }
+
+    /** Convert a range of ints of an array in place.
+     * @param a ints to convert
+     * @param fromIndex index of the first int to convert (inclusive)
+     * @param toIndex index of the last int to convert (exclusive)
+     * @throws ArrayIndexOutOfBoundsException in case <code><var>fromIndex</var> &lt; 0</code> or <code><var>toIndex</var> &gt; a.length</code>
+     */
+    public static void swapEndianess(@NotNull final int[] a, final int fromIndex, final int toIndex) {
+        for (int i = fromIndex; i < toIndex; i++) {
+            a[i] = Integer.reverseBytes(a[i]);
+        }
+    }
+
+    /** Convert all longs of an array in place.
+     * @param a longs to convert
+     */
+    public static void swapEndianess(@NotNull final long[] a) {
+        swapEndianess(a, 0, a.length);
+    }
+
+    /** Convert a range of longs of an array in place.
+     * @param a longs to convert
+     * @param fromIndex index of the first long to convert (inclusive)
+     * @param toIndex index of the last long to convert (exclusive)
+     * @throws ArrayIndexOutOfBoundsException in case <code><var>fromIndex</var> &lt; 0</code> or <code><var>toIndex</var> &gt; a.length</code>
+     */
+    public static void swapEndianess(@NotNull final long[] a, final int fromIndex, final int toIndex) {
+        for (int i = fromIndex; i < toIndex; i++) {
+            a[i] = Long.reverseBytes(a[i]);
+        }
+    }
+
+    /** Convert all floats of an array in place.
+     * @param a floats to convert
+     */
+    public static void swapEndianess(@NotNull final float[] a) {
+        swapEndianess(a, 0, a.length);
+    }
+
+    /** Convert a range of floats of an array in place.
+     * @param a floats to convert
+     * @param fromIndex index of the first float to convert (inclusive)
+     * @param toIndex index of the last float to convert (exclusive)
+     * @throws ArrayIndexOutOfBoundsException in case <code><var>fromIndex</var> &lt; 0</code> or <code><var>toIndex</var> &gt; a.length</code>
+     */
+    public static void swapEndianess(@NotNull final float[] a, final int fromIndex, final int toIndex) {
+        for (int i = fromIndex; i < toIndex; i++) {
+            a[i] = Float.intBitsToFloat(Integer.reverseBytes(Float.floatToRawIntBits(a[i])));
+        }
+    }
+
+    /** Convert all doubles of an array in place.
+     * @param a doubles to convert
+     */
+    public static void swapEndianess(@NotNull final double[] a) {
+        swapEndianess(a, 0, a.length);
+    }
+
+    /** Convert a range of doubles of an array in place.
+     * @param a doubles to convert
+     * @param fromIndex index of the first double to convert (inclusive)
+     * @param toIndex index of the last double to convert (exclusive)
+     * @throws ArrayIndexOutOfBoundsException in case <code><var>fromIndex</var> &lt; 0</code> or <code><var>toIndex</var> &gt; a.length</code>
+     */
+    public static void swapEndianess(@NotNull final double[] a, final int fromIndex, final int toIndex) {
+        for (int i = fromIndex; i < toIndex; i++) {
+            a[i] = Double.longBitsToDouble(Long.reverseBytes(Double.doubleToRawLongBits(a[i])));
+        }
+    }
+
+    /** Convert elements in a byte array in place by reversing the bytes of each element.
+     * @param data bytes to convert
+     * @param offset index of the first byte of the first element
+     * @param length number of bytes to convert, must be a multiple of <var>elementSize</var>
+     * @param elementSize size of an element in bytes, e.g. 4 for int
+     * @throws IllegalArgumentException in case <var>length</var> is not a multiple of <var>elementSize</var>
+     */
+    public static void swapEndianess(@NotNull final byte[] data, final int offset, final int length, final int elementSize) {
+        checkElementSize(length, elementSize);
+        final int end = offset + length;
+        switch (elementSize) {
+        case 1:
+            break;
+        case 2:
+            for (int i = offset; i < end; i += 2) {
+                swap(data, i, i + 1);
+            }
+            break;
+        case 4:
+            for (int i = offset; i < end; i += 4) {
+                swap(data, i, i + 3);
+                swap(data, i + 1, i + 2);
+            }
+            break;
+        case 8:
+            for (int i = offset; i < end; i += 8) {
+                swap(data, i, i + 7);
+                swap(data, i + 1, i + 6);
+                swap(data, i + 2, i + 5);
+                swap(data, i + 3, i + 4);
+            }
+            break;
+        default:
+            for (int i = offset; i < end; i += elementSize) {
+                for (int lo = i, hi = i + elementSize - 1; lo < hi; lo++, hi--) {
+                    swap(data, lo, hi);
+                }
+            }
+        }
+    }
+
+    /** Convert the elements between position and limit of a ByteBuffer in place by reversing the bytes of each element.
+     * Position, limit and byte order of <var>buffer</var> are not changed.
+     * @param buffer ByteBuffer to convert
+     * @param elementSize size of an element in bytes, e.g. 4 for int
+     * @throws IllegalArgumentException in case the remaining bytes of <var>buffer</var> are not a multiple of <var>elementSize</var>
+     * @throws java.nio.ReadOnlyBufferException in case <var>buffer</var> is read-only
+     */
+    public static void swapEndianess(@NotNull final ByteBuffer buffer, final int elementSize) {
+        if (buffer.hasArray()) {
+            swapEndianess(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), elementSize);
+            return;
+        }
+        checkElementSize(buffer.remaining(), elementSize);
+        final int end = buffer.limit();
+        switch (elementSize) {
+        case 1:
+            break;
+        case 2:
+            for (int i = buffer.position(); i < end; i += 2) {
+                buffer.putShort(i, Short.reverseBytes(buffer.getShort(i)));
+            }
+            break;
+        case 4:
+            for (int i = buffer.position(); i < end; i += 4) {
+                buffer.putInt(i, Integer.reverseBytes(buffer.getInt(i)));
+            }
+            break;
+        case 8:
+            for (int i = buffer.position(); i < end; i += 8) {
+                buffer.putLong(i, Long.reverseBytes(buffer.getLong(i)));
+            }
+            break;
+        default:
+            for (int i = buffer.position(); i < end; i += elementSize) {
+                for (int lo = i, hi = i + elementSize - 1; lo < hi; lo++, hi--) {
+                    final byte tmp = buffer.get(lo);
+                    buffer.put(lo, buffer.get(hi));
+                    buffer.put(hi, tmp);
+                }
+            }
+        }
+    }
+
+    /** Check that a number of bytes is a multiple of an element size.
+     * @param length number of bytes
+     * @param elementSize size of an element in bytes
+     * @throws IllegalArgumentException in case <var>elementSize</var> is not positive or <var>length</var> is not a multiple of it
+     */
+    private static void checkElementSize(final int length, final int elementSize) {
+        if (elementSize <= 0 || length % elementSize != 0) {
+            throw new IllegalArgumentException("Length " + length + " is not a multiple of element size " + elementSize);
+        }
+    }
+
+    /** Swap two bytes of an array.
+     * @param data array
+     * @param i index of the first byte
+     * @param j index of the second byte
+     */
+    private static void swap(@NotNull final byte[] data, final int i, final int j) {
+        final byte tmp = data[i];
+        data[i] = data[j];
+        data[j] = tmp;
+    }
+
+    /** Write shorts to a ByteBuffer in the specified byte order.
+     * The byte order of <var>dst</var> is not changed, its position is advanced by the number of bytes written.
+     * @param dst ByteBuffer to write to
+     * @param order byte order in which to write the shorts
+     * @param src shorts to write
+     * @param offset index of the first short to write
+     * @param length number of shorts to write
+     * @throws java.nio.BufferOverflowException in case <var>dst</var> has not enough space remaining
+     */
+    public static void put(@NotNull final ByteBuffer dst, @NotNull final ByteOrder order, @NotNull final short[] src, final int offset, final int length) {
+        dst.duplicate().order(order).asShortBuffer().put(src, offset, length);
+        dst.position(dst.position() + length * 2);
+    }
+
+    /** Read shorts from a ByteBuffer in the specified byte order.
+     * The byte order of <var>src</var> is not changed, its position is advanced by the number of bytes read.
+     * @param src ByteBuffer to read from
+     * @param order byte order in which to read the shorts
+     * @param dst array to read the shorts into
+     * @param offset index of the first short to read
+     * @param length number of shorts to read
+     * @throws java.nio.BufferUnderflowException in case <var>src</var> has not enough bytes remaining
+     */
+    public static void get(@NotNull final ByteBuffer src, @NotNull final ByteOrder order, @NotNull final short[] dst, final int offset, final int length) {
+        src.duplicate().order(order).asShortBuffer().get(dst, offset, length);
+        src.position(src.position() + length * 2);
+    }
+
+    /** Write chars to a ByteBuffer in the specified byte order.
+     * The byte order of <var>dst</var> is not changed, its position is advanced by the number of bytes written.
+     * @param dst ByteBuffer to write to
+     * @param order byte order in which to write the chars
+     * @param src chars to write
+     * @param offset index of the first char to write
+     * @param length number of chars to write
+     * @throws java.nio.BufferOverflowException in case <var>dst</var> has not enough space remaining
+     */
+    public static void put(@NotNull final ByteBuffer dst, @NotNull final ByteOrder order, @NotNull final char[] src, final int offset, final int length) {
+        dst.duplicate().order(order).asCharBuffer().put(src, offset, length);
+        dst.position(dst.position() + length * 2);
+    }
+
+    /** Read chars from a ByteBuffer in the specified byte order.
+     * The byte order of <var>src</var> is not changed, its position is advanced by the number of bytes read.
+     * @param src ByteBuffer to read from
+     * @param order byte order in which to read the chars
+     * @param dst array to read the chars into
+     * @param offset index of the first char to read
+     * @param length number of chars to read
+     * @throws java.nio.BufferUnderflowException in case <var>src</var> has not enough bytes remaining
+     */
+    public static void get(@NotNull final ByteBuffer src, @NotNull final ByteOrder order, @NotNull final char[] dst, final int offset, final int length) {
+        src.duplicate().order(order).asCharBuffer().get(dst, offset, length);
+        src.position(src.position() + length * 2);
+    }
+
+    /** Write ints to a ByteBuffer in the specified byte order.
+     * The byte order of <var>dst</var> is not changed, its position is advanced by the number of bytes written.
+     * @param dst ByteBuffer to write to
+     * @param order byte order in which to write the ints
+     * @param src ints to write
+     * @param offset index of the first int to write
+     * @param length number of ints to write
+     * @throws java.nio.BufferOverflowException in case <var>dst</var> has not enough space remaining
+     */
+    public static void put(@NotNull final ByteBuffer dst, @NotNull final ByteOrder order, @NotNull final int[] src, final int offset, final int length) {
+        dst.duplicate().order(order).asIntBuffer().put(src, offset, length);
+        dst.position(dst.position() + length * 4);
+    }
+
+    /** Read ints from a ByteBuffer in the specified byte order.
+     * The byte order of <var>src</var> is not changed, its position is advanced by the number of bytes read.
+     * @param src ByteBuffer to read from
+     * @param order byte order in which to read the ints
+     * @param dst array to read the ints into
+     * @param offset index of the first int to read
+     * @param length number of ints to read
+     * @throws java.nio.BufferUnderflowException in case <var>src</var> has not enough bytes remaining
+     */
+    public static void get(@NotNull final ByteBuffer src, @NotNull final ByteOrder order, @NotNull final int[] dst, final int offset, final int length) {
+        src.duplicate().order(order).asIntBuffer().get(dst, offset, length);
+        src.position(src.position() + length * 4);
+    }
+
+    /** Write longs to a ByteBuffer in the specified byte order.
+     * The byte order of <var>dst</var> is not changed, its position is advanced by the number of bytes written.
+     * @param dst ByteBuffer to write to
+     * @param order byte order in which to write the longs
+     * @param src longs to write
+     * @param offset index of the first long to write
+     * @param length number of longs to write
+     * @throws java.nio.BufferOverflowException in case <var>dst</var> has not enough space remaining
+     */
+    public static void put(@NotNull final ByteBuffer dst, @NotNull final ByteOrder order, @NotNull final long[] src, final int offset, final int length) {
+        dst.duplicate().order(order).asLongBuffer().put(src, offset, length);
+        dst.position(dst.position() + length * 8);
+    }
+
+    /** Read longs from a ByteBuffer in the specified byte order.
+     * The byte order of <var>src</var> is not changed, its position is advanced by the number of bytes read.
+     * @param src ByteBuffer to read from
+     * @param order byte order in which to read the longs
+     * @param dst array to read the longs into
+     * @param offset index of the first long to read
+     * @param length number of longs to read
+     * @throws java.nio.BufferUnderflowException in case <var>src</var> has not enough bytes remaining
+     */
+    public static void get(@NotNull final ByteBuffer src, @NotNull final ByteOrder order, @NotNull final long[] dst, final int offset, final int length) {
+        src.duplicate().order(order).asLongBuffer().get(dst, offset, length);
+        src.position(src.position() + length * 8);
+    }
+
+    /** Write floats to a ByteBuffer in the specified byte order.
+     * The byte order of <var>dst</var> is not changed, its position is advanced by the number of bytes written.
+     * @param dst ByteBuffer to write to
+     * @param order byte order in which to write the floats
+     * @param src floats to write
+     * @param offset index of the first float to write
+     * @param length number of floats to write
+     * @throws java.nio.BufferOverflowException in case <var>dst</var> has not enough space remaining
+     */
+    public static void put(@NotNull final ByteBuffer dst, @NotNull final ByteOrder order, @NotNull final float[] src, final int offset, final int length) {
+        dst.duplicate().order(order).asFloatBuffer().put(src, offset, length);
+        dst.position(dst.position() + length * 4);
+    }
+
+    /** Read floats from a ByteBuffer in the specified byte order.
+     * The byte order of <var>src</var> is not changed, its position is advanced by the number of bytes read.
+     * @param src ByteBuffer to read from
+     * @param order byte order in which to read the floats
+     * @param dst array to read the floats into
+     * @param offset index of the first float to read
+     * @param length number of floats to read
+     * @throws java.nio.BufferUnderflowException in case <var>src</var> has not enough bytes remaining
+     */
+    public static void get(@NotNull final ByteBuffer src, @NotNull final ByteOrder order, @NotNull final float[] dst, final int offset, final int length) {
+        src.duplicate().order(order).asFloatBuffer().get(dst, offset, length);
+        src.position(src.position() + length * 4);
+    }
+
+    /** Write doubles to a ByteBuffer in the specified byte order.
+     * The byte order of <var>dst</var> is not changed, its position is advanced by the number of bytes written.
+     * @param dst ByteBuffer to write to
+     * @param order byte order in which to write the doubles
+     * @param src doubles to write
+     * @param offset index of the first double to write
+     * @param length number of doubles to write
+     * @throws java.nio.BufferOverflowException in case <var>dst</var> has not enough space remaining
+     */
+    public static void put(@NotNull final ByteBuffer dst, @NotNull final ByteOrder order, @NotNull final double[] src, final int offset, final int length) {
+        dst.duplicate().order(order).asDoubleBuffer().put(src, offset, length);
+        dst.position(dst.position() + length * 8);
+    }
+
+    /** Read doubles from a ByteBuffer in the specified byte order.
+     * The byte order of <var>src</var> is not changed, its position is advanced by the number of bytes read.
+     * @param src ByteBuffer to read from
+     * @param order byte order in which to read the doubles
+     * @param dst array to read the doubles into
+     * @param offset index of the first double to read
+     * @param length number of doubles to read
+     * @throws java.nio.BufferUnderflowException in case <var>src</var> has not enough bytes remaining
+     */
+    public static void get(@NotNull final ByteBuffer src, @NotNull final ByteOrder order, @NotNull final double[] dst, final int offset, final int length) {
+        src.duplicate().order(order).asDoubleBuffer().get(dst, offset, length);
+        src.position(src.position() + length * 8);
+    }
+
 } // class EndianConverter
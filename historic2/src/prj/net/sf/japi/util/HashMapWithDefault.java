@@ -24,6 +24,7 @@ import java.util.Map;
 /**
  * HashMap implementation which provides default values for unmapped keys which can be distinct from <code>null</code>.
  * @warning This map implementation violates the contract of {@link Map#get(Object)} regarding the return value.
+ * @see ConcurrentMapWithDefault for a thread-safe variant.
  * @param <K> Type for the map keys.
  * @param <V> Type for the map values.
  * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
@@ -52,6 +53,7 @@ public class HashMapWithDefault<K, V> extends HashMap<K, V> {
     /** {@inheritDoc} */
     @Override
     public V get(final Object key) {
-        return containsKey(key) ? super.get(key) : defaultValue;
+        // getOrDefault needs only one lookup, and like containsKey it returns the mapped value even if it is null.
+        return getOrDefault(key, defaultValue);
     }
 }
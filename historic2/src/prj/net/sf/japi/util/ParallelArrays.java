@@ -0,0 +1,450 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.sf.japi.util;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import net.sf.japi.util.filter.Filter;
+import org.jetbrains.annotations.NotNull;
+
+/** Fork/join implementations of the parallel bulk operations of {@link Arrays2}.
+ * The arrays are split into blocks, which are processed by the tasks of the common {@link ForkJoinPool}.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @since 0.1
+ */
+@SuppressWarnings({"UtilityClass", "MagicNumber"})
+final class ParallelArrays {
+
+    /** Number of elements below which the parallel operations of {@link Arrays2} use the sequential code. */
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    /** Minimum number of elements per block. */
+    private static final int MIN_BLOCK_SIZE = 1 << 12;
+
+    /** Maximum number of buckets for shuffling, bucket numbers must fit into a byte. */
+    private static final int MAX_BUCKETS = 256;
+
+    /** Private constructor - no instances needed. */
+    private ParallelArrays() {
+    }
+
+    /** A job which processes one block of a parallel operation. */
+    private interface BlockJob {
+
+        /** Processes a block.
+         * @param block Number of the block to process.
+         */
+        void run(int block);
+    }
+
+    /** Task which runs a {@link BlockJob} for a range of blocks, splitting the range in halves. */
+    private static final class BlockTask extends RecursiveAction {
+
+        /** Serial Version. */
+        private static final long serialVersionUID = 1L;
+
+        /** The job to run for each block. */
+        private final transient BlockJob job;
+
+        /** First block to process (inclusive). */
+        private final int fromBlock;
+
+        /** Last block to process (exclusive). */
+        private final int toBlock;
+
+        /** Creates a BlockTask.
+         * @param job The job to run for each block.
+         * @param fromBlock First block to process (inclusive).
+         * @param toBlock Last block to process (exclusive).
+         */
+        BlockTask(@NotNull final BlockJob job, final int fromBlock, final int toBlock) {
+            this.job = job;
+            this.fromBlock = fromBlock;
+            this.toBlock = toBlock;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected void compute() {
+            if (toBlock - fromBlock == 1) {
+                job.run(fromBlock);
+            } else {
+                final int mid = fromBlock + toBlock >>> 1;
+                invokeAll(new BlockTask(job, fromBlock, mid), new BlockTask(job, mid, toBlock));
+            }
+        }
+    }
+
+    /** Runs a job for the specified number of blocks in parallel.
+     * A single block is run in the calling thread.
+     * @param job Job to run.
+     * @param blocks Number of blocks.
+     */
+    private static void runBlocks(@NotNull final BlockJob job, final int blocks) {
+        if (blocks == 1) {
+            job.run(0);
+        } else if (blocks > 1) {
+            ForkJoinPool.commonPool().invoke(new BlockTask(job, 0, blocks));
+        }
+    }
+
+    /** Returns the number of blocks for processing the specified number of elements.
+     * @param length Number of elements.
+     * @return Number of blocks, 1 for small lengths.
+     */
+    private static int blockCount(final int length) {
+        return Math.max(1, Math.min(length / MIN_BLOCK_SIZE, ForkJoinPool.getCommonPoolParallelism() * 4));
+    }
+
+    /** Returns the size of blocks.
+     * @param length Number of elements.
+     * @param blocks Number of blocks.
+     * @return Number of elements per block, the last block may be smaller.
+     */
+    private static int blockSize(final int length, final int blocks) {
+        return (int) (((long) length + blocks - 1) / blocks);
+    }
+
+    /** Concatenates arrays into a destination array.
+     * The destination array is split into blocks, so the work is balanced even if the source arrays have very different lengths.
+     * Below {@link #PARALLEL_THRESHOLD} elements the arrays are copied sequentially.
+     * @param arrays Arrays to concatenate, all of the component type of <var>dest</var>.
+     * @param dest Destination array, its length must be the sum of the lengths of <var>arrays</var>.
+     */
+    static void concat(@NotNull final Object[] arrays, @NotNull final Object dest) {
+        final int length = Array.getLength(dest);
+        if (length < PARALLEL_THRESHOLD) {
+            int pos = 0;
+            for (final Object array : arrays) {
+                final int count = Array.getLength(array);
+                System.arraycopy(array, 0, dest, pos, count);
+                pos += count;
+            }
+            return;
+        }
+        final int[] offsets = new int[arrays.length + 1];
+        for (int i = 0; i < arrays.length; i++) {
+            offsets[i + 1] = offsets[i] + Array.getLength(arrays[i]);
+        }
+        assert offsets[arrays.length] == length;
+        final int blocks = blockCount(length);
+        final int blockSize = blockSize(length, blocks);
+        runBlocks(new BlockJob() {
+            /** {@inheritDoc} */
+            public void run(final int block) {
+                int pos = block * blockSize;
+                final int end = Math.min(pos + blockSize, length);
+                int i = Arrays.binarySearch(offsets, pos);
+                if (i < 0) {
+                    i = -i - 2;
+                }
+                while (pos < end) {
+                    final int count = Math.min(end, offsets[i + 1]) - pos;
+                    if (count > 0) {
+                        System.arraycopy(arrays[i], pos - offsets[i], dest, pos, count);
+                        pos += count;
+                    }
+                    i++;
+                }
+            }
+        }, blocks);
+    }
+
+    /** Returns an array only containing those elements accepted by the given filter.
+     * The filter is evaluated once per element in a first parallel pass, which also counts the accepted elements per block.
+     * A prefix sum of the counts yields the position of each block in the result, which is filled in a second parallel pass.
+     * @param filter Filter to use for <var>a</var>, must be thread-safe.
+     * @param a Elements to filter.
+     * @return array containing only those elements from <var>a</var> accepted by <var>filter</var>.
+     */
+    @NotNull static <T> T[] filter(@NotNull final Filter<? super T> filter, @NotNull final T[] a) {
+        final int length = a.length;
+        final int blocks = blockCount(length);
+        final int blockSize = blockSize(length, blocks);
+        final boolean[] accepted = new boolean[length];
+        final int[] offsets = new int[blocks + 1];
+        runBlocks(new BlockJob() {
+            /** {@inheritDoc} */
+            public void run(final int block) {
+                final int end = Math.min(block * blockSize + blockSize, length);
+                int count = 0;
+                for (int i = block * blockSize; i < end; i++) {
+                    if (filter.accept(a[i])) {
+                        accepted[i] = true;
+                        count++;
+                    }
+                }
+                offsets[block + 1] = count;
+            }
+        }, blocks);
+        for (int block = 0; block < blocks; block++) {
+            offsets[block + 1] += offsets[block];
+        }
+        //noinspection unchecked
+        final T[] result = (T[]) Array.newInstance(a.getClass().getComponentType(), offsets[blocks]);
+        runBlocks(new BlockJob() {
+            /** {@inheritDoc} */
+            public void run(final int block) {
+                final int end = Math.min(block * blockSize + blockSize, length);
+                int pos = offsets[block];
+                for (int i = block * blockSize; i < end; i++) {
+                    if (accepted[i]) {
+                        result[pos++] = a[i];
+                    }
+                }
+            }
+        }, blocks);
+        return result;
+    }
+
+    /** Count elements in an array that are accepted by the given filter.
+     * @param filter Filter to use for <var>a</var>, must be thread-safe.
+     * @param a Elements to count in.
+     * @return number of elements in <var>a</var> accepted by <var>filter</var>.
+     */
+    static <T> int count(@NotNull final Filter<? super T> filter, @NotNull final T[] a) {
+        final int length = a.length;
+        final int blocks = blockCount(length);
+        final int blockSize = blockSize(length, blocks);
+        final int[] counts = new int[blocks];
+        runBlocks(new BlockJob() {
+            /** {@inheritDoc} */
+            public void run(final int block) {
+                final int end = Math.min(block * blockSize + blockSize, length);
+                int count = 0;
+                for (int i = block * blockSize; i < end; i++) {
+                    if (filter.accept(a[i])) {
+                        count++;
+                    }
+                }
+                counts[block] = count;
+            }
+        }, blocks);
+        int count = 0;
+        for (final int blockCount : counts) {
+            count += blockCount;
+        }
+        return count;
+    }
+
+    /** Shuffles an array by scattering its elements into random buckets, which are then shuffled independently.
+     * Every element is assigned to a uniformly chosen bucket, and every bucket is permuted with Fisher-Yates.
+     * Since the procedure treats all elements alike, every permutation of the array is equally likely.
+     * Each block and each bucket uses its own random number generator split off the given one.
+     * @param <A> Array type.
+     */
+    private abstract static class BucketShuffle<A> {
+
+        /** The array to shuffle. */
+        @NotNull protected final A array;
+
+        /** Temporary array of the same type and length as {@link #array}. */
+        @NotNull protected final A tmp;
+
+        /** Creates a BucketShuffle.
+         * @param array Array to shuffle.
+         * @param tmp Temporary array of the same type and length as <var>array</var>.
+         */
+        BucketShuffle(@NotNull final A array, @NotNull final A tmp) {
+            this.array = array;
+            this.tmp = tmp;
+        }
+
+        /** Copies an element from {@link #array} to {@link #tmp}.
+         * @param from Index in {@link #array}.
+         * @param to Index in {@link #tmp}.
+         */
+        protected abstract void scatter(int from, int to);
+
+        /** Swaps two elements of {@link #array}.
+         * @param i Index of the first element.
+         * @param j Index of the second element.
+         */
+        protected abstract void swap(int i, int j);
+
+        /** Shuffles the array.
+         * @param rnd Random number generator.
+         */
+        void shuffle(@NotNull final SplittableRandom rnd) {
+            final int length = Array.getLength(array);
+            if (length < PARALLEL_THRESHOLD) {
+                fisherYates(0, length, rnd);
+                return;
+            }
+            final int blocks = blockCount(length);
+            final int blockSize = blockSize(length, blocks);
+            final int buckets = Math.min(blocks, MAX_BUCKETS);
+            final SplittableRandom[] blockRnds = new SplittableRandom[blocks];
+            for (int block = 0; block < blocks; block++) {
+                blockRnds[block] = rnd.split();
+            }
+            final SplittableRandom[] bucketRnds = new SplittableRandom[buckets];
+            for (int bucket = 0; bucket < buckets; bucket++) {
+                bucketRnds[bucket] = rnd.split();
+            }
+            final byte[] bucketOf = new byte[length];
+            final int[][] positions = new int[blocks][buckets];
+            runBlocks(new BlockJob() {
+                /** {@inheritDoc} */
+                public void run(final int block) {
+                    final int end = Math.min(block * blockSize + blockSize, length);
+                    final SplittableRandom blockRnd = blockRnds[block];
+                    final int[] counts = positions[block];
+                    for (int i = block * blockSize; i < end; i++) {
+                        final int bucket = blockRnd.nextInt(buckets);
+                        bucketOf[i] = (byte) bucket;
+                        counts[bucket]++;
+                    }
+                }
+            }, blocks);
+            // Turn the counts into start positions: buckets are laid out one after another, within a bucket the blocks are in order.
+            final int[] bucketStarts = new int[buckets + 1];
+            int pos = 0;
+            for (int bucket = 0; bucket < buckets; bucket++) {
+                bucketStarts[bucket] = pos;
+                for (int block = 0; block < blocks; block++) {
+                    final int count = positions[block][bucket];
+                    positions[block][bucket] = pos;
+                    pos += count;
+                }
+            }
+            bucketStarts[buckets] = pos;
+            runBlocks(new BlockJob() {
+                /** {@inheritDoc} */
+                public void run(final int block) {
+                    final int end = Math.min(block * blockSize + blockSize, length);
+                    final int[] blockPositions = positions[block];
+                    for (int i = block * blockSize; i < end; i++) {
+                        scatter(i, blockPositions[bucketOf[i] & 0xFF]++);
+                    }
+                }
+            }, blocks);
+            System.arraycopy(tmp, 0, array, 0, length);
+            runBlocks(new BlockJob() {
+                /** {@inheritDoc} */
+                public void run(final int bucket) {
+                    fisherYates(bucketStarts[bucket], bucketStarts[bucket + 1], bucketRnds[bucket]);
+                }
+            }, buckets);
+        }
+
+        /** Shuffles a range of {@link #array} with the Fisher-Yates algorithm.
+         * @param fromIndex Start index to shuffle at (inclusive).
+         * @param toIndex End index to shuffle at (exclusive).
+         * @param rnd Random number generator.
+         */
+        private void fisherYates(final int fromIndex, final int toIndex, @NotNull final SplittableRandom rnd) {
+            for (int i = toIndex - 1; i > fromIndex; i--) {
+                swap(i, fromIndex + rnd.nextInt(i - fromIndex + 1));
+            }
+        }
+    }
+
+    /** Shuffles an array of ints in parallel.
+     * @param array Array to shuffle.
+     * @param rnd Random number generator.
+     */
+    static void shuffle(@NotNull final int[] array, @NotNull final SplittableRandom rnd) {
+        new BucketShuffle<int[]>(array, new int[array.length < PARALLEL_THRESHOLD ? 0 : array.length]) {
+            /** {@inheritDoc} */
+            @Override
+            protected void scatter(final int from, final int to) {
+                tmp[to] = this.array[from];
+            }
+
+            /** {@inheritDoc} */
+            @Override
+            protected void swap(final int i, final int j) {
+                final int cache = this.array[i];
+                this.array[i] = this.array[j];
+                this.array[j] = cache;
+            }
+        }.shuffle(rnd);
+    }
+
+    /** Shuffles an array of longs in parallel.
+     * @param array Array to shuffle.
+     * @param rnd Random number generator.
+     */
+    static void shuffle(@NotNull final long[] array, @NotNull final SplittableRandom rnd) {
+        new BucketShuffle<long[]>(array, new long[array.length < PARALLEL_THRESHOLD ? 0 : array.length]) {
+            /** {@inheritDoc} */
+            @Override
+            protected void scatter(final int from, final int to) {
+                tmp[to] = this.array[from];
+            }
+
+            /** {@inheritDoc} */
+            @Override
+            protected void swap(final int i, final int j) {
+                final long cache = this.array[i];
+                this.array[i] = this.array[j];
+                this.array[j] = cache;
+            }
+        }.shuffle(rnd);
+    }
+
+    /** Shuffles an array of doubles in parallel.
+     * @param array Array to shuffle.
+     * @param rnd Random number generator.
+     */
+    static void shuffle(@NotNull final double[] array, @NotNull final SplittableRandom rnd) {
+        new BucketShuffle<double[]>(array, new double[array.length < PARALLEL_THRESHOLD ? 0 : array.length]) {
+            /** {@inheritDoc} */
+            @Override
+            protected void scatter(final int from, final int to) {
+                tmp[to] = this.array[from];
+            }
+
+            /** {@inheritDoc} */
+            @Override
+            protected void swap(final int i, final int j) {
+                final double cache = this.array[i];
+                this.array[i] = this.array[j];
+                this.array[j] = cache;
+            }
+        }.shuffle(rnd);
+    }
+
+    /** Shuffles an array of Objects in parallel.
+     * @param array Array to shuffle.
+     * @param rnd Random number generator.
+     */
+    static void shuffle(@NotNull final Object[] array, @NotNull final SplittableRandom rnd) {
+        new BucketShuffle<Object[]>(array, new Object[array.length < PARALLEL_THRESHOLD ? 0 : array.length]) {
+            /** {@inheritDoc} */
+            @Override
+            protected void scatter(final int from, final int to) {
+                tmp[to] = this.array[from];
+            }
+
+            /** {@inheritDoc} */
+            @Override
+            protected void swap(final int i, final int j) {
+                final Object cache = this.array[i];
+                this.array[i] = this.array[j];
+                this.array[j] = cache;
+            }
+        }.shuffle(rnd);
+    }
+
+} // class ParallelArrays
@@ -35,6 +35,13 @@ final class AndFilterForArray<T> implements Filter<T> {
         this.filters = filters.clone();
     }
 
+    /** Get the filters to AND.
+     * @return the filters to AND
+     */
+    Filter<T>[] getFilters() {
+        return filters;
+    }
+
     /** {@inheritDoc} */
     public boolean accept(final T o) {
         for (final Filter<T> filter : filters) {
@@ -35,6 +35,13 @@ final class AndFilterForIterable<T> implements Filter<T> {
         this.filters = filters;
     }
 
+    /** Get the filters to AND.
+     * @return the filters to AND
+     */
+    Iterable<Filter<T>> getFilters() {
+        return filters;
+    }
+
     /** {@inheritDoc} */
     public boolean accept(final T o) {
         for (final Filter<T> filter : filters) {
@@ -39,6 +39,13 @@ final class CollectionFilter<T> implements Filter<T> {
         this.collection = collection;
     }
 
+    /** Get the collection to use for filtering.
+     * @return the collection to use for filtering
+     */
+    Collection<T> getCollection() {
+        return collection;
+    }
+
     /** {@inheritDoc} */
     public boolean accept(final T o) {
         return collection.contains(o);
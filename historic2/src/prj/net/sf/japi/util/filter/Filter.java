@@ -34,6 +34,8 @@ public interface Filter<T> {
     boolean accept(T o);
 
     /** Factory for useful filters.
+     * The filters created by this factory are interpreted.
+     * Use {@link FilterCompiler} to compile them before filtering many elements.
      * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
      */
     @SuppressWarnings({"StaticMethodNamingConvention", "UtilityClass", "InnerClassOfInterface"})
@@ -0,0 +1,400 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.sf.japi.util.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/** Compiles trees of filters created by {@link Filter.Factory} into {@link CompiledFilter}s which are cheaper to evaluate.
+ * The compiler
+ * <ul>
+ *  <li>flattens nested AND and nested OR filters into one AND or OR with all operands,</li>
+ *  <li>removes double negations,</li>
+ *  <li>replaces {@link Filter.Factory#contained(Collection)} filters by lookups in a copy of the collection, hashed unless it is a {@link SortedSet},</li>
+ *  <li>uses specialized nodes for AND and OR of two operands, which the JIT can inline,</li>
+ *  <li>and, if a sample is given, reorders the operands of AND and OR by their measured selectivity and cost.</li>
+ * </ul>
+ * Compilation takes a snapshot of the filter tree.
+ * Changes to the collections and iterables used to create the filters after compilation do not affect the compiled filter.
+ * <p>
+ * Reordering operands is only safe for filters without side effects.
+ * For AND, the operands are ordered by ascending cost per rejected element, for OR by ascending cost per accepted element.
+ * That way, the operand that most cheaply decides the result is evaluated first.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @since 0.1
+ */
+public final class FilterCompiler {
+
+    /** Utility class - do not instanciate. */
+    private FilterCompiler() {
+    }
+
+    /** Compiles a filter without reordering operands.
+     * @param filter Filter to compile
+     * @return compiled version of <var>filter</var>
+     */
+    @NotNull public static <T> CompiledFilter<T> compile(@NotNull final Filter<T> filter) {
+        return compile(filter, null);
+    }
+
+    /** Compiles a filter, reordering the operands of AND and OR by their selectivity and cost measured on a sample.
+     * The sample should be representative for the elements that will be filtered.
+     * A few thousand elements are usually sufficient.
+     * @param filter Filter to compile
+     * @param sample Elements on which to measure the operands or <code>null</code> to not reorder operands
+     * @return compiled version of <var>filter</var>
+     */
+    @NotNull public static <T> CompiledFilter<T> compile(@NotNull final Filter<T> filter, @Nullable final Collection<? extends T> sample) {
+        if (filter instanceof CompiledFilter) {
+            return (CompiledFilter<T>) filter;
+        }
+        if (filter instanceof NotFilter) {
+            final Filter<T> negated = ((NotFilter<T>) filter).getFilter();
+            if (negated instanceof NotFilter) {
+                return compile(((NotFilter<T>) negated).getFilter(), sample);
+            }
+            return new Not<T>(compile(negated, sample));
+        }
+        if (filter instanceof AndFilterForArray || filter instanceof AndFilterForIterable) {
+            return and(compileOperands(filter, true, sample));
+        }
+        if (filter instanceof OrFilterForArray || filter instanceof OrFilterForIterable) {
+            return or(compileOperands(filter, false, sample));
+        }
+        if (filter instanceof CollectionFilter) {
+            final Collection<T> collection = ((CollectionFilter<T>) filter).getCollection();
+            return new Contained<T>(collection instanceof SortedSet ? new TreeSet<T>((SortedSet<T>) collection) : new HashSet<T>(collection));
+        }
+        return new Adapter<T>(filter);
+    }
+
+    /** Compiles the flattened operands of an AND or OR filter.
+     * @param filter AND or OR filter
+     * @param and <code>true</code> for AND, <code>false</code> for OR
+     * @param sample Elements on which to measure the operands or <code>null</code> to not reorder operands
+     * @return compiled operands, ordered by selectivity and cost if <var>sample</var> is not <code>null</code>
+     */
+    @NotNull private static <T> List<CompiledFilter<T>> compileOperands(@NotNull final Filter<T> filter, final boolean and, @Nullable final Collection<? extends T> sample) {
+        final List<Filter<T>> operands = new ArrayList<Filter<T>>();
+        flatten(filter, and, operands);
+        final List<CompiledFilter<T>> compiled = new ArrayList<CompiledFilter<T>>(operands.size());
+        for (final Filter<T> operand : operands) {
+            compiled.add(compile(operand, sample));
+        }
+        if (sample != null && !sample.isEmpty() && compiled.size() > 1) {
+            reorder(compiled, and, sample);
+        }
+        return compiled;
+    }
+
+    /** Collects the operands of nested AND or nested OR filters.
+     * @param filter Filter to flatten
+     * @param and <code>true</code> to flatten AND, <code>false</code> to flatten OR
+     * @param operands List to which the operands are added
+     */
+    private static <T> void flatten(@NotNull final Filter<T> filter, final boolean and, @NotNull final List<Filter<T>> operands) {
+        final Iterable<Filter<T>> children;
+        if (and && filter instanceof AndFilterForArray) {
+            children = Arrays.asList(((AndFilterForArray<T>) filter).getFilters());
+        } else if (and && filter instanceof AndFilterForIterable) {
+            children = ((AndFilterForIterable<T>) filter).getFilters();
+        } else if (!and && filter instanceof OrFilterForArray) {
+            children = Arrays.asList(((OrFilterForArray<T>) filter).getFilters());
+        } else if (!and && filter instanceof OrFilterForIterable) {
+            children = ((OrFilterForIterable<T>) filter).getFilters();
+        } else {
+            operands.add(filter);
+            return;
+        }
+        for (final Filter<T> child : children) {
+            flatten(child, and, operands);
+        }
+    }
+
+    /** Sorts operands by their cost per decisive result measured on a sample.
+     * @param operands Operands to sort
+     * @param and <code>true</code> if the operands are ANDed, <code>false</code> if they are ORed
+     * @param sample Elements on which to measure the operands
+     */
+    private static <T> void reorder(@NotNull final List<CompiledFilter<T>> operands, final boolean and, @NotNull final Collection<? extends T> sample) {
+        final List<Measured<T>> measured = new ArrayList<Measured<T>>(operands.size());
+        for (final CompiledFilter<T> operand : operands) {
+            int accepted = 0;
+            final long start = System.nanoTime();
+            for (final T o : sample) {
+                if (operand.test(o)) {
+                    accepted++;
+                }
+            }
+            final long time = Math.max(System.nanoTime() - start, 1L);
+            final int decisive = and ? sample.size() - accepted : accepted;
+            measured.add(new Measured<T>(operand, decisive == 0 ? Double.POSITIVE_INFINITY : (double) time / decisive));
+        }
+        // Collections.sort is stable, so operands with equal rank keep their order.
+        Collections.sort(measured, new Comparator<Measured<T>>() {
+            /** {@inheritDoc} */
+            public int compare(final Measured<T> o1, final Measured<T> o2) {
+                return Double.compare(o1.rank, o2.rank);
+            }
+        });
+        operands.clear();
+        for (final Measured<T> m : measured) {
+            operands.add(m.filter);
+        }
+    }
+
+    /** Creates the AND of compiled operands.
+     * @param operands Operands to AND
+     * @return AND of <var>operands</var>
+     */
+    @NotNull private static <T> CompiledFilter<T> and(@NotNull final List<CompiledFilter<T>> operands) {
+        switch (operands.size()) {
+        case 0: return new Constant<T>(true);
+        case 1: return operands.get(0);
+        case 2: return new And2<T>(operands.get(0), operands.get(1));
+        default: return new AndN<T>(operands);
+        }
+    }
+
+    /** Creates the OR of compiled operands.
+     * @param operands Operands to OR
+     * @return OR of <var>operands</var>
+     */
+    @NotNull private static <T> CompiledFilter<T> or(@NotNull final List<CompiledFilter<T>> operands) {
+        switch (operands.size()) {
+        case 0: return new Constant<T>(false);
+        case 1: return operands.get(0);
+        case 2: return new Or2<T>(operands.get(0), operands.get(1));
+        default: return new OrN<T>(operands);
+        }
+    }
+
+    /** An operand with its rank for reordering. */
+    private static final class Measured<T> {
+
+        /** The operand. */
+        private final CompiledFilter<T> filter;
+
+        /** The measured time per decisive result, lower is better. */
+        private final double rank;
+
+        /** Create a Measured.
+         * @param filter Operand
+         * @param rank Measured time per decisive result
+         */
+        Measured(@NotNull final CompiledFilter<T> filter, final double rank) {
+            this.filter = filter;
+            this.rank = rank;
+        }
+
+    } // class Measured
+
+    /** CompiledFilter with a constant result. */
+    private static final class Constant<T> extends CompiledFilter<T> {
+
+        /** The result. */
+        private final boolean result;
+
+        /** Create a Constant.
+         * @param result Result of the filter
+         */
+        Constant(final boolean result) {
+            this.result = result;
+        }
+
+        /** {@inheritDoc} */
+        public boolean test(final T o) {
+            return result;
+        }
+
+    } // class Constant
+
+    /** CompiledFilter which delegates to an uncompiled filter. */
+    private static final class Adapter<T> extends CompiledFilter<T> {
+
+        /** The filter to delegate to. */
+        private final Filter<T> filter;
+
+        /** Create an Adapter.
+         * @param filter Filter to delegate to
+         */
+        Adapter(@NotNull final Filter<T> filter) {
+            this.filter = filter;
+        }
+
+        /** {@inheritDoc} */
+        public boolean test(final T o) {
+            return filter.accept(o);
+        }
+
+    } // class Adapter
+
+    /** CompiledFilter which negates another. */
+    private static final class Not<T> extends CompiledFilter<T> {
+
+        /** The filter to negate. */
+        private final CompiledFilter<T> filter;
+
+        /** Create a Not.
+         * @param filter Filter to negate
+         */
+        Not(@NotNull final CompiledFilter<T> filter) {
+            this.filter = filter;
+        }
+
+        /** {@inheritDoc} */
+        public boolean test(final T o) {
+            return !filter.test(o);
+        }
+
+    } // class Not
+
+    /** CompiledFilter which looks up elements in a set. */
+    private static final class Contained<T> extends CompiledFilter<T> {
+
+        /** The set to look up elements in. */
+        private final Set<T> collection;
+
+        /** Create a Contained.
+         * @param collection Set to look up elements in, it must not be modified afterwards
+         */
+        Contained(@NotNull final Set<T> collection) {
+            this.collection = collection;
+        }
+
+        /** {@inheritDoc} */
+        public boolean test(final T o) {
+            return collection.contains(o);
+        }
+
+    } // class Contained
+
+    /** CompiledFilter which is the AND of two others. */
+    private static final class And2<T> extends CompiledFilter<T> {
+
+        /** The first operand. */
+        private final CompiledFilter<T> first;
+
+        /** The second operand. */
+        private final CompiledFilter<T> second;
+
+        /** Create an And2.
+         * @param first First operand
+         * @param second Second operand
+         */
+        And2(@NotNull final CompiledFilter<T> first, @NotNull final CompiledFilter<T> second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        /** {@inheritDoc} */
+        public boolean test(final T o) {
+            return first.test(o) && second.test(o);
+        }
+
+    } // class And2
+
+    /** CompiledFilter which is the AND of several others. */
+    private static final class AndN<T> extends CompiledFilter<T> {
+
+        /** The operands. */
+        private final CompiledFilter<T>[] operands;
+
+        /** Create an AndN.
+         * @param operands Operands
+         */
+        @SuppressWarnings("unchecked")
+        AndN(@NotNull final List<CompiledFilter<T>> operands) {
+            this.operands = (CompiledFilter<T>[]) operands.toArray(new CompiledFilter<?>[operands.size()]);
+        }
+
+        /** {@inheritDoc} */
+        public boolean test(final T o) {
+            for (final CompiledFilter<T> operand : operands) {
+                if (!operand.test(o)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    } // class AndN
+
+    /** CompiledFilter which is the OR of two others. */
+    private static final class Or2<T> extends CompiledFilter<T> {
+
+        /** The first operand. */
+        private final CompiledFilter<T> first;
+
+        /** The second operand. */
+        private final CompiledFilter<T> second;
+
+        /** Create an Or2.
+         * @param first First operand
+         * @param second Second operand
+         */
+        Or2(@NotNull final CompiledFilter<T> first, @NotNull final CompiledFilter<T> second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        /** {@inheritDoc} */
+        public boolean test(final T o) {
+            return first.test(o) || second.test(o);
+        }
+
+    } // class Or2
+
+    /** CompiledFilter which is the OR of several others. */
+    private static final class OrN<T> extends CompiledFilter<T> {
+
+        /** The operands. */
+        private final CompiledFilter<T>[] operands;
+
+        /** Create an OrN.
+         * @param operands Operands
+         */
+        @SuppressWarnings("unchecked")
+        OrN(@NotNull final List<CompiledFilter<T>> operands) {
+            this.operands = (CompiledFilter<T>[]) operands.toArray(new CompiledFilter<?>[operands.size()]);
+        }
+
+        /** {@inheritDoc} */
+        public boolean test(final T o) {
+            for (final CompiledFilter<T> operand : operands) {
+                if (operand.test(o)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+    } // class OrN
+
+} // class FilterCompiler
@@ -35,6 +35,13 @@ final class NotFilter<T> implements Filter<T> {
         this.filter = filter;
     }
 
+    /** Get the filter to negate.
+     * @return the filter to negate
+     */
+    Filter<T> getFilter() {
+        return filter;
+    }
+
     /** {@inheritDoc} */
     @Override public String toString() {
         return "NotFilter[" + super.toString() + ']';
@@ -35,10 +35,17 @@ final class OrFilterForArray<T> implements Filter<T> {
         this.filters = filters.clone();
     }
 
+    /** Get the filters to OR.
+     * @return the filters to OR
+     */
+    Filter<T>[] getFilters() {
+        return filters;
+    }
+
     /** {@inheritDoc} */
     public boolean accept(final T o) {
         for (final Filter<T> filter : filters) {
-            if (!filter.accept(o)) {
+            if (filter.accept(o)) {
                 return true;
             }
         }
@@ -0,0 +1,548 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.sf.japi.util.filter.file;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/** Matches file names against many {@link FileNameRule}s at once and tells which rule matched.
+ * Instead of testing the rules one after the other, the rules are compiled into a few combined matchers:
+ * <ul>
+ *  <li>names and globs without wildcards are looked up in a hash map,</li>
+ *  <li>endings and globs of the form <code>*literal</code> are matched with a trie of reversed endings in one pass from the end of the name,</li>
+ *  <li>globs of the form <code>literal*</code> are matched with a trie of prefixes,</li>
+ *  <li>all other globs are matched simultaneously by one bit-parallel automaton in one pass over the name,</li>
+ *  <li>regular expressions are joined into one alternation, so they are matched with one {@link Matcher}.</li>
+ * </ul>
+ * Regular expressions which cannot safely be joined, for example because they use back references, are matched separately.
+ * <p>
+ * If several rules match, the rule with the lowest index wins.
+ * Globs have the same syntax as for {@link GlobFileFilter}, regular expressions must match the whole name like for {@link RegexFileFilter}.
+ * FileNameMatchers are immutable and thread-safe.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @since 0.1
+ */
+public final class FileNameMatcher {
+
+    /** Rule index for no matching rule, greater than all real rule indices. */
+    private static final int NO_RULE = Integer.MAX_VALUE;
+
+    /** The rules. */
+    @NotNull private final FileNameRule[] rules;
+
+    /** Whether to ignore case. */
+    private final boolean ignoreCase;
+
+    /** The lowest rule index for each name. */
+    @NotNull private final Map<String, Integer> names = new HashMap<String, Integer>();
+
+    /** The trie of reversed endings. */
+    @NotNull private final TrieNode suffixes = new TrieNode();
+
+    /** The trie of prefixes. */
+    @NotNull private final TrieNode prefixes = new TrieNode();
+
+    /** The automaton for all other globs or <code>null</code> if there are no other globs. */
+    @Nullable private final GlobAutomaton globs;
+
+    /** The alternation of all joinable regular expressions or <code>null</code> if there are none. */
+    @Nullable private final Pattern joinedRegex;
+
+    /** The group of each alternative in {@link #joinedRegex}. */
+    @NotNull private final int[] joinedRegexGroups;
+
+    /** The rule index of each alternative in {@link #joinedRegex}. */
+    @NotNull private final int[] joinedRegexRules;
+
+    /** The regular expressions which are matched separately. */
+    @NotNull private final Pattern[] separateRegexes;
+
+    /** The rule index of each separate regular expression. */
+    @NotNull private final int[] separateRegexRules;
+
+    /** Create a FileNameMatcher.
+     * @param ignoreCase <code>true</code> to ignore case when matching, otherwise <code>false</code>
+     * @param rules Rules to match, in order of precedence
+     * @throws PatternSyntaxException in case a regular expression is invalid
+     */
+    public FileNameMatcher(final boolean ignoreCase, @NotNull final FileNameRule... rules) {
+        this.rules = rules.clone();
+        this.ignoreCase = ignoreCase;
+        final List<String> otherGlobs = new ArrayList<String>();
+        final List<Integer> otherGlobRules = new ArrayList<Integer>();
+        final List<String> joinableRegexes = new ArrayList<String>();
+        final List<Integer> joinableRegexRules = new ArrayList<Integer>();
+        final List<Pattern> separate = new ArrayList<Pattern>();
+        final List<Integer> separateRules = new ArrayList<Integer>();
+        final int flags = ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0;
+        for (int i = 0; i < rules.length; i++) {
+            final String pattern = rules[i].getPattern();
+            switch (rules[i].getType()) {
+            case NAME:
+                addName(normalize(pattern), i);
+                break;
+            case ENDING:
+                suffixes.addReversed(normalize(pattern), i);
+                break;
+            case GLOB:
+                final String glob = collapseStars(normalize(pattern));
+                final int star = glob.indexOf('*');
+                if (glob.indexOf('?') != -1 || star != glob.lastIndexOf('*')) {
+                    otherGlobs.add(glob);
+                    otherGlobRules.add(i);
+                } else if (star == -1) {
+                    addName(glob, i);
+                } else if (star == 0) {
+                    suffixes.addReversed(glob.substring(1), i);
+                } else if (star == glob.length() - 1) {
+                    prefixes.add(glob.substring(0, star), i);
+                } else {
+                    otherGlobs.add(glob);
+                    otherGlobRules.add(i);
+                }
+                break;
+            case REGEX:
+                final Pattern compiled = Pattern.compile(pattern, flags);
+                if (isJoinable(pattern)) {
+                    joinableRegexes.add(pattern);
+                    joinableRegexRules.add(i);
+                } else {
+                    separate.add(compiled);
+                    separateRules.add(i);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported rule type " + rules[i].getType());
+            }
+        }
+        globs = otherGlobs.isEmpty() ? null : new GlobAutomaton(otherGlobs, toArray(otherGlobRules));
+        Pattern joined = null;
+        final int[] groups = new int[joinableRegexes.size()];
+        if (!joinableRegexes.isEmpty()) {
+            final StringBuilder sb = new StringBuilder();
+            int group = 1;
+            for (int i = 0; i < groups.length; i++) {
+                final String regex = joinableRegexes.get(i);
+                if (i > 0) {
+                    sb.append('|');
+                }
+                sb.append('(').append(regex).append(')');
+                groups[i] = group;
+                group += 1 + Pattern.compile(regex).matcher("").groupCount();
+            }
+            try {
+                joined = Pattern.compile(sb.toString(), flags);
+            } catch (final PatternSyntaxException ignore) {
+                // Joining failed although each regex is valid, so match all of them separately.
+                for (int i = 0; i < groups.length; i++) {
+                    separate.add(Pattern.compile(joinableRegexes.get(i), flags));
+                    separateRules.add(joinableRegexRules.get(i));
+                }
+                joinableRegexRules.clear();
+                sortByRule(separate, separateRules);
+            }
+        }
+        joinedRegex = joined;
+        joinedRegexGroups = joined == null ? new int[0] : groups;
+        joinedRegexRules = toArray(joinableRegexRules);
+        separateRegexes = separate.toArray(new Pattern[separate.size()]);
+        separateRegexRules = toArray(separateRules);
+    }
+
+    /** Returns the index of the rule which matches a file name.
+     * @param name File name to match, excluding the path
+     * @return index of the first rule which matches <var>name</var> or <code>-1</code> if no rule matches
+     */
+    public int match(@NotNull final CharSequence name) {
+        final String normalized = normalize(name.toString());
+        int best = NO_RULE;
+        final Integer nameRule = names.get(normalized);
+        if (nameRule != null) {
+            best = nameRule;
+        }
+        if (suffixes.minRule < best) {
+            best = Math.min(best, matchSuffixes(normalized));
+        }
+        if (prefixes.minRule < best) {
+            best = Math.min(best, matchPrefixes(normalized));
+        }
+        if (globs != null && globs.rules[0] < best) {
+            best = Math.min(best, globs.match(normalized));
+        }
+        if (joinedRegex != null && joinedRegexRules[0] < best) {
+            final Matcher matcher = joinedRegex.matcher(normalized);
+            if (matcher.matches()) {
+                for (int i = 0; i < joinedRegexGroups.length; i++) {
+                    if (matcher.start(joinedRegexGroups[i]) != -1) {
+                        best = Math.min(best, joinedRegexRules[i]);
+                        break;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < separateRegexes.length && separateRegexRules[i] < best; i++) {
+            if (separateRegexes[i].matcher(normalized).matches()) {
+                best = separateRegexRules[i];
+            }
+        }
+        return best == NO_RULE ? -1 : best;
+    }
+
+    /** Returns the rule which matches a file name.
+     * @param name File name to match, excluding the path
+     * @return first rule which matches <var>name</var> or <code>null</code> if no rule matches
+     */
+    @Nullable public FileNameRule getMatchingRule(@NotNull final CharSequence name) {
+        final int index = match(name);
+        return index == -1 ? null : rules[index];
+    }
+
+    /** Returns a rule.
+     * @param index Index of the rule
+     * @return rule with the specified index
+     */
+    @NotNull public FileNameRule getRule(final int index) {
+        return rules[index];
+    }
+
+    /** Returns the number of rules.
+     * @return number of rules
+     */
+    public int getRuleCount() {
+        return rules.length;
+    }
+
+    /** Normalizes a name or pattern for case-insensitive matching if required.
+     * @param s String to normalize
+     * @return <var>s</var> in lower case if case is ignored, otherwise <var>s</var>
+     */
+    @NotNull private String normalize(@NotNull final String s) {
+        return ignoreCase ? s.toLowerCase(Locale.ENGLISH) : s;
+    }
+
+    /** Adds a name to {@link #names}.
+     * @param name Name to add
+     * @param rule Index of the rule of the name
+     */
+    private void addName(@NotNull final String name, final int rule) {
+        if (!names.containsKey(name)) {
+            names.put(name, rule);
+        }
+    }
+
+    /** Matches a name against the endings.
+     * @param name Name to match
+     * @return index of the first matching rule or {@link #NO_RULE}
+     */
+    private int matchSuffixes(@NotNull final String name) {
+        TrieNode node = suffixes;
+        int best = node.rule;
+        for (int i = name.length() - 1; i >= 0; i--) {
+            node = node.getChild(name.charAt(i));
+            if (node == null) {
+                break;
+            }
+            best = Math.min(best, node.rule);
+        }
+        return best;
+    }
+
+    /** Matches a name against the prefixes.
+     * @param name Name to match
+     * @return index of the first matching rule or {@link #NO_RULE}
+     */
+    private int matchPrefixes(@NotNull final String name) {
+        TrieNode node = prefixes;
+        int best = node.rule;
+        for (int i = 0; i < name.length(); i++) {
+            node = node.getChild(name.charAt(i));
+            if (node == null) {
+                break;
+            }
+            best = Math.min(best, node.rule);
+        }
+        return best;
+    }
+
+    /** Replaces runs of <code>*</code> in a glob by a single <code>*</code>.
+     * @param glob Glob
+     * @return <var>glob</var> without consecutive <code>*</code>
+     */
+    @NotNull private static String collapseStars(@NotNull final String glob) {
+        return glob.replaceAll("\\*\\*+", "*");
+    }
+
+    /** Returns whether a regular expression can be joined with others in an alternation without changing its meaning.
+     * This is conservative, it rejects regular expressions which use quoting, back references, named groups, lookbehind or comments.
+     * @param regex Regular expression to check
+     * @return <code>true</code> if <var>regex</var> can be joined, otherwise <code>false</code>
+     */
+    private static boolean isJoinable(@NotNull final String regex) {
+        return !regex.contains("\\Q") && !regex.contains("\\k") && !regex.contains("(?<") && !regex.contains("#") && !regex.matches("(?s).*\\\\[1-9].*");
+    }
+
+    /** Sorts patterns by their rule indices.
+     * @param patterns Patterns to sort
+     * @param ruleIndices Rule indices of the patterns, sorted accordingly
+     */
+    private static void sortByRule(@NotNull final List<Pattern> patterns, @NotNull final List<Integer> ruleIndices) {
+        final Map<Integer, Pattern> byRule = new HashMap<Integer, Pattern>();
+        for (int i = 0; i < patterns.size(); i++) {
+            byRule.put(ruleIndices.get(i), patterns.get(i));
+        }
+        Collections.sort(ruleIndices);
+        patterns.clear();
+        for (final Integer rule : ruleIndices) {
+            patterns.add(byRule.get(rule));
+        }
+    }
+
+    /** Converts a list of Integers into an int array.
+     * @param list List to convert
+     * @return array with the elements of <var>list</var>
+     */
+    @NotNull private static int[] toArray(@NotNull final List<Integer> list) {
+        final int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    /** A node of a trie of strings. */
+    private static final class TrieNode {
+
+        /** The characters of the children, sorted. */
+        @NotNull private char[] keys = new char[0];
+
+        /** The children. */
+        @NotNull private TrieNode[] children = new TrieNode[0];
+
+        /** The lowest rule index of the strings ending at this node or {@link #NO_RULE}. */
+        private int rule = NO_RULE;
+
+        /** The lowest rule index of all strings in this trie, only maintained for the root. */
+        private int minRule = NO_RULE;
+
+        /** Returns a child.
+         * @param c Character of the child
+         * @return child for <var>c</var> or <code>null</code> if there is no such child
+         */
+        @Nullable TrieNode getChild(final char c) {
+            final int index = Arrays.binarySearch(keys, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        /** Returns a child, creating it if necessary.
+         * @param c Character of the child
+         * @return child for <var>c</var>
+         */
+        @NotNull TrieNode getOrCreateChild(final char c) {
+            int index = Arrays.binarySearch(keys, c);
+            if (index < 0) {
+                index = -index - 1;
+                final char[] newKeys = new char[keys.length + 1];
+                final TrieNode[] newChildren = new TrieNode[children.length + 1];
+                System.arraycopy(keys, 0, newKeys, 0, index);
+                System.arraycopy(children, 0, newChildren, 0, index);
+                System.arraycopy(keys, index, newKeys, index + 1, keys.length - index);
+                System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+                newKeys[index] = c;
+                newChildren[index] = new TrieNode();
+                keys = newKeys;
+                children = newChildren;
+            }
+            return children[index];
+        }
+
+        /** Adds a string to this trie.
+         * @param s String to add
+         * @param rule Rule index of the string
+         */
+        void add(@NotNull final String s, final int rule) {
+            TrieNode node = this;
+            for (int i = 0; i < s.length(); i++) {
+                node = node.getOrCreateChild(s.charAt(i));
+            }
+            node.rule = Math.min(node.rule, rule);
+            minRule = Math.min(minRule, rule);
+        }
+
+        /** Adds a reversed string to this trie.
+         * @param s String to add reversed
+         * @param rule Rule index of the string
+         */
+        void addReversed(@NotNull final String s, final int rule) {
+            add(new StringBuilder(s).reverse().toString(), rule);
+        }
+
+    } // class TrieNode
+
+    /** Matches names against many globs simultaneously.
+     * Each glob position is a bit in a state vector, and all globs advance together with a few bitwise operations per character, like in the shift-and algorithm.
+     * A state bit means that the prefix of the glob before that position matched the name read so far.
+     * Each glob has one more bit than it has positions, which is set if the whole glob matched.
+     */
+    private static final class GlobAutomaton {
+
+        /** The number of longs of a state vector. */
+        private final int words;
+
+        /** The start state. */
+        @NotNull private final long[] initial;
+
+        /** The bits of positions with <code>*</code>. */
+        @NotNull private final long[] starMask;
+
+        /** The bits of positions with <code>?</code>. */
+        @NotNull private final long[] anyMask;
+
+        /** The bits of positions with a literal ASCII character, indexed by character, <code>null</code> for none. */
+        @NotNull private final long[][] asciiMasks = new long[128][];
+
+        /** The bits of positions with other literal characters. */
+        @NotNull private final Map<Character, long[]> otherMasks = new HashMap<Character, long[]>();
+
+        /** The bit which is set if a glob matched, per glob. */
+        @NotNull private final int[] acceptBits;
+
+        /** The rule index per glob, ascending. */
+        @NotNull private final int[] rules;
+
+        /** Create a GlobAutomaton.
+         * @param globs Globs to match, without consecutive <code>*</code>
+         * @param rules Rule indices of the globs, ascending
+         */
+        GlobAutomaton(@NotNull final List<String> globs, @NotNull final int[] rules) {
+            int bits = 0;
+            for (final String glob : globs) {
+                bits += glob.length() + 1;
+            }
+            words = (bits + 63) >>> 6;
+            initial = new long[words];
+            starMask = new long[words];
+            anyMask = new long[words];
+            acceptBits = new int[globs.size()];
+            this.rules = rules;
+            int base = 0;
+            for (int g = 0; g < acceptBits.length; g++) {
+                final String glob = globs.get(g);
+                setBit(initial, base);
+                for (int i = 0; i < glob.length(); i++) {
+                    final char c = glob.charAt(i);
+                    if (c == '*') {
+                        setBit(starMask, base + i);
+                    } else if (c == '?') {
+                        setBit(anyMask, base + i);
+                    } else {
+                        setBit(getOrCreateMask(c), base + i);
+                    }
+                }
+                acceptBits[g] = base + glob.length();
+                base += glob.length() + 1;
+            }
+            closeOverStars(initial);
+        }
+
+        /** Returns the mask for a literal character, creating it if necessary.
+         * @param c Character
+         * @return mask for <var>c</var>
+         */
+        @NotNull private long[] getOrCreateMask(final char c) {
+            long[] mask = c < asciiMasks.length ? asciiMasks[c] : otherMasks.get(c);
+            if (mask == null) {
+                mask = new long[words];
+                if (c < asciiMasks.length) {
+                    asciiMasks[c] = mask;
+                } else {
+                    otherMasks.put(c, mask);
+                }
+            }
+            return mask;
+        }
+
+        /** Matches a name against all globs.
+         * @param name Name to match
+         * @return index of the first matching rule or {@link #NO_RULE}
+         */
+        int match(@NotNull final String name) {
+            long[] current = initial.clone();
+            long[] next = new long[words];
+            for (int i = 0; i < name.length(); i++) {
+                final char c = name.charAt(i);
+                final long[] literal = c < asciiMasks.length ? asciiMasks[c] : otherMasks.get(c);
+                long carry = 0L;
+                long active = 0L;
+                for (int w = 0; w < words; w++) {
+                    final long state = current[w];
+                    final long advancing = state & (literal == null ? anyMask[w] : anyMask[w] | literal[w]);
+                    next[w] = advancing << 1 | carry | state & starMask[w];
+                    carry = advancing >>> 63;
+                    active |= next[w];
+                }
+                if (active == 0L) {
+                    return NO_RULE;
+                }
+                closeOverStars(next);
+                final long[] tmp = current;
+                current = next;
+                next = tmp;
+            }
+            for (int g = 0; g < acceptBits.length; g++) {
+                if ((current[acceptBits[g] >>> 6] & 1L << acceptBits[g]) != 0L) {
+                    return rules[g];
+                }
+            }
+            return NO_RULE;
+        }
+
+        /** Sets the bit after each set <code>*</code> bit, because <code>*</code> also matches the empty string.
+         * One step is sufficient because globs have no consecutive <code>*</code>.
+         * @param state State to close
+         */
+        private void closeOverStars(@NotNull final long[] state) {
+            long carry = 0L;
+            for (int w = 0; w < words; w++) {
+                final long stars = state[w] & starMask[w];
+                state[w] |= stars << 1 | carry;
+                carry = stars >>> 63;
+            }
+        }
+
+        /** Sets a bit in a bit vector.
+         * @param vector Bit vector
+         * @param bit Index of the bit to set
+         */
+        private static void setBit(@NotNull final long[] vector, final int bit) {
+            vector[bit >>> 6] |= 1L << bit;
+        }
+
+    } // class GlobAutomaton
+
+} // class FileNameMatcher
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.sf.japi.util.filter.file;
+
+import org.jetbrains.annotations.NotNull;
+
+/** A rule of a {@link FileNameMatcher}.
+ * A rule matches file names by name, ending, glob or regular expression and either includes or excludes the matching files.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @since 0.1
+ */
+public final class FileNameRule {
+
+    /** The type of a rule. */
+    public enum Type {
+
+        /** The pattern is a file name, like for {@link FilenameFileFilter}. */
+        NAME,
+
+        /** The pattern is an ending, like for {@link EndingFileFilter}. */
+        ENDING,
+
+        /** The pattern is a glob, like for {@link GlobFileFilter}. */
+        GLOB,
+
+        /** The pattern is a regular expression, like for {@link RegexFileFilter}. */
+        REGEX
+
+    } // enum Type
+
+    /** The type of this rule. */
+    @NotNull private final Type type;
+
+    /** The pattern of this rule. */
+    @NotNull private final String pattern;
+
+    /** Whether this rule excludes the matching files. */
+    private final boolean exclude;
+
+    /** Create a FileNameRule.
+     * @param type Type of the rule
+     * @param pattern Pattern of the rule, interpreted according to <var>type</var>
+     * @param exclude <code>true</code> if the rule excludes the matching files, <code>false</code> if it includes them
+     */
+    public FileNameRule(@NotNull final Type type, @NotNull final String pattern, final boolean exclude) {
+        this.type = type;
+        this.pattern = pattern;
+        this.exclude = exclude;
+    }
+
+    /** Creates a rule that includes files with the specified name.
+     * @param name File name to include
+     * @return rule that includes files with the specified name
+     */
+    @NotNull public static FileNameRule name(@NotNull final String name) {
+        return new FileNameRule(Type.NAME, name, false);
+    }
+
+    /** Creates a rule that includes files with the specified ending.
+     * @param ending Ending to include, including its period
+     * @return rule that includes files with the specified ending
+     */
+    @NotNull public static FileNameRule ending(@NotNull final String ending) {
+        return new FileNameRule(Type.ENDING, ending, false);
+    }
+
+    /** Creates a rule that includes files matching the specified glob.
+     * @param glob Glob to include
+     * @return rule that includes files matching the specified glob
+     */
+    @NotNull public static FileNameRule glob(@NotNull final String glob) {
+        return new FileNameRule(Type.GLOB, glob, false);
+    }
+
+    /** Creates a rule that includes files matching the specified regular expression.
+     * @param regex Regular expression to include
+     * @return rule that includes files matching the specified regular expression
+     */
+    @NotNull public static FileNameRule regex(@NotNull final String regex) {
+        return new FileNameRule(Type.REGEX, regex, false);
+    }
+
+    /** Returns a rule that excludes the files matched by this rule.
+     * @return rule with the same type and pattern as this rule that excludes the matching files
+     */
+    @NotNull public FileNameRule exclude() {
+        return new FileNameRule(type, pattern, true);
+    }
+
+    /** Returns the type of this rule.
+     * @return type of this rule
+     */
+    @NotNull public Type getType() {
+        return type;
+    }
+
+    /** Returns the pattern of this rule.
+     * @return pattern of this rule
+     */
+    @NotNull public String getPattern() {
+        return pattern;
+    }
+
+    /** Returns whether this rule excludes the matching files.
+     * @return <code>true</code> if this rule excludes the matching files, <code>false</code> if it includes them
+     */
+    public boolean isExclude() {
+        return exclude;
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return (exclude ? "exclude " : "include ") + type + ' ' + pattern;
+    }
+
+} // class FileNameRule
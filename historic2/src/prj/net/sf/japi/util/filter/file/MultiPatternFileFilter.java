@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.sf.japi.util.filter.file;
+
+import java.io.File;
+import org.jetbrains.annotations.NotNull;
+
+/** A FileFilter which combines many names, endings, globs and regular expressions, with include and exclude rules.
+ * The rules are compiled into one {@link FileNameMatcher}, so the cost of matching grows much slower with the number of rules than with a chain of individual filters.
+ * A file is accepted if the first matching rule is an include rule.
+ * Files matched by no rule are rejected.
+ * Like {@link EndingFileFilter}, the filter ignores case on case-insensitive file systems.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @since 0.1
+ */
+public class MultiPatternFileFilter extends AbstractFileFilter {
+
+    /** Whether the file system is case-insensitive. */
+    private static final boolean CASE_INSENSITIVE_FILE_SYSTEM = new File("a").equals(new File("A"));
+
+    /** Whether to accept directories. */
+    private final boolean acceptDirectories;
+
+    /** The description text. */
+    private final String description;
+
+    /** The matcher for the rules. */
+    @NotNull private final FileNameMatcher matcher;
+
+    /** Create a MultiPatternFileFilter.
+     * @param acceptDirectories pass <code>true</code> if this FileFilter should accept all directories, <code>false</code> to match directories like files
+     * @param description The description to use for swing
+     * @param rules The rules, in order of precedence
+     * Example: <code>new MultiPatternFileFilter(true, "sources", FileNameRule.glob("*Test.java").exclude(), FileNameRule.ending(".java"))</code>
+     */
+    public MultiPatternFileFilter(final boolean acceptDirectories, final String description, @NotNull final FileNameRule... rules) {
+        this.acceptDirectories = acceptDirectories;
+        this.description = description;
+        matcher = new FileNameMatcher(CASE_INSENSITIVE_FILE_SYSTEM, rules);
+    }
+
+    /** Returns the matcher of this filter, which tells which rule matched a file name.
+     * @return matcher of this filter
+     */
+    @NotNull public FileNameMatcher getMatcher() {
+        return matcher;
+    }
+
+    /** {@inheritDoc} */
+    @Override public String getDescription() {
+        return description;
+    }
+
+    /** {@inheritDoc} */
+    @Override public boolean accept(final File pathname) {
+        if (acceptDirectories && pathname.isDirectory()) {
+            return true;
+        }
+        final FileNameRule rule = matcher.getMatchingRule(pathname.getName());
+        return rule != null && !rule.isExclude();
+    }
+
+} // class MultiPatternFileFilter
@@ -0,0 +1,294 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.sf.japi.util.primitive;
+
+import java.util.Arrays;
+import java.util.Random;
+import net.sf.japi.util.Arrays2;
+import org.jetbrains.annotations.NotNull;
+
+/** A growable list of doubles backed by a double array.
+ * This avoids the boxing overhead of a {@code List<Double>} both in memory and time.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @since 0.1
+ */
+public class DoubleArrayList {
+
+    /** Empty array for empty lists. */
+    private static final double[] EMPTY = new double[0];
+
+    /** The elements of this list, only the first {@link #size} elements are valid. */
+    @NotNull private double[] elements;
+
+    /** The number of elements in this list. */
+    private int size;
+
+    /** Creates an empty DoubleArrayList. */
+    public DoubleArrayList() {
+        elements = EMPTY;
+    }
+
+    /** Creates an empty DoubleArrayList.
+     * @param initialCapacity Initial capacity of the list.
+     * @throws IllegalArgumentException in case <var>initialCapacity</var> is negative.
+     */
+    public DoubleArrayList(final int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+        }
+        elements = initialCapacity == 0 ? EMPTY : new double[initialCapacity];
+    }
+
+    /** Creates a DoubleArrayList with the specified elements.
+     * @param elements Elements for the list, the array is copied.
+     */
+    public DoubleArrayList(@NotNull final double... elements) {
+        this.elements = elements.clone();
+        size = elements.length;
+    }
+
+    /** Returns the number of elements in this list.
+     * @return The number of elements in this list.
+     */
+    public int size() {
+        return size;
+    }
+
+    /** Returns whether this list is empty.
+     * @return <code>true</code> if this list contains no elements, otherwise <code>false</code>.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Returns the element at the specified index.
+     * @param index Index of the element to return.
+     * @return The element at <var>index</var>.
+     * @throws IndexOutOfBoundsException in case <var>index</var> is not within this list.
+     */
+    public double get(final int index) {
+        PrimitiveCollections.checkIndex(index, size);
+        return elements[index];
+    }
+
+    /** Replaces the element at the specified index.
+     * @param index Index of the element to replace.
+     * @param element New element.
+     * @return The previous element at <var>index</var>.
+     * @throws IndexOutOfBoundsException in case <var>index</var> is not within this list.
+     */
+    public double set(final int index, final double element) {
+        PrimitiveCollections.checkIndex(index, size);
+        final double oldElement = elements[index];
+        elements[index] = element;
+        return oldElement;
+    }
+
+    /** Appends an element to this list.
+     * @param element Element to append.
+     */
+    public void add(final double element) {
+        if (size == elements.length) {
+            ensureCapacity(size + 1);
+        }
+        elements[size++] = element;
+    }
+
+    /** Inserts an element into this list.
+     * @param index Index at which to insert the element.
+     * @param element Element to insert.
+     * @throws IndexOutOfBoundsException in case <var>index</var> is not within this list or the size of this list.
+     */
+    public void add(final int index, final double element) {
+        PrimitiveCollections.checkIndex(index, size + 1);
+        if (size == elements.length) {
+            ensureCapacity(size + 1);
+        }
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = element;
+        size++;
+    }
+
+    /** Appends elements to this list.
+     * @param elements Elements to append.
+     */
+    public void addAll(@NotNull final double... elements) {
+        ensureCapacity(size + elements.length);
+        System.arraycopy(elements, 0, this.elements, size, elements.length);
+        size += elements.length;
+    }
+
+    /** Appends the elements of another list to this list.
+     * @param list List with the elements to append.
+     */
+    public void addAll(@NotNull final DoubleArrayList list) {
+        final int otherSize = list.size;
+        ensureCapacity(size + otherSize);
+        System.arraycopy(list.elements, 0, elements, size, otherSize);
+        size += otherSize;
+    }
+
+    /** Removes the element at the specified index.
+     * @param index Index of the element to remove.
+     * @return The removed element.
+     * @throws IndexOutOfBoundsException in case <var>index</var> is not within this list.
+     */
+    public double removeAt(final int index) {
+        PrimitiveCollections.checkIndex(index, size);
+        final double oldElement = elements[index];
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        size--;
+        return oldElement;
+    }
+
+    /** Removes the first occurrence of an element.
+     * @param element Element to remove.
+     * @return <code>true</code> if the element was removed, otherwise <code>false</code>.
+     */
+    public boolean removeElement(final double element) {
+        final int index = indexOf(element);
+        if (index < 0) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    /** Removes all elements from this list.
+     * The capacity remains unchanged.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /** Returns the index of the first occurrence of an element.
+     * Elements are compared with <code>==</code>, so <code>NaN</code> is never found.
+     * @param element Element to find.
+     * @return Index of <var>element</var> or <code>-1</code> if this list does not contain <var>element</var>.
+     */
+    public int indexOf(final double element) {
+        return Arrays2.linearSearch(element, 0, size, elements);
+    }
+
+    /** Returns whether this list contains an element.
+     * @param element Element to find.
+     * @return <code>true</code> if this list contains <var>element</var>, otherwise <code>false</code>.
+     */
+    public boolean contains(final double element) {
+        return indexOf(element) >= 0;
+    }
+
+    /** Returns the number of occurrences of an element.
+     * @param element Element to count.
+     * @return The number of occurrences of <var>element</var> in this list.
+     */
+    public int freq(final double element) {
+        return Arrays2.freq(elements, 0, size, element);
+    }
+
+    /** Sorts this list in ascending order. */
+    public void sort() {
+        Arrays.sort(elements, 0, size);
+    }
+
+    /** Searches a sorted list for an element using binary search.
+     * @param element Element to find.
+     * @return Index of <var>element</var> or <code>(-(insertion point) - 1)</code>.
+     * @see Arrays#binarySearch(double[], int, int, double)
+     */
+    public int binarySearch(final double element) {
+        return Arrays.binarySearch(elements, 0, size, element);
+    }
+
+    /** Shuffles this list.
+     * @param rnd Random number generator.
+     */
+    public void shuffle(@NotNull final Random rnd) {
+        Arrays2.shuffle(elements, 0, size, rnd);
+    }
+
+    /** Ensures that this list can hold the specified number of elements without growing.
+     * @param minCapacity Minimum capacity.
+     */
+    public void ensureCapacity(final int minCapacity) {
+        if (minCapacity > elements.length) {
+            elements = Arrays.copyOf(elements, PrimitiveCollections.grow(elements.length, minCapacity));
+        }
+    }
+
+    /** Reduces the capacity of this list to its size. */
+    public void trimToSize() {
+        if (size < elements.length) {
+            elements = size == 0 ? EMPTY : Arrays.copyOf(elements, size);
+        }
+    }
+
+    /** Returns the elements of this list as array.
+     * @return New array with the elements of this list.
+     */
+    @NotNull public double[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof DoubleArrayList)) {
+            return false;
+        }
+        final DoubleArrayList other = (DoubleArrayList) obj;
+        if (size != other.size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (Double.doubleToLongBits(elements[i]) != Double.doubleToLongBits(other.elements[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int hashCode() {
+        int hashCode = 1;
+        for (int i = 0; i < size; i++) {
+            final long bits = Double.doubleToLongBits(elements[i]);
+            hashCode = 31 * hashCode + (int) (bits ^ bits >>> 32);
+        }
+        return hashCode;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(elements[i]);
+        }
+        return sb.append(']').toString();
+    }
+
+} // class DoubleArrayList
@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.sf.japi.util.primitive;
+
+import java.util.Arrays;
+import org.jetbrains.annotations.NotNull;
+
+/** A hash set of ints using open addressing with linear probing.
+ * The elements are stored in an int array, so there are no entry objects and no boxing.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @since 0.1
+ */
+public class IntHashSet {
+
+    /** Element which marks a free slot, its membership is stored separately. */
+    private static final int FREE_KEY = 0;
+
+    /** The elements, {@link #FREE_KEY} marks a free slot. */
+    @NotNull private int[] keys;
+
+    /** Whether {@link #FREE_KEY} is an element. */
+    private boolean hasFreeKey;
+
+    /** The number of elements. */
+    private int size;
+
+    /** Creates an empty IntHashSet. */
+    public IntHashSet() {
+        this(0);
+    }
+
+    /** Creates an empty IntHashSet.
+     * @param expectedSize Number of elements which the set can hold without resizing.
+     */
+    public IntHashSet(final int expectedSize) {
+        keys = new int[PrimitiveCollections.tableSize(expectedSize)];
+    }
+
+    /** Returns the number of elements in this set.
+     * @return The number of elements in this set.
+     */
+    public int size() {
+        return size;
+    }
+
+    /** Returns whether this set is empty.
+     * @return <code>true</code> if this set contains no elements, otherwise <code>false</code>.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Returns whether this set contains an element.
+     * @param element Element to check.
+     * @return <code>true</code> if this set contains <var>element</var>, otherwise <code>false</code>.
+     */
+    public boolean contains(final int element) {
+        if (element == FREE_KEY) {
+            return hasFreeKey;
+        }
+        final int mask = keys.length - 1;
+        for (int index = PrimitiveCollections.mix(element) & mask; ; index = index + 1 & mask) {
+            final int k = keys[index];
+            if (k == element) {
+                return true;
+            }
+            if (k == FREE_KEY) {
+                return false;
+            }
+        }
+    }
+
+    /** Adds an element to this set.
+     * @param element Element to add.
+     * @return <code>true</code> if this set did not already contain <var>element</var>, otherwise <code>false</code>.
+     */
+    public boolean add(final int element) {
+        if (element == FREE_KEY) {
+            if (hasFreeKey) {
+                return false;
+            }
+            hasFreeKey = true;
+            size++;
+            return true;
+        }
+        final int mask = keys.length - 1;
+        int index = PrimitiveCollections.mix(element) & mask;
+        for (int k; (k = keys[index]) != FREE_KEY; index = index + 1 & mask) {
+            if (k == element) {
+                return false;
+            }
+        }
+        keys[index] = element;
+        size++;
+        if (size >= keys.length >> 1 && keys.length < PrimitiveCollections.MAX_TABLE_SIZE) {
+            rehash(keys.length << 1);
+        }
+        return true;
+    }
+
+    /** Adds elements to this set.
+     * @param elements Elements to add.
+     */
+    public void addAll(@NotNull final int... elements) {
+        for (final int element : elements) {
+            add(element);
+        }
+    }
+
+    /** Removes an element from this set.
+     * @param element Element to remove.
+     * @return <code>true</code> if this set contained <var>element</var>, otherwise <code>false</code>.
+     */
+    public boolean remove(final int element) {
+        if (element == FREE_KEY) {
+            if (!hasFreeKey) {
+                return false;
+            }
+            hasFreeKey = false;
+            size--;
+            return true;
+        }
+        final int mask = keys.length - 1;
+        for (int index = PrimitiveCollections.mix(element) & mask; ; index = index + 1 & mask) {
+            final int k = keys[index];
+            if (k == FREE_KEY) {
+                return false;
+            }
+            if (k == element) {
+                shiftKeys(index);
+                size--;
+                return true;
+            }
+        }
+    }
+
+    /** Removes all elements from this set. */
+    public void clear() {
+        Arrays.fill(keys, FREE_KEY);
+        hasFreeKey = false;
+        size = 0;
+    }
+
+    /** Returns the elements of this set.
+     * @return New array with the elements of this set in no particular order.
+     */
+    @NotNull public int[] toArray() {
+        final int[] result = new int[size];
+        int n = 0;
+        if (hasFreeKey) {
+            result[n++] = FREE_KEY;
+        }
+        for (final int key : keys) {
+            if (key != FREE_KEY) {
+                result[n++] = key;
+            }
+        }
+        return result;
+    }
+
+    /** Removes the element at the specified index and shifts following elements of the same probe sequence back.
+     * @param index Index of the element to remove.
+     */
+    private void shiftKeys(final int index) {
+        final int mask = keys.length - 1;
+        int gap = index;
+        for (int next = gap + 1 & mask; keys[next] != FREE_KEY; next = next + 1 & mask) {
+            final int home = PrimitiveCollections.mix(keys[next]) & mask;
+            if ((next - home & mask) >= (next - gap & mask)) {
+                keys[gap] = keys[next];
+                gap = next;
+            }
+        }
+        keys[gap] = FREE_KEY;
+    }
+
+    /** Rehashes all elements into a new table.
+     * @param tableSize New table size, must be a power of two.
+     */
+    private void rehash(final int tableSize) {
+        final int[] oldKeys = keys;
+        keys = new int[tableSize];
+        final int mask = tableSize - 1;
+        for (final int key : oldKeys) {
+            if (key != FREE_KEY) {
+                int index = PrimitiveCollections.mix(key) & mask;
+                while (keys[index] != FREE_KEY) {
+                    index = index + 1 & mask;
+                }
+                keys[index] = key;
+            }
+        }
+    }
+
+} // class IntHashSet
@@ -0,0 +1,302 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.sf.japi.util.primitive;
+
+import java.util.Arrays;
+import org.jetbrains.annotations.NotNull;
+
+/** A hash map from ints to ints using open addressing with linear probing.
+ * Keys and values are stored in two int arrays, so there are no entry objects and no boxing.
+ * Since values are primitives, absent keys are reported with a configurable missing value instead of <code>null</code>.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @since 0.1
+ */
+public class IntIntMap {
+
+    /** Key which marks a free slot, mappings for it are stored separately. */
+    private static final int FREE_KEY = 0;
+
+    /** The value returned for keys which are not mapped. */
+    private final int missingValue;
+
+    /** The keys, {@link #FREE_KEY} marks a free slot. */
+    @NotNull private int[] keys;
+
+    /** The values, at the same index as their keys. */
+    @NotNull private int[] values;
+
+    /** Whether {@link #FREE_KEY} is mapped. */
+    private boolean hasFreeKey;
+
+    /** The value of {@link #FREE_KEY}. */
+    private int freeKeyValue;
+
+    /** The number of mappings. */
+    private int size;
+
+    /** Creates an empty IntIntMap which returns 0 for unmapped keys. */
+    public IntIntMap() {
+        this(0, 0);
+    }
+
+    /** Creates an empty IntIntMap.
+     * @param expectedSize Number of mappings which the map can hold without resizing.
+     * @param missingValue Value which is returned for unmapped keys.
+     */
+    public IntIntMap(final int expectedSize, final int missingValue) {
+        this.missingValue = missingValue;
+        final int tableSize = PrimitiveCollections.tableSize(expectedSize);
+        keys = new int[tableSize];
+        values = new int[tableSize];
+    }
+
+    /** Returns the value which is returned for unmapped keys.
+     * @return The value which is returned for unmapped keys.
+     */
+    public int getMissingValue() {
+        return missingValue;
+    }
+
+    /** Returns the number of mappings in this map.
+     * @return The number of mappings in this map.
+     */
+    public int size() {
+        return size;
+    }
+
+    /** Returns whether this map is empty.
+     * @return <code>true</code> if this map contains no mappings, otherwise <code>false</code>.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Returns the value of a key.
+     * @param key Key of which to return the value.
+     * @return The value of <var>key</var> or the missing value if <var>key</var> is not mapped.
+     */
+    public int get(final int key) {
+        return getOrDefault(key, missingValue);
+    }
+
+    /** Returns the value of a key.
+     * @param key Key of which to return the value.
+     * @param defaultValue Value to return if <var>key</var> is not mapped.
+     * @return The value of <var>key</var> or <var>defaultValue</var> if <var>key</var> is not mapped.
+     */
+    public int getOrDefault(final int key, final int defaultValue) {
+        if (key == FREE_KEY) {
+            return hasFreeKey ? freeKeyValue : defaultValue;
+        }
+        final int index = indexOf(key);
+        return index >= 0 ? values[index] : defaultValue;
+    }
+
+    /** Returns whether a key is mapped.
+     * @param key Key to check.
+     * @return <code>true</code> if <var>key</var> is mapped, otherwise <code>false</code>.
+     */
+    public boolean containsKey(final int key) {
+        return key == FREE_KEY ? hasFreeKey : indexOf(key) >= 0;
+    }
+
+    /** Maps a key to a value.
+     * @param key Key to map.
+     * @param value Value to map <var>key</var> to.
+     * @return The previous value of <var>key</var> or the missing value if <var>key</var> was not mapped.
+     */
+    public int put(final int key, final int value) {
+        if (key == FREE_KEY) {
+            final int oldValue = hasFreeKey ? freeKeyValue : missingValue;
+            if (!hasFreeKey) {
+                hasFreeKey = true;
+                size++;
+            }
+            freeKeyValue = value;
+            return oldValue;
+        }
+        final int index = insertionIndex(key);
+        if (index >= 0) {
+            final int oldValue = values[index];
+            values[index] = value;
+            return oldValue;
+        }
+        insert(-index - 1, key, value);
+        return missingValue;
+    }
+
+    /** Adds a delta to the value of a key.
+     * If the key is not mapped, it is mapped to <var>delta</var>, regardless of the missing value.
+     * This is useful for counting frequencies.
+     * @param key Key of which to increment the value.
+     * @param delta Delta to add to the value.
+     * @return The new value of <var>key</var>.
+     */
+    public int increment(final int key, final int delta) {
+        if (key == FREE_KEY) {
+            if (!hasFreeKey) {
+                hasFreeKey = true;
+                freeKeyValue = 0;
+                size++;
+            }
+            return freeKeyValue += delta;
+        }
+        final int index = insertionIndex(key);
+        if (index >= 0) {
+            return values[index] += delta;
+        }
+        insert(-index - 1, key, delta);
+        return delta;
+    }
+
+    /** Removes the mapping of a key.
+     * @param key Key to remove.
+     * @return The previous value of <var>key</var> or the missing value if <var>key</var> was not mapped.
+     */
+    public int remove(final int key) {
+        if (key == FREE_KEY) {
+            if (!hasFreeKey) {
+                return missingValue;
+            }
+            hasFreeKey = false;
+            size--;
+            return freeKeyValue;
+        }
+        final int index = indexOf(key);
+        if (index < 0) {
+            return missingValue;
+        }
+        final int oldValue = values[index];
+        shiftKeys(index);
+        size--;
+        return oldValue;
+    }
+
+    /** Removes all mappings from this map. */
+    public void clear() {
+        Arrays.fill(keys, FREE_KEY);
+        hasFreeKey = false;
+        size = 0;
+    }
+
+    /** Returns the keys of this map.
+     * @return New array with the keys of this map in no particular order.
+     */
+    @NotNull public int[] keys() {
+        final int[] result = new int[size];
+        int n = 0;
+        if (hasFreeKey) {
+            result[n++] = FREE_KEY;
+        }
+        for (final int key : keys) {
+            if (key != FREE_KEY) {
+                result[n++] = key;
+            }
+        }
+        return result;
+    }
+
+    /** Returns the index of a key.
+     * @param key Key to find, must not be {@link #FREE_KEY}.
+     * @return Index of <var>key</var> or <code>-1</code> if <var>key</var> is not mapped.
+     */
+    private int indexOf(final int key) {
+        final int mask = keys.length - 1;
+        for (int index = PrimitiveCollections.mix(key) & mask; ; index = index + 1 & mask) {
+            final int k = keys[index];
+            if (k == key) {
+                return index;
+            }
+            if (k == FREE_KEY) {
+                return -1;
+            }
+        }
+    }
+
+    /** Returns the index of a key or the index at which it would be inserted.
+     * @param key Key to find, must not be {@link #FREE_KEY}.
+     * @return Index of <var>key</var> or <code>(-(insertion index) - 1)</code> if <var>key</var> is not mapped.
+     */
+    private int insertionIndex(final int key) {
+        final int mask = keys.length - 1;
+        for (int index = PrimitiveCollections.mix(key) & mask; ; index = index + 1 & mask) {
+            final int k = keys[index];
+            if (k == key) {
+                return index;
+            }
+            if (k == FREE_KEY) {
+                return -index - 1;
+            }
+        }
+    }
+
+    /** Inserts a new mapping at a free slot, growing the table if necessary.
+     * @param index Index of the free slot for <var>key</var>.
+     * @param key Key to insert.
+     * @param value Value to insert.
+     */
+    private void insert(final int index, final int key, final int value) {
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        if (size >= keys.length >> 1 && keys.length < PrimitiveCollections.MAX_TABLE_SIZE) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /** Removes the key at the specified index and shifts following keys of the same probe sequence back.
+     * @param index Index of the key to remove.
+     */
+    private void shiftKeys(final int index) {
+        final int mask = keys.length - 1;
+        int gap = index;
+        for (int next = gap + 1 & mask; keys[next] != FREE_KEY; next = next + 1 & mask) {
+            final int home = PrimitiveCollections.mix(keys[next]) & mask;
+            if ((next - home & mask) >= (next - gap & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        keys[gap] = FREE_KEY;
+    }
+
+    /** Rehashes all mappings into a new table.
+     * @param tableSize New table size, must be a power of two.
+     */
+    private void rehash(final int tableSize) {
+        final int[] oldKeys = keys;
+        final int[] oldValues = values;
+        keys = new int[tableSize];
+        values = new int[tableSize];
+        final int mask = tableSize - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            final int key = oldKeys[i];
+            if (key != FREE_KEY) {
+                int index = PrimitiveCollections.mix(key) & mask;
+                while (keys[index] != FREE_KEY) {
+                    index = index + 1 & mask;
+                }
+                keys[index] = key;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+} // class IntIntMap
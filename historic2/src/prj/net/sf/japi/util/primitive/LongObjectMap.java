@@ -0,0 +1,266 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.sf.japi.util.primitive;
+
+import java.util.Arrays;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/** A hash map from longs to objects using open addressing with linear probing.
+ * Keys are stored in a long array and values in an object array, so there are no entry objects and the keys are not boxed.
+ * Like {@link java.util.HashMap}, <code>null</code> values are permitted, and {@link #get(long)} returns <code>null</code> for unmapped keys.
+ * @param <V> Type of the values.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @since 0.1
+ */
+public class LongObjectMap<V> {
+
+    /** Key which marks a free slot, mappings for it are stored separately. */
+    private static final long FREE_KEY = 0L;
+
+    /** The keys, {@link #FREE_KEY} marks a free slot. */
+    @NotNull private long[] keys;
+
+    /** The values, at the same index as their keys. */
+    @NotNull private Object[] values;
+
+    /** Whether {@link #FREE_KEY} is mapped. */
+    private boolean hasFreeKey;
+
+    /** The value of {@link #FREE_KEY}. */
+    @Nullable private V freeKeyValue;
+
+    /** The number of mappings. */
+    private int size;
+
+    /** Creates an empty LongObjectMap. */
+    public LongObjectMap() {
+        this(0);
+    }
+
+    /** Creates an empty LongObjectMap.
+     * @param expectedSize Number of mappings which the map can hold without resizing.
+     */
+    public LongObjectMap(final int expectedSize) {
+        final int tableSize = PrimitiveCollections.tableSize(expectedSize);
+        keys = new long[tableSize];
+        values = new Object[tableSize];
+    }
+
+    /** Returns the number of mappings in this map.
+     * @return The number of mappings in this map.
+     */
+    public int size() {
+        return size;
+    }
+
+    /** Returns whether this map is empty.
+     * @return <code>true</code> if this map contains no mappings, otherwise <code>false</code>.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Returns the value of a key.
+     * @param key Key of which to return the value.
+     * @return The value of <var>key</var> or <code>null</code> if <var>key</var> is not mapped.
+     */
+    @Nullable public V get(final long key) {
+        if (key == FREE_KEY) {
+            return freeKeyValue;
+        }
+        final int index = indexOf(key);
+        //noinspection unchecked
+        return index >= 0 ? (V) values[index] : null;
+    }
+
+    /** Returns whether a key is mapped.
+     * @param key Key to check.
+     * @return <code>true</code> if <var>key</var> is mapped, otherwise <code>false</code>.
+     */
+    public boolean containsKey(final long key) {
+        return key == FREE_KEY ? hasFreeKey : indexOf(key) >= 0;
+    }
+
+    /** Maps a key to a value.
+     * @param key Key to map.
+     * @param value Value to map <var>key</var> to.
+     * @return The previous value of <var>key</var> or <code>null</code> if <var>key</var> was not mapped.
+     */
+    @Nullable public V put(final long key, @Nullable final V value) {
+        if (key == FREE_KEY) {
+            final V oldValue = freeKeyValue;
+            if (!hasFreeKey) {
+                hasFreeKey = true;
+                size++;
+            }
+            freeKeyValue = value;
+            return oldValue;
+        }
+        final int index = insertionIndex(key);
+        if (index >= 0) {
+            //noinspection unchecked
+            final V oldValue = (V) values[index];
+            values[index] = value;
+            return oldValue;
+        }
+        insert(-index - 1, key, value);
+        return null;
+    }
+
+    /** Removes the mapping of a key.
+     * @param key Key to remove.
+     * @return The previous value of <var>key</var> or <code>null</code> if <var>key</var> was not mapped.
+     */
+    @Nullable public V remove(final long key) {
+        if (key == FREE_KEY) {
+            final V oldValue = freeKeyValue;
+            if (hasFreeKey) {
+                hasFreeKey = false;
+                freeKeyValue = null;
+                size--;
+            }
+            return oldValue;
+        }
+        final int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        //noinspection unchecked
+        final V oldValue = (V) values[index];
+        shiftKeys(index);
+        size--;
+        return oldValue;
+    }
+
+    /** Removes all mappings from this map. */
+    public void clear() {
+        Arrays.fill(keys, FREE_KEY);
+        Arrays.fill(values, null);
+        hasFreeKey = false;
+        freeKeyValue = null;
+        size = 0;
+    }
+
+    /** Returns the keys of this map.
+     * @return New array with the keys of this map in no particular order.
+     */
+    @NotNull public long[] keys() {
+        final long[] result = new long[size];
+        int n = 0;
+        if (hasFreeKey) {
+            result[n++] = FREE_KEY;
+        }
+        for (final long key : keys) {
+            if (key != FREE_KEY) {
+                result[n++] = key;
+            }
+        }
+        return result;
+    }
+
+    /** Returns the index of a key.
+     * @param key Key to find, must not be {@link #FREE_KEY}.
+     * @return Index of <var>key</var> or <code>-1</code> if <var>key</var> is not mapped.
+     */
+    private int indexOf(final long key) {
+        final int mask = keys.length - 1;
+        for (int index = PrimitiveCollections.mix(key) & mask; ; index = index + 1 & mask) {
+            final long k = keys[index];
+            if (k == key) {
+                return index;
+            }
+            if (k == FREE_KEY) {
+                return -1;
+            }
+        }
+    }
+
+    /** Returns the index of a key or the index at which it would be inserted.
+     * @param key Key to find, must not be {@link #FREE_KEY}.
+     * @return Index of <var>key</var> or <code>(-(insertion index) - 1)</code> if <var>key</var> is not mapped.
+     */
+    private int insertionIndex(final long key) {
+        final int mask = keys.length - 1;
+        for (int index = PrimitiveCollections.mix(key) & mask; ; index = index + 1 & mask) {
+            final long k = keys[index];
+            if (k == key) {
+                return index;
+            }
+            if (k == FREE_KEY) {
+                return -index - 1;
+            }
+        }
+    }
+
+    /** Inserts a new mapping at a free slot, growing the table if necessary.
+     * @param index Index of the free slot for <var>key</var>.
+     * @param key Key to insert.
+     * @param value Value to insert.
+     */
+    private void insert(final int index, final long key, @Nullable final V value) {
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        if (size >= keys.length >> 1 && keys.length < PrimitiveCollections.MAX_TABLE_SIZE) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /** Removes the key at the specified index and shifts following keys of the same probe sequence back.
+     * @param index Index of the key to remove.
+     */
+    private void shiftKeys(final int index) {
+        final int mask = keys.length - 1;
+        int gap = index;
+        for (int next = gap + 1 & mask; keys[next] != FREE_KEY; next = next + 1 & mask) {
+            final int home = PrimitiveCollections.mix(keys[next]) & mask;
+            if ((next - home & mask) >= (next - gap & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        keys[gap] = FREE_KEY;
+        values[gap] = null;
+    }
+
+    /** Rehashes all mappings into a new table.
+     * @param tableSize New table size, must be a power of two.
+     */
+    private void rehash(final int tableSize) {
+        final long[] oldKeys = keys;
+        final Object[] oldValues = values;
+        keys = new long[tableSize];
+        values = new Object[tableSize];
+        final int mask = tableSize - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            final long key = oldKeys[i];
+            if (key != FREE_KEY) {
+                int index = PrimitiveCollections.mix(key) & mask;
+                while (keys[index] != FREE_KEY) {
+                    index = index + 1 & mask;
+                }
+                keys[index] = key;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+} // class LongObjectMap
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.sf.japi.util.primitive;
+
+/** Helper methods shared by the primitive collections.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @since 0.1
+ */
+@SuppressWarnings({"UtilityClass", "MagicNumber"})
+final class PrimitiveCollections {
+
+    /** The maximum capacity of arrays, some VMs reserve header words in arrays. */
+    static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    /** The maximum capacity of hash tables. */
+    static final int MAX_TABLE_SIZE = 1 << 30;
+
+    /** Private constructor - no instances needed. */
+    private PrimitiveCollections() {
+    }
+
+    /** Returns the new capacity for growing an array.
+     * @param oldCapacity Current capacity of the array.
+     * @param minCapacity Minimum required capacity.
+     * @return New capacity, at least <var>minCapacity</var>.
+     * @throws OutOfMemoryError in case <var>minCapacity</var> exceeds the maximum array size.
+     */
+    static int grow(final int oldCapacity, final int minCapacity) {
+        if (minCapacity < 0 || minCapacity > MAX_ARRAY_SIZE) {
+            throw new OutOfMemoryError("Required array size too large");
+        }
+        final int newCapacity = oldCapacity + (oldCapacity >> 1) + 1;
+        if (newCapacity < 0 || newCapacity > MAX_ARRAY_SIZE) {
+            return MAX_ARRAY_SIZE;
+        }
+        return Math.max(newCapacity, minCapacity);
+    }
+
+    /** Returns the table size for a hash table which can hold the specified number of entries without resizing.
+     * The table size is a power of two and the load factor is at most 0.5.
+     * @param expectedSize Number of entries.
+     * @return Table size.
+     */
+    static int tableSize(final int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Illegal expected size: " + expectedSize);
+        }
+        if (expectedSize >= MAX_TABLE_SIZE / 2) {
+            return MAX_TABLE_SIZE;
+        }
+        return Math.max(4, Integer.highestOneBit(expectedSize * 2 - 1 | 1) << 1);
+    }
+
+    /** Spreads the bits of an int hash so that linear probing works well with power of two table sizes.
+     * @param key Key to hash.
+     * @return Hash of the key.
+     */
+    static int mix(final int key) {
+        final int h = key * 0x9E3779B9;
+        return h ^ h >>> 16;
+    }
+
+    /** Spreads the bits of a long hash so that linear probing works well with power of two table sizes.
+     * @param key Key to hash.
+     * @return Hash of the key.
+     */
+    static int mix(final long key) {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ h >>> 32);
+    }
+
+    /** Checks that an index is within the size of a list.
+     * @param index Index to check.
+     * @param size Size of the list.
+     * @throws IndexOutOfBoundsException in case <var>index</var> is not within the list.
+     */
+    static void checkIndex(final int index, final int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+} // class PrimitiveCollections
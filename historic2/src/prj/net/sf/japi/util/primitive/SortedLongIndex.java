@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package net.sf.japi.util.primitive;
+
+import org.jetbrains.annotations.NotNull;
+
+/** An immutable index for searching a sorted array of longs.
+ * The elements are stored in Eytzinger order, i.e. the layout of an implicit binary search tree in breadth-first order.
+ * In this layout the first levels of the tree, which every search visits, share few cache lines, and the nodes of the next levels are adjacent.
+ * The search loop contains no unpredictable branches, the comparison result is added to the next node index.
+ * For large arrays this is considerably faster than a classic binary search, which jumps across the whole array with every step.
+ * <p>
+ * Batched lookups process several keys in an interleaved fashion, so that the memory accesses for different keys overlap.
+ * <p>
+ * Indices reported by this class are indices into the original sorted array, with the same conventions as {@link java.util.Arrays#binarySearch(long[], long)}.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @since 0.1
+ * @see java.util.Arrays#binarySearch(long[], long)
+ */
+public final class SortedLongIndex {
+
+    /** Number of keys which batched lookups process in an interleaved fashion. */
+    private static final int BATCH_SIZE = 8;
+
+    /** The number of elements. */
+    private final int size;
+
+    /** The elements in Eytzinger order, 1-based, index 0 is unused. */
+    @NotNull private final long[] tree;
+
+    /** The index in the sorted array of each tree node, 1-based, index 0 is unused. */
+    @NotNull private final int[] ranks;
+
+    /** Creates a SortedLongIndex.
+     * @param sorted Sorted array to index, it is copied.
+     * @throws IllegalArgumentException in case <var>sorted</var> is not sorted in ascending order.
+     * @throws OutOfMemoryError in case <var>sorted</var> exceeds the maximum array size.
+     */
+    public SortedLongIndex(@NotNull final long... sorted) {
+        if (sorted.length > PrimitiveCollections.MAX_ARRAY_SIZE) {
+            throw new OutOfMemoryError("Required array size too large");
+        }
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i - 1] > sorted[i]) {
+                throw new IllegalArgumentException("Array not sorted at index " + i);
+            }
+        }
+        size = sorted.length;
+        tree = new long[size + 1];
+        ranks = new int[size + 1];
+        fill(sorted, 1, 0);
+    }
+
+    /** Fills the subtree at the specified node with elements from the sorted array in in-order traversal.
+     * @param sorted Sorted array to take the elements from.
+     * @param node Root node of the subtree to fill.
+     * @param rank Index of the next element to take from <var>sorted</var>.
+     * @return Index of the next element to take from <var>sorted</var> after filling the subtree.
+     */
+    private int fill(@NotNull final long[] sorted, final int node, final int rank) {
+        if (isLeaf(node)) {
+            return rank;
+        }
+        int nextRank = fill(sorted, 2 * node, rank);
+        tree[node] = sorted[nextRank];
+        ranks[node] = nextRank++;
+        return fill(sorted, 2 * node + 1, nextRank);
+    }
+
+    /** Returns whether a node number is beyond the tree, i.e. a leaf below the last level.
+     * Node numbers of leaves go up to <code>2 * size + 1</code>, which overflows int for large arrays, so they are compared unsigned.
+     * @param node Node number to check.
+     * @return <code>true</code> if <var>node</var> is beyond the tree, otherwise <code>false</code>.
+     */
+    private boolean isLeaf(final int node) {
+        return Integer.compareUnsigned(node, size) > 0;
+    }
+
+    /** Returns the number of elements in this index.
+     * @return The number of elements in this index.
+     */
+    public int size() {
+        return size;
+    }
+
+    /** Returns the element with the specified index in the sorted array.
+     * This is slow because it searches the node, the index is meant for lookups by key.
+     * @param index Index of the element in the sorted array.
+     * @return The element with the specified index.
+     * @throws IndexOutOfBoundsException in case <var>index</var> is not within this index.
+     */
+    public long get(final int index) {
+        PrimitiveCollections.checkIndex(index, size);
+        int node = 1;
+        while (ranks[node] != index) {
+            node = 2 * node + (ranks[node] < index ? 1 : 0);
+        }
+        return tree[node];
+    }
+
+    /** Returns the tree node of the first element which is greater than or equal to a key.
+     * @param key Key to search.
+     * @return Tree node of the first element <code>&gt;= key</code> or 0 if all elements are less than <var>key</var>.
+     */
+    private int lowerBoundNode(final long key) {
+        int node = 1;
+        while (!isLeaf(node)) {
+            node = 2 * node + (tree[node] < key ? 1 : 0);
+        }
+        // The path went right after the last node with an element >= key; strip those right turns and the final left turn.
+        return node >>> Integer.numberOfTrailingZeros(~node) + 1;
+    }
+
+    /** Returns the index of the first element which is greater than or equal to a key.
+     * @param key Key to search.
+     * @return Index of the first element <code>&gt;= key</code> or {@link #size()} if all elements are less than <var>key</var>.
+     */
+    public int lowerBound(final long key) {
+        final int node = lowerBoundNode(key);
+        return node == 0 ? size : ranks[node];
+    }
+
+    /** Searches for a key.
+     * @param key Key to search.
+     * @return Index of the first occurrence of <var>key</var> or <code>(-(insertion point) - 1)</code> if there is no such element.
+     */
+    public int indexOf(final long key) {
+        return result(lowerBoundNode(key), key);
+    }
+
+    /** Returns whether this index contains a key.
+     * @param key Key to search.
+     * @return <code>true</code> if this index contains <var>key</var>, otherwise <code>false</code>.
+     */
+    public boolean contains(final long key) {
+        final int node = lowerBoundNode(key);
+        return node != 0 && tree[node] == key;
+    }
+
+    /** Searches for many keys at once.
+     * The searches for groups of keys are interleaved, which hides memory latency for indices which do not fit into the cache.
+     * @param keys Keys to search.
+     * @param results Array to store the results to, for each key the same value as {@link #indexOf(long)}.
+     * @throws IllegalArgumentException in case <var>results</var> is shorter than <var>keys</var>.
+     */
+    public void indexOf(@NotNull final long[] keys, @NotNull final int[] results) {
+        if (results.length < keys.length) {
+            throw new IllegalArgumentException("results too short for keys.");
+        }
+        final int[] nodes = new int[BATCH_SIZE];
+        for (int from = 0; from < keys.length; from += BATCH_SIZE) {
+            final int count = Math.min(BATCH_SIZE, keys.length - from);
+            for (int j = 0; j < count; j++) {
+                nodes[j] = 1;
+            }
+            // All paths have the same length, except that paths ending in the last, incomplete level are one node longer.
+            for (boolean active = size > 0; active; ) {
+                active = false;
+                for (int j = 0; j < count; j++) {
+                    final int node = nodes[j];
+                    if (!isLeaf(node)) {
+                        nodes[j] = 2 * node + (tree[node] < keys[from + j] ? 1 : 0);
+                        active = true;
+                    }
+                }
+            }
+            for (int j = 0; j < count; j++) {
+                final int node = nodes[j];
+                results[from + j] = result(node >>> Integer.numberOfTrailingZeros(~node) + 1, keys[from + j]);
+            }
+        }
+    }
+
+    /** Converts a lower bound tree node into a search result.
+     * @param node Tree node of the first element <code>&gt;= key</code> or 0.
+     * @param key Key that was searched.
+     * @return Index of <var>key</var> or <code>(-(insertion point) - 1)</code>.
+     */
+    private int result(final int node, final long key) {
+        if (node == 0) {
+            return -size - 1;
+        }
+        return tree[node] == key ? ranks[node] : -ranks[node] - 1;
+    }
+
+} // class SortedLongIndex
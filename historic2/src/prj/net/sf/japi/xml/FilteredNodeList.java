@@ -28,6 +28,7 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 /** FilteredNodeList is a NodeList implementation that allows quick iteration over an elements children.
+ * The children are collected by walking the siblings, which takes linear time regardless of the DOM implementation.
  * Currently there are two ways to use FilteredNodeList: iterating over all child elements with a certain name (children, not descendants), or iterating over all children of a specific node type.
  * @param <T> Node type to operate on.
  * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
@@ -44,10 +45,7 @@ public class FilteredNodeList<T extends Node> implements NodeList, Iterable<T> {
      */
     public FilteredNodeList(@NotNull final Element el, final short nodeType) {
         final List<Node> tmpNodes = new ArrayList<Node>();
-        final NodeList childNodes = el.getChildNodes();
-        final int count = childNodes.getLength();
-        for (int i = 0; i < count; i++) {
-            final Node node = childNodes.item(i);
+        for (Node node = el.getFirstChild(); node != null; node = node.getNextSibling()) {
             if (node.getNodeType() == nodeType) {
                 tmpNodes.add(node);
             }
@@ -62,10 +60,7 @@ public class FilteredNodeList<T extends Node> implements NodeList, Iterable<T> {
      */
     public FilteredNodeList(@NotNull final Element el, @NotNull final String childName) {
         final List<Node> tmpNodes = new ArrayList<Node>();
-        final NodeList childNodes = el.getChildNodes();
-        final int count = childNodes.getLength();
-        for (int i = 0; i < count; i++) {
-            final Node node = childNodes.item(i);
+        for (Node node = el.getFirstChild(); node != null; node = node.getNextSibling()) {
             if (node.getNodeType() == Node.ELEMENT_NODE && node.getNodeName().equals(childName)) {
                 tmpNodes.add(node);
             }
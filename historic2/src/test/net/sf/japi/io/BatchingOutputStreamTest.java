@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package test.net.sf.japi.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import net.sf.japi.io.BatchingOutputStream;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Test for {@link BatchingOutputStream}.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ */
+public class BatchingOutputStreamTest {
+
+    /** Test case for writing more bytes than fit into the buffers.
+     * @throws IOException (unexpected)
+     */
+    @Test
+    public void testWrite() throws IOException {
+        final byte[] data = new byte[100000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final BatchingOutputStream batching = new BatchingOutputStream(out, 100, 3, 1, TimeUnit.SECONDS);
+        for (int off = 0; off < data.length; off += 777) {
+            batching.write(data[off]);
+            batching.write(data, off + 1, Math.min(776, data.length - off - 1));
+        }
+        batching.close();
+        Assert.assertTrue("All bytes must be written in order.", Arrays.equals(data, out.toByteArray()));
+    }
+
+    /** Test case for writing a partially filled buffer after the maximum delay.
+     * @throws Exception (unexpected)
+     */
+    @Test
+    public void testMaxDelay() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final BatchingOutputStream batching = new BatchingOutputStream(out, 1024, 2, 10, TimeUnit.MILLISECONDS);
+        batching.write(42);
+        for (int i = 0; i < 1000 && out.size() == 0; i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals("Byte must be written after the maximum delay without flush.", 1, out.size());
+        batching.close();
+    }
+
+    /** Test case for a writer thread which times out waiting for a full buffer while the writing thread waits for a free buffer.
+     * This used to deadlock, because the writer thread needed the lock of the stream to take the partially filled buffer.
+     * @throws Exception (unexpected)
+     */
+    @Test
+    public void testMaxDelayWhileWaitingForBuffer() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final BatchingOutputStream batching = new BatchingOutputStream(out, 16, 2, 1, TimeUnit.MICROSECONDS);
+        final Thread writer = new Thread(new Runnable() {
+            /** {@inheritDoc} */
+            public void run() {
+                try {
+                    final byte[] data = new byte[160];
+                    for (int i = 0; i < 20000; i++) {
+                        batching.write(data);
+                    }
+                    batching.close();
+                } catch (final IOException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        });
+        writer.start();
+        writer.join(60000L);
+        Assert.assertFalse("Writing must not deadlock.", writer.isAlive());
+        Assert.assertEquals("All bytes must be written.", 20000 * 160, out.size());
+    }
+
+    /** Test case for the order of bytes while the writer thread times out and takes partially filled buffers.
+     * The writer thread must not write a partially filled buffer before full buffers which were handed over earlier.
+     * @throws Exception (unexpected)
+     */
+    @Test
+    public void testOrderWithMaxDelay() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final BatchingOutputStream batching = new BatchingOutputStream(out, 16, 4, 1, TimeUnit.MICROSECONDS);
+        final byte[] expected = new byte[1000000];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = (byte) (i % 251);
+        }
+        final Thread writer = new Thread(new Runnable() {
+            /** {@inheritDoc} */
+            public void run() {
+                try {
+                    for (int off = 0, len = 1; off < expected.length; off += len, len = len % 37 + 1) {
+                        batching.write(expected, off, Math.min(len, expected.length - off));
+                        if (len % 5 == 0) {
+                            Thread.yield();
+                        }
+                    }
+                    batching.close();
+                } catch (final IOException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        });
+        writer.start();
+        writer.join(60000L);
+        Assert.assertFalse("Writing must not deadlock.", writer.isAlive());
+        Assert.assertArrayEquals("Bytes must be written in order.", expected, out.toByteArray());
+    }
+
+    /** Test case for an exception of the other stream.
+     * @throws Exception (expected)
+     */
+    @Test(expected = IOException.class)
+    public void testException() throws Exception {
+        final BatchingOutputStream batching = new BatchingOutputStream(new OutputStream() {
+            /** {@inheritDoc} */
+            @Override public void write(final int b) throws IOException {
+                throw new IOException("test");
+            }
+        }, 16, 2, 1, TimeUnit.MILLISECONDS);
+        batching.write(new byte[100]);
+        batching.close();
+    }
+
+}
@@ -20,7 +20,15 @@ package test.net.sf.japi.io;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import net.sf.japi.io.Copier;
 import org.junit.Assert;
 import org.junit.Test;
@@ -47,4 +55,104 @@ public class CopierTest {
         Assert.assertNotSame("Expecting output to be a new array.", input, output);
         Assert.assertNotSame("Expecting output to be a new array.", verification, output);
     }
+
+    /** Tests that {@link Copier#copy()} returns the number of bytes and flushes only when the input would block.
+     * @throws IOException (unexpected)
+     */
+    @Test
+    public void testCopyAdaptiveFlush() throws IOException {
+        final byte[] input = new byte[100000];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = (byte) i;
+        }
+        final int[] flushes = new int[1];
+        final ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            /** {@inheritDoc} */
+            @Override public void flush() {
+                flushes[0]++;
+            }
+        };
+        Assert.assertEquals("Expecting all bytes to be counted.", input.length, new Copier(new ByteArrayInputStream(input), out).copy());
+        Assert.assertTrue("Expecting output to be like input.", Arrays.equals(input, out.toByteArray()));
+        Assert.assertTrue("Expecting flush only when no input is available.", flushes[0] <= 2);
+    }
+
+    /** Tests that {@link Copier#copyAsync(java.util.concurrent.Executor)} completes with the number of bytes.
+     * @throws Exception (unexpected)
+     */
+    @Test
+    public void testCopyAsync() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final CompletableFuture<?>[] futures = new CompletableFuture<?>[100];
+            final ByteArrayOutputStream[] outs = new ByteArrayOutputStream[futures.length];
+            for (int i = 0; i < futures.length; i++) {
+                outs[i] = new ByteArrayOutputStream();
+                futures[i] = new Copier(new ByteArrayInputStream(new byte[i * 100]), outs[i]).copyAsync(executor);
+            }
+            for (int i = 0; i < futures.length; i++) {
+                Assert.assertEquals("Expecting all bytes to be counted.", (long) i * 100, futures[i].get());
+                Assert.assertEquals("Expecting all bytes to be copied.", i * 100, outs[i].size());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /** Tests that {@link Copier#copyAsync()} completes exceptionally if copying fails.
+     * @throws Exception (unexpected)
+     */
+    @Test
+    public void testCopyAsyncException() throws Exception {
+        final IOException exception = new IOException("test");
+        final InputStream in = new InputStream() {
+            /** {@inheritDoc} */
+            @Override public int read() throws IOException {
+                throw exception;
+            }
+        };
+        try {
+            new Copier(in, new ByteArrayOutputStream()).copyAsync().get();
+            Assert.fail("Expecting ExecutionException.");
+        } catch (final ExecutionException e) {
+            Assert.assertSame("Expecting the exception of copying.", exception, e.getCause());
+        }
+    }
+
+    /** Tests that {@link Copier#copyAsync(Executor)} completes exceptionally if copying throws an Error.
+     * @throws Exception (unexpected)
+     */
+    @Test
+    public void testCopyAsyncError() throws Exception {
+        final Error error = new Error("test");
+        final InputStream in = new InputStream() {
+            /** {@inheritDoc} */
+            @Override public int read() throws IOException {
+                throw error;
+            }
+        };
+        final Throwable[] uncaught = new Throwable[1];
+        final Thread[] thread = new Thread[1];
+        final CompletableFuture<Long> future = new Copier(in, new ByteArrayOutputStream()).copyAsync(new Executor() {
+            /** {@inheritDoc} */
+            public void execute(final Runnable command) {
+                thread[0] = new Thread(command);
+                thread[0].setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+                    /** {@inheritDoc} */
+                    public void uncaughtException(final Thread t, final Throwable e) {
+                        uncaught[0] = e;
+                    }
+                });
+                thread[0].start();
+            }
+        });
+        try {
+            future.get(10L, TimeUnit.SECONDS);
+            Assert.fail("Expecting ExecutionException.");
+        } catch (final ExecutionException e) {
+            Assert.assertSame("Expecting the error of copying.", error, e.getCause());
+        }
+        thread[0].join();
+        Assert.assertSame("Expecting the error to be rethrown in the thread of the executor.", error, uncaught[0]);
+    }
 }
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package test.net.sf.japi.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import net.sf.japi.io.EndianSwappingInputStream;
+import net.sf.japi.io.EndianSwappingOutputStream;
+import net.sf.japi.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link EndianSwappingInputStream} and {@link EndianSwappingOutputStream}.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ */
+public class EndianSwappingStreamTest {
+
+    /** Creates test data.
+     * @param length number of bytes
+     * @return test data
+     */
+    private static byte[] createData(final int length) {
+        final byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) i;
+        }
+        return data;
+    }
+
+    /** Converts test data like the streams should.
+     * @param data test data
+     * @param elementSize size of an element
+     * @return converted test data
+     */
+    private static byte[] swap(final byte[] data, final int elementSize) {
+        final byte[] swapped = new byte[data.length];
+        for (int i = 0; i < data.length; i++) {
+            swapped[i] = data[i - i % elementSize + elementSize - 1 - i % elementSize];
+        }
+        return swapped;
+    }
+
+    /** Tests that the input stream converts data which arrives in fragments that don't align with elements.
+     * @throws IOException (unexpected)
+     */
+    @Test
+    public void testInputStream() throws IOException {
+        final byte[] data = createData(1000);
+        // Return at most 7 bytes per read so that elements are split between reads.
+        final InputStream fragmenting = new FilterInputStream(new ByteArrayInputStream(data)) {
+            /** {@inheritDoc} */
+            @Override public int read(final byte[] b, final int off, final int len) throws IOException {
+                return super.read(b, off, Math.min(len, 7));
+            }
+        };
+        final InputStream in = new EndianSwappingInputStream(fragmenting, 8, 16);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IOUtils.copy(in, out);
+        Assert.assertArrayEquals("Input stream must convert all elements.", swap(data, 8), out.toByteArray());
+    }
+
+    /** Tests that the input stream rejects an incomplete last element.
+     * @throws IOException (expected)
+     */
+    @Test(expected = EOFException.class)
+    public void testInputStreamIncomplete() throws IOException {
+        final InputStream in = new EndianSwappingInputStream(new ByteArrayInputStream(createData(6)), 4);
+        Assert.assertEquals("First element must be read.", 3, in.read());
+        in.skip(3);
+        in.read();
+    }
+
+    /** Tests that the output stream converts data written in fragments that don't align with elements.
+     * @throws IOException (unexpected)
+     */
+    @Test
+    public void testOutputStream() throws IOException {
+        final byte[] data = createData(1000);
+        final ByteArrayOutputStream target = new ByteArrayOutputStream();
+        final OutputStream out = new EndianSwappingOutputStream(target, 4, 10);
+        for (int i = 0; i < data.length; i += 7) {
+            out.write(data, i, Math.min(7, data.length - i));
+            out.flush();
+            Assert.assertEquals("Only complete elements must be flushed.", 0, target.size() % 4);
+        }
+        out.close();
+        Assert.assertArrayEquals("Output stream must convert all elements.", swap(data, 4), target.toByteArray());
+        Assert.assertFalse("Test data must not be symmetric.", Arrays.equals(data, target.toByteArray()));
+    }
+
+}
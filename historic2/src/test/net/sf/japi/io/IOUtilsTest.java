@@ -20,14 +20,22 @@ package test.net.sf.japi.io;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Reader;
 import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.function.LongConsumer;
 import net.sf.japi.io.IOUtils;
 import org.junit.Assert;
 import org.junit.Test;
@@ -85,4 +93,138 @@ public class IOUtilsTest {
             /* Ignore, this exception is expected. */
         }
     }
+
+    /** Tests that {@link IOUtils#copy(File, File)} and {@link IOUtils#copy(File, File, LongConsumer)} work.
+     * @throws IOException (unexpected)
+     */
+    @Test
+    public void testCopyFile() throws IOException {
+        final byte[] input = createData(200000);
+        final File from = File.createTempFile("IOUtilsTest", ".tmp");
+        final File to = File.createTempFile("IOUtilsTest", ".tmp");
+        try {
+            Files.write(from.toPath(), input);
+            Files.write(to.toPath(), new byte[300000]);
+            IOUtils.copy(from, to);
+            Assert.assertTrue("Expecting copy to be like original.", Arrays.equals(input, Files.readAllBytes(to.toPath())));
+            Files.write(to.toPath(), new byte[300000]);
+            final long[] progress = new long[1];
+            Assert.assertEquals("Expecting all bytes to be counted.", input.length, IOUtils.copy(from, to, new LongConsumer() {
+                /** {@inheritDoc} */
+                public void accept(final long value) {
+                    Assert.assertTrue("Expecting progress to increase.", value > progress[0]);
+                    progress[0] = value;
+                }
+            }));
+            Assert.assertEquals("Expecting progress to reach the end.", input.length, progress[0]);
+            Assert.assertTrue("Expecting copy to be like original.", Arrays.equals(input, Files.readAllBytes(to.toPath())));
+        } finally {
+            Assert.assertTrue(from.delete());
+            Assert.assertTrue(to.delete());
+        }
+    }
+
+    /** Tests that {@link IOUtils#copy(InputStream, OutputStream, LongConsumer)} transfers from the current position of file streams.
+     * @throws IOException (unexpected)
+     */
+    @Test
+    public void testCopyFileStreams() throws IOException {
+        final byte[] input = createData(100000);
+        final File from = File.createTempFile("IOUtilsTest", ".tmp");
+        final File to = File.createTempFile("IOUtilsTest", ".tmp");
+        try {
+            Files.write(from.toPath(), input);
+            try (final FileInputStream in = new FileInputStream(from);
+                 final FileOutputStream out = new FileOutputStream(to)) {
+                Assert.assertEquals(1000L, in.skip(1000L));
+                out.write(input, 0, 10);
+                Assert.assertEquals("Expecting remaining bytes to be counted.", input.length - 1000L, IOUtils.copy(in, out, null));
+                Assert.assertEquals("Expecting input to be at its end.", -1, in.read());
+                out.write(42);
+            }
+            final byte[] expected = new byte[10 + input.length - 1000 + 1];
+            System.arraycopy(input, 0, expected, 0, 10);
+            System.arraycopy(input, 1000, expected, 10, input.length - 1000);
+            expected[expected.length - 1] = 42;
+            Assert.assertTrue("Expecting output to continue at stream positions.", Arrays.equals(expected, Files.readAllBytes(to.toPath())));
+        } finally {
+            Assert.assertTrue(from.delete());
+            Assert.assertTrue(to.delete());
+        }
+    }
+
+    /** Tests that {@link IOUtils#copy(java.nio.channels.ReadableByteChannel, java.nio.channels.WritableByteChannel, LongConsumer)} works for all kinds of channels.
+     * @throws IOException (unexpected)
+     */
+    @Test
+    public void testCopyChannels() throws IOException {
+        final byte[] input = createData(150000);
+        final File file = File.createTempFile("IOUtilsTest", ".tmp");
+        try {
+            try (final FileChannel out = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                Assert.assertEquals("Expecting all bytes to be transferred from stream.", input.length, IOUtils.copy(Channels.newChannel(new ByteArrayInputStream(input)), out, null));
+                Assert.assertEquals("Expecting position to be advanced.", input.length, out.position());
+            }
+            final ByteArrayOutputStream fromFile = new ByteArrayOutputStream();
+            try (final FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                Assert.assertEquals("Expecting all bytes to be transferred to stream.", input.length, IOUtils.copy(in, Channels.newChannel(fromFile), null));
+                Assert.assertEquals("Expecting position to be advanced.", input.length, in.position());
+            }
+            Assert.assertTrue("Expecting output to be like input.", Arrays.equals(input, fromFile.toByteArray()));
+            final ByteArrayOutputStream fromStream = new ByteArrayOutputStream();
+            Assert.assertEquals("Expecting all bytes to be copied.", input.length, IOUtils.copy(Channels.newChannel(new ByteArrayInputStream(input)), Channels.newChannel(fromStream), null));
+            Assert.assertTrue("Expecting output to be like input.", Arrays.equals(input, fromStream.toByteArray()));
+        } finally {
+            Assert.assertTrue(file.delete());
+        }
+    }
+
+    /** Tests that {@link IOUtils#copy(InputStream, OutputStream, LongConsumer)}, {@link IOUtils#copy(java.nio.channels.ReadableByteChannel, java.nio.channels.WritableByteChannel, LongConsumer)} and {@link IOUtils#copy(File, File, LongConsumer)} copy files which report a size of 0, like the files in /proc.
+     * This test only runs on systems with /proc.
+     * @throws IOException (unexpected)
+     */
+    @Test
+    public void testCopyNonRegularFile() throws IOException {
+        final File proc = new File("/proc/self/status");
+        if (!proc.exists()) {
+            return;
+        }
+        final File file = File.createTempFile("IOUtilsTest", ".tmp");
+        try {
+            try (final FileInputStream in = new FileInputStream(proc);
+                 final FileOutputStream out = new FileOutputStream(file)) {
+                Assert.assertEquals("Expecting /proc to report a size of 0.", 0L, in.getChannel().size());
+                Assert.assertTrue("Expecting bytes to be copied from stream.", IOUtils.copy(in, out, null) > 0L);
+            }
+            Assert.assertTrue("Expecting output to contain the file.", new String(Files.readAllBytes(file.toPath()), "US-ASCII").startsWith("Name:"));
+            try (final FileChannel in = FileChannel.open(proc.toPath(), StandardOpenOption.READ);
+                 final FileChannel out = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                Assert.assertTrue("Expecting bytes to be copied from channel.", IOUtils.copy(in, out, null) > 0L);
+            }
+            Assert.assertTrue("Expecting output to contain the file.", new String(Files.readAllBytes(file.toPath()), "US-ASCII").startsWith("Name:"));
+            final long[] progress = new long[1];
+            Assert.assertTrue("Expecting bytes to be copied from file.", IOUtils.copy(proc, file, new LongConsumer() {
+                /** {@inheritDoc} */
+                public void accept(final long value) {
+                    progress[0] = value;
+                }
+            }) > 0L);
+            Assert.assertTrue("Expecting progress to be reported.", progress[0] > 0L);
+            Assert.assertTrue("Expecting output to contain the file.", new String(Files.readAllBytes(file.toPath()), "US-ASCII").startsWith("Name:"));
+        } finally {
+            Assert.assertTrue(file.delete());
+        }
+    }
+
+    /** Creates test data.
+     * @param size Number of bytes.
+     * @return Test data.
+     */
+    private static byte[] createData(final int size) {
+        final byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (i * 13);
+        }
+        return data;
+    }
 }
@@ -0,0 +1,246 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package test.net.sf.japi.io;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import net.sf.japi.io.IOUtils;
+import net.sf.japi.io.LineScanner;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Test for {@link LineScanner}.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ */
+public class LineScannerTest {
+
+    /** Test case for mixed line terminators in both modes with small windows and buffers.
+     * @throws IOException (unexpected)
+     */
+    @Test
+    public void testTerminators() throws IOException {
+        final String text = "a\nbb\r\nccc\rdddd\r\r\n\n12345678901234567890\reee";
+        final List<String> expected = readLines(text);
+        for (int size = 1; size < 12; size++) {
+            Assert.assertEquals("Mapped lines must equal BufferedReader lines.", expected, scanMapped(text.getBytes(StandardCharsets.ISO_8859_1), StandardCharsets.ISO_8859_1, size));
+            Assert.assertEquals("Read lines must equal BufferedReader lines.", expected, scanRead(text.getBytes(StandardCharsets.ISO_8859_1), StandardCharsets.ISO_8859_1, size));
+        }
+    }
+
+    /** Test case for random text compared with {@link BufferedReader}.
+     * @throws IOException (unexpected)
+     */
+    @Test
+    public void testRandom() throws IOException {
+        final Random random = new Random(42L);
+        final char[] alphabet = {'a', 'b', '\n', '\r', '\u00e4', '\u20ac', ' '};
+        for (int round = 0; round < 50; round++) {
+            final StringBuilder text = new StringBuilder();
+            final int length = random.nextInt(300);
+            for (int i = 0; i < length; i++) {
+                text.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            final List<String> expected = readLines(text.toString());
+            final byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+            final int size = 1 + random.nextInt(40);
+            Assert.assertEquals("Mapped lines must equal BufferedReader lines.", expected, scanMapped(bytes, StandardCharsets.UTF_8, size));
+            Assert.assertEquals("Read lines must equal BufferedReader lines.", expected, scanRead(bytes, StandardCharsets.UTF_8, size));
+            final File file = createFile(bytes);
+            try {
+                for (int parts = 1; parts < 8; parts++) {
+                    final List<String> lines = new ArrayList<String>();
+                    try (final FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                        for (final LineScanner scanner : LineScanner.split(fileChannel, StandardCharsets.UTF_8, parts)) {
+                            addLines(scanner, lines);
+                        }
+                    }
+                    Assert.assertEquals("Split lines must equal BufferedReader lines.", expected, lines);
+                }
+            } finally {
+                Assert.assertTrue(file.delete());
+            }
+        }
+    }
+
+    /** Test case for decoding and byte access of a line.
+     * @throws IOException (unexpected)
+     */
+    @Test
+    public void testLine() throws IOException {
+        final byte[] bytes = "\u00e4\u00f6\u00fc-x\nGET /".getBytes(StandardCharsets.UTF_8);
+        try (final LineScanner scanner = new LineScanner(Channels.newChannel(new ByteArrayInputStream(bytes)), StandardCharsets.UTF_8, 4)) {
+            final LineScanner.Line line = scanner.next();
+            Assert.assertNotNull(line);
+            Assert.assertEquals("Byte length must count encoded bytes.", 8, line.getByteLength());
+            Assert.assertEquals("Length must count chars.", 5, line.length());
+            Assert.assertEquals("Chars must be decoded.", '\u00f6', line.charAt(1));
+            Assert.assertEquals("Sub sequence must be decoded.", "-x", line.subSequence(3, 5).toString());
+            Assert.assertEquals(0L, line.getOffset());
+            final LineScanner.Line second = scanner.next();
+            Assert.assertSame("Line must be reused.", line, second);
+            Assert.assertTrue("Prefix must match.", second.startsWith("GET ".getBytes(StandardCharsets.US_ASCII)));
+            Assert.assertFalse("Prefix must not match.", second.startsWith("POST".getBytes(StandardCharsets.US_ASCII)));
+            Assert.assertEquals((byte) '/', second.byteAt(4));
+            Assert.assertEquals(9L, second.getOffset());
+            Assert.assertNull("No line must follow.", scanner.next());
+        }
+    }
+
+    /** Test case for {@link LineScanner#parallelScan(java.nio.file.Path, Charset, LineScanner.RangeTask)}.
+     * @throws IOException (unexpected)
+     */
+    @Test
+    public void testParallelScan() throws IOException {
+        final StringBuilder text = new StringBuilder();
+        long expectedSum = 0L;
+        for (int i = 0; i < 10000; i++) {
+            text.append(i).append('\n');
+            expectedSum += i;
+        }
+        final File file = createFile(text.toString().getBytes(StandardCharsets.US_ASCII));
+        try {
+            final List<Long> sums = LineScanner.parallelScan(file.toPath(), StandardCharsets.US_ASCII, new LineScanner.RangeTask<Long>() {
+                /** {@inheritDoc} */
+                public Long scan(final LineScanner scanner) throws IOException {
+                    long sum = 0L;
+                    for (LineScanner.Line line; (line = scanner.next()) != null;) {
+                        long value = 0L;
+                        for (int i = 0; i < line.getByteLength(); i++) {
+                            value = value * 10 + line.byteAt(i) - '0';
+                        }
+                        sum += value;
+                    }
+                    return sum;
+                }
+            });
+            long sum = 0L;
+            for (final long partSum : sums) {
+                sum += partSum;
+            }
+            Assert.assertEquals("All lines must be scanned once.", expectedSum, sum);
+        } finally {
+            Assert.assertTrue(file.delete());
+        }
+    }
+
+    /** Test case for exceptions of {@link IOUtils#lines(Reader)}. */
+    @Test
+    public void testLinesException() {
+        final Iterator<String> lines = IOUtils.lines(new Reader() {
+            /** {@inheritDoc} */
+            @Override public int read(final char[] cbuf, final int off, final int len) throws IOException {
+                throw new IOException("test");
+            }
+            /** {@inheritDoc} */
+            @Override public void close() {
+            }
+        }).iterator();
+        try {
+            lines.hasNext();
+            Assert.fail("Expecting UncheckedIOException.");
+        } catch (final UncheckedIOException ignore) {
+            /* Ignore, this exception is expected. */
+        }
+    }
+
+    /** Reads lines with {@link BufferedReader}.
+     * @param text Text to read.
+     * @return Lines of <var>text</var>.
+     * @throws IOException (unexpected)
+     */
+    private static List<String> readLines(final String text) throws IOException {
+        final List<String> lines = new ArrayList<String>();
+        final BufferedReader in = new BufferedReader(new StringReader(text));
+        for (String line; (line = in.readLine()) != null;) {
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    /** Scans lines from a mapped file.
+     * @param bytes Contents of the file.
+     * @param charset Charset of the file.
+     * @param windowSize Size of mapped windows.
+     * @return Lines of the file.
+     * @throws IOException (unexpected)
+     */
+    private static List<String> scanMapped(final byte[] bytes, final Charset charset, final int windowSize) throws IOException {
+        final File file = createFile(bytes);
+        try (final FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final List<String> lines = new ArrayList<String>();
+            addLines(new LineScanner(fileChannel, 0L, bytes.length, charset, windowSize), lines);
+            return lines;
+        } finally {
+            Assert.assertTrue(file.delete());
+        }
+    }
+
+    /** Scans lines from a channel.
+     * @param bytes Contents of the channel.
+     * @param charset Charset of the channel.
+     * @param bufferSize Initial size of the buffer.
+     * @return Lines of the channel.
+     * @throws IOException (unexpected)
+     */
+    private static List<String> scanRead(final byte[] bytes, final Charset charset, final int bufferSize) throws IOException {
+        final List<String> lines = new ArrayList<String>();
+        try (final LineScanner scanner = new LineScanner(Channels.newChannel(new ByteArrayInputStream(bytes)), charset, bufferSize)) {
+            addLines(scanner, lines);
+        }
+        return lines;
+    }
+
+    /** Adds all lines of a LineScanner to a list.
+     * @param scanner LineScanner to scan.
+     * @param lines List to which to add the lines.
+     * @throws IOException (unexpected)
+     */
+    private static void addLines(final LineScanner scanner, final List<String> lines) throws IOException {
+        for (LineScanner.Line line; (line = scanner.next()) != null;) {
+            lines.add(line.toString());
+        }
+    }
+
+    /** Creates a temporary file.
+     * @param bytes Contents of the file.
+     * @return The file.
+     * @throws IOException (unexpected)
+     */
+    private static File createFile(final byte[] bytes) throws IOException {
+        final File file = File.createTempFile("LineScannerTest", ".tmp");
+        Files.write(file.toPath(), bytes);
+        return file;
+    }
+
+}
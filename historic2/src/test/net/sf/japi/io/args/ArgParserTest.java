@@ -458,6 +458,36 @@ public class ArgParserTest {
         Assert.assertEquals("Expecting '-' to be passed as argument.", "-", args.get(0));
     }
 
+    /**
+     * Tests that including the same command file twice works.
+     * @throws RequiredOptionsMissingException (unexpected).
+     * @throws TerminalException (unexpected).
+     * @throws UnknownOptionException (unexpected).
+     * @throws MissingArgumentException (unexpected).
+     * @throws ArgumentFileNotFoundException (unexpected).
+     */
+    @Test
+    public void testOptionsFromFileTwice() throws RequiredOptionsMissingException, MissingArgumentException, TerminalException, UnknownOptionException, ArgumentFileNotFoundException {
+        final MockCommand command = new MockCommand();
+        final String file = "@" + pathPrefix + "src/test/net/sf/japi/io/args/ArgParserTest_MultipleOptionsFileSlave2";
+        ArgParser.parseAndRun(command, "-i", "fooInput", file, file);
+        final List<String> args = command.getArgs();
+        Assert.assertEquals("Arguments of both inclusions must be stored.", 2, args.size());
+    }
+
+    /**
+     * Tests that cyclic inclusion of command files is detected.
+     * @throws RequiredOptionsMissingException (unexpected).
+     * @throws TerminalException (unexpected).
+     * @throws UnknownOptionException (unexpected).
+     * @throws MissingArgumentException (unexpected).
+     * @throws ArgumentFileNotFoundException (expected).
+     */
+    @Test(expected = ArgumentFileNotFoundException.class)
+    public void testOptionsFromFileCyclic() throws RequiredOptionsMissingException, MissingArgumentException, TerminalException, UnknownOptionException, ArgumentFileNotFoundException {
+        ArgParser.parseAndRun(new MockCommand(), "@" + pathPrefix + "src/test/net/sf/japi/io/args/ArgParserTest_CyclicOptionsFile1");
+    }
+
     /**
      * Tests that reading an argument file that doesn't exist throws an ArgumentFileNotFoundexception.
      * @throws ArgumentFileNotFoundException (expected).
@@ -20,6 +20,7 @@ package test.net.sf.japi.io.args;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.charset.Charset;
 import java.util.NoSuchElementException;
 import net.sf.japi.io.args.TokenReader;
 import org.jetbrains.annotations.NotNull;
@@ -292,6 +293,37 @@ public class TokenReaderTest {
         Assert.assertFalse("After reading the last token, hasNext() must return false.", reader.hasNext());
     }
 
+    /** Tests that tokens spanning the read buffer are read completely. */
+    @Test
+    public void testTokenReaderLongTokens() {
+        final StringBuilder longToken = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            longToken.append((char) ('a' + i % 26));
+        }
+        final StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 3; i++) {
+            input.append(longToken).append(' ');
+        }
+        final TokenReader reader = new TokenReader(createStream(input.toString()));
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue("Before reading the last token, hasNext() must return true.", reader.hasNext());
+            Assert.assertEquals("Expecting token", longToken.toString(), reader.next());
+        }
+        Assert.assertFalse("After reading the last token, hasNext() must return false.", reader.hasNext());
+    }
+
+    /** Tests that the charset is used for decoding.
+     * @throws Exception (unexpected)
+     */
+    @Test
+    public void testTokenReaderCharset() throws Exception {
+        final String token = "gr\u00fc\u00dfe";
+        final TokenReader reader = new TokenReader(new ByteArrayInputStream(("'" + token + "' x").getBytes("UTF-16")), Charset.forName("UTF-16"));
+        Assert.assertEquals("Expecting token", token, reader.next());
+        Assert.assertEquals("Expecting token", "x", reader.next());
+        Assert.assertFalse("After reading the last token, hasNext() must return false.", reader.hasNext());
+    }
+
     /** Creates an InputStream for reading from a String.
      * @param s String to read from.
      * @return InputStream created from s.
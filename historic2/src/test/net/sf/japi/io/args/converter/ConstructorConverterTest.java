@@ -59,6 +59,22 @@ public class ConstructorConverterTest {
         new ConstructorConverter<NonPublicConverter>(NonPublicConverter.class);
     }
 
+    /** Tests that creating a ConstructorConverter for an inaccessible class fails.
+     * @throws Exception (unexpected)
+     */
+    @Test(expected = NoSuchMethodException.class)
+    public void testConstructorConverterInaccessible() throws Exception {
+        new ConstructorConverter<InaccessibleConverter>(InaccessibleConverter.class);
+    }
+
+    /** Tests that exceptions thrown by the constructor are thrown unwrapped.
+     * @throws Exception (expected)
+     */
+    @Test(expected = NumberFormatException.class)
+    public void testConvertException() throws Exception {
+        new ConstructorConverter<Integer>(Integer.class).convert("foo");
+    }
+
     /** Tests that {@link ConstructorConverter#equals(Object)} works.
      * @throws Exception (unexpected)
      */
@@ -114,4 +130,16 @@ public class ConstructorConverterTest {
 
     } // class NonPublicConverter
 
+    /** Dummy that represents a converter with a public constructor in an inaccessible class. */
+    static class InaccessibleConverter {
+
+        /** Public constructor for test.
+         * @param arg String argument.
+         */
+        @SuppressWarnings({"UnusedDeclaration"})
+        public InaccessibleConverter(final String arg) {
+        }
+
+    } // class InaccessibleConverter
+
 } // class ConstructorConverterTest
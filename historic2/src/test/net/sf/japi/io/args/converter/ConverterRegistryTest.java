@@ -19,7 +19,13 @@
 package test.net.sf.japi.io.args.converter;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import net.sf.japi.io.args.converter.ConstructorConverter;
 import net.sf.japi.io.args.converter.Converter;
 import net.sf.japi.io.args.converter.ConverterRegistry;
@@ -137,6 +143,38 @@ public class ConverterRegistryTest {
         }
     }
 
+    /**
+     * Tests that concurrent lookups and conversions of a new ConverterRegistry work.
+     * @throws Exception (unexpected)
+     */
+    @Test
+    public void testConcurrentConvert() throws Exception {
+        final ConverterRegistry converterRegistry = new ConverterRegistry();
+        converterRegistry.registerDefaultConverters();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < 100; i++) {
+                final int n = i;
+                results.add(executor.submit(new Callable<Boolean>() {
+                    /** {@inheritDoc} */
+                    public Boolean call() throws Exception {
+                        return Integer.valueOf(n).equals(converterRegistry.getConverter(int.class).convert(Integer.toString(n)))
+                                && new File("f" + n).equals(converterRegistry.getConverter(File.class).convert("f" + n))
+                                && new StringBuilder("s" + n).toString().equals(converterRegistry.getConverter(StringBuilder.class).convert("s" + n).toString())
+                                && Thread.State.NEW == converterRegistry.getConverter(Thread.State.class).convert("NEW");
+                    }
+                }));
+            }
+            for (final Future<Boolean> result : results) {
+                Assert.assertTrue("Concurrent conversions must return the correct values.", result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertSame("Converters created on demand must be registered once in use.", converterRegistry.getConverter(File.class), converterRegistry.getConverter(File.class));
+    }
+
     /**
      * Dummy Converter.
      * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
@@ -42,6 +42,14 @@ public class EnumConverterTest {
         Assert.assertSame("Expecting \"EC2\" for TestEnum.class to be converted to TestEnum.EC2.", v, TestEnum.EC2);
     }
 
+    /** Tests that unknown enum constants are rejected.
+     * @throws Exception (expected).
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownConstant() throws Exception {
+        ConverterRegistry.convert(TestEnum.class, "EC3");
+    }
+
     /** Test enum. */
     enum TestEnum {
         /** Test enum constant 1. */
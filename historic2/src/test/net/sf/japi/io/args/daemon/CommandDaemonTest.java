@@ -0,0 +1,282 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package test.net.sf.japi.io.args.daemon;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import net.sf.japi.io.args.BasicCommand;
+import net.sf.japi.io.args.Option;
+import net.sf.japi.io.args.daemon.CommandClient;
+import net.sf.japi.io.args.daemon.CommandDaemon;
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for {@link CommandDaemon} and {@link CommandClient}.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ */
+public class CommandDaemonTest {
+
+    /** The port file. */
+    private File portFile;
+
+    /** The daemon. */
+    private CommandDaemon daemon;
+
+    /** Command which copies standard input to standard output, prefixing each line. */
+    public static class PrefixCommand extends BasicCommand {
+
+        /** The prefix. */
+        private String prefix = "";
+
+        /** Sets the prefix.
+         * @param prefix Prefix for each line.
+         */
+        @Option({"p"})
+        public void setPrefix(@NotNull final String prefix) {
+            this.prefix = prefix;
+        }
+
+        /** {@inheritDoc} */
+        public int run(@NotNull final List<String> args) throws Exception {
+            final BufferedReader in = new BufferedReader(new InputStreamReader(System.in, "UTF-8"));
+            for (String line; (line = in.readLine()) != null;) {
+                System.out.println(prefix + line);
+            }
+            System.err.println("done");
+            return 3;
+        }
+
+    } // class PrefixCommand
+
+    /** Command which starts a thread that prints during and after the invocation. */
+    public static class BackgroundCommand extends BasicCommand {
+
+        /** Signalled when the thread printed during the invocation. */
+        private static final CountDownLatch STARTED = new CountDownLatch(1);
+
+        /** Signalled by the test when the invocation ended. */
+        private static final CountDownLatch ENDED = new CountDownLatch(1);
+
+        /** Signalled when the thread printed after the invocation. */
+        private static final CountDownLatch PRINTED = new CountDownLatch(1);
+
+        /** Whether printing after the invocation failed. */
+        private static volatile boolean error;
+
+        /** {@inheritDoc} */
+        public int run(@NotNull final List<String> args) throws Exception {
+            final Thread thread = new Thread(new Runnable() {
+                /** {@inheritDoc} */
+                public void run() {
+                    System.out.println("during");
+                    STARTED.countDown();
+                    try {
+                        ENDED.await();
+                    } catch (final InterruptedException ignore) {
+                        return;
+                    }
+                    System.out.println("after");
+                    error = System.out.checkError();
+                    PRINTED.countDown();
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+            STARTED.await();
+            return 0;
+        }
+
+    } // class BackgroundCommand
+
+    /** Starts the daemon.
+     * @throws Exception (unexpected)
+     */
+    @Before
+    public void startDaemon() throws Exception {
+        portFile = File.createTempFile("CommandDaemonTest", ".port");
+        daemon = new CommandDaemon();
+        daemon.setPortFile(portFile);
+        daemon.start();
+        final Thread thread = new Thread(new Runnable() {
+            /** {@inheritDoc} */
+            public void run() {
+                try {
+                    daemon.serve();
+                } catch (final Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** Stops the daemon.
+     * @throws Exception (unexpected)
+     */
+    @After
+    public void stopDaemon() throws Exception {
+        daemon.close();
+        Assert.assertFalse("Port file must be deleted.", portFile.exists());
+    }
+
+    /**
+     * Tests that an invocation forwards arguments, streams and the return code.
+     * @throws Exception (unexpected)
+     */
+    @Test
+    public void testInvocation() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ByteArrayOutputStream err = new ByteArrayOutputStream();
+        final CommandClient client = new CommandClient(portFile, new ByteArrayInputStream("a\nb\n".getBytes("UTF-8")), out, err);
+        final Integer returnCode = client.runInDaemon(PrefixCommand.class.getName(), "-p", "x:");
+        Assert.assertEquals("Return code must be forwarded.", Integer.valueOf(3), returnCode);
+        Assert.assertEquals("Standard output must be forwarded.", String.format("x:a%nx:b%n"), out.toString("UTF-8"));
+        Assert.assertEquals("Standard error must be forwarded.", String.format("done%n"), err.toString("UTF-8"));
+    }
+
+    /**
+     * Tests that argument problems are reported to the client.
+     * @throws Exception (unexpected)
+     */
+    @Test
+    public void testUnknownOption() throws Exception {
+        final ByteArrayOutputStream err = new ByteArrayOutputStream();
+        final CommandClient client = new CommandClient(portFile, new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream(), err);
+        Assert.assertEquals("Unknown options must fail.", Integer.valueOf(1), client.runInDaemon(PrefixCommand.class.getName(), "--unknown"));
+        Assert.assertTrue("Unknown option must be reported.", err.toString("UTF-8").contains("unknown"));
+    }
+
+    /**
+     * Tests that concurrent invocations use their own streams.
+     * @throws Exception (unexpected)
+     */
+    @Test
+    public void testConcurrentInvocations() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<String>> results = new ArrayList<Future<String>>();
+            for (int i = 0; i < 8; i++) {
+                final String prefix = i + ":";
+                results.add(executor.submit(new Callable<String>() {
+                    /** {@inheritDoc} */
+                    public String call() throws Exception {
+                        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                        final StringBuilder input = new StringBuilder();
+                        for (int line = 0; line < 100; line++) {
+                            input.append(line).append('\n');
+                        }
+                        new CommandClient(portFile, new ByteArrayInputStream(input.toString().getBytes("UTF-8")), out, new ByteArrayOutputStream()).runInDaemon(PrefixCommand.class.getName(), "-p", prefix);
+                        return out.toString("UTF-8");
+                    }
+                }));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                final String[] lines = results.get(i).get().split(String.format("%n"));
+                Assert.assertEquals("All lines must be received.", 100, lines.length);
+                for (int line = 0; line < lines.length; line++) {
+                    Assert.assertEquals("Lines must not be mixed up.", i + ":" + line, lines[line]);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Tests that threads started by an invocation use the streams of the client only until the invocation ends.
+     * @throws Exception (unexpected)
+     */
+    @Test
+    public void testBackgroundThread() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final CommandClient client = new CommandClient(portFile, new ByteArrayInputStream(new byte[0]), out, new ByteArrayOutputStream());
+        Assert.assertEquals("Invocation must succeed.", Integer.valueOf(0), client.runInDaemon(BackgroundCommand.class.getName()));
+        BackgroundCommand.ENDED.countDown();
+        Assert.assertTrue("Thread must print after the invocation.", BackgroundCommand.PRINTED.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals("Output of the thread during the invocation must be forwarded.", String.format("during%n"), out.toString("UTF-8"));
+        Assert.assertFalse("Output after the invocation must not go to the closed client stream.", BackgroundCommand.error);
+    }
+
+    /**
+     * Tests that the port file is accessible by the owner only and replaces a symbolic link instead of writing through it.
+     * @throws Exception (unexpected)
+     */
+    @Test
+    public void testPortFilePermissions() throws Exception {
+        if (!Files.getFileStore(portFile.toPath()).supportsFileAttributeView(PosixFileAttributeView.class)) {
+            return;
+        }
+        final Path dir = Files.createTempDirectory("CommandDaemonTest");
+        final Path other = Files.write(dir.resolve("other"), new byte[0]);
+        final Path link = Files.createSymbolicLink(dir.resolve("port"), other);
+        final CommandDaemon linkDaemon = new CommandDaemon();
+        linkDaemon.setPortFile(link.toFile());
+        linkDaemon.start();
+        try {
+            Assert.assertFalse("Port file must replace a symbolic link.", Files.isSymbolicLink(link));
+            Assert.assertEquals("Port file must not be written through a symbolic link.", 0L, Files.size(other));
+            Assert.assertEquals("Port file must be accessible by the owner only.", PosixFilePermissions.fromString("rw-------"), Files.getPosixFilePermissions(link));
+        } finally {
+            linkDaemon.close();
+            Files.delete(other);
+            Files.delete(dir);
+        }
+    }
+
+    /**
+     * Tests that invocations which the daemon cannot run are left to the client.
+     * @throws Exception (unexpected)
+     */
+    @Test
+    public void testRejected() throws Exception {
+        final CommandClient client = new CommandClient(portFile, new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream(), new ByteArrayOutputStream());
+        Assert.assertNull("Unknown Command classes must be rejected.", client.runInDaemon("no.such.Command"));
+    }
+
+    /**
+     * Tests that no daemon is used without port file.
+     * @throws Exception (unexpected)
+     */
+    @Test
+    public void testNoDaemon() throws Exception {
+        final CommandClient client = new CommandClient(new File(portFile.getPath() + ".missing"), new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream(), new ByteArrayOutputStream());
+        Assert.assertNull("Without daemon, the Command must not be run.", client.runInDaemon(PrefixCommand.class.getName()));
+    }
+
+} // class CommandDaemonTest
@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package test.net.sf.japi.io.args.processor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collections;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import net.sf.japi.io.args.ArgParser;
+import net.sf.japi.io.args.Command;
+import net.sf.japi.io.args.OptionDispatcher;
+import net.sf.japi.io.args.processor.OptionProcessor;
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for {@link OptionProcessor}.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ */
+public class OptionProcessorTest {
+
+    /** The directory for the compiled classes. */
+    private File classes;
+
+    /** Creates the directory for the compiled classes. */
+    @Before
+    public void createClasses() throws IOException {
+        classes = File.createTempFile("OptionProcessorTest", "");
+        Assert.assertTrue("Temporary file must be deletable.", classes.delete());
+        Assert.assertTrue("Temporary directory must be creatable.", classes.mkdir());
+    }
+
+    /** Deletes the directory for the compiled classes. */
+    @After
+    public void deleteClasses() {
+        delete(classes);
+    }
+
+    /**
+     * Deletes a file or directory recursively.
+     * @param file File or directory to delete.
+     */
+    private static void delete(@NotNull final File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (final File child : children) {
+                delete(child);
+            }
+        }
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+
+    /**
+     * Compiles a Command class with the {@link OptionProcessor} and loads it.
+     * @param className Fully qualified name of the Command class.
+     * @param source Source code of the Command class.
+     * @return The Command class.
+     * @throws Exception in case the Command class cannot be compiled or loaded.
+     */
+    @NotNull private Class<? extends Command> compile(@NotNull final String className, @NotNull final String source) throws Exception {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assert.assertNotNull("Test must run on a JDK.", compiler);
+        final JavaFileObject sourceFile = new SimpleJavaFileObject(URI.create("string:///" + className.replace('.', '/') + ".java"), JavaFileObject.Kind.SOURCE) {
+            /** {@inheritDoc} */
+            @Override public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        final StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+        try {
+            final StringWriter diagnostics = new StringWriter();
+            final JavaCompiler.CompilationTask task = compiler.getTask(diagnostics, fileManager, null, Arrays.asList("-d", classes.getPath(), "-classpath", System.getProperty("java.class.path")), null, Collections.singleton(sourceFile));
+            task.setProcessors(Collections.singleton(new OptionProcessor()));
+            Assert.assertTrue("Command class must compile: " + diagnostics, task.call());
+        } finally {
+            fileManager.close();
+        }
+        final ClassLoader classLoader = new URLClassLoader(new URL[] { classes.toURI().toURL() }, getClass().getClassLoader());
+        return Class.forName(className, true, classLoader).asSubclass(Command.class);
+    }
+
+    /**
+     * Tests that the generated OptionDispatcher is used and dispatches options.
+     * @throws Exception (unexpected)
+     */
+    @Test
+    public void testGeneratedDispatcher() throws Exception {
+        final Class<? extends Command> commandClass = compile("p.Cmd",
+                "package p;\n"
+                + "import net.sf.japi.io.args.*;\n"
+                + "public class Cmd extends BasicCommand {\n"
+                + "    public String name;\n"
+                + "    public int count;\n"
+                + "    public boolean verbose;\n"
+                + "    @Option({\"n\", \"name\"}) public void setName(@org.jetbrains.annotations.NotNull final String name) { this.name = name; }\n"
+                + "    @Option(value = {\"c\"}, type = OptionType.REQUIRED) public void setCount(final int count) { this.count = count; }\n"
+                + "    @Option({\"v\"}) public void verbose() { verbose = true; }\n"
+                + "    public int run(final java.util.List<String> args) { return 0; }\n"
+                + "}\n");
+        final OptionDispatcher dispatcher = ArgParser.getOptionDispatcher(commandClass);
+        Assert.assertEquals("The generated OptionDispatcher must be used.", "p.Cmd" + OptionDispatcher.CLASS_NAME_SUFFIX, dispatcher.getClass().getName());
+        Assert.assertSame("OptionDispatchers must be cached.", dispatcher, ArgParser.getOptionDispatcher(commandClass));
+        Assert.assertEquals("Inherited options must be included.", ArgParser.getOptionMethods(commandClass).size(), dispatcher.getOptionCount());
+        Assert.assertEquals("Both names must map to the same option.", dispatcher.getIndex("n"), dispatcher.getIndex("name"));
+        Assert.assertEquals("Unknown options must map to -1.", -1, dispatcher.getIndex("unknown"));
+        Assert.assertEquals("Primitive argument types must be kept.", int.class, dispatcher.getArgumentType(dispatcher.getIndex("c")));
+        Assert.assertNull("Options without argument must have no argument type.", dispatcher.getArgumentType(dispatcher.getIndex("v")));
+        final Command command = commandClass.getDeclaredConstructor().newInstance();
+        ArgParser.parseAndRun(command, "-v", "--name=foo", "-c", "42");
+        Assert.assertEquals("Option must be invoked.", "foo", commandClass.getField("name").get(command));
+        Assert.assertEquals("Option must be invoked.", 42, commandClass.getField("count").get(command));
+        Assert.assertEquals("Option must be invoked.", true, commandClass.getField("verbose").get(command));
+    }
+
+    /**
+     * Tests that no OptionDispatcher is generated for wrongly declared options, so they are still rejected at runtime.
+     * @throws Exception (unexpected)
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidOptions() throws Exception {
+        final Class<? extends Command> commandClass = compile("p.Invalid",
+                "package p;\n"
+                + "import net.sf.japi.io.args.*;\n"
+                + "public class Invalid extends BasicCommand {\n"
+                + "    @Option({\"W\"}) public void minusW() { }\n"
+                + "    public int run(final java.util.List<String> args) { return 0; }\n"
+                + "}\n");
+        Assert.assertFalse("No OptionDispatcher must be generated.", new File(classes, "p/Invalid" + OptionDispatcher.CLASS_NAME_SUFFIX + ".class").exists());
+        ArgParser.getOptionDispatcher(commandClass);
+    }
+
+} // class OptionProcessorTest
@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package test.net.sf.japi.log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ListResourceBundle;
+import java.util.ResourceBundle;
+import net.sf.japi.log.AsyncLogger;
+import net.sf.japi.log.def.Level;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for {@link AsyncLogger}.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ */
+public class AsyncLoggerTest {
+
+    /** The line separator. */
+    private static final String NL = System.getProperty("line.separator");
+
+    /**
+     * Tests that messages are formatted and printed in order.
+     * @throws Exception (unexpected)
+     */
+    @Test
+    public void testLog() throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final AsyncLogger<Level> logger = new AsyncLogger<Level>("test", createBundle(), new PrintStream(bytes, true, "UTF-8"), 4, false);
+        logger.log(Level.INFO, "plain");
+        logger.log(Level.WARN, "format", "foo", 42);
+        logger.log(Level.ERROR, "missing");
+        logger.flush();
+        Assert.assertEquals("Messages must be printed in order.", "test: INFO: 100%" + NL + "test: WARN: foo 42" + NL + "test: ERROR: missing (java.util.MissingResourceException: Can't find resource for bundle " + TestBundle.class.getName() + ", key missing)" + NL, bytes.toString("UTF-8"));
+        logger.close();
+    }
+
+    /**
+     * Tests that messages below the enabled level are not printed.
+     * @throws Exception (unexpected)
+     */
+    @Test
+    public void testSetLevel() throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final AsyncLogger<Level> logger = new AsyncLogger<Level>("test", createBundle(), new PrintStream(bytes, true, "UTF-8"), 4, false);
+        logger.setLevel(Level.WARN);
+        Assert.assertFalse("INFO must be disabled.", logger.isEnabled(Level.INFO));
+        Assert.assertTrue("WARN must be enabled.", logger.isEnabled(Level.WARN));
+        logger.log(Level.INFO, "plain");
+        logger.log(Level.ERROR, "plain");
+        logger.close();
+        Assert.assertEquals("Only enabled messages must be printed.", "test: ERROR: 100%" + NL, bytes.toString("UTF-8"));
+    }
+
+    /**
+     * Tests that the location of the caller is printed if requested.
+     * @throws Exception (unexpected)
+     */
+    @Test
+    public void testCaptureCaller() throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final AsyncLogger<Level> logger = new AsyncLogger<Level>("test", createBundle(), new PrintStream(bytes, true, "UTF-8"), 4, true);
+        logger.log(Level.INFO, "plain");
+        logger.close();
+        Assert.assertTrue("The caller location must be printed.", bytes.toString("UTF-8").startsWith("AsyncLoggerTest.java:"));
+    }
+
+    /**
+     * Tests that concurrently logged messages are all printed, even if the ring buffer is full, and that messages logged after closing are printed, too.
+     * @throws Exception (unexpected)
+     */
+    @Test
+    public void testConcurrent() throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final AsyncLogger<Level> logger = new AsyncLogger<Level>("test", createBundle(), new PrintStream(bytes, true, "UTF-8"), 2, false);
+        final Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(new Runnable() {
+                /** {@inheritDoc} */
+                public void run() {
+                    for (int j = 0; j < 1000; j++) {
+                        logger.log(Level.INFO, "format", "x", j);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        logger.close();
+        logger.log(Level.INFO, "plain");
+        final String[] lines = bytes.toString("UTF-8").split(NL);
+        Assert.assertEquals("All messages must be printed.", threads.length * 1000 + 1, lines.length);
+        Assert.assertEquals("Messages logged after closing must be printed.", "test: INFO: 100%", lines[lines.length - 1]);
+    }
+
+    /**
+     * Tests that messages logged while closing are all printed intact and that logging does not hang after the background thread stopped.
+     * @throws Exception (unexpected)
+     */
+    @Test
+    public void testCloseWhileLogging() throws Exception {
+        for (int run = 0; run < 20; run++) {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final AsyncLogger<Level> logger = new AsyncLogger<Level>("test", createBundle(), new PrintStream(bytes, true, "UTF-8"), 2, false);
+            final Thread[] threads = new Thread[4];
+            for (int i = 0; i < threads.length; i++) {
+                threads[i] = new Thread(new Runnable() {
+                    /** {@inheritDoc} */
+                    public void run() {
+                        for (int j = 0; j < 1000; j++) {
+                            logger.log(Level.INFO, "format", "x", j);
+                        }
+                    }
+                });
+                threads[i].start();
+            }
+            logger.close();
+            for (final Thread thread : threads) {
+                thread.join(60000);
+                Assert.assertFalse("Logging must not hang after closing.", thread.isAlive());
+            }
+            final String[] lines = bytes.toString("UTF-8").split(NL);
+            Assert.assertEquals("All messages must be printed.", threads.length * 1000, lines.length);
+            for (final String line : lines) {
+                Assert.assertTrue("Messages must be printed intact: " + line, line.matches("test: INFO: x \\d+"));
+            }
+        }
+    }
+
+    /**
+     * Creates the bundle for testing.
+     * @return The bundle for testing.
+     */
+    @NotNull private static ResourceBundle createBundle() {
+        return new TestBundle();
+    }
+
+    /** The bundle for testing. */
+    public static class TestBundle extends ListResourceBundle {
+
+        /** {@inheritDoc} */
+        @Override protected Object[][] getContents() {
+            return new Object[][] {
+                { "plain", "100%" },
+                { "format", "%s %d" },
+            };
+        }
+
+    } // class TestBundle
+
+} // class AsyncLoggerTest
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package test.net.sf.japi.midi;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.sound.midi.MidiMessage;
+import javax.sound.midi.Receiver;
+import javax.sound.midi.ShortMessage;
+import javax.sound.midi.SysexMessage;
+import net.sf.japi.midi.CapturePlayer;
+import net.sf.japi.midi.CaptureReceiver;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Test for {@link CaptureReceiver} and {@link CapturePlayer}.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ */
+public class CaptureReceiverTest {
+
+    /** Test case for capturing and replaying messages.
+     * @throws Exception (unexpected)
+     */
+    @Test
+    public void testRoundTrip() throws Exception {
+        final MidiMessage[] messages = {
+            new ShortMessage(ShortMessage.NOTE_ON, 9, 36, 127),
+            new ShortMessage(ShortMessage.PROGRAM_CHANGE, 0, 5, 0),
+            new ShortMessage(ShortMessage.TIMING_CLOCK),
+            new SysexMessage(new byte[] {(byte) 0xF0, 0x7E, 0x7F, 0x09, 0x01, (byte) 0xF7}, 6),
+            new ShortMessage(ShortMessage.NOTE_OFF, 9, 36, 0),
+        };
+        final long[] timeStamps = {1000L, 500L, -1L, Long.MAX_VALUE, 0L};
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final CaptureReceiver captureReceiver = new CaptureReceiver(out);
+        for (int i = 0; i < messages.length; i++) {
+            captureReceiver.send(messages[i], timeStamps[i]);
+        }
+        captureReceiver.close();
+        Assert.assertFalse("Capture must not fail.", captureReceiver.checkError());
+
+        final List<byte[]> replayedMessages = new ArrayList<byte[]>();
+        final List<Long> replayedTimeStamps = new ArrayList<Long>();
+        final CapturePlayer player = new CapturePlayer(new ByteArrayInputStream(out.toByteArray()));
+        final int count = player.replay(new Receiver() {
+            /** {@inheritDoc} */
+            public void send(final MidiMessage message, final long timeStamp) {
+                replayedMessages.add(message.getMessage());
+                replayedTimeStamps.add(timeStamp);
+            }
+            /** {@inheritDoc} */
+            public void close() {
+            }
+        }, true);
+        Assert.assertEquals("All messages must be replayed.", messages.length, count);
+        for (int i = 0; i < messages.length; i++) {
+            Assert.assertTrue("Replayed message must equal captured message.", Arrays.equals(messages[i].getMessage(), replayedMessages.get(i)));
+            Assert.assertEquals("Replayed time stamp must equal captured time stamp.", (Long) timeStamps[i], replayedTimeStamps.get(i));
+        }
+        Assert.assertNull("No message must follow.", player.read());
+    }
+
+    /** Test case for reading something that is not a capture.
+     * @throws Exception (expected)
+     */
+    @Test(expected = IOException.class)
+    public void testNoCapture() throws Exception {
+        new CapturePlayer(new ByteArrayInputStream("MThd".getBytes("US-ASCII")));
+    }
+
+    /** Test case for reading a truncated capture.
+     * @throws Exception (expected)
+     */
+    @Test(expected = EOFException.class)
+    public void testTruncated() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final CaptureReceiver captureReceiver = new CaptureReceiver(out);
+        captureReceiver.send(new ShortMessage(ShortMessage.NOTE_ON, 0, 60, 100), 0L);
+        captureReceiver.close();
+        final byte[] data = out.toByteArray();
+        new CapturePlayer(new ByteArrayInputStream(data, 0, data.length - 1)).read();
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package test.net.sf.japi.midi;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Formatter;
+import javax.sound.midi.MidiMessage;
+import javax.sound.midi.ShortMessage;
+import javax.sound.midi.SysexMessage;
+import net.sf.japi.midi.MonitorReceiver;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Test for {@link MonitorReceiver}.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ */
+public class MonitorReceiverTest {
+
+    /** Test case for the output format, which must be the same as with {@link Formatter}.
+     * @throws Exception (unexpected)
+     */
+    @Test
+    public void testFormat() throws Exception {
+        final MidiMessage[] messages = {
+            new ShortMessage(ShortMessage.NOTE_ON, 9, 36, 127),
+            new ShortMessage(ShortMessage.PROGRAM_CHANGE, 0, 5, 0),
+            new ShortMessage(ShortMessage.TIMING_CLOCK),
+            new SysexMessage(new byte[] {(byte) 0xF0, 0x7E, 0x7F, 0x09, 0x01, (byte) 0xF7}, 6),
+        };
+        final long[] timeStamps = {0L, 0x12345678L, 0x123456789AL, -1L};
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final MonitorReceiver receiver = new MonitorReceiver("in", null, out, false);
+        final StringBuilder expected = new StringBuilder();
+        final Formatter format = new Formatter(expected);
+        for (int i = 0; i < messages.length; i++) {
+            receiver.send(messages[i], timeStamps[i]);
+            format.format("[%s] %08x ", "in", timeStamps[i]);
+            for (final byte b : messages[i].getMessage()) {
+                format.format("%02x", b);
+            }
+            format.format("%n");
+        }
+        receiver.close();
+        Assert.assertEquals("Output must be formatted like with Formatter.", expected.toString(), out.toString());
+    }
+
+    /** Test case for {@link MonitorReceiver#createBatched(String, javax.sound.midi.Receiver, java.io.OutputStream)}.
+     * @throws Exception (unexpected)
+     */
+    @Test
+    public void testBatched() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final MonitorReceiver receiver = MonitorReceiver.createBatched("x", null, out);
+        final StringBuilder expected = new StringBuilder();
+        final Formatter format = new Formatter(expected);
+        for (int i = 0; i < 1000; i++) {
+            receiver.send(new ShortMessage(ShortMessage.CONTROL_CHANGE, 0, 7, i & 0x7F), i);
+            format.format("[x] %08x b007%02x%n", i, i & 0x7F);
+        }
+        receiver.close();
+        Assert.assertEquals("Batched output must contain all messages.", expected.toString(), out.toString());
+    }
+
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package test.net.sf.japi.midi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MidiMessage;
+import javax.sound.midi.Receiver;
+import javax.sound.midi.ShortMessage;
+import net.sf.japi.midi.AsyncReceiver;
+import net.sf.japi.midi.MultiReceiver;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Test for {@link MultiReceiver} and {@link AsyncReceiver}.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ */
+public class MultiReceiverTest {
+
+    /** Test case for synchronous and asynchronous receivers of a {@link MultiReceiver}.
+     * @throws Exception (unexpected)
+     */
+    @Test
+    public void testFanOut() throws Exception {
+        final MultiReceiver multiReceiver = new MultiReceiver();
+        final RecordingReceiver direct = new RecordingReceiver(null);
+        final RecordingReceiver async = new RecordingReceiver(null);
+        multiReceiver.addReceiver(direct);
+        final AsyncReceiver asyncReceiver = multiReceiver.addAsyncReceiver(async, 16, AsyncReceiver.OverflowPolicy.BLOCK);
+        for (int i = 0; i < 100; i++) {
+            multiReceiver.send(createMessage(i), i);
+        }
+        multiReceiver.close();
+        Assert.assertTrue("AsyncReceiver must terminate after close.", asyncReceiver.awaitTermination(10, TimeUnit.SECONDS));
+        Assert.assertEquals("Direct receiver must receive all messages.", createNotes(100), direct.getNotes());
+        Assert.assertEquals("Async receiver must receive all messages in order.", createNotes(100), async.getNotes());
+        Assert.assertTrue("Async receiver must be closed.", async.isClosed());
+        Assert.assertEquals("All messages must be delivered.", 100L, asyncReceiver.getDeliveredCount());
+        Assert.assertEquals("No message must be dropped.", 0L, asyncReceiver.getDroppedCount());
+    }
+
+    /** Test case for {@link AsyncReceiver.OverflowPolicy#DROP_NEWEST}.
+     * @throws Exception (unexpected)
+     */
+    @Test
+    public void testDropNewest() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final RecordingReceiver blocked = new RecordingReceiver(latch);
+        final AsyncReceiver asyncReceiver = new AsyncReceiver(blocked, 4, AsyncReceiver.OverflowPolicy.DROP_NEWEST);
+        asyncReceiver.send(createMessage(0), 0);
+        blocked.awaitFirst();
+        for (int i = 1; i < 10; i++) {
+            asyncReceiver.send(createMessage(i), i);
+        }
+        latch.countDown();
+        asyncReceiver.close();
+        Assert.assertTrue("AsyncReceiver must terminate after close.", asyncReceiver.awaitTermination(10, TimeUnit.SECONDS));
+        Assert.assertEquals("Oldest messages must be delivered.", createNotes(5), blocked.getNotes());
+        Assert.assertEquals("Newest messages must be dropped.", 5L, asyncReceiver.getDroppedCount());
+    }
+
+    /** Test case for {@link AsyncReceiver.OverflowPolicy#DROP_OLDEST}.
+     * @throws Exception (unexpected)
+     */
+    @Test
+    public void testDropOldest() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final RecordingReceiver blocked = new RecordingReceiver(latch);
+        final AsyncReceiver asyncReceiver = new AsyncReceiver(blocked, 4, AsyncReceiver.OverflowPolicy.DROP_OLDEST);
+        asyncReceiver.send(createMessage(0), 0);
+        blocked.awaitFirst();
+        for (int i = 1; i < 10; i++) {
+            asyncReceiver.send(createMessage(i), i);
+        }
+        latch.countDown();
+        asyncReceiver.close();
+        Assert.assertTrue("AsyncReceiver must terminate after close.", asyncReceiver.awaitTermination(10, TimeUnit.SECONDS));
+        final List<Integer> expected = new ArrayList<Integer>();
+        Collections.addAll(expected, 0, 6, 7, 8, 9);
+        Assert.assertEquals("Newest messages must be delivered.", expected, blocked.getNotes());
+        Assert.assertEquals("Oldest messages must be dropped.", 5L, asyncReceiver.getDroppedCount());
+        Assert.assertTrue("Latency must be measured.", asyncReceiver.getMaxLatencyNanos() >= asyncReceiver.getAverageLatencyNanos());
+    }
+
+    /** Test case for sending to a closed {@link AsyncReceiver}.
+     * @throws Exception (expected)
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testSendAfterClose() throws Exception {
+        final AsyncReceiver asyncReceiver = new AsyncReceiver(new RecordingReceiver(null), 4, AsyncReceiver.OverflowPolicy.BLOCK);
+        asyncReceiver.close();
+        asyncReceiver.send(createMessage(0), 0);
+    }
+
+    /** Test case for closing an {@link AsyncReceiver} while other threads send.
+     * Every message which was accepted must be delivered or counted as dropped.
+     * @throws Exception (unexpected)
+     */
+    @Test
+    public void testCloseWhileSending() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            final RecordingReceiver recorder = new RecordingReceiver(null);
+            final AsyncReceiver asyncReceiver = new AsyncReceiver(recorder, 4, AsyncReceiver.OverflowPolicy.BLOCK);
+            final long[] accepted = new long[4];
+            final Thread[] senders = new Thread[accepted.length];
+            for (int i = 0; i < senders.length; i++) {
+                final int sender = i;
+                senders[i] = new Thread(new Runnable() {
+                    /** {@inheritDoc} */
+                    public void run() {
+                        try {
+                            for (int note = 0; ; note = note + 1 & 0x7F) {
+                                asyncReceiver.send(createMessage(note), note);
+                                accepted[sender]++;
+                            }
+                        } catch (final IllegalStateException ignore) {
+                            // closed
+                        } catch (final InvalidMidiDataException e) {
+                            throw new AssertionError(e);
+                        }
+                    }
+                });
+                senders[i].start();
+            }
+            Thread.sleep(2);
+            asyncReceiver.close();
+            long total = 0L;
+            for (int i = 0; i < senders.length; i++) {
+                senders[i].join();
+                total += accepted[i];
+            }
+            Assert.assertTrue("AsyncReceiver must terminate after close.", asyncReceiver.awaitTermination(10, TimeUnit.SECONDS));
+            Assert.assertEquals("Every accepted message must be delivered or dropped.", total, asyncReceiver.getDeliveredCount() + asyncReceiver.getDroppedCount());
+            Assert.assertEquals("Every delivered message must be received.", asyncReceiver.getDeliveredCount(), recorder.getNotes().size());
+        }
+    }
+
+    /** Creates a note on message.
+     * @param note Note number.
+     * @return Note on message for <var>note</var>.
+     * @throws InvalidMidiDataException (unexpected)
+     */
+    private static MidiMessage createMessage(final int note) throws InvalidMidiDataException {
+        return new ShortMessage(ShortMessage.NOTE_ON, 0, note, 64);
+    }
+
+    /** Creates the list of the first notes.
+     * @param count Number of notes.
+     * @return List of the notes from 0 to <var>count</var> - 1.
+     */
+    private static List<Integer> createNotes(final int count) {
+        final List<Integer> notes = new ArrayList<Integer>();
+        for (int i = 0; i < count; i++) {
+            notes.add(i);
+        }
+        return notes;
+    }
+
+    /** Receiver which records the notes of the messages it receives. */
+    private static class RecordingReceiver implements Receiver {
+
+        /** The received notes. */
+        private final List<Integer> notes = Collections.synchronizedList(new ArrayList<Integer>());
+
+        /** Signalled when the first message was received. */
+        private final CountDownLatch first = new CountDownLatch(1);
+
+        /** Latch to await after the first message, or <code>null</code> for not blocking. */
+        private final CountDownLatch latch;
+
+        /** Whether this receiver was closed. */
+        private volatile boolean closed;
+
+        /** Creates a RecordingReceiver.
+         * @param latch Latch to await after the first message, or <code>null</code> for not blocking.
+         */
+        RecordingReceiver(final CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        /** {@inheritDoc} */
+        public void send(final MidiMessage message, final long timeStamp) {
+            notes.add(((ShortMessage) message).getData1());
+            first.countDown();
+            if (latch != null) {
+                try {
+                    latch.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        /** {@inheritDoc} */
+        public void close() {
+            closed = true;
+        }
+
+        /** Waits until the first message was received.
+         * @throws InterruptedException (unexpected)
+         */
+        void awaitFirst() throws InterruptedException {
+            Assert.assertTrue("First message must be received.", first.await(10, TimeUnit.SECONDS));
+        }
+
+        /** Returns the received notes.
+         * @return The received notes.
+         */
+        List<Integer> getNotes() {
+            return new ArrayList<Integer>(notes);
+        }
+
+        /** Returns whether this receiver was closed.
+         * @return <code>true</code> if this receiver was closed, otherwise <code>false</code>.
+         */
+        boolean isClosed() {
+            return closed;
+        }
+    }
+}
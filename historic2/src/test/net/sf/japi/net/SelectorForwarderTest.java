@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package test.net.sf.japi.net;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import net.sf.japi.net.SelectorForwarder;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Test for {@link SelectorForwarder}.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ */
+public class SelectorForwarderTest {
+
+    /** The number of concurrent connections. */
+    private static final int CONNECTIONS = 20;
+
+    /** The number of bytes sent per connection. */
+    private static final int SIZE = 300000;
+
+    /** Test case for forwarding concurrent half-closed connections.
+     * The target only answers after the client shut down its output, then echoes everything.
+     * @throws Exception (unexpected)
+     */
+    @Test
+    public void testForward() throws Exception {
+        final ExecutorService executor = Executors.newCachedThreadPool();
+        final ServerSocket target = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        final List<SelectorForwarder.Connection> closed = new CopyOnWriteArrayList<SelectorForwarder.Connection>();
+        final SelectorForwarder forwarder = new SelectorForwarder(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), target.getLocalSocketAddress()) {
+            /** {@inheritDoc} */
+            @Override protected void connectionClosed(final Connection connection) {
+                closed.add(connection);
+            }
+        };
+        try {
+            forwarder.start();
+            executor.submit(new Callable<Void>() {
+                /** {@inheritDoc} */
+                public Void call() throws Exception {
+                    for (int i = 0; i < CONNECTIONS; i++) {
+                        final Socket socket = target.accept();
+                        executor.submit(new Callable<Void>() {
+                            /** {@inheritDoc} */
+                            public Void call() throws Exception {
+                                final byte[] data = readAll(socket.getInputStream());
+                                socket.getOutputStream().write(data);
+                                socket.close();
+                                return null;
+                            }
+                        });
+                    }
+                    return null;
+                }
+            });
+            final List<Future<byte[]>> results = new ArrayList<Future<byte[]>>();
+            for (int i = 0; i < CONNECTIONS; i++) {
+                final int seed = i;
+                results.add(executor.submit(new Callable<byte[]>() {
+                    /** {@inheritDoc} */
+                    public byte[] call() throws Exception {
+                        final Socket socket = new Socket();
+                        socket.connect(forwarder.getLocalAddress());
+                        final OutputStream out = socket.getOutputStream();
+                        out.write(createData(seed));
+                        socket.shutdownOutput();
+                        final byte[] data = readAll(socket.getInputStream());
+                        socket.close();
+                        return data;
+                    }
+                }));
+            }
+            for (int i = 0; i < CONNECTIONS; i++) {
+                Assert.assertTrue("Echoed data must equal sent data.", Arrays.equals(createData(i), results.get(i).get()));
+            }
+            for (int i = 0; i < 1000 && closed.size() < CONNECTIONS; i++) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals("All connections must be closed.", CONNECTIONS, closed.size());
+            for (final SelectorForwarder.Connection connection : closed) {
+                Assert.assertEquals("All bytes must be counted to target.", SIZE, connection.getBytesToTarget());
+                Assert.assertEquals("All bytes must be counted to client.", SIZE, connection.getBytesToClient());
+                Assert.assertTrue("Connection must be closed.", connection.isClosed());
+            }
+            Assert.assertTrue("No connections must be open.", forwarder.getConnections().isEmpty());
+        } finally {
+            forwarder.close();
+            target.close();
+            executor.shutdownNow();
+        }
+    }
+
+    /** Test case for a target which is not reachable.
+     * @throws Exception (unexpected)
+     */
+    @Test
+    public void testUnreachableTarget() throws Exception {
+        final ServerSocket unused = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        final InetSocketAddress targetAddress = (InetSocketAddress) unused.getLocalSocketAddress();
+        unused.close();
+        final SelectorForwarder forwarder = new SelectorForwarder(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), targetAddress);
+        try {
+            forwarder.start();
+            final Socket socket = new Socket();
+            socket.connect(forwarder.getLocalAddress());
+            socket.setSoTimeout(10000);
+            try {
+                Assert.assertEquals("Connection must be closed.", -1, socket.getInputStream().read());
+            } catch (final IOException ignore) {
+                // connection reset is fine, too.
+            }
+            socket.close();
+        } finally {
+            forwarder.close();
+        }
+    }
+
+    /** Test case for targets given by host name, which are resolved for every connection.
+     * A host name which cannot be resolved only closes the connection, the forwarder keeps running.
+     * @throws Exception (unexpected)
+     */
+    @Test
+    public void testUnresolvedTarget() throws Exception {
+        final ServerSocket target = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        final SelectorForwarder forwarder = new SelectorForwarder(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), InetSocketAddress.createUnresolved(InetAddress.getLoopbackAddress().getHostAddress(), target.getLocalPort()));
+        final SelectorForwarder unknownForwarder = new SelectorForwarder(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), InetSocketAddress.createUnresolved("unknown.invalid", 1));
+        try {
+            forwarder.start();
+            unknownForwarder.start();
+            for (int i = 0; i < 2; i++) {
+                final Socket socket = new Socket();
+                socket.connect(forwarder.getLocalAddress());
+                final Socket accepted = target.accept();
+                accepted.getOutputStream().write(42);
+                accepted.close();
+                socket.setSoTimeout(10000);
+                Assert.assertEquals("Data must be forwarded to the resolved target.", 42, socket.getInputStream().read());
+                socket.close();
+                final Socket unknownSocket = new Socket();
+                unknownSocket.connect(unknownForwarder.getLocalAddress());
+                unknownSocket.setSoTimeout(10000);
+                try {
+                    Assert.assertEquals("Connection to an unknown host must be closed.", -1, unknownSocket.getInputStream().read());
+                } catch (final IOException ignore) {
+                    // connection reset is fine, too.
+                }
+                unknownSocket.close();
+            }
+        } finally {
+            forwarder.close();
+            unknownForwarder.close();
+            target.close();
+        }
+    }
+
+    /** Creates test data.
+     * @param seed Seed for the data.
+     * @return Test data of {@link #SIZE} bytes.
+     */
+    private static byte[] createData(final int seed) {
+        final byte[] data = new byte[SIZE];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 7 + seed);
+        }
+        return data;
+    }
+
+    /** Reads all bytes of an InputStream.
+     * @param in InputStream to read.
+     * @return All bytes of <var>in</var>.
+     * @throws IOException in case of I/O problems.
+     */
+    private static byte[] readAll(final InputStream in) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buf = new byte[4096];
+        for (int n; (n = in.read(buf)) != -1;) {
+            out.write(buf, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package test.net.sf.japi.tools.startupBenchmark;
+
+import java.io.IOException;
+import net.sf.japi.tools.startupBenchmark.StartupBenchmark;
+import net.sf.japi.tools.todoScanner.TodoScanner;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link StartupBenchmark}.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ */
+public class StartupBenchmarkTest {
+
+    /**
+     * Tests that measuring a tool works.
+     * @throws Exception (unexpected)
+     */
+    @Test
+    public void testMeasure() throws Exception {
+        final StartupBenchmark benchmark = new StartupBenchmark();
+        benchmark.setRuns(1);
+        final StartupBenchmark.Measurement measurement = benchmark.measure(TodoScanner.class.getName());
+        Assert.assertTrue("Time to first output must be positive.", measurement.getTimeToFirstOutput() > 0);
+        Assert.assertTrue("Time to first output must not exceed total time.", measurement.getTimeToFirstOutput() <= measurement.getTotalTime());
+    }
+
+    /**
+     * Tests that a tool which exits with an error is not measured.
+     * @throws Exception (expected)
+     */
+    @Test(expected = IOException.class)
+    public void testMeasureFailure() throws Exception {
+        final StartupBenchmark benchmark = new StartupBenchmark();
+        benchmark.setRuns(1);
+        benchmark.measure("no.such.Tool");
+    }
+
+    /** Tests that invalid numbers of runs are rejected. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRuns() {
+        new StartupBenchmark().setRuns(0);
+    }
+
+}
@@ -19,6 +19,8 @@
 package test.net.sf.japi.util;
 
 import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
 import net.sf.japi.util.Arrays2;
 import net.sf.japi.util.filter.Filter;
 import org.junit.Assert;
@@ -207,4 +209,96 @@ public class Arrays2Test {
         Assert.assertEquals("For an element not found, linearSearch must return -1.", -1, Arrays2.linearSearch(4, data));
     }
 
+    /** Test case for {@link Arrays2#min(int[])}, {@link Arrays2#max(int[])} and {@link Arrays2#sum(int[])}. */
+    @Test
+    public void testMinMaxSum() {
+        final int[] data = { 3, -7, Integer.MAX_VALUE, 5, Integer.MAX_VALUE };
+        Assert.assertEquals("min must return the minimum.", -7, Arrays2.min(data));
+        Assert.assertEquals("max must return the maximum.", Integer.MAX_VALUE, Arrays2.max(data));
+        Assert.assertEquals("sum must not overflow.", 2L * Integer.MAX_VALUE + 1, Arrays2.sum(data));
+        Assert.assertEquals("min must respect ranges.", 5, Arrays2.min(data, 3, 5));
+        Assert.assertEquals("sum of an empty range must be 0.", 0L, Arrays2.sum(data, 2, 2));
+        final byte[] bytes = { -128, 127, 0 };
+        Assert.assertEquals("min must return the minimum.", (byte) -128, Arrays2.min(bytes));
+        Assert.assertEquals("max must return the maximum.", (byte) 127, Arrays2.max(bytes));
+        Assert.assertEquals("sum must return the sum.", -1L, Arrays2.sum(bytes));
+        final double[] doubles = { 1.5, -2.5, 4.0 };
+        Assert.assertEquals("min must return the minimum.", -2.5, Arrays2.min(doubles), 0.0);
+        Assert.assertEquals("max must return the maximum.", 4.0, Arrays2.max(doubles), 0.0);
+        Assert.assertEquals("sum must return the sum.", 3.0, Arrays2.sum(doubles), 0.0);
+    }
+
+    /** Test case for {@link Arrays2#min(long[])} with an empty array. */
+    @Test(expected = NoSuchElementException.class)
+    public void testMinEmpty() {
+        Arrays2.min(new long[0]);
+    }
+
+    /** Test case for {@link Arrays2#parallelConcat(int[][])} with arrays large enough for parallel copying. */
+    @Test
+    public void testParallelConcatInt() {
+        final int[] data1 = new int[100000];
+        final int[] data2 = new int[0];
+        final int[] data3 = new int[300001];
+        for (int i = 0; i < data1.length; i++) {
+            data1[i] = i;
+        }
+        for (int i = 0; i < data3.length; i++) {
+            data3[i] = -i;
+        }
+        Assert.assertTrue("Parallel concatenation must equal sequential concatenation", Arrays.equals(Arrays2.concat(data1, data2, data3), Arrays2.parallelConcat(data1, data2, data3)));
+    }
+
+    /** Test case for {@link Arrays2#parallelConcat(long[][])}, {@link Arrays2#parallelConcat(double[][])} and {@link Arrays2#parallelConcat(byte[][])} with arrays small enough for sequential copying. */
+    @Test
+    public void testParallelConcatSmall() {
+        Assert.assertTrue("Concatenation must correctly concatenate", Arrays.equals(new long[] {1, 2, 3, 4}, Arrays2.parallelConcat(new long[] {1, 2}, new long[0], new long[] {3, 4})));
+        Assert.assertTrue("Concatenation must correctly concatenate", Arrays.equals(new double[] {1, 2, 3}, Arrays2.parallelConcat(new double[] {1}, new double[] {2, 3})));
+        Assert.assertTrue("Concatenation must correctly concatenate", Arrays.equals(new byte[] {1, 2, 3}, Arrays2.parallelConcat(new byte[0], new byte[] {1, 2, 3})));
+        Assert.assertEquals("Concatenating empty arrays must return an empty array", 0, Arrays2.parallelConcat(new int[0], new int[0]).length);
+    }
+
+    /** Test case for {@link Arrays2#parallelConcat(Object[][])}. */
+    @Test
+    public void testParallelConcatObject() {
+        final String[] concatExpected = {"1", "2", "3", "4", "5", "6", "7"};
+        final String[] concatResult = Arrays2.parallelConcat(new String[] {"1", "2", "3"}, new String[] {"4", "5", "6", "7"});
+        Assert.assertTrue("Concatenation must correctly concatenate", Arrays.equals(concatExpected, concatResult));
+    }
+
+    /** Test case for {@link Arrays2#parallelFilter(Filter, Object[])} and {@link Arrays2#parallelCount(Filter, Object[])}. */
+    @Test
+    public void testParallelFilterAndCount() {
+        final Integer[] data = new Integer[200000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = i;
+        }
+        final Filter<Integer> filter = new Filter<Integer>() {
+            public boolean accept(final Integer o) {
+                return o % 3 == 0;
+            }
+        };
+        final Integer[] expected = Arrays2.filter(filter, data);
+        Assert.assertTrue("Parallel filter must equal sequential filter.", Arrays.equals(expected, Arrays2.parallelFilter(filter, data)));
+        Assert.assertEquals("Parallel count must count correctly.", expected.length, Arrays2.parallelCount(filter, data));
+    }
+
+    /** Test case for {@link Arrays2#parallelShuffle(int[], SplittableRandom)}. */
+    @Test
+    public void testParallelShuffle() {
+        for (final int length : new int[] {0, 1, 1000, 200000}) {
+            final int[] data = new int[length];
+            for (int i = 0; i < length; i++) {
+                data[i] = i;
+            }
+            final int[] shuffled = data.clone();
+            Arrays2.parallelShuffle(shuffled, new SplittableRandom(length));
+            if (length > 1) {
+                Assert.assertFalse("Shuffle must change the order.", Arrays.equals(data, shuffled));
+            }
+            Arrays.sort(shuffled);
+            Assert.assertTrue("Shuffle must be a permutation.", Arrays.equals(data, shuffled));
+        }
+    }
+
 } // class Arrays2Test
@@ -18,11 +18,15 @@
 
 package test.net.sf.japi.util;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Set;
 import net.sf.japi.util.Collections2;
+import net.sf.japi.util.filter.Filter;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -31,6 +35,14 @@ import org.junit.Test;
  */
 public class Collections2Test {
 
+    /** Filter that accepts even numbers. */
+    private static final Filter<Integer> EVEN = new Filter<Integer>() {
+        /** {@inheritDoc} */
+        public boolean accept(final Integer o) {
+            return o % 2 == 0;
+        }
+    };
+
     /** Test case for {@link Collections2#collect(Collection, Iterator)}. */
     @Test
     public void testCollect() {
@@ -39,4 +51,85 @@ public class Collections2Test {
         Assert.assertEquals("Collect must collect all elements.", original, collected);
     }
 
+    /** Test case for {@link Collections2#filterToList(Collection, Filter)} and {@link Collections2#filterToSet(Collection, Filter)}. */
+    @Test
+    public void testFilterToListAndSet() {
+        final List<Integer> original = Arrays.asList(1, 2, 3, 4, 4);
+        Assert.assertEquals("filterToList must keep accepted elements in order.", Arrays.asList(2, 4, 4), Collections2.filterToList(original, EVEN));
+        Assert.assertEquals("filterToSet must keep distinct accepted elements in order.", Arrays.asList(2, 4), new ArrayList<Integer>(Collections2.filterToSet(original, EVEN)));
+        Assert.assertEquals("Original must remain unmodified.", Arrays.asList(1, 2, 3, 4, 4), original);
+    }
+
+    /** Test case for {@link Collections2#removeFilter(Collection, Filter)}. */
+    @Test
+    public void testRemoveFilter() {
+        final List<Integer> arrayList = new ArrayList<Integer>(Arrays.asList(1, 2, 3, 4, 5, 6));
+        Assert.assertEquals("removeFilter must return the number of removed elements.", 3, Collections2.removeFilter(arrayList, EVEN));
+        Assert.assertEquals("removeFilter must compact RandomAccess lists.", Arrays.asList(2, 4, 6), arrayList);
+        final List<Integer> linkedList = new LinkedList<Integer>(Arrays.asList(1, 2, 3, 4, 5, 6));
+        Assert.assertEquals("removeFilter must return the number of removed elements.", 3, Collections2.removeFilter(linkedList, EVEN));
+        Assert.assertEquals("removeFilter must filter other collections.", Arrays.asList(2, 4, 6), linkedList);
+        final Set<Integer> set = new HashSet<Integer>(Arrays.asList(1, 2, 3));
+        Assert.assertEquals("removeFilter must return the number of removed elements.", 2, Collections2.removeFilter(set, EVEN));
+        Assert.assertEquals("removeFilter must filter sets.", Collections.singleton(2), set);
+    }
+
+    /** Test case for {@link Collections2#removeFilter(Collection, Filter)} with a filter that throws. */
+    @Test
+    public void testRemoveFilterException() {
+        final List<Integer> list = new ArrayList<Integer>(Arrays.asList(1, 2, 3, 4, 5, 6));
+        try {
+            Collections2.removeFilter(list, new Filter<Integer>() {
+                /** {@inheritDoc} */
+                public boolean accept(final Integer o) {
+                    if (o == 4) {
+                        throw new IllegalStateException();
+                    }
+                    return o % 2 == 0;
+                }
+            });
+            Assert.fail("Exception of filter must be propagated.");
+        } catch (final IllegalStateException ignore) {
+            // expected
+        }
+        Assert.assertEquals("Tested elements must be filtered, untested elements must remain.", Arrays.asList(2, 4, 5, 6), list);
+    }
+
+    /** Test case for {@link Collections2#removeFilter(Collection, Filter)} with a list which cannot remove elements. */
+    @Test
+    public void testRemoveFilterFixedSize() {
+        final List<Integer> list = Arrays.asList(1, 2, 3, 4, 5, 6);
+        try {
+            Collections2.removeFilter(list, EVEN);
+            Assert.fail("Removing from a fixed-size list must fail.");
+        } catch (final UnsupportedOperationException ignore) {
+            // expected
+        }
+        Assert.assertEquals("Fixed-size list must remain unmodified.", Arrays.asList(1, 2, 3, 4, 5, 6), list);
+        Assert.assertEquals("Nothing must be removed if all elements are accepted.", 0, Collections2.removeFilter(Arrays.asList(2, 4), EVEN));
+    }
+
+    /** Test case for {@link Collections2#removeFilter(Collection, Filter)} removing single and adjacent elements at the start, in the middle and at the end. */
+    @Test
+    public void testRemoveFilterPositions() {
+        final List<Integer> list = new ArrayList<Integer>(Arrays.asList(1, 2, 3, 5, 4, 7, 6, 8, 9));
+        Assert.assertEquals("removeFilter must return the number of removed elements.", 5, Collections2.removeFilter(list, EVEN));
+        Assert.assertEquals("removeFilter must keep accepted elements in order.", Arrays.asList(2, 4, 6, 8), list);
+        final List<Integer> single = new ArrayList<Integer>(Arrays.asList(2, 4, 6, 7, 8));
+        Assert.assertEquals("removeFilter must return the number of removed elements.", 1, Collections2.removeFilter(single, EVEN));
+        Assert.assertEquals("removeFilter must keep accepted elements in order.", Arrays.asList(2, 4, 6, 8), single);
+    }
+
+    /** Test case for {@link Collections2#parallelFilterToList(Collection, Filter)}. */
+    @Test
+    public void testParallelFilterToList() {
+        final List<Integer> original = new ArrayList<Integer>();
+        for (int i = 0; i < 200000; i++) {
+            original.add(i);
+        }
+        final List<Integer> filtered = Collections2.parallelFilterToList(original, EVEN);
+        Assert.assertEquals("parallelFilterToList must keep all accepted elements.", 100000, filtered.size());
+        Assert.assertEquals("parallelFilterToList must keep all accepted elements in order.", Collections2.filterToList(original, EVEN), filtered);
+    }
+
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package test.net.sf.japi.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+import net.sf.japi.util.ConcurrentCounter;
+import net.sf.japi.util.ConcurrentMapWithDefault;
+import net.sf.japi.util.HashMapWithDefault;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Test for {@link ConcurrentMapWithDefault}, {@link ConcurrentCounter} and {@link HashMapWithDefault}.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ */
+public class ConcurrentMapWithDefaultTest {
+
+    /** Test case for {@link HashMapWithDefault#get(Object)}. */
+    @Test
+    public void testHashMapWithDefault() {
+        final HashMapWithDefault<String, String> map = new HashMapWithDefault<String, String>("default");
+        map.put("foo", "bar");
+        map.put("null", null);
+        Assert.assertEquals("Mapped key must return its value.", "bar", map.get("foo"));
+        Assert.assertNull("Key mapped to null must return null.", map.get("null"));
+        Assert.assertEquals("Unmapped key must return default.", "default", map.get("buzz"));
+    }
+
+    /** Test case for a constant default value. */
+    @Test
+    public void testConstantDefault() {
+        final ConcurrentMapWithDefault<String, String> map = new ConcurrentMapWithDefault<String, String>("default");
+        map.put("foo", "bar");
+        Assert.assertEquals("Mapped key must return its value.", "bar", map.get("foo"));
+        Assert.assertEquals("Unmapped key must return default.", "default", map.get("buzz"));
+        Assert.assertFalse("Default must not be inserted.", map.containsKey("buzz"));
+    }
+
+    /** Test case for inserting default values on miss. */
+    @Test
+    public void testInsertOnMiss() {
+        final ConcurrentMapWithDefault<String, List<String>> map = new ConcurrentMapWithDefault<String, List<String>>(new Supplier<List<String>>() {
+            /** {@inheritDoc} */
+            public List<String> get() {
+                return new ArrayList<String>();
+            }
+        }, true);
+        map.get("foo").add("bar");
+        map.get("foo").add("buzz");
+        Assert.assertEquals("Inserted default must be returned on subsequent gets.", 2, map.get("foo").size());
+        Assert.assertEquals("Only accessed keys must be inserted.", 1, map.size());
+        Assert.assertNull("getIfPresent must not insert.", map.getIfPresent("qux"));
+    }
+
+    /** Test case for counting concurrently with {@link ConcurrentCounter}.
+     * @throws InterruptedException (unexpected)
+     */
+    @Test
+    public void testConcurrentCounter() throws InterruptedException {
+        final ConcurrentCounter<Integer> counter = new ConcurrentCounter<Integer>();
+        final int threadCount = 4;
+        final CountDownLatch done = new CountDownLatch(threadCount);
+        for (int t = 0; t < threadCount; t++) {
+            new Thread() {
+                /** {@inheritDoc} */
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        counter.increment(i % 10);
+                    }
+                    done.countDown();
+                }
+            }.start();
+        }
+        done.await();
+        Assert.assertEquals("Each key must be counted by all threads.", 4000L, counter.get(3));
+        Assert.assertEquals("Unmapped key must have count 0.", 0L, counter.get(42));
+        Assert.assertEquals("Sum must be the number of increments.", 40000L, counter.sum());
+        Assert.assertEquals("Snapshot must contain all keys.", 10, counter.snapshot().size());
+        counter.add(3, -4000L);
+        Assert.assertEquals("Remove must return the count.", 0L, counter.remove(3));
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package test.net.sf.japi.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import net.sf.japi.util.EndianConverter;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Test for {@link EndianConverter}.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ */
+public class EndianConverterTest {
+
+    /** Test case for converting single values. */
+    @Test
+    public void testSwapEndianessValues() {
+        Assert.assertEquals("long must be converted.", 0x0807060504030201L, EndianConverter.swapEndianess(0x0102030405060708L));
+        Assert.assertEquals("int must be converted.", 0x04030201, EndianConverter.swapEndianess(0x01020304));
+        Assert.assertEquals("short must be converted.", (short) 0x0201, EndianConverter.swapEndianess((short) 0x0102));
+        Assert.assertEquals("char must be converted.", '\u0201', EndianConverter.swapEndianess('\u0102'));
+    }
+
+    /** Test case for converting arrays in place. */
+    @Test
+    public void testSwapEndianessArrays() {
+        final int[] ints = { 0x01020304, 0x05060708, 0x090A0B0C };
+        EndianConverter.swapEndianess(ints, 1, 3);
+        Assert.assertArrayEquals("Range of ints must be converted.", new int[] { 0x01020304, 0x08070605, 0x0C0B0A09 }, ints);
+        final double[] doubles = { 1.5, -2.25 };
+        EndianConverter.swapEndianess(doubles);
+        EndianConverter.swapEndianess(doubles);
+        Assert.assertTrue("Converting doubles twice must restore them.", Arrays.equals(new double[] { 1.5, -2.25 }, doubles));
+    }
+
+    /** Test case for converting bytes and ByteBuffers in place. */
+    @Test
+    public void testSwapEndianessBytes() {
+        final byte[] bytes = { 1, 2, 3, 4, 5, 6 };
+        EndianConverter.swapEndianess(bytes, 0, 6, 2);
+        Assert.assertArrayEquals("Shorts must be converted.", new byte[] { 2, 1, 4, 3, 6, 5 }, bytes);
+        EndianConverter.swapEndianess(bytes, 0, 6, 3);
+        Assert.assertArrayEquals("Elements of odd size must be converted.", new byte[] { 4, 1, 2, 5, 6, 3 }, bytes);
+        final ByteBuffer direct = ByteBuffer.allocateDirect(16);
+        direct.putLong(0, 0x0102030405060708L).putLong(8, 0x1112131415161718L);
+        direct.position(8);
+        EndianConverter.swapEndianess(direct, 8);
+        Assert.assertEquals("Bytes before position must not be converted.", 0x0102030405060708L, direct.getLong(0));
+        Assert.assertEquals("Bytes after position must be converted.", 0x1817161514131211L, direct.getLong(8));
+    }
+
+    /** Test case for transferring arrays to and from ByteBuffers. */
+    @Test
+    public void testPutGet() {
+        final ByteBuffer buffer = ByteBuffer.allocate(12);
+        EndianConverter.put(buffer, ByteOrder.LITTLE_ENDIAN, new int[] { 0, 0x01020304, 0x05060708 }, 1, 2);
+        Assert.assertEquals("Position must be advanced.", 8, buffer.position());
+        Assert.assertEquals("Byte order of buffer must not be changed.", ByteOrder.BIG_ENDIAN, buffer.order());
+        Assert.assertEquals("Ints must be written in little endian.", 0x04030201, buffer.getInt(0));
+        buffer.flip();
+        final long[] longs = new long[1];
+        EndianConverter.get(buffer, ByteOrder.LITTLE_ENDIAN, longs, 0, 1);
+        Assert.assertEquals("Long must be read in little endian.", 0x0506070801020304L, longs[0]);
+        Assert.assertEquals("Position must be advanced.", 8, buffer.position());
+    }
+
+    /** Test case for rejecting incomplete elements. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSwapEndianessIncomplete() {
+        EndianConverter.swapEndianess(new byte[6], 0, 6, 4);
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package test.net.sf.japi.util.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import net.sf.japi.util.filter.CompiledFilter;
+import net.sf.japi.util.filter.Filter;
+import net.sf.japi.util.filter.FilterCompiler;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Test for {@link FilterCompiler}.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @since 0.1
+ */
+public class FilterCompilerTest {
+
+    /** Creates a filter that accepts multiples of a number and counts its invocations.
+     * @param divisor Number of which multiples are accepted
+     * @param counter Array whose first element is incremented on each invocation
+     * @return Filter that accepts multiples of <var>divisor</var>
+     */
+    private static Filter<Integer> multipleOf(final int divisor, final int[] counter) {
+        return new Filter<Integer>() {
+            /** {@inheritDoc} */
+            public boolean accept(final Integer o) {
+                counter[0]++;
+                return o % divisor == 0;
+            }
+        };
+    }
+
+    /** Creates a list of the numbers from 0 (inclusive) to <var>n</var> (exclusive).
+     * @param n Number of numbers
+     * @return List of the numbers from 0 to <var>n</var>
+     */
+    private static List<Integer> range(final int n) {
+        final List<Integer> list = new ArrayList<Integer>(n);
+        for (int i = 0; i < n; i++) {
+            list.add(i);
+        }
+        return list;
+    }
+
+    /** Tests that a compiled filter accepts the same elements as the interpreted filter. */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testCompileIsEquivalent() {
+        final int[] counter = new int[1];
+        final Filter<Integer> filter = Filter.Factory.or(
+                Filter.Factory.and(multipleOf(2, counter), Filter.Factory.and(multipleOf(3, counter), Filter.Factory.not(multipleOf(5, counter)))),
+                Filter.Factory.not(Filter.Factory.not(multipleOf(7, counter))),
+                Filter.Factory.or(Arrays.asList(multipleOf(11, counter), Filter.Factory.contained(Arrays.asList(1, 13)))));
+        final List<Integer> sample = range(1000);
+        final CompiledFilter<Integer> compiled = FilterCompiler.compile(filter);
+        final CompiledFilter<Integer> reordered = FilterCompiler.compile(filter, sample);
+        for (final Integer i : range(2000)) {
+            final boolean expected = i % 6 == 0 && i % 5 != 0 || i % 7 == 0 || i % 11 == 0 || i == 1 || i == 13;
+            Assert.assertEquals("Interpreted filter must be correct for " + i, expected, filter.accept(i));
+            Assert.assertEquals("Compiled filter must be correct for " + i, expected, compiled.accept(i));
+            Assert.assertEquals("Reordered filter must be correct for " + i, expected, reordered.test(i));
+        }
+    }
+
+    /** Tests that operands are reordered so that the most selective operand is evaluated first. */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testReorder() {
+        final int[] rarelyRejects = new int[1];
+        final int[] oftenRejects = new int[1];
+        final Filter<Integer> filter = Filter.Factory.and(Filter.Factory.not(multipleOf(100, rarelyRejects)), multipleOf(50, oftenRejects));
+        final CompiledFilter<Integer> compiled = FilterCompiler.compile(filter, range(1000));
+        rarelyRejects[0] = 0;
+        oftenRejects[0] = 0;
+        for (final Integer i : range(1000)) {
+            compiled.test(i);
+        }
+        Assert.assertEquals("Often rejecting operand must be evaluated for every element.", 1000, oftenRejects[0]);
+        Assert.assertEquals("Rarely rejecting operand must only be evaluated for elements accepted by the other operand.", 20, rarelyRejects[0]);
+    }
+
+    /** Tests that compiling takes a snapshot of contained collections. */
+    @Test
+    public void testContainedSnapshot() {
+        final List<String> list = new ArrayList<String>(Arrays.asList("foo", "bar"));
+        final CompiledFilter<String> compiled = FilterCompiler.compile(Filter.Factory.contained(list));
+        list.add("buzz");
+        Assert.assertTrue("Compiled filter must accept contained elements.", compiled.accept("foo"));
+        Assert.assertFalse("Compiled filter must not see elements added after compilation.", compiled.accept("buzz"));
+        Assert.assertFalse("Compiled filter must reject other elements.", compiled.accept("qux"));
+    }
+
+    /** Tests that compiling takes a snapshot of contained sets, and that sorted sets keep their comparator. */
+    @Test
+    public void testContainedSetSnapshot() {
+        final Set<String> set = new HashSet<String>(Arrays.asList("foo", "bar"));
+        final CompiledFilter<String> compiled = FilterCompiler.compile(Filter.Factory.contained(set));
+        set.add("buzz");
+        set.remove("foo");
+        Assert.assertTrue("Compiled filter must accept elements removed after compilation.", compiled.accept("foo"));
+        Assert.assertFalse("Compiled filter must not see elements added after compilation.", compiled.accept("buzz"));
+        final SortedSet<String> sortedSet = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+        sortedSet.add("Foo");
+        final CompiledFilter<String> compiledSorted = FilterCompiler.compile(Filter.Factory.contained(sortedSet));
+        sortedSet.clear();
+        Assert.assertTrue("Compiled filter must use the comparator of a sorted set.", compiledSorted.accept("FOO"));
+    }
+
+} // class FilterCompilerTest
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package test.net.sf.japi.util.filter.file;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+import net.sf.japi.util.filter.file.FileNameMatcher;
+import net.sf.japi.util.filter.file.FileNameRule;
+import net.sf.japi.util.filter.file.GlobFileFilter;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Test for {@link FileNameMatcher}.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ */
+public class FileNameMatcherTest {
+
+    /** Test case for matching each kind of rule. */
+    @Test
+    public void testMatch() {
+        final FileNameMatcher matcher = new FileNameMatcher(false,
+                FileNameRule.name("build.xml"),
+                FileNameRule.glob("*Test.java").exclude(),
+                FileNameRule.ending(".java"),
+                FileNameRule.glob("README*"),
+                FileNameRule.glob("*.tar.?z"),
+                FileNameRule.regex("(?i)[a-z]+\\.txt"),
+                FileNameRule.regex("(.)\\1\\.dat"),
+                FileNameRule.glob("*"));
+        Assert.assertEquals("Name must match.", 0, matcher.match("build.xml"));
+        Assert.assertEquals("Earlier glob must win over ending.", 1, matcher.match("FooTest.java"));
+        Assert.assertEquals("Ending must match.", 2, matcher.match("Foo.java"));
+        Assert.assertEquals("Prefix glob must match.", 3, matcher.match("README.md"));
+        Assert.assertEquals("Wildcard glob must match.", 4, matcher.match("x.tar.gz"));
+        Assert.assertEquals("Joined regex must match.", 5, matcher.match("NOTES.txt"));
+        Assert.assertEquals("Separate regex must match.", 6, matcher.match("aa.dat"));
+        Assert.assertEquals("Catch-all glob must match.", 7, matcher.match("ab.dat"));
+        Assert.assertTrue("Exclude rule must be reported as such.", matcher.getMatchingRule("FooTest.java").isExclude());
+    }
+
+    /** Test case for names which match no rule. */
+    @Test
+    public void testNoMatch() {
+        final FileNameMatcher matcher = new FileNameMatcher(false, FileNameRule.ending(".java"), FileNameRule.glob("a?c*d"));
+        Assert.assertEquals("Unmatched name must return -1.", -1, matcher.match("Foo.txt"));
+        Assert.assertEquals("Unmatched name must return -1.", -1, matcher.match("acd"));
+        Assert.assertNull("Unmatched name must have no rule.", matcher.getMatchingRule("Foo.JAVA"));
+        Assert.assertEquals("Case must be ignored if requested.", 0, new FileNameMatcher(true, FileNameRule.ending(".java")).match("Foo.JAVA"));
+    }
+
+    /** Test case comparing the combined matcher against matching each glob and regular expression separately. */
+    @Test
+    public void testMatchesSeparateMatching() {
+        final Random random = new Random(42L);
+        for (int round = 0; round < 50; round++) {
+            final FileNameRule[] rules = new FileNameRule[1 + random.nextInt(80)];
+            final Pattern[] patterns = new Pattern[rules.length];
+            for (int i = 0; i < rules.length; i++) {
+                final String pattern = randomString(random, "ab.*?", 6);
+                if (random.nextInt(4) == 0) {
+                    final String regex = pattern.replace(".", "\\.").replace("*", ".*").replace("?", "b+");
+                    rules[i] = FileNameRule.regex(regex);
+                    patterns[i] = Pattern.compile(regex);
+                } else {
+                    rules[i] = FileNameRule.glob(pattern);
+                    patterns[i] = Pattern.compile(GlobFileFilter.createPatternForGlob(pattern));
+                }
+            }
+            final FileNameMatcher matcher = new FileNameMatcher(false, rules);
+            for (int n = 0; n < 200; n++) {
+                final String name = randomString(random, "ab.", 8);
+                int expected = -1;
+                for (int i = 0; i < patterns.length && expected == -1; i++) {
+                    if (patterns[i].matcher(name).matches()) {
+                        expected = i;
+                    }
+                }
+                Assert.assertEquals("Rule for " + name, expected, matcher.match(name));
+            }
+        }
+    }
+
+    /** Creates a random string.
+     * @param random Random to use
+     * @param alphabet Characters to use
+     * @param maxLength Maximum length of the string
+     * @return random string of at most <var>maxLength</var> characters from <var>alphabet</var>
+     */
+    private static String randomString(final Random random, final String alphabet, final int maxLength) {
+        final StringBuilder sb = new StringBuilder();
+        for (int length = random.nextInt(maxLength + 1); length > 0; length--) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+}
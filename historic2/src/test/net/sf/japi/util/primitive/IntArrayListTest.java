@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package test.net.sf.japi.util.primitive;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import net.sf.japi.util.primitive.IntArrayList;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Test for {@link IntArrayList}.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ */
+public class IntArrayListTest {
+
+    /** Test case for adding, getting and removing elements. */
+    @Test
+    public void testAddGetRemove() {
+        final IntArrayList testling = new IntArrayList();
+        final List<Integer> expected = new ArrayList<Integer>();
+        final Random rnd = new Random(0);
+        for (int i = 0; i < 1000; i++) {
+            final int value = rnd.nextInt(100);
+            testling.add(value);
+            expected.add(value);
+        }
+        testling.add(0, -1);
+        expected.add(0, -1);
+        Assert.assertEquals("removeAt() must return the removed element.", (int) expected.remove(500), testling.removeAt(500));
+        Assert.assertEquals("removeElement() must remove the first occurrence.", expected.remove(Integer.valueOf(42)), testling.removeElement(42));
+        Assert.assertEquals("Size must match.", expected.size(), testling.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals("Elements must match.", (int) expected.get(i), testling.get(i));
+        }
+        Assert.assertEquals("indexOf() must find the first occurrence.", expected.indexOf(17), testling.indexOf(17));
+        Assert.assertEquals("indexOf() must not find missing elements.", -1, testling.indexOf(100));
+        Assert.assertEquals("freq() must count all occurrences.", countOccurrences(expected, 3), testling.freq(3));
+    }
+
+    /** Test case for sorting and binary search. */
+    @Test
+    public void testSortAndBinarySearch() {
+        final IntArrayList testling = new IntArrayList(5, 3, 9, 1);
+        testling.sort();
+        Assert.assertArrayEquals("sort() must sort the elements.", new int[] {1, 3, 5, 9}, testling.toArray());
+        Assert.assertEquals("binarySearch() must find existing elements.", 2, testling.binarySearch(5));
+        Assert.assertEquals("binarySearch() must return the insertion point for missing elements.", -3, testling.binarySearch(4));
+    }
+
+    /** Test case for {@link IntArrayList#get(int)} with an index beyond the size.
+     * The capacity may be larger than the size, but elements beyond the size must not be accessible.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetBeyondSize() {
+        final IntArrayList testling = new IntArrayList(10);
+        testling.add(1);
+        testling.get(1);
+    }
+
+    /** Test case for {@link IntArrayList#equals(Object)} and {@link IntArrayList#hashCode()}. */
+    @Test
+    public void testEqualsAndHashCode() {
+        final IntArrayList list1 = new IntArrayList(1, 2, 3);
+        final IntArrayList list2 = new IntArrayList(100);
+        list2.addAll(1, 2, 3);
+        Assert.assertEquals("Lists with equal elements must be equal.", list1, list2);
+        Assert.assertEquals("Equal lists must have equal hash codes.", list1.hashCode(), list2.hashCode());
+        Assert.assertEquals("hashCode() must be compatible with List.hashCode().", Arrays.asList(1, 2, 3).hashCode(), list1.hashCode());
+        Assert.assertEquals("[1, 2, 3]", list1.toString());
+    }
+
+    /** Counts the occurrences of a value in a list.
+     * @param list List to count in.
+     * @param value Value to count.
+     * @return Number of occurrences of <var>value</var> in <var>list</var>.
+     */
+    private static int countOccurrences(final List<Integer> list, final int value) {
+        int count = 0;
+        for (final int element : list) {
+            if (element == value) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+} // class IntArrayListTest
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package test.net.sf.japi.util.primitive;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import net.sf.japi.util.primitive.IntHashSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Test for {@link IntHashSet}.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ */
+public class IntHashSetTest {
+
+    /** Test case for random operations compared with a {@link HashSet}. */
+    @Test
+    public void testRandomSetOperations() {
+        final IntHashSet testling = new IntHashSet();
+        final Set<Integer> expected = new HashSet<Integer>();
+        final Random rnd = new Random(0);
+        for (int i = 0; i < 100000; i++) {
+            final int element = rnd.nextInt(1000) - 500;
+            switch (rnd.nextInt(3)) {
+            case 0:
+                Assert.assertEquals("add() must report changes.", expected.add(element), testling.add(element));
+                break;
+            case 1:
+                Assert.assertEquals("remove() must report changes.", expected.remove(element), testling.remove(element));
+                break;
+            default:
+                Assert.assertEquals("contains() must match.", expected.contains(element), testling.contains(element));
+            }
+            Assert.assertEquals("Size must match.", expected.size(), testling.size());
+        }
+        for (final int element : testling.toArray()) {
+            Assert.assertTrue("toArray() must only return elements.", expected.contains(element));
+        }
+    }
+
+} // class IntHashSetTest
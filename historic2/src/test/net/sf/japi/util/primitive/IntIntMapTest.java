@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package test.net.sf.japi.util.primitive;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import net.sf.japi.util.primitive.IntIntMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Test for {@link IntIntMap}.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ */
+public class IntIntMapTest {
+
+    /** Test case for random operations compared with a {@link HashMap}. */
+    @Test
+    public void testRandomOperations() {
+        final IntIntMap testling = new IntIntMap(0, -1);
+        final Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+        final Random rnd = new Random(0);
+        for (int i = 0; i < 100000; i++) {
+            final int key = rnd.nextInt(1000) - 500;
+            final int value = rnd.nextInt();
+            switch (rnd.nextInt(3)) {
+            case 0:
+                Assert.assertEquals("put() must return the previous value.", valueOf(expected.put(key, value)), testling.put(key, value));
+                break;
+            case 1:
+                Assert.assertEquals("remove() must return the previous value.", valueOf(expected.remove(key)), testling.remove(key));
+                break;
+            default:
+                Assert.assertEquals("get() must return the value.", valueOf(expected.get(key)), testling.get(key));
+                Assert.assertEquals("containsKey() must match.", expected.containsKey(key), testling.containsKey(key));
+            }
+            Assert.assertEquals("Size must match.", expected.size(), testling.size());
+        }
+        Assert.assertEquals("keys() must return all keys.", expected.size(), testling.keys().length);
+        for (final int key : testling.keys()) {
+            Assert.assertEquals("keys() must return mapped keys.", (int) expected.get(key), testling.get(key));
+        }
+    }
+
+    /** Test case for {@link IntIntMap#increment(int, int)}. */
+    @Test
+    public void testIncrement() {
+        final IntIntMap testling = new IntIntMap(0, -1);
+        Assert.assertEquals("increment() of an unmapped key must start at 0.", 1, testling.increment(0, 1));
+        Assert.assertEquals(3, testling.increment(0, 2));
+        Assert.assertEquals(5, testling.increment(7, 5));
+        Assert.assertEquals(3, testling.get(0));
+        Assert.assertEquals(5, testling.get(7));
+        Assert.assertEquals(-1, testling.get(8));
+        Assert.assertEquals(2, testling.size());
+    }
+
+    /** Converts an optional value of a {@link HashMap} into the value expected from an {@link IntIntMap} with missing value -1.
+     * @param value Value or <code>null</code>.
+     * @return <var>value</var> or -1 if <var>value</var> is <code>null</code>.
+     */
+    private static int valueOf(final Integer value) {
+        return value != null ? value : -1;
+    }
+
+} // class IntIntMapTest
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package test.net.sf.japi.util.primitive;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import net.sf.japi.util.primitive.LongObjectMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Test for {@link LongObjectMap}.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ */
+public class LongObjectMapTest {
+
+    /** Test case for random operations on a {@link LongObjectMap} compared with a {@link HashMap}. */
+    @Test
+    public void testRandomMapOperations() {
+        final LongObjectMap<String> testling = new LongObjectMap<String>();
+        final Map<Long, String> expected = new HashMap<Long, String>();
+        final Random rnd = new Random(0);
+        for (int i = 0; i < 100000; i++) {
+            final long key = (rnd.nextInt(1000) - 500) * 0x100000000L;
+            final String value = Integer.toString(rnd.nextInt());
+            switch (rnd.nextInt(3)) {
+            case 0:
+                Assert.assertEquals("put() must return the previous value.", expected.put(key, value), testling.put(key, value));
+                break;
+            case 1:
+                Assert.assertEquals("remove() must return the previous value.", expected.remove(key), testling.remove(key));
+                break;
+            default:
+                Assert.assertEquals("get() must return the value.", expected.get(key), testling.get(key));
+                Assert.assertEquals("containsKey() must match.", expected.containsKey(key), testling.containsKey(key));
+            }
+            Assert.assertEquals("Size must match.", expected.size(), testling.size());
+        }
+        testling.clear();
+        Assert.assertTrue("clear() must remove all mappings.", testling.isEmpty());
+        Assert.assertNull("clear() must remove all mappings.", testling.get(0L));
+    }
+
+} // class LongObjectMapTest
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package test.net.sf.japi.util.primitive;
+
+import java.util.Arrays;
+import java.util.Random;
+import net.sf.japi.util.primitive.SortedIntIndex;
+import net.sf.japi.util.primitive.SortedLongIndex;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Test for {@link SortedIntIndex} and {@link SortedLongIndex}.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ */
+public class SortedIntIndexTest {
+
+    /** Test case for searching indices of all sizes up to 100 with unique elements. */
+    @Test
+    public void testIndexOf() {
+        for (int size = 0; size <= 100; size++) {
+            final int[] sorted = new int[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = 2 * i;
+            }
+            final SortedIntIndex testling = new SortedIntIndex(sorted);
+            Assert.assertEquals(size, testling.size());
+            for (int key = -1; key <= 2 * size; key++) {
+                Assert.assertEquals("indexOf() must return the same as Arrays.binarySearch().", Arrays.binarySearch(sorted, key), testling.indexOf(key));
+                Assert.assertEquals("contains() must match.", key >= 0 && key < 2 * size && key % 2 == 0, testling.contains(key));
+            }
+            for (int i = 0; i < size; i++) {
+                Assert.assertEquals("get() must return the sorted element.", sorted[i], testling.get(i));
+            }
+        }
+    }
+
+    /** Test case for {@link SortedIntIndex#lowerBound(int)} with duplicate elements. */
+    @Test
+    public void testLowerBoundWithDuplicates() {
+        final SortedIntIndex testling = new SortedIntIndex(1, 3, 3, 3, 5, 5, 9);
+        Assert.assertEquals(0, testling.lowerBound(0));
+        Assert.assertEquals(1, testling.lowerBound(3));
+        Assert.assertEquals(4, testling.lowerBound(4));
+        Assert.assertEquals(6, testling.lowerBound(9));
+        Assert.assertEquals(7, testling.lowerBound(10));
+        Assert.assertEquals("indexOf() must find the first occurrence.", 4, testling.indexOf(5));
+    }
+
+    /** Test case for batched lookups. */
+    @Test
+    public void testBatchedIndexOf() {
+        final Random rnd = new Random(0);
+        final long[] sorted = new long[1000];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = rnd.nextLong();
+        }
+        Arrays.sort(sorted);
+        final SortedLongIndex testling = new SortedLongIndex(sorted);
+        final long[] keys = new long[333];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i % 2 == 0 ? sorted[rnd.nextInt(sorted.length)] : rnd.nextLong();
+        }
+        final int[] results = new int[keys.length];
+        testling.indexOf(keys, results);
+        for (int i = 0; i < keys.length; i++) {
+            Assert.assertEquals("Batched lookup must return the same as Arrays.binarySearch().", Arrays.binarySearch(sorted, keys[i]), results[i]);
+            Assert.assertEquals("Batched lookup must return the same as single lookup.", testling.indexOf(keys[i]), results[i]);
+        }
+    }
+
+    /** Test case for creating an index from an unsorted array. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsorted() {
+        new SortedIntIndex(1, 3, 2);
+    }
+
+} // class SortedIntIndexTest
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2009  Christian Hujer.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package test.net.sf.japi.util.primitive;
+
+import java.util.Arrays;
+import net.sf.japi.util.primitive.SortedLongIndex;
+import org.junit.Assert;
+import org.junit.Test;
+
+/** Test for {@link SortedLongIndex}.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ */
+public class SortedLongIndexTest {
+
+    /** Test case for searching indices of all sizes up to 100 with unique elements. */
+    @Test
+    public void testIndexOf() {
+        for (int size = 0; size <= 100; size++) {
+            final long[] sorted = new long[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = 2L * i + Integer.MAX_VALUE;
+            }
+            final SortedLongIndex testling = new SortedLongIndex(sorted);
+            Assert.assertEquals(size, testling.size());
+            for (long key = Integer.MAX_VALUE - 1L; key <= 2L * size + Integer.MAX_VALUE; key++) {
+                Assert.assertEquals("indexOf() must return the same as Arrays.binarySearch().", Arrays.binarySearch(sorted, key), testling.indexOf(key));
+                Assert.assertEquals("contains() must match.", key >= Integer.MAX_VALUE && key < 2L * size + Integer.MAX_VALUE && (key - Integer.MAX_VALUE) % 2 == 0, testling.contains(key));
+            }
+            for (int i = 0; i < size; i++) {
+                Assert.assertEquals("get() must return the sorted element.", sorted[i], testling.get(i));
+            }
+        }
+    }
+
+    /** Test case for {@link SortedLongIndex#lowerBound(long)} with duplicate and extreme elements. */
+    @Test
+    public void testLowerBoundWithDuplicates() {
+        final SortedLongIndex testling = new SortedLongIndex(Long.MIN_VALUE, 3, 3, 3, 5, 5, Long.MAX_VALUE);
+        Assert.assertEquals(0, testling.lowerBound(Long.MIN_VALUE));
+        Assert.assertEquals(1, testling.lowerBound(0));
+        Assert.assertEquals(1, testling.lowerBound(3));
+        Assert.assertEquals(4, testling.lowerBound(4));
+        Assert.assertEquals(6, testling.lowerBound(6));
+        Assert.assertEquals(6, testling.lowerBound(Long.MAX_VALUE));
+        Assert.assertEquals("indexOf() must find the first occurrence.", 4, testling.indexOf(5));
+        Assert.assertEquals("indexOf() must find the largest element.", 6, testling.indexOf(Long.MAX_VALUE));
+    }
+
+    /** Test case for batched lookups with fewer keys than a batch. */
+    @Test
+    public void testBatchedIndexOfFewKeys() {
+        final SortedLongIndex testling = new SortedLongIndex(10, 20, 30);
+        final long[] keys = { 30, 5, 20 };
+        final int[] results = new int[keys.length];
+        testling.indexOf(keys, results);
+        Assert.assertArrayEquals("Batched lookup must return the same as single lookups.", new int[] { 2, -1, 1 }, results);
+    }
+
+    /** Test case for creating an index from an unsorted array. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsorted() {
+        new SortedLongIndex(1, 3, 2);
+    }
+
+} // class SortedLongIndexTest
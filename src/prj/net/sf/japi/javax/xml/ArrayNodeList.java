@@ -1,6 +1,8 @@
 package net.sf.japi.javax.xml;
 
 import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import net.sf.japi.java.util.Arrays;
 import org.jetbrains.annotations.Nullable;
 import org.w3c.dom.Node;
@@ -42,4 +44,9 @@ public class ArrayNodeList<N extends Node> implements IterableNodeList<N> {
     public Iterator<N> iterator() {
         return Arrays.iterator(nodes);
     }
+
+    @Override
+    public Spliterator<N> spliterator() {
+        return Spliterators.spliterator(nodes, Spliterator.ORDERED);
+    }
 }
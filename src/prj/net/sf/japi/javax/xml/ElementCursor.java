@@ -0,0 +1,248 @@
+package net.sf.japi.javax.xml;
+
+import java.io.Closeable;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.jetbrains.annotations.Nullable;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/** A streaming cursor over the elements of an XML document which match a simple path expression.
+ * The document is read with StAX, and only the subtree of the current element is materialized as DOM.
+ * That way, arbitrarily large documents can be processed in one pass in constant memory, as long as the selected subtrees are small.
+ * <p>
+ * The path expression is a sequence of element names separated by {@code /}.
+ * An element name of {@code *} matches any element.
+ * Element names are matched against the local name, namespaces are ignored.
+ * A path starting with {@code /} is absolute, i.e. {@code /feed/entry} matches {@code entry} elements which are children of the {@code feed} document element.
+ * A path starting with {@code //} matches anywhere, i.e. {@code //entry} matches all {@code entry} elements which are not nested in other selected elements.
+ * A path without leading {@code /} is treated like a path starting with {@code //}.
+ * <p>
+ * The selected elements are created in a DOM document owned by this cursor, but are not appended to it.
+ * They stay valid after the cursor moved on, but they are no longer referenced by the cursor.
+ * <p>
+ * The cursor is {@link Iterable} only once, for use in for-each loops.
+ *
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class ElementCursor implements Iterator<Element>, Iterable<Element>, Closeable {
+
+    /** Path which selects the children of the document element, i.e. the document subtree-by-subtree. */
+    public static final String DOCUMENT_CHILDREN = "/*/*";
+
+    private final XMLStreamReader reader;
+    private final Document document;
+    private final String[] steps;
+    private final boolean absolute;
+
+    /** The local names of the currently open elements. */
+    private final List<String> openElements = new ArrayList<>();
+
+    @Nullable private Element next;
+    private boolean iterated;
+
+    /** Creates an ElementCursor which selects the elements of the specified path.
+     * @param reader XMLStreamReader from which to read the elements, should be at the start of a document.
+     * @param path Path expression which selects the elements.
+     * @throws IllegalArgumentException in case the path expression is empty.
+     */
+    public ElementCursor(final XMLStreamReader reader, final String path) {
+        this.reader = reader;
+        absolute = path.startsWith("/") && !path.startsWith("//");
+        steps = path.replaceFirst("^/+", "").split("/");
+        for (final String step : steps) {
+            if (step.isEmpty()) {
+                throw new IllegalArgumentException("Illegal path expression: " + path);
+            }
+        }
+        try {
+            document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        } catch (final ParserConfigurationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Opens an ElementCursor which selects the elements of the specified path.
+     * @param in InputStream from which to read the XML document.
+     * @param path Path expression which selects the elements.
+     * @return ElementCursor for reading the elements.
+     * @throws XMLStreamException in case the XMLStreamReader could not be created.
+     */
+    public static ElementCursor open(final InputStream in, final String path) throws XMLStreamException {
+        return new ElementCursor(createInputFactory().createXMLStreamReader(in), path);
+    }
+
+    /** Opens an ElementCursor which selects the elements of the specified path.
+     * @param in Reader from which to read the XML document.
+     * @param path Path expression which selects the elements.
+     * @return ElementCursor for reading the elements.
+     * @throws XMLStreamException in case the XMLStreamReader could not be created.
+     */
+    public static ElementCursor open(final Reader in, final String path) throws XMLStreamException {
+        return new ElementCursor(createInputFactory().createXMLStreamReader(in), path);
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = findNext();
+            } catch (final XMLStreamException e) {
+                throw new UncheckedXMLStreamException(e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public Element next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final Element element = next;
+        next = null;
+        return element;
+    }
+
+    @Override
+    public Iterator<Element> iterator() {
+        if (iterated) {
+            throw new IllegalStateException("ElementCursor can only be iterated once.");
+        }
+        iterated = true;
+        return this;
+    }
+
+    /** Closes the underlying XMLStreamReader.
+     * Note that this does not close the underlying source, see {@link XMLStreamReader#close()}.
+     */
+    @Override
+    public void close() {
+        try {
+            reader.close();
+        } catch (final XMLStreamException e) {
+            throw new UncheckedXMLStreamException(e);
+        }
+    }
+
+    @Nullable
+    private Element findNext() throws XMLStreamException {
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                openElements.add(reader.getLocalName());
+                if (matches()) {
+                    final Element element = readElement();
+                    openElements.remove(openElements.size() - 1);
+                    return element;
+                }
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                openElements.remove(openElements.size() - 1);
+                break;
+            default:
+            }
+        }
+        return null;
+    }
+
+    private boolean matches() {
+        final int depth = openElements.size();
+        if (absolute ? depth != steps.length : depth < steps.length) {
+            return false;
+        }
+        for (int i = 0; i < steps.length; i++) {
+            final String step = steps[steps.length - 1 - i];
+            if (!"*".equals(step) && !step.equals(openElements.get(depth - 1 - i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Reads the subtree of the current element into DOM.
+     * On return, the reader is positioned at the end of the current element.
+     * @return The current element with its subtree.
+     * @throws XMLStreamException in case of XML problems.
+     */
+    private Element readElement() throws XMLStreamException {
+        final Element element = createElement();
+        Node parent = element;
+        for (int depth = 1; depth > 0; ) {
+            switch (reader.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                parent = parent.appendChild(createElement());
+                depth++;
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                parent = parent.getParentNode();
+                depth--;
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.SPACE:
+                parent.appendChild(document.createTextNode(reader.getText()));
+                break;
+            case XMLStreamConstants.CDATA:
+                parent.appendChild(document.createCDATASection(reader.getText()));
+                break;
+            case XMLStreamConstants.COMMENT:
+                parent.appendChild(document.createComment(reader.getText()));
+                break;
+            case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                parent.appendChild(document.createProcessingInstruction(reader.getPITarget(), reader.getPIData()));
+                break;
+            case XMLStreamConstants.ENTITY_REFERENCE:
+                parent.appendChild(document.createEntityReference(reader.getLocalName()));
+                break;
+            default:
+            }
+        }
+        return element;
+    }
+
+    /** Creates an element for the current START_ELEMENT event, including its namespace declarations and attributes.
+     * @return Element for the current START_ELEMENT event.
+     */
+    private Element createElement() {
+        final Element element = document.createElementNS(emptyToNull(reader.getNamespaceURI()), qualifiedName(reader.getPrefix(), reader.getLocalName()));
+        for (int i = 0; i < reader.getNamespaceCount(); i++) {
+            final String prefix = reader.getNamespacePrefix(i);
+            final String name = prefix == null || prefix.isEmpty() ? XMLConstants.XMLNS_ATTRIBUTE : XMLConstants.XMLNS_ATTRIBUTE + ':' + prefix;
+            element.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, name, reader.getNamespaceURI(i));
+        }
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            element.setAttributeNS(emptyToNull(reader.getAttributeNamespace(i)), qualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)), reader.getAttributeValue(i));
+        }
+        return element;
+    }
+
+    private static String qualifiedName(@Nullable final String prefix, final String localName) {
+        return prefix == null || prefix.isEmpty() ? localName : prefix + ':' + localName;
+    }
+
+    @Nullable
+    private static String emptyToNull(@Nullable final String namespaceURI) {
+        return namespaceURI == null || namespaceURI.isEmpty() ? null : namespaceURI;
+    }
+}
@@ -0,0 +1,103 @@
+package net.sf.japi.javax.xml;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Predicate;
+import org.jetbrains.annotations.Nullable;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/** A lazy view of those nodes of a {@link NodeList} which match a filter.
+ * Iteration filters on the fly in a single pass over the source NodeList.
+ * The index of matching nodes is only built when {@link #item(int)} or {@link #getLength()} are used, and then cached.
+ * The view must not be used across modifications of the source NodeList.
+ *
+ * @param <N> Type of node in this NodeList.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @version 1.0
+ * @since 1.0
+ */
+class FilteredNodeListView<N extends Node> implements IterableNodeList<N> {
+
+    private final NodeList nodeList;
+    private final Predicate<? super Node> filter;
+
+    /** Indices of the matching nodes in the source NodeList, {@code null} until first needed. */
+    @Nullable private int[] indices;
+
+    FilteredNodeListView(final NodeList nodeList, final Predicate<? super Node> filter) {
+        this.nodeList = nodeList;
+        this.filter = filter;
+    }
+
+    private int[] getIndices() {
+        if (indices == null) {
+            final int sourceLength = nodeList.getLength();
+            int[] matches = new int[Math.min(sourceLength, 16)];
+            int length = 0;
+            for (int i = 0; i < sourceLength; i++) {
+                if (filter.test(nodeList.item(i))) {
+                    if (length == matches.length) {
+                        matches = Arrays.copyOf(matches, Math.min(sourceLength, length * 2));
+                    }
+                    matches[length++] = i;
+                }
+            }
+            indices = Arrays.copyOf(matches, length);
+        }
+        return indices;
+    }
+
+    @Nullable
+    @Override
+    public Node item(final int index) {
+        final int[] indices = getIndices();
+        if (index < 0 || index >= indices.length) {
+            return null;
+        }
+        return nodeList.item(indices[index]);
+    }
+
+    @Override
+    public int getLength() {
+        return getIndices().length;
+    }
+
+    @Override
+    public Iterator<N> iterator() {
+        return new Iterator<N>() {
+            private final int sourceLength = nodeList.getLength();
+            private int index;
+            @Nullable private Node next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && index < sourceLength) {
+                    final Node node = nodeList.item(index++);
+                    if (filter.test(node)) {
+                        next = node;
+                    }
+                }
+                return next != null;
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public N next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final Node node = next;
+                next = null;
+                return (N) node;
+            }
+        };
+    }
+
+    @Override
+    public Spliterator<N> spliterator() {
+        return new NodeListSpliterator<>(nodeList, filter, 0, nodeList.getLength());
+    }
+}
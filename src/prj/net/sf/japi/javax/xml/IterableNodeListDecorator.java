@@ -2,6 +2,7 @@ package net.sf.japi.javax.xml;
 
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
 import org.jetbrains.annotations.Nullable;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -15,10 +16,12 @@ class IterableNodeListDecorator<T extends Node> implements IterableNodeList<T> {
     @Override
     public Iterator<T> iterator() {
         return new Iterator<T>() {
+            // Some DOM implementations compute getLength() of live lists in O(n), so it is only queried once.
+            final int length = nodeList.getLength();
             int index;
             @Override
             public boolean hasNext() {
-                return index < nodeList.getLength();
+                return index < length;
             }
 
             @SuppressWarnings("unchecked")
@@ -32,6 +35,11 @@ class IterableNodeListDecorator<T extends Node> implements IterableNodeList<T> {
         };
     }
 
+    @Override
+    public Spliterator<T> spliterator() {
+        return new NodeListSpliterator<>(nodeList, null, 0, nodeList.getLength());
+    }
+
     @Nullable
     @Override
     public Node item(final int index) {
@@ -0,0 +1,69 @@
+package net.sf.japi.javax.xml;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import org.jetbrains.annotations.Nullable;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/** A lazy view of a {@link NodeList} which maps each node of the source NodeList to another node.
+ * The length of the source NodeList is cached when first needed.
+ * The view must not be used across modifications of the source NodeList.
+ *
+ * @param <N> Type of node in this NodeList.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @version 1.0
+ * @since 1.0
+ */
+class MappedNodeListView<N extends Node> implements IterableNodeList<N> {
+
+    private final NodeList nodeList;
+    private final Function<? super Node, ? extends N> mapper;
+
+    /** The cached length of the source NodeList, -1 until first needed. */
+    private int length = -1;
+
+    MappedNodeListView(final NodeList nodeList, final Function<? super Node, ? extends N> mapper) {
+        this.nodeList = nodeList;
+        this.mapper = mapper;
+    }
+
+    @Nullable
+    @Override
+    public Node item(final int index) {
+        if (index < 0 || index >= getLength()) {
+            return null;
+        }
+        return mapper.apply(nodeList.item(index));
+    }
+
+    @Override
+    public int getLength() {
+        if (length < 0) {
+            length = nodeList.getLength();
+        }
+        return length;
+    }
+
+    @Override
+    public Iterator<N> iterator() {
+        return new Iterator<N>() {
+            private final int length = getLength();
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < length;
+            }
+
+            @Override
+            public N next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return mapper.apply(nodeList.item(index++));
+            }
+        };
+    }
+}
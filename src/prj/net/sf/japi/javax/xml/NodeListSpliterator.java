@@ -0,0 +1,87 @@
+package net.sf.japi.javax.xml;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import org.jetbrains.annotations.Nullable;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/** A {@link Spliterator} over an index range of a {@link NodeList}.
+ * Splitting halves the index range, so parallel streams are efficient for NodeLists with O(1) {@link NodeList#item(int)}, like snapshots.
+ * If a filter is given, nodes not matching the filter are skipped, and the spliterator is no longer {@link #SIZED}.
+ *
+ * @param <N> Type of node in this Spliterator.
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @version 1.0
+ * @since 1.0
+ */
+class NodeListSpliterator<N extends Node> implements Spliterator<N> {
+
+    /** Minimum number of nodes in a range for splitting. */
+    private static final int MIN_SPLIT_SIZE = 1024;
+
+    private final NodeList nodeList;
+    @Nullable private final Predicate<? super Node> filter;
+    private int index;
+    private final int fence;
+
+    /** Creates a NodeListSpliterator.
+     * @param nodeList NodeList to split, must not change while the spliterator is in use.
+     * @param filter Filter for the nodes or {@code null} for all nodes.
+     * @param origin Index of the first node (inclusive).
+     * @param fence Index of the last node (exclusive).
+     */
+    NodeListSpliterator(final NodeList nodeList, @Nullable final Predicate<? super Node> filter, final int origin, final int fence) {
+        this.nodeList = nodeList;
+        this.filter = filter;
+        index = origin;
+        this.fence = fence;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean tryAdvance(final Consumer<? super N> action) {
+        while (index < fence) {
+            final Node node = nodeList.item(index++);
+            if (filter == null || filter.test(node)) {
+                action.accept((N) node);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEachRemaining(final Consumer<? super N> action) {
+        for (; index < fence; index++) {
+            final Node node = nodeList.item(index);
+            if (filter == null || filter.test(node)) {
+                action.accept((N) node);
+            }
+        }
+    }
+
+    @Nullable
+    @Override
+    public Spliterator<N> trySplit() {
+        final int origin = index;
+        final int mid = (origin + fence) >>> 1;
+        if (mid - origin < MIN_SPLIT_SIZE) {
+            return null;
+        }
+        index = mid;
+        return new NodeListSpliterator<>(nodeList, filter, origin, mid);
+    }
+
+    @Override
+    public long estimateSize() {
+        return fence - index;
+    }
+
+    @Override
+    public int characteristics() {
+        return filter == null ? ORDERED | NONNULL | SIZED | SUBSIZED : ORDERED | NONNULL;
+    }
+}
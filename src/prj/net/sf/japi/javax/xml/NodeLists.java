@@ -1,5 +1,11 @@
 package net.sf.japi.javax.xml;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
@@ -40,4 +46,115 @@ public class NodeLists {
     public static IterableNodeList<?> emptyNodeList() {
         return EMPTY_NODE_LIST;
     }
+
+    /**
+     * Returns a lazy view of those nodes of the specified NodeList which match the specified filter.
+     * Iterating the view is a single pass over the NodeList.
+     * Indexed access builds and caches an index of the matching nodes on first use.
+     * The view must not be used across modifications of the NodeList.
+     *
+     * @param nodeList
+     *         NodeList to filter.
+     * @param filter
+     *         Filter for the nodes.
+     * @return A filtered view of the NodeList.
+     */
+    public static <N extends Node> IterableNodeList<N> filter(final NodeList nodeList, final Predicate<? super Node> filter) {
+        return new FilteredNodeListView<>(nodeList, filter);
+    }
+
+    /**
+     * Returns a lazy view of the specified NodeList which maps each node with the specified mapper.
+     * The view must not be used across modifications of the NodeList.
+     *
+     * @param nodeList
+     *         NodeList to map.
+     * @param mapper
+     *         Function which maps each node of the NodeList.
+     * @return A mapped view of the NodeList.
+     */
+    public static <N extends Node> IterableNodeList<N> map(final NodeList nodeList, final Function<? super Node, ? extends N> mapper) {
+        return new MappedNodeListView<>(nodeList, mapper);
+    }
+
+    /**
+     * Returns a snapshot of the specified NodeList.
+     * The snapshot is created in a single pass over the NodeList and guarantees O(1) {@link NodeList#item(int)} and {@link NodeList#getLength()}.
+     * Later modifications of the NodeList do not reflect in the snapshot.
+     *
+     * @param nodeList
+     *         NodeList of which to create a snapshot.
+     * @return A snapshot of the NodeList.
+     */
+    @SuppressWarnings("unchecked")
+    public static <N extends Node> IterableNodeList<N> snapshot(final NodeList nodeList) {
+        final List<Node> nodes = new ArrayList<>();
+        for (final Node node : iterable(nodeList)) {
+            nodes.add(node);
+        }
+        return new ArrayNodeList<>((N[]) nodes.toArray(new Node[nodes.size()]));
+    }
+
+    /**
+     * Returns a snapshot of the children of the specified node.
+     * Unlike {@link Node#getChildNodes()}, the children are collected by walking the siblings, which takes linear time regardless of the DOM implementation.
+     *
+     * @param parent
+     *         Node of which to return the children.
+     * @return A snapshot of the children of the node.
+     */
+    @SuppressWarnings("unchecked")
+    public static <N extends Node> IterableNodeList<N> childNodes(final Node parent) {
+        final List<Node> nodes = new ArrayList<>();
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            nodes.add(node);
+        }
+        return new ArrayNodeList<>((N[]) nodes.toArray(new Node[nodes.size()]));
+    }
+
+    /**
+     * Returns a stream of the nodes of the specified NodeList.
+     * A parallel stream splits by index, so it should be used on NodeLists with O(1) {@link NodeList#item(int)}, like {@link #snapshot(NodeList)}.
+     *
+     * @param nodeList
+     *         NodeList for which to return a stream.
+     * @param parallel
+     *         {@code true} for a parallel stream, {@code false} for a sequential stream.
+     * @return A stream of the nodes of the NodeList.
+     */
+    public static <N extends Node> Stream<N> stream(final NodeList nodeList, final boolean parallel) {
+        return StreamSupport.stream(NodeLists.<N>iterable(nodeList).spliterator(), parallel);
+    }
+
+    /**
+     * Returns a filter which accepts nodes of the specified type.
+     *
+     * @param nodeType
+     *         Node type to accept, e.g. {@link Node#ELEMENT_NODE}.
+     * @return A filter which accepts nodes of the specified type.
+     */
+    public static Predicate<Node> ofType(final short nodeType) {
+        return new Predicate<Node>() {
+            @Override
+            public boolean test(final Node node) {
+                return node.getNodeType() == nodeType;
+            }
+        };
+    }
+
+    /**
+     * Returns a filter which accepts elements with the specified name.
+     *
+     * @param elementName
+     *         Name of the elements to accept.
+     * @return A filter which accepts elements with the specified name.
+     */
+    public static Predicate<Node> elementsNamed(final String elementName) {
+        return new Predicate<Node>() {
+            @Override
+            public boolean test(final Node node) {
+                return node.getNodeType() == Node.ELEMENT_NODE && node.getNodeName().equals(elementName);
+            }
+        };
+    }
 }
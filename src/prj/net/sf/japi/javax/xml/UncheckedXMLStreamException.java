@@ -0,0 +1,27 @@
+package net.sf.japi.javax.xml;
+
+import javax.xml.stream.XMLStreamException;
+
+/** Wraps an {@link XMLStreamException} with an unchecked exception.
+ * Used where the checked exception cannot be thrown, like in {@link java.util.Iterator#next()}.
+ *
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class UncheckedXMLStreamException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Creates an UncheckedXMLStreamException.
+     * @param cause XMLStreamException to wrap.
+     */
+    public UncheckedXMLStreamException(final XMLStreamException cause) {
+        super(cause);
+    }
+
+    @Override
+    public synchronized XMLStreamException getCause() {
+        return (XMLStreamException) super.getCause();
+    }
+}
@@ -0,0 +1,154 @@
+package net.sf.japi.xml;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import net.sf.japi.javax.xml.IterableNodeList;
+import net.sf.japi.javax.xml.NodeLists;
+import org.jetbrains.annotations.Nullable;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/** A cache of compiled XPath expressions for one namespace context.
+ * Creating {@link XPath} objects and compiling expressions is expensive compared to evaluating them.
+ * An XPathCache compiles each expression only once per concurrent use and keeps the compiled expressions in a pool, so repeated queries only cost their evaluation.
+ * Because neither {@link XPath} nor {@link XPathExpression} are thread-safe, each thread uses its own {@link XPath} object, and a compiled expression is only used by one thread at a time.
+ * An XPathCache itself is thread-safe and should be shared.
+ * <p>
+ * Namespace prefixes are resolved when an expression is compiled.
+ * The namespace context therefore must not be changed after the first expression was compiled.
+ *
+ * @author <a href="mailto:cher@riedquat.de">Christian Hujer</a>
+ * @version 1.0
+ * @since 1.0
+ */
+public class XPathCache {
+
+    /** The namespace context of the expressions in this cache, or {@code null} for no namespace context. */
+    @Nullable private final NamespaceContext namespaceContext;
+
+    /** The XPath objects for compiling the expressions, one per thread. */
+    private final ThreadLocal<XPath> xPaths = new ThreadLocal<XPath>() {
+        @Override
+        protected XPath initialValue() {
+            final XPath xPath = XPathFactory.newInstance().newXPath();
+            if (namespaceContext != null) {
+                xPath.setNamespaceContext(namespaceContext);
+            }
+            return xPath;
+        }
+    };
+
+    /** The pools of compiled expressions that are currently not in use. */
+    private final ConcurrentMap<String, Queue<XPathExpression>> pools = new ConcurrentHashMap<>();
+
+    /** Creates an XPathCache without namespace context. */
+    public XPathCache() {
+        this(null);
+    }
+
+    /** Creates an XPathCache.
+     * @param namespaceContext Namespace context for the expressions or {@code null} for no namespace context.
+     */
+    public XPathCache(@Nullable final NamespaceContext namespaceContext) {
+        this.namespaceContext = namespaceContext;
+    }
+
+    /** Evaluates an expression.
+     * @param expression XPath expression to evaluate.
+     * @param item Context item for the evaluation, usually a {@link Node}.
+     * @param returnType Return type, one of the constants of {@link XPathConstants}.
+     * @return Result of the evaluation.
+     * @throws XPathExpressionException in case the expression cannot be compiled or evaluated.
+     */
+    public Object evaluate(final String expression, final Object item, final QName returnType) throws XPathExpressionException {
+        final Queue<XPathExpression> pool = getPool(expression);
+        XPathExpression compiled = pool.poll();
+        if (compiled == null) {
+            compiled = xPaths.get().compile(expression);
+        }
+        try {
+            return compiled.evaluate(item, returnType);
+        } finally {
+            pool.offer(compiled);
+        }
+    }
+
+    /** Evaluates an expression to a String.
+     * @param expression XPath expression to evaluate.
+     * @param item Context item for the evaluation, usually a {@link Node}.
+     * @return Result of the evaluation.
+     * @throws XPathExpressionException in case the expression cannot be compiled or evaluated.
+     */
+    public String evaluateString(final String expression, final Object item) throws XPathExpressionException {
+        return (String) evaluate(expression, item, XPathConstants.STRING);
+    }
+
+    /** Evaluates an expression to a number.
+     * @param expression XPath expression to evaluate.
+     * @param item Context item for the evaluation, usually a {@link Node}.
+     * @return Result of the evaluation.
+     * @throws XPathExpressionException in case the expression cannot be compiled or evaluated.
+     */
+    public double evaluateNumber(final String expression, final Object item) throws XPathExpressionException {
+        return (Double) evaluate(expression, item, XPathConstants.NUMBER);
+    }
+
+    /** Evaluates an expression to a boolean.
+     * @param expression XPath expression to evaluate.
+     * @param item Context item for the evaluation, usually a {@link Node}.
+     * @return Result of the evaluation.
+     * @throws XPathExpressionException in case the expression cannot be compiled or evaluated.
+     */
+    public boolean evaluateBoolean(final String expression, final Object item) throws XPathExpressionException {
+        return (Boolean) evaluate(expression, item, XPathConstants.BOOLEAN);
+    }
+
+    /** Evaluates an expression to a single node.
+     * @param expression XPath expression to evaluate.
+     * @param item Context item for the evaluation, usually a {@link Node}.
+     * @param <N> Type of the node.
+     * @return Result of the evaluation or {@code null} if the expression selected no node.
+     * @throws XPathExpressionException in case the expression cannot be compiled or evaluated.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <N extends Node> N evaluateNode(final String expression, final Object item) throws XPathExpressionException {
+        return (N) evaluate(expression, item, XPathConstants.NODE);
+    }
+
+    /** Evaluates an expression to a NodeList.
+     * @param expression XPath expression to evaluate.
+     * @param item Context item for the evaluation, usually a {@link Node}.
+     * @param <N> Type of the nodes.
+     * @return Result of the evaluation.
+     * @throws XPathExpressionException in case the expression cannot be compiled or evaluated.
+     */
+    public <N extends Node> IterableNodeList<N> evaluateNodeList(final String expression, final Object item) throws XPathExpressionException {
+        return NodeLists.iterable((NodeList) evaluate(expression, item, XPathConstants.NODESET));
+    }
+
+    /** Returns the pool of compiled expressions for the specified expression.
+     * @param expression XPath expression for which to return the pool.
+     * @return The pool of compiled expressions.
+     */
+    private Queue<XPathExpression> getPool(final String expression) {
+        Queue<XPathExpression> pool = pools.get(expression);
+        if (pool == null) {
+            final Queue<XPathExpression> newPool = new ConcurrentLinkedQueue<>();
+            pool = pools.putIfAbsent(expression, newPool);
+            if (pool == null) {
+                pool = newPool;
+            }
+        }
+        return pool;
+    }
+}
@@ -0,0 +1,80 @@
+package net.sf.japi.javax.xml;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import javax.xml.stream.XMLStreamException;
+import org.junit.Test;
+import org.w3c.dom.Element;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class ElementCursorTest {
+
+    private static final String SAMPLE_XML = "<feed xmlns:x='urn:x'><title>t</title>"
+            + "<entry id='1'><title>one</title><x:data x:foo='bar'><![CDATA[<raw>]]></x:data></entry>"
+            + "<group><entry id='2'><title>two</title></entry></group>"
+            + "<entry id='3'><title>three</title><entry id='nested'/></entry>"
+            + "</feed>";
+
+    private static List<String> readIds(final String path) throws XMLStreamException {
+        final List<String> ids = new ArrayList<>();
+        try (final ElementCursor cursor = ElementCursor.open(new StringReader(SAMPLE_XML), path)) {
+            for (final Element element : cursor) {
+                ids.add(element.getAttribute("id"));
+            }
+        }
+        return ids;
+    }
+
+    @Test
+    public void absolutePath_selectsChildrenOfDocumentElement() throws XMLStreamException {
+        assertEquals(Arrays.asList("1", "3"), readIds("/feed/entry"));
+    }
+
+    @Test
+    public void relativePath_selectsOutermostMatchingElements() throws XMLStreamException {
+        assertEquals(Arrays.asList("1", "2", "3"), readIds("entry"));
+        assertEquals(Arrays.asList("1", "2", "3"), readIds("//entry"));
+    }
+
+    @Test
+    public void wildcard_selectsDocumentSubtrees() throws XMLStreamException {
+        assertEquals(Arrays.asList("", "1", "", "3"), readIds(ElementCursor.DOCUMENT_CHILDREN));
+    }
+
+    @Test
+    public void selectedElement_containsSubtree() throws XMLStreamException {
+        try (final ElementCursor cursor = ElementCursor.open(new StringReader(SAMPLE_XML), "/feed/entry")) {
+            final Element entry = cursor.next();
+            assertEquals("one", entry.getElementsByTagName("title").item(0).getTextContent());
+            final Element data = (Element) entry.getElementsByTagNameNS("urn:x", "data").item(0);
+            assertEquals("x:data", data.getTagName());
+            assertEquals("bar", data.getAttributeNS("urn:x", "foo"));
+            assertEquals("<raw>", data.getTextContent());
+        }
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void exhaustedCursor_throwsNoSuchElementException() throws XMLStreamException {
+        try (final ElementCursor cursor = ElementCursor.open(new StringReader(SAMPLE_XML), "/feed/missing")) {
+            assertFalse(cursor.hasNext());
+            cursor.next();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyPathStep_throwsIllegalArgumentException() throws XMLStreamException {
+        ElementCursor.open(new StringReader(SAMPLE_XML), "/feed//entry");
+    }
+
+    @Test(expected = UncheckedXMLStreamException.class)
+    public void malformedXml_throwsUncheckedXMLStreamException() throws XMLStreamException {
+        try (final ElementCursor cursor = ElementCursor.open(new StringReader("<feed><entry></feed>"), "/feed/entry")) {
+            cursor.hasNext();
+        }
+    }
+}
@@ -3,6 +3,8 @@ package net.sf.japi.javax.xml;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import org.junit.Test;
@@ -10,10 +12,13 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import org.w3c.dom.Text;
 
 import static net.sf.japi.javax.xml.NodeLists.emptyNodeList;
 import static net.sf.japi.javax.xml.NodeLists.iterable;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 public class NodeListsTest {
 
@@ -66,4 +71,92 @@ public class NodeListsTest {
         ArrayNodeListTest.assertArrayInNodeList(elementArray, NodeLists.iterable(nodeList));
         assertEquals(Arrays.asList(elementArray), asList(nodeList));
     }
+
+    private static Element createSampleDocumentElement() throws ParserConfigurationException {
+        final Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        final Element documentElement = document.createElement("doc");
+        document.appendChild(documentElement);
+        return documentElement;
+    }
+
+    @Test
+    public void filter_returnsMatchingNodes() throws ParserConfigurationException {
+        final Element documentElement = createSampleDocumentElement();
+        final Element[] elements = createAndAppendElements(documentElement, "foo", "bar", "foo");
+        documentElement.appendChild(documentElement.getOwnerDocument().createTextNode("text"));
+        final NodeList filtered = NodeLists.filter(documentElement.getChildNodes(), NodeLists.elementsNamed("foo"));
+        assertEquals(Arrays.<Node>asList(elements[0], elements[2]), asList(filtered));
+        ArrayNodeListTest.assertArrayInNodeList(new Node[] {elements[0], elements[2]}, filtered);
+    }
+
+    @Test
+    public void filterByType_returnsNodesOfType() throws ParserConfigurationException {
+        final Element documentElement = createSampleDocumentElement();
+        createAndAppendElements(documentElement, "foo", "bar");
+        final Text text = documentElement.getOwnerDocument().createTextNode("text");
+        documentElement.appendChild(text);
+        final NodeList filtered = NodeLists.filter(documentElement.getChildNodes(), NodeLists.ofType(Node.TEXT_NODE));
+        assertEquals(1, filtered.getLength());
+        assertSame(text, filtered.item(0));
+        assertNull(filtered.item(1));
+    }
+
+    @Test
+    public void map_returnsMappedNodes() throws ParserConfigurationException {
+        final Element documentElement = createSampleDocumentElement();
+        final Element[] elements = createAndAppendElements(documentElement, "foo", "bar");
+        final Text[] texts = new Text[elements.length];
+        for (int i = 0; i < elements.length; i++) {
+            texts[i] = documentElement.getOwnerDocument().createTextNode(elements[i].getNodeName());
+            elements[i].appendChild(texts[i]);
+        }
+        final NodeList mapped = NodeLists.map(documentElement.getChildNodes(), new Function<Node, Node>() {
+            @Override
+            public Node apply(final Node node) {
+                return node.getFirstChild();
+            }
+        });
+        ArrayNodeListTest.assertArrayInNodeList(texts, mapped);
+        assertEquals(Arrays.<Node>asList(texts), asList(mapped));
+    }
+
+    @Test
+    public void snapshot_isNotAffectedByModifications() throws ParserConfigurationException {
+        final Element documentElement = createSampleDocumentElement();
+        final Element[] elements = createAndAppendElements(documentElement, "foo", "bar", "buzz");
+        final NodeList snapshot = NodeLists.snapshot(documentElement.getChildNodes());
+        documentElement.removeChild(elements[1]);
+        ArrayNodeListTest.assertArrayInNodeList(elements, snapshot);
+    }
+
+    @Test
+    public void childNodes_returnsChildren() throws ParserConfigurationException {
+        final Element documentElement = createSampleDocumentElement();
+        final Element[] elements = createAndAppendElements(documentElement, "foo", "bar", "buzz");
+        ArrayNodeListTest.assertArrayInNodeList(elements, NodeLists.childNodes(documentElement));
+    }
+
+    @Test
+    public void parallelStream_returnsAllNodesInOrder() throws ParserConfigurationException {
+        final Element documentElement = createSampleDocumentElement();
+        final String[] elementNames = new String[10000];
+        Arrays.fill(elementNames, "foo");
+        final Element[] elements = createAndAppendElements(documentElement, elementNames);
+        final List<Node> nodes = NodeLists.<Node>stream(NodeLists.childNodes(documentElement), true).collect(Collectors.<Node>toList());
+        assertEquals(Arrays.<Node>asList(elements), nodes);
+    }
+
+    @Test
+    public void parallelStreamOfFilter_returnsMatchingNodesInOrder() throws ParserConfigurationException {
+        final Element documentElement = createSampleDocumentElement();
+        final String[] elementNames = new String[10000];
+        for (int i = 0; i < elementNames.length; i++) {
+            elementNames[i] = i % 2 == 0 ? "foo" : "bar";
+        }
+        createAndAppendElements(documentElement, elementNames);
+        final NodeList filtered = NodeLists.filter(NodeLists.childNodes(documentElement), NodeLists.elementsNamed("bar"));
+        final List<Node> nodes = NodeLists.<Node>stream(filtered, true).collect(Collectors.<Node>toList());
+        assertEquals(asList(filtered), nodes);
+        assertEquals(elementNames.length / 2, nodes.size());
+    }
 }
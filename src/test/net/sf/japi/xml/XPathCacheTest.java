@@ -0,0 +1,110 @@
+package net.sf.japi.xml;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPathExpressionException;
+import net.sf.japi.javax.xml.IterableNodeList;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class XPathCacheTest {
+
+    private static Document document;
+
+    @BeforeClass
+    public static void initDocument() throws Exception {
+        final DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+        dbf.setNamespaceAware(true);
+        document = dbf.newDocumentBuilder().parse(new InputSource(new StringReader("<doc xmlns:r='urn:r'><r:redirect from='a' to='b'/><r:redirect from='c' to='d'/></doc>")));
+    }
+
+    private static NamespaceContext createNamespaceContext() {
+        return new NamespaceContext() {
+            @Override
+            public String getNamespaceURI(final String prefix) {
+                return "red".equals(prefix) ? "urn:r" : "";
+            }
+
+            @Override
+            public String getPrefix(final String namespaceURI) {
+                return "urn:r".equals(namespaceURI) ? "red" : null;
+            }
+
+            @Override
+            public Iterator<String> getPrefixes(final String namespaceURI) {
+                return Collections.singletonList(getPrefix(namespaceURI)).iterator();
+            }
+        };
+    }
+
+    @Test
+    public void evaluateNodeList_returnsIterableNodeList() throws XPathExpressionException {
+        final XPathCache cache = new XPathCache(createNamespaceContext());
+        final List<String> froms = new ArrayList<>();
+        final IterableNodeList<Element> redirects = cache.evaluateNodeList("//red:redirect", document);
+        for (final Element redirect : redirects) {
+            froms.add(redirect.getAttribute("from"));
+        }
+        assertEquals(Arrays.asList("a", "c"), froms);
+    }
+
+    @Test
+    public void typedEvaluations_returnExpectedResults() throws XPathExpressionException {
+        final XPathCache cache = new XPathCache(createNamespaceContext());
+        assertEquals("b", cache.evaluateString("//red:redirect[@from='a']/@to", document));
+        assertEquals(2.0, cache.evaluateNumber("count(//red:redirect)", document), 0.0);
+        assertTrue(cache.evaluateBoolean("//red:redirect[@from='c']", document));
+        assertFalse(cache.evaluateBoolean("//red:redirect[@from='x']", document));
+        assertEquals("d", cache.<Element>evaluateNode("//red:redirect[2]", document).getAttribute("to"));
+        assertNull(cache.evaluateNode("//red:redirect[3]", document));
+    }
+
+    @Test(expected = XPathExpressionException.class)
+    public void invalidExpression_throwsXPathExpressionException() throws XPathExpressionException {
+        new XPathCache().evaluateString("//[", document);
+    }
+
+    @Test
+    public void concurrentEvaluations_returnExpectedResults() throws Exception {
+        final XPathCache cache = new XPathCache(createNamespaceContext());
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                final String from = Integer.toString(i);
+                results.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        // DOM implementations are not thread-safe, so each task uses its own document.
+                        final Element redirect = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument().createElement("redirect");
+                        redirect.setAttribute("from", from);
+                        return cache.evaluateString("@from", redirect);
+                    }
+                }));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(Integer.toString(i), results.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}